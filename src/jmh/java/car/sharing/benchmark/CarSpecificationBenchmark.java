@@ -0,0 +1,69 @@
+package car.sharing.benchmark;
+
+import car.sharing.dto.car.CarSearchParametersDto;
+import car.sharing.model.Car;
+import car.sharing.repository.specification.car.AvailabilitySpecificationProvider;
+import car.sharing.repository.specification.car.BrandSpecificationProvider;
+import car.sharing.repository.specification.car.CarInSpecificationProviderManager;
+import car.sharing.repository.specification.car.CarSpecificationBuilder;
+import car.sharing.repository.specification.car.DailyFeeSpecificationProvider;
+import car.sharing.repository.specification.car.ModelSpecificationProvider;
+import car.sharing.repository.specification.car.TypeSpecificationProvider;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Measures building of the search specification only, the query itself is not executed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarSpecificationBenchmark {
+    private CarSpecificationBuilder specificationBuilder;
+    private CarSearchParametersDto allParameters;
+    private CarSearchParametersDto brandsOnly;
+
+    @Setup
+    public void setUp() {
+        specificationBuilder = new CarSpecificationBuilder(
+                new CarInSpecificationProviderManager(List.of(
+                        new BrandSpecificationProvider(),
+                        new ModelSpecificationProvider())),
+                new TypeSpecificationProvider(),
+                new DailyFeeSpecificationProvider(),
+                // none of the benchmarked searches is by availability
+                new AvailabilitySpecificationProvider(null));
+        allParameters = new CarSearchParametersDto(
+                List.of("Model S", "Model 3"),
+                List.of("Tesla", "BMW", "Audi"),
+                List.of(new BigDecimal("10"), new BigDecimal("100")),
+                List.of("sedan", "suv"),
+                null);
+        brandsOnly = new CarSearchParametersDto(List.of(), List.of("Tesla"), null, null, null);
+    }
+
+    @Benchmark
+    public Specification<Car> buildAllParameters() {
+        return specificationBuilder.build(allParameters);
+    }
+
+    @Benchmark
+    public Specification<Car> buildBrandsOnly() {
+        return specificationBuilder.build(brandsOnly);
+    }
+}
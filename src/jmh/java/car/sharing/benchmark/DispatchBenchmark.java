@@ -0,0 +1,157 @@
+package car.sharing.benchmark;
+
+import car.sharing.model.Car;
+import car.sharing.model.Payment;
+import car.sharing.repository.specification.car.BrandSpecificationProvider;
+import car.sharing.repository.specification.car.CarInSpecificationProviderManager;
+import car.sharing.repository.specification.car.InSpecificationProvider;
+import car.sharing.repository.specification.car.ModelSpecificationProvider;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import car.sharing.telegram.strategy.NotificationService;
+import car.sharing.telegram.strategy.NotificationStrategy;
+import car.sharing.telegram.strategy.car.TelegramCarCreationNotificationService;
+import car.sharing.telegram.strategy.car.TelegramCarDeletionNotificationService;
+import car.sharing.telegram.strategy.car.TelegramCarUpdatingNotificationService;
+import car.sharing.telegram.strategy.payment.TelegramSuccessfulPaymentNotificationService;
+import car.sharing.telegram.strategy.rental.TelegramRentalCreationNotificationService;
+import car.sharing.telegram.strategy.rental.TelegramRentalReturningNotificationService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
+import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminResponseStrategy;
+import car.sharing.telegram.strategy.response.impl.AdminGetCarResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminGetPaymentResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminGetRentalResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminGetUserResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminHelpResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminStartResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminUnknownResponseService;
+import car.sharing.telegram.strategy.user.TelegramRoleUpdatingNotificationService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares strategy lookups by scanning every bean (how they were done before)
+ * with the lookups through maps built on start (how they are done now).
+ * Legacy lookups are reproduced here on the same beans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    private static final String TELEGRAM = "telegram";
+    private static final String MESSAGE_TYPE = "role updating";
+    private static final String COMMAND = "Get info about a payment with id: 15";
+    private static final String SPECIFICATION_KEY = "model";
+    private List<PaymentService> paymentServices;
+    private List<NotificationService<Object>> notificationServices;
+    private List<AdminCommandResponseService> commandResponseServices;
+    private AdminUnknownResponseService unknownResponseService;
+    private List<InSpecificationProvider<Car>> specificationProviders;
+    private PaymentStrategy paymentStrategy;
+    private NotificationStrategy<Object> notificationStrategy;
+    private AdminResponseStrategy adminResponseStrategy;
+    private CarInSpecificationProviderManager specificationProviderManager;
+
+    @Setup
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void setUp() {
+        paymentServices = List.of(new InTimePaymentService(), new FinePaymentService());
+        notificationServices = (List) List.of(
+                new TelegramCarCreationNotificationService(),
+                new TelegramCarUpdatingNotificationService(),
+                new TelegramCarDeletionNotificationService(),
+                new TelegramRentalCreationNotificationService(),
+                new TelegramRentalReturningNotificationService(),
+                new TelegramSuccessfulPaymentNotificationService(),
+                new TelegramRoleUpdatingNotificationService());
+        // repositories are not needed, messages are never built here
+        commandResponseServices = List.of(
+                new AdminStartResponseService(),
+                new AdminHelpResponseService(),
+                new AdminGetUserResponseService(null),
+                new AdminGetCarResponseService(null),
+                new AdminGetRentalResponseService(null),
+                new AdminGetPaymentResponseService(null));
+        unknownResponseService = new AdminUnknownResponseService();
+        specificationProviders = List.of(
+                new BrandSpecificationProvider(),
+                new ModelSpecificationProvider());
+
+        paymentStrategy = new PaymentStrategy(paymentServices);
+        notificationStrategy = new NotificationStrategy<>(notificationServices);
+        adminResponseStrategy =
+                new AdminResponseStrategy(commandResponseServices, unknownResponseService);
+        specificationProviderManager =
+                new CarInSpecificationProviderManager(specificationProviders);
+    }
+
+    @Benchmark
+    public PaymentService paymentStrategyLegacy() {
+        return paymentServices.stream()
+                .filter(service -> service.isApplicable(Payment.Type.FINE))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public PaymentService paymentStrategy() {
+        return paymentStrategy.getPaymentService(Payment.Type.FINE);
+    }
+
+    @Benchmark
+    public NotificationService<Object> notificationStrategyLegacy() {
+        return notificationServices.stream()
+                .filter(service -> service.getNotificationService().equalsIgnoreCase(TELEGRAM)
+                        && service.getMessageType().equalsIgnoreCase(MESSAGE_TYPE))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public NotificationService<Object> notificationStrategy() {
+        return notificationStrategy.getNotificationService(TELEGRAM, MESSAGE_TYPE);
+    }
+
+    @Benchmark
+    public AdminResponseService adminResponseStrategyLegacy() {
+        return commandResponseServices.stream()
+                .filter(service -> COMMAND.matches("^(?i)" + service.getCommandRegex() + "$"))
+                .findFirst()
+                .map(AdminResponseService.class::cast)
+                .orElse(unknownResponseService);
+    }
+
+    @Benchmark
+    public AdminResponseService adminResponseStrategy() {
+        return adminResponseStrategy.getResponseService(COMMAND);
+    }
+
+    @Benchmark
+    public InSpecificationProvider<Car> specificationManagerLegacy() {
+        return specificationProviders.stream()
+                .filter(provider -> provider.getKey().equals(SPECIFICATION_KEY))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public InSpecificationProvider<Car> specificationManager() {
+        return specificationProviderManager.getSpecificationProvider(SPECIFICATION_KEY);
+    }
+}
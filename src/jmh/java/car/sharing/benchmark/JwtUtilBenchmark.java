@@ -0,0 +1,63 @@
+package car.sharing.benchmark;
+
+import car.sharing.model.Role;
+import car.sharing.model.User;
+import car.sharing.security.JwtUtil;
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Token generation happens on every login, validation and parsing on every authenticated request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+    private static final String SECRET = "13VPOTB1313VPOTB1313VPOTB1313VPOTB1313VPOTB1313VPOTB13";
+    private static final long EXPIRATION = 600000L;
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET);
+        // expiration is injected by Spring in the application
+        Field expiration = ReflectionUtils.findField(JwtUtil.class, "expiration");
+        ReflectionUtils.makeAccessible(expiration);
+        ReflectionUtils.setField(expiration, jwtUtil, EXPIRATION);
+
+        Role manager = new Role(2L);
+        manager.setName(Role.RoleName.ROLE_MANAGER);
+        user = new User();
+        user.setId(1L);
+        user.setEmail("admin@example.com");
+        user.setRoles(Set.of(new Role(1L), manager));
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String getUsername() {
+        return jwtUtil.getUsername(token);
+    }
+}
@@ -0,0 +1,130 @@
+package car.sharing.benchmark;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CreateCarRequestDto;
+import car.sharing.dto.payment.PaymentResponseDto;
+import car.sharing.dto.rental.RentalResponseDto;
+import car.sharing.dto.user.UserResponseDto;
+import car.sharing.dto.user.UserUpdatedRolesResponseDto;
+import car.sharing.mapper.CarMapper;
+import car.sharing.mapper.PaymentMapper;
+import car.sharing.mapper.RentalMapper;
+import car.sharing.mapper.UserMapper;
+import car.sharing.mapper.impl.CarMapperImpl;
+import car.sharing.mapper.impl.PaymentMapperImpl;
+import car.sharing.mapper.impl.RentalMapperImpl;
+import car.sharing.mapper.impl.UserMapperImpl;
+import car.sharing.model.Car;
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.model.Role;
+import car.sharing.model.User;
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every response of the API goes through one of these mappers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private final CarMapper carMapper = new CarMapperImpl();
+    private final RentalMapper rentalMapper = new RentalMapperImpl();
+    private final PaymentMapper paymentMapper = new PaymentMapperImpl();
+    private final UserMapper userMapper = new UserMapperImpl();
+    private Car car;
+    private CreateCarRequestDto createCarRequestDto;
+    private Rental rental;
+    private Payment payment;
+    private User user;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        car = Car.builder()
+                .id(1L)
+                .model("Model S")
+                .brand("Tesla")
+                .type(Car.Type.SEDAN)
+                .inventory(5)
+                .dailyFee(new BigDecimal("49.99"))
+                .latitude(50.4501)
+                .longitude(30.5234)
+                .build();
+        createCarRequestDto = new CreateCarRequestDto(
+                "Model S", "Tesla", "sedan", 5, new BigDecimal("49.99"), 50.4501, 30.5234);
+        rental = Rental.builder()
+                .id(1L)
+                .carId(1L)
+                .userId(1L)
+                .rentalDate(LocalDate.now().minusDays(3))
+                .requiredReturnDate(LocalDate.now().plusDays(3))
+                .status(Rental.Status.LASTING)
+                .build();
+        payment = Payment.builder()
+                .id(1L)
+                .userId(1L)
+                .rentalId(1L)
+                .status(Payment.Status.PENDING)
+                .type(Payment.Type.PAYMENT)
+                .sessionId("cs_test_benchmark")
+                .sessionUrl(URI.create("https://checkout.stripe.com/c/pay/cs_test").toURL())
+                .amountToPay(new BigDecimal("34993"))
+                .build();
+        Role manager = new Role(2L);
+        manager.setName(Role.RoleName.ROLE_MANAGER);
+        user = new User();
+        user.setId(1L);
+        user.setEmail("admin@example.com");
+        user.setFirstName("Admin");
+        user.setLastName("Adminov");
+        user.setRoles(Set.of(new Role(1L), manager));
+    }
+
+    @Benchmark
+    public CarResponseDto carToResponseDto() {
+        return carMapper.toResponseDto(car);
+    }
+
+    @Benchmark
+    public Car carToModel() {
+        return carMapper.toModel(createCarRequestDto);
+    }
+
+    @Benchmark
+    public RentalResponseDto rentalToResponseDto() {
+        return rentalMapper.toResponseDto(rental);
+    }
+
+    @Benchmark
+    public PaymentResponseDto paymentToResponseDto() {
+        return paymentMapper.toResponseDto(payment);
+    }
+
+    @Benchmark
+    public UserResponseDto userToResponseDto() {
+        return userMapper.toResponseDto(user);
+    }
+
+    @Benchmark
+    public UserUpdatedRolesResponseDto userToUpdatedResponseDto() {
+        return userMapper.toUpdatedResponseDto(user);
+    }
+}
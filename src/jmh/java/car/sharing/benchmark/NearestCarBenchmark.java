@@ -0,0 +1,95 @@
+package car.sharing.benchmark;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.model.Car;
+import car.sharing.service.car.CarCatalogue;
+import car.sharing.util.GeoGrid;
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finds the cars in stock nearest to random places of a city of 40 by 30 kilometres
+ * the cars are parked all over, as CarCatalogueIndex.findNearest() does
+ * with the read lock held. The full scan measures the distance to every car instead
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestCarBenchmark {
+    private static final double SOUTH = 50.3;
+    private static final double WEST = 30.3;
+    private static final double HEIGHT = 0.27;
+    private static final double WIDTH = 0.56;
+    private static final int PLACES = 1024;
+    @Param("100000")
+    private int cars;
+    private CarCatalogue catalogue;
+    private double[][] places;
+    private int place;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalogue = new CarCatalogue();
+        Car.Type[] types = Car.Type.values();
+        for (long id = 1; id <= cars; id++) {
+            catalogue.put(new CarResponseDto(id, "Model " + id, "Brand " + id % 20,
+                    types[(int) (id % types.length)], (int) (id % 4), BigDecimal.TEN,
+                    SOUTH + random.nextDouble() * HEIGHT, WEST + random.nextDouble() * WIDTH));
+        }
+        places = new double[PLACES][];
+        for (int i = 0; i < PLACES; i++) {
+            places[i] = new double[]{SOUTH + random.nextDouble() * HEIGHT,
+                    WEST + random.nextDouble() * WIDTH};
+        }
+    }
+
+    @Benchmark
+    public List<GeoGrid.Neighbour> nearestTenInStock() {
+        double[] at = nextPlace();
+        return catalogue.findNearest(at[0], at[1], 5, 10, catalogue.inStock());
+    }
+
+    @Benchmark
+    public List<GeoGrid.Neighbour> nearestTenSuvsInStock() {
+        double[] at = nextPlace();
+        BitSet matched = catalogue.inStock();
+        matched.and(catalogue.withTypes(List.of(Car.Type.SUV)));
+        return catalogue.findNearest(at[0], at[1], 5, 10, matched);
+    }
+
+    @Benchmark
+    public double nearestInStockByFullScan() {
+        double[] at = nextPlace();
+        BitSet matched = catalogue.inStock();
+        double nearestKm = Double.MAX_VALUE;
+        for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+            CarResponseDto car = catalogue.get(slot);
+            nearestKm = Math.min(nearestKm,
+                    GeoGrid.distanceKm(at[0], at[1], car.latitude(), car.longitude()));
+        }
+        return nearestKm;
+    }
+
+    private double[] nextPlace() {
+        place = (place + 1) % PLACES;
+        return places[place];
+    }
+}
@@ -0,0 +1,46 @@
+package car.sharing.benchmark;
+
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentCalculationBenchmark {
+    private final InTimePaymentService inTimePaymentService = new InTimePaymentService();
+    private final FinePaymentService finePaymentService = new FinePaymentService();
+    @Param({"1", "30"})
+    private long days;
+    private BigDecimal dailyFee;
+
+    @Setup
+    public void setUp() {
+        dailyFee = new BigDecimal("49.99");
+    }
+
+    @Benchmark
+    public BigDecimal inTimeAmount() {
+        return inTimePaymentService.calculateAmount(dailyFee, days);
+    }
+
+    @Benchmark
+    public BigDecimal fineAmount() {
+        return finePaymentService.calculateAmount(dailyFee, days);
+    }
+}
@@ -0,0 +1,111 @@
+package car.sharing.benchmark;
+
+import car.sharing.util.StripeUtil;
+import com.stripe.Stripe;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Imitates a burst of concurrent payment requests while Stripe is slow.
+ * Every request calls StripeUtil.createSession against a local stub answering after
+ * stripeLatencyMillis. Platform mode runs requests on a pool of Tomcat's default size
+ * (200 threads), virtual mode runs each request on its own virtual thread
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ThreadingModelBenchmark {
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int STUB_BACKLOG = 4096;
+    @Param({"platform", "virtual"})
+    private String threads;
+    @Param({"1000"})
+    private int concurrentRequests;
+    @Param({"200"})
+    private long stripeLatencyMillis;
+    private HttpServer stripeStub;
+    private ExecutorService requestExecutor;
+    private StripeUtil stripeUtil;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stripeStub = HttpServer.create(new InetSocketAddress("localhost", 0), STUB_BACKLOG);
+        stripeStub.createContext("/v1/checkout/sessions", this::createSession);
+        stripeStub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stripeStub.start();
+        Stripe.apiKey = "sk_test_benchmark";
+        Stripe.overrideApiBase("http://localhost:" + stripeStub.getAddress().getPort());
+        stripeUtil = new StripeUtil();
+        requestExecutor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        requestExecutor.shutdownNow();
+        stripeStub.stop(0);
+    }
+
+    @Benchmark
+    public int createSessions() throws Exception {
+        List<Future<String>> sessions = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            long price = 1000L + i;
+            String idempotencyKey = "benchmark-" + i;
+            sessions.add(requestExecutor.submit(() -> stripeUtil.createSession(
+                    price, "Tesla Model S", idempotencyKey, null).getId()));
+        }
+        int created = 0;
+        for (Future<String> session : sessions) {
+            if (session.get() != null) {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    private void createSession(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        try {
+            TimeUnit.MILLISECONDS.sleep(stripeLatencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = """
+                {"id": "cs_test_benchmark", "object": "checkout.session",
+                 "url": "https://checkout.stripe.com/c/pay/cs_test_benchmark"}"""
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
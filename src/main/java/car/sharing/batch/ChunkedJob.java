@@ -0,0 +1,24 @@
+package car.sharing.batch;
+
+import java.util.List;
+
+/**
+ * A scheduled maintenance job over rows identified by ascending ids.
+ * ChunkedJobRunner asks for the ids after the last processed one chunk by chunk,
+ * and each chunk is processed in its own transaction together with the job checkpoint.
+ * Implementations should process a chunk with set-based statements
+ * (UPDATE ... WHERE id IN (...)) instead of loading and saving rows one by one
+ */
+public interface ChunkedJob {
+    /**
+     * @return unique name of the job, is used as a key of its checkpoint
+     */
+    String getName();
+
+    /**
+     * @return at most chunkSize ids greater than afterId in ascending order
+     */
+    List<Long> findNextChunk(Long afterId, int chunkSize);
+
+    void processChunk(List<Long> ids);
+}
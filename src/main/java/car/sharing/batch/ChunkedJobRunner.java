@@ -0,0 +1,123 @@
+package car.sharing.batch;
+
+import car.sharing.model.BatchJobCheckpoint;
+import car.sharing.repository.BatchJobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a ChunkedJob chunk by chunk, committing every chunk separately.
+ * The job checkpoint (last processed id) is updated in the chunk transaction,
+ * so a run that crashed is resumed after its last committed chunk by the next run,
+ * and then a new run is started to catch the rows that became eligible meanwhile
+ */
+@Slf4j
+@Component
+public class ChunkedJobRunner {
+    private static final long NOTHING_PROCESSED = 0L;
+    private final BatchJobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+
+    public ChunkedJobRunner(
+            BatchJobCheckpointRepository checkpointRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${batch.chunk.size:1000}") int chunkSize) {
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return number of rows processed by this call
+     */
+    public long run(ChunkedJob job) {
+        Boolean resumed = transactionTemplate.execute(status -> start(job));
+        long processed = runChunks(job);
+        if (Boolean.TRUE.equals(resumed)) {
+            transactionTemplate.execute(status -> start(job));
+            processed += runChunks(job);
+        }
+        return processed;
+    }
+
+    private long runChunks(ChunkedJob job) {
+        Counter items = Counter.builder("batch.job.items")
+                .tag("job", job.getName())
+                .register(meterRegistry);
+        Timer chunks = Timer.builder("batch.job.chunks")
+                .tag("job", job.getName())
+                .register(meterRegistry);
+        long processed = NOTHING_PROCESSED;
+        Integer processedInChunk;
+        do {
+            processedInChunk = chunks.record(() ->
+                    transactionTemplate.execute(status -> processNextChunk(job)));
+            if (processedInChunk != null) {
+                processed += processedInChunk;
+                items.increment(processedInChunk);
+            }
+        } while (processedInChunk != null && processedInChunk == chunkSize);
+        log.info("Job {} processed {} rows", job.getName(), processed);
+        return processed;
+    }
+
+    /**
+     * @return true if an unfinished run was found and will be resumed
+     */
+    private boolean start(ChunkedJob job) {
+        final LocalDateTime now = LocalDateTime.now();
+        BatchJobCheckpoint checkpoint = checkpointRepository
+                .findLockedByJobName(job.getName())
+                .orElseGet(() -> {
+                    BatchJobCheckpoint created = new BatchJobCheckpoint();
+                    created.setJobName(job.getName());
+                    created.setStatus(BatchJobCheckpoint.Status.COMPLETED);
+                    return created;
+                });
+        if (checkpoint.getStatus() == BatchJobCheckpoint.Status.RUNNING) {
+            log.warn("Job {} was interrupted after id {}, resuming",
+                    job.getName(), checkpoint.getLastId());
+            return true;
+        }
+        checkpoint.setStatus(BatchJobCheckpoint.Status.RUNNING);
+        checkpoint.setLastId(NOTHING_PROCESSED);
+        checkpoint.setProcessed(NOTHING_PROCESSED);
+        checkpoint.setStartedAt(now);
+        checkpoint.setUpdatedAt(now);
+        checkpointRepository.save(checkpoint);
+        return false;
+    }
+
+    private int processNextChunk(ChunkedJob job) {
+        BatchJobCheckpoint checkpoint = checkpointRepository
+                .findLockedByJobName(job.getName())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Job " + job.getName() + " has not been started"));
+        // another instance has finished the run meanwhile
+        if (checkpoint.getStatus() == BatchJobCheckpoint.Status.COMPLETED) {
+            return 0;
+        }
+        List<Long> ids = job.findNextChunk(checkpoint.getLastId(), chunkSize);
+        if (!ids.isEmpty()) {
+            job.processChunk(ids);
+            checkpoint.setLastId(ids.get(ids.size() - 1));
+            checkpoint.setProcessed(checkpoint.getProcessed() + ids.size());
+        }
+        if (ids.size() < chunkSize) {
+            checkpoint.setStatus(BatchJobCheckpoint.Status.COMPLETED);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return ids.size();
+    }
+}
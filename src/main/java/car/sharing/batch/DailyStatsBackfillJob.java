@@ -0,0 +1,130 @@
+package car.sharing.batch;
+
+import car.sharing.model.Car;
+import car.sharing.model.CarDailyStats;
+import car.sharing.model.CarTypeDailyStats;
+import car.sharing.model.DailyStats;
+import car.sharing.model.Payment;
+import car.sharing.repository.CarDailyStatsRepository;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.CarTypeDailyStatsRepository;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.stats.StatsDelta;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes car_daily_stats and car_type_daily_stats from rentals and payments,
+ * for the history before DailyStatsRollup was deployed or to repair the rollups.
+ * Ids of this job are epoch days from the first rental date till today, every chunk
+ * of days is replaced with the result of a few aggregate queries. Type rollups use
+ * the current type of a car. A change counted while its day is being recomputed
+ * may be counted twice, so the job is meant to be run in quiet hours
+ */
+@Component
+@RequiredArgsConstructor
+public class DailyStatsBackfillJob implements ChunkedJob {
+    private static final long NOTHING_PROCESSED = 0L;
+    private final RentalRepository rentalRepository;
+    private final PaymentRepository paymentRepository;
+    private final CarRepository carRepository;
+    private final CarDailyStatsRepository carDailyStatsRepository;
+    private final CarTypeDailyStatsRepository carTypeDailyStatsRepository;
+
+    @Override
+    public String getName() {
+        return "daily-stats-backfill";
+    }
+
+    @Override
+    public List<Long> findNextChunk(Long afterId, int chunkSize) {
+        LocalDate first = afterId == NOTHING_PROCESSED
+                ? rentalRepository.findFirstRentalDate().orElse(null)
+                : LocalDate.ofEpochDay(afterId + 1);
+        LocalDate today = LocalDate.now();
+        if (first == null || first.isAfter(today)) {
+            return List.of();
+        }
+        return LongStream.rangeClosed(first.toEpochDay(),
+                        Math.min(first.toEpochDay() + chunkSize - 1, today.toEpochDay()))
+                .boxed()
+                .toList();
+    }
+
+    @Override
+    public void processChunk(List<Long> ids) {
+        LocalDate from = LocalDate.ofEpochDay(ids.get(0));
+        LocalDate to = LocalDate.ofEpochDay(ids.get(ids.size() - 1));
+        carDailyStatsRepository.deleteAllByStatsDateBetween(from, to);
+        carTypeDailyStatsRepository.deleteAllByStatsDateBetween(from, to);
+
+        Map<CarDay, StatsDelta> carDeltas = new HashMap<>();
+        rentalRepository.countStartedByCarIdAndRentalDate(from, to).forEach(rentals ->
+                carDeltas.merge(new CarDay(rentals.getCarId(), rentals.getStatsDate()),
+                        StatsDelta.started(Math.toIntExact(rentals.getRentals())),
+                        StatsDelta::plus));
+        rentalRepository.countReturnedByCarIdAndReturnDate(from, to).forEach(rentals ->
+                carDeltas.merge(new CarDay(rentals.getCarId(), rentals.getActualReturnDate()),
+                        StatsDelta.returned(Math.toIntExact(rentals.getRentals()),
+                                rentals.getRentals() * ChronoUnit.DAYS.between(
+                                        rentals.getRentalDate(),
+                                        rentals.getActualReturnDate())),
+                        StatsDelta::plus));
+        rentalRepository.countExpiredByCarIdAndRentalDate(from, to).forEach(rentals ->
+                carDeltas.merge(new CarDay(rentals.getCarId(), rentals.getStatsDate()),
+                        StatsDelta.expired(Math.toIntExact(rentals.getRentals())),
+                        StatsDelta::plus));
+        paymentRepository.sumPaidByCarIdAndRentalDate(from, to).forEach(paid ->
+                carDeltas.merge(new CarDay(paid.getCarId(), paid.getStatsDate()),
+                        StatsDelta.paid(Payment.Type.PAYMENT, paid.getAmount()),
+                        StatsDelta::plus));
+        paymentRepository.sumPaidFinesByCarIdAndReturnDate(from, to).forEach(paid ->
+                carDeltas.merge(new CarDay(paid.getCarId(), paid.getStatsDate()),
+                        StatsDelta.paid(Payment.Type.FINE, paid.getAmount()),
+                        StatsDelta::plus));
+        if (carDeltas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Car.Type> carTypes = carRepository.findAllById(carDeltas.keySet().stream()
+                        .map(CarDay::carId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Car::getId, Car::getType));
+        Map<TypeDay, StatsDelta> typeDeltas = new HashMap<>();
+        carDeltas.forEach((carDay, delta) -> {
+            Car.Type carType = carTypes.get(carDay.carId());
+            if (carType != null) {
+                typeDeltas.merge(new TypeDay(carType, carDay.statsDate()), delta,
+                        StatsDelta::plus);
+            }
+        });
+        carDailyStatsRepository.saveAll(rows(carDeltas,
+                carDay -> new CarDailyStats(carDay.carId(), carDay.statsDate())));
+        carTypeDailyStatsRepository.saveAll(rows(typeDeltas,
+                typeDay -> new CarTypeDailyStats(typeDay.carType(), typeDay.statsDate())));
+    }
+
+    private <K, T extends DailyStats> List<T> rows(
+            Map<K, StatsDelta> deltas,
+            Function<K, T> emptyRow) {
+        return deltas.entrySet().stream()
+                .map(delta -> delta.getValue().applyTo(emptyRow.apply(delta.getKey())))
+                .toList();
+    }
+
+    private record CarDay(Long carId, LocalDate statsDate) {
+    }
+
+    private record TypeDay(Car.Type carType, LocalDate statsDate) {
+    }
+}
@@ -0,0 +1,86 @@
+package car.sharing.batch;
+
+import car.sharing.model.Rental;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.inventory.InventoryService;
+import car.sharing.service.stats.DailyStatsRollup;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cancels rentals that have not been paid within rental.hold.window, returns their cars
+ * and expires their payments. A chunk costs a constant number of statements
+ * plus one inventory update per distinct car and one daily stats increment
+ * per distinct car and rental date, whatever the chunk size is
+ */
+@Component
+public class ExpiredRentalsJob implements ChunkedJob {
+    private final RentalRepository rentalRepository;
+    private final PaymentRepository paymentRepository;
+    private final InventoryService inventoryService;
+    private final DailyStatsRollup dailyStatsRollup;
+    private final Duration holdWindow;
+
+    public ExpiredRentalsJob(
+            RentalRepository rentalRepository,
+            PaymentRepository paymentRepository,
+            InventoryService inventoryService,
+            DailyStatsRollup dailyStatsRollup,
+            @Value("${rental.hold.window:PT24H}") Duration holdWindow) {
+        this.rentalRepository = rentalRepository;
+        this.paymentRepository = paymentRepository;
+        this.inventoryService = inventoryService;
+        this.dailyStatsRollup = dailyStatsRollup;
+        this.holdWindow = holdWindow;
+    }
+
+    @Override
+    public String getName() {
+        return "expired-rentals";
+    }
+
+    @Override
+    public List<Long> findNextChunk(Long afterId, int chunkSize) {
+        return rentalRepository.findIdsByStatusAndCreatedAt(
+                Rental.Status.PENDING,
+                LocalDateTime.now().minus(holdWindow),
+                afterId,
+                PageRequest.of(0, chunkSize));
+    }
+
+    @Override
+    public void processChunk(List<Long> ids) {
+        expire(ids);
+    }
+
+    /**
+     * Has to be called in a transaction
+     *
+     * @return ids of the rentals that were still pending and have been canceled
+     */
+    public List<Long> expire(List<Long> ids) {
+        // a rental could have been paid since the chunk was read
+        List<Long> pendingIds = rentalRepository.lockIdsByIdInAndStatus(
+                ids, Rental.Status.PENDING);
+        if (pendingIds.isEmpty()) {
+            return pendingIds;
+        }
+        Map<Long, Integer> unitsByCarId = rentalRepository.countUnitsByCarIdIn(pendingIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        RentalRepository.CarUnits::getCarId,
+                        carUnits -> Math.toIntExact(carUnits.getUnits())));
+        inventoryService.releaseAll(unitsByCarId);
+        dailyStatsRollup.rentalsExpired(rentalRepository.countByCarIdAndRentalDateIn(pendingIds));
+        rentalRepository.expireAllByIdIn(pendingIds);
+        paymentRepository.expireAllByRentalIdIn(pendingIds);
+        return pendingIds;
+    }
+}
@@ -0,0 +1,74 @@
+package car.sharing.batch;
+
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.inventory.InventoryService;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes a unit of Car.inventory for every rental booked ahead whose rental date has come
+ * and clears its is_advance, so it gives the unit back when it is returned or canceled.
+ * Runs on startup and every hour, so the rentals of a night the application was down
+ * are started too. A car short of units (one of them is returned late) keeps its rentals
+ * booked ahead till a later run finds the units back. A chunk costs a constant number
+ * of statements plus one inventory update per distinct car
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StartedAdvanceRentalsJob implements ChunkedJob {
+    private final RentalRepository rentalRepository;
+    private final InventoryService inventoryService;
+    private final ChunkedJobRunner chunkedJobRunner;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rental.advance.start.cron:0 0 * * * *}")
+    public void run() {
+        chunkedJobRunner.run(this);
+    }
+
+    @Override
+    public String getName() {
+        return "started-advance-rentals";
+    }
+
+    @Override
+    public List<Long> findNextChunk(Long afterId, int chunkSize) {
+        return rentalRepository.findStartedAdvanceIds(
+                LocalDate.now(),
+                afterId,
+                PageRequest.of(0, chunkSize));
+    }
+
+    @Override
+    public void processChunk(List<Long> ids) {
+        // a rental could have been canceled or returned since the chunk was read
+        List<Long> advanceIds = rentalRepository.lockAdvanceIdsByIdIn(ids);
+        if (advanceIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> unitsByCarId = new HashMap<>();
+        rentalRepository.countRentalsByCarIdIn(advanceIds).forEach(carUnits -> unitsByCarId.put(
+                carUnits.getCarId(), Math.toIntExact(carUnits.getUnits())));
+        Set<Long> reservedCarIds = inventoryService.reserveAll(unitsByCarId);
+        if (reservedCarIds.size() < unitsByCarId.size()) {
+            log.warn("Cars {} are short of units for their rentals starting today, "
+                    + "the next run tries again", unitsByCarId.keySet().stream()
+                    .filter(carId -> !reservedCarIds.contains(carId))
+                    .toList());
+        }
+        if (!reservedCarIds.isEmpty()) {
+            rentalRepository.startAllByIdInAndCarIdIn(advanceIds, reservedCarIds);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package car.sharing.config;
 import static org.springframework.security.config.Customizer.withDefaults;
 
 import car.sharing.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,12 +39,19 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
                         auth -> auth
+                                // completes a streamed export, the request itself
+                                // was authorized when it was dispatched first
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC)
+                                .permitAll()
                                 .requestMatchers(
                                         "/authentication/**",
                                         "/error",
                                         "/swagger-ui/**",
-                                        "/cars/**")
+                                        "/cars/**",
+                                        "/webhooks/**")
                                 .permitAll()
+                                .requestMatchers("/actuator/**")
+                                .hasRole("MANAGER")
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -1,6 +1,7 @@
 package car.sharing.config;
 
 import car.sharing.telegram.CarSharingTelegramBot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
@@ -8,6 +9,7 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
 @Configuration
+@ConditionalOnProperty(name = "telegram.sender", havingValue = "bot", matchIfMissing = true)
 public class TelegramBotConfig {
     @Bean
     public TelegramBotsApi telegramBotsApi(CarSharingTelegramBot telegramBot)
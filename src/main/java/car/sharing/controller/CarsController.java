@@ -1,13 +1,22 @@
 package car.sharing.controller;
 
+import car.sharing.dto.car.CarFacetsDto;
 import car.sharing.dto.car.CarResponseDto;
 import car.sharing.dto.car.CarSearchParametersDto;
 import car.sharing.dto.car.CarUpdateDto;
 import car.sharing.dto.car.CreateCarRequestDto;
+import car.sharing.dto.car.NearbyCarDto;
+import car.sharing.dto.page.CursorPage;
 import car.sharing.service.car.CarService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +29,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -33,8 +43,17 @@ public class CarsController {
     @GetMapping
     @Operation(summary = "Get all available cars",
             description = "Endpoint for seeing all available cars with pageable sorting. "
+                    + "Pass an empty cursor to switch to keyset pagination, "
+                    + "the next page cursor comes in the X-Next-Cursor header. "
                     + "Allowed for all user. Even those not authenticated")
-    public List<CarResponseDto> getAllCars(Pageable pageable) {
+    public List<CarResponseDto> getAllCars(
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            HttpServletResponse response) {
+        if (cursor != null) {
+            return carService.getAllCars(cursor, CursorPage.getPageSize(pageable))
+                    .withNextCursor(response);
+        }
         return carService.getAllCars(pageable);
     }
 
@@ -47,6 +66,31 @@ public class CarsController {
         return carService.search(parametersDto, pageable);
     }
 
+    @GetMapping("/facets")
+    @Operation(summary = "Count cars per brand and type",
+            description = "Endpoint for counting cars matching the search params, "
+                    + "per brand with every param but brands and per type with every param "
+                    + "but types. Without params all cars are counted")
+    public CarFacetsDto getFacets(
+            @RequestBody(required = false) @Valid CarSearchParametersDto parametersDto) {
+        return carService.getFacets(parametersDto);
+    }
+
+    @GetMapping("/nearest")
+    @Operation(summary = "Find the nearest cars in stock",
+            description = "Endpoint for finding cars with a unit not rented out parked "
+                    + "within radius_km of a place, the nearest first, optionally "
+                    + "of the given types only. Allowed for all users")
+    public List<NearbyCarDto> findNearest(
+            @RequestParam @DecimalMin("-90") @DecimalMax("90") double latitude,
+            @RequestParam @DecimalMin("-180") @DecimalMax("180") double longitude,
+            @RequestParam(name = "radius_km", defaultValue = "5")
+            @Positive @DecimalMax("100") double radiusKm,
+            @RequestParam(required = false) List<String> types,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
+        return carService.findNearest(latitude, longitude, radiusKm, types, limit);
+    }
+
     @GetMapping ("/{id}")
     @Operation(summary = "Get the pointed car's info",
             description = "Endpoint for seeing info about a specific car")
@@ -72,7 +116,7 @@ public class CarsController {
                     + " Allowed for managers only")
     public CarResponseDto update(
             @PathVariable Long id,
-            @RequestBody CarUpdateDto updateDto) {
+            @RequestBody @Valid CarUpdateDto updateDto) {
         return carService.update(id, updateDto);
     }
 
@@ -1,16 +1,25 @@
 package car.sharing.controller;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.payment.PaymentResponseDto;
+import car.sharing.export.ExportFormat;
+import car.sharing.export.ExportResponses;
+import car.sharing.export.ExportService;
+import car.sharing.model.Payment;
 import car.sharing.model.User;
 import car.sharing.service.payment.PaymentService;
 import com.stripe.exception.StripeException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import java.net.MalformedURLException;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Payment controller", description = "Endpoints for managing payments")
 @RestController
@@ -26,6 +36,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class PaymentsController {
     private final PaymentService paymentService;
+    private final ExportService exportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -60,10 +71,21 @@ public class PaymentsController {
 
     @GetMapping("/mine")
     @Operation(summary = "Get all your payments",
-            description = "Endpoint for getting all your payments with pageable sorting")
+            description = "Endpoint for getting all your payments with pageable sorting. "
+                    + "Pass an empty cursor to switch to keyset pagination, "
+                    + "the next page cursor comes in the X-Next-Cursor header")
     public List<PaymentResponseDto> getMyPayments(
             Authentication authentication,
-            Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            HttpServletResponse response) {
+        if (cursor != null) {
+            return paymentService.getUserPayments(
+                    getUser(authentication).getId(),
+                    cursor,
+                    CursorPage.getPageSize(pageable))
+                    .withNextCursor(response);
+        }
         return paymentService.getUserPayments(
                 getUser(authentication).getId(),
                 pageable);
@@ -71,15 +93,41 @@ public class PaymentsController {
 
     @Operation(summary = "Get user's payments",
             description = "Endpoint for getting pointed user's payments."
+                    + " Pass an empty cursor to switch to keyset pagination."
                     + " Allowed for managers only")
     @PreAuthorize("hasRole('ROLE_MANAGER')")
     @GetMapping
     public List<PaymentResponseDto> getUserPayments(
             @RequestParam(name = "user_id") Long userId,
-            Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            HttpServletResponse response) {
+        if (cursor != null) {
+            return paymentService.getUserPayments(userId, cursor, CursorPage.getPageSize(pageable))
+                    .withNextCursor(response);
+        }
         return paymentService.getUserPayments(userId, pageable);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Export payments",
+            description = "Endpoint for streaming payments of rentals started between the dates "
+                    + "(both inclusive) as ndjson or csv, optionally gzipped."
+                    + " Allowed for managers only")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        Payment.Status paymentStatus = status == null ? null : Payment.Status.fromString(status);
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        return ExportResponses.attachment("payments", exportFormat, gzip,
+                outputStream -> exportService.exportPayments(
+                        from, to, paymentStatus, exportFormat, outputStream));
+    }
+
     private User getUser(Authentication authentication) {
         return (User) authentication.getPrincipal();
     }
@@ -1,17 +1,26 @@
 package car.sharing.controller;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.rental.RentalResponseDto;
+import car.sharing.export.ExportFormat;
+import car.sharing.export.ExportResponses;
+import car.sharing.export.ExportService;
+import car.sharing.model.Rental;
 import car.sharing.model.User;
 import car.sharing.service.rental.RentalService;
 import com.stripe.exception.StripeException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Min;
 import java.net.MalformedURLException;
+import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "Rentals controller", description = "Endpoints for managing rentals")
 @RestController
@@ -29,18 +39,23 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/rentals")
 public class RentalsController {
     private final RentalService rentalService;
+    private final ExportService exportService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a rental",
-            description = "Endpoint for creating a new rental")
+            description = "Endpoint for creating a new rental, starting today"
+                    + " or on the rental date if it is given")
     public RentalResponseDto addRental(
             Authentication authentication,
             @RequestParam(name = "car_id") Long carId,
+            @RequestParam(name = "rental_date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate rentalDate,
             @RequestParam(name = "days_to_rent") @Min(0) int daysToRent) {
         return rentalService.addRental(
                 getUser(authentication),
                 carId,
+                rentalDate,
                 daysToRent);
     }
 
@@ -54,10 +69,21 @@ public class RentalsController {
 
     @GetMapping("/mine")
     @Operation(summary = "See all your rentals",
-            description = "Endpoint seeing all your rentals with pageable sorting")
+            description = "Endpoint seeing all your rentals with pageable sorting. "
+                    + "Pass an empty cursor to switch to keyset pagination, "
+                    + "the next page cursor comes in the X-Next-Cursor header")
     public List<RentalResponseDto> getAllRentals(
             Authentication authentication,
-            Pageable pageable) {
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            HttpServletResponse response) {
+        if (cursor != null) {
+            return rentalService.getAllRentals(
+                    getUser(authentication),
+                    cursor,
+                    CursorPage.getPageSize(pageable))
+                    .withNextCursor(response);
+        }
         return rentalService.getAllRentals(
                 getUser(authentication),
                 pageable);
@@ -86,6 +112,25 @@ public class RentalsController {
         return rentalService.getUserRentals(userId, isActive, pageable);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Export rentals",
+            description = "Endpoint for streaming rentals started between the dates "
+                    + "(both inclusive) as ndjson or csv, optionally gzipped."
+                    + " Allowed for Managers only")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        Rental.Status rentalStatus = status == null ? null : Rental.Status.fromString(status);
+        ExportFormat exportFormat = ExportFormat.fromString(format);
+        return ExportResponses.attachment("rentals", exportFormat, gzip,
+                outputStream -> exportService.exportRentals(
+                        from, to, rentalStatus, exportFormat, outputStream));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_MANAGER')")
     @Operation(summary = "Get a specific rental",
@@ -100,8 +145,17 @@ public class RentalsController {
     @PreAuthorize("hasRole('ROLE_MANAGER')")
     @Operation(summary = "Get all active rentals",
             description = "Endpoint for getting all active rentals with pageable sorting."
+                    + " Pass an empty cursor to switch to keyset pagination"
+                    + " by required return date."
                     + " Allowed for Managers only")
-    public List<RentalResponseDto> getAllActive(Pageable pageable) {
+    public List<RentalResponseDto> getAllActive(
+            @RequestParam(required = false) String cursor,
+            Pageable pageable,
+            HttpServletResponse response) {
+        if (cursor != null) {
+            return rentalService.getAllActive(cursor, CursorPage.getPageSize(pageable))
+                    .withNextCursor(response);
+        }
         return rentalService.getAllActive(pageable);
     }
 
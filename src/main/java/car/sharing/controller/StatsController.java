@@ -0,0 +1,77 @@
+package car.sharing.controller;
+
+import car.sharing.dto.stats.CarDailyStatsDto;
+import car.sharing.dto.stats.CarTypeDailyStatsDto;
+import car.sharing.dto.stats.StatsTotalsDto;
+import car.sharing.model.Car;
+import car.sharing.service.stats.StatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Stats controller", description = "Endpoints for revenue and utilization reports")
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+    private final StatsService statsService;
+
+    @GetMapping("/cars")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Get daily stats of cars",
+            description = "Endpoint for getting rentals, revenue and rented days per car per day"
+                    + " between the dates (both inclusive), optionally of one car."
+                    + " Allowed for managers only")
+    public List<CarDailyStatsDto> getCarStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "car_id", required = false) Long carId,
+            Pageable pageable) {
+        return statsService.getCarStats(from, to, carId, pageable);
+    }
+
+    @GetMapping("/types")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Get daily stats of car types",
+            description = "Endpoint for getting rentals, revenue and rented days per car type"
+                    + " per day between the dates (both inclusive), optionally of one type."
+                    + " Allowed for managers only")
+    public List<CarTypeDailyStatsDto> getCarTypeStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String type) {
+        return statsService.getCarTypeStats(from, to,
+                type == null ? null : Car.Type.fromString(type));
+    }
+
+    @GetMapping("/totals")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Get stats totals",
+            description = "Endpoint for getting rentals, revenue and rented days of all cars"
+                    + " summed between the dates (both inclusive). Allowed for managers only")
+    public StatsTotalsDto getTotals(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return statsService.getTotals(from, to);
+    }
+
+    @PostMapping("/backfill")
+    @PreAuthorize("hasRole('ROLE_MANAGER')")
+    @Operation(summary = "Backfill stats",
+            description = "Endpoint for recomputing daily stats of the whole history"
+                    + " from rentals and payments, returns the number of recomputed days."
+                    + " A run that was interrupted is resumed. Allowed for managers only")
+    public long backfill() {
+        return statsService.backfill();
+    }
+}
@@ -0,0 +1,31 @@
+package car.sharing.controller;
+
+import car.sharing.webhook.StripeWebhookReceiver;
+import com.stripe.exception.SignatureVerificationException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Stripe webhook controller", description = "Endpoint for receiving Stripe events")
+@RestController
+@RequestMapping("/webhooks/stripe")
+@RequiredArgsConstructor
+public class StripeWebhookController {
+    private final StripeWebhookReceiver stripeWebhookReceiver;
+
+    @PostMapping
+    @Operation(summary = "Receive a Stripe event",
+            description = "Endpoint for checkout.session.completed and checkout.session.expired"
+                    + " events. Is authenticated by Stripe-Signature header instead of a token")
+    public void receive(
+            @RequestBody String payload,
+            @RequestHeader("Stripe-Signature") String signature)
+            throws SignatureVerificationException {
+        stripeWebhookReceiver.receive(payload, signature);
+    }
+}
@@ -0,0 +1,11 @@
+package car.sharing.dto.car;
+
+import car.sharing.model.Car;
+import java.util.Map;
+
+public record CarFacetsDto(
+        int total,
+        Map<String, Integer> brands,
+        Map<Car.Type, Integer> types
+) {
+}
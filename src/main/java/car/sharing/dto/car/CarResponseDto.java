@@ -9,7 +9,9 @@ public record CarResponseDto(
         String brand,
         Car.Type type,
         Integer inventory,
-        BigDecimal dailyFee
+        BigDecimal dailyFee,
+        Double latitude,
+        Double longitude
 ) {
 
 }
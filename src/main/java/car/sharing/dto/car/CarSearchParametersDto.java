@@ -2,6 +2,7 @@ package car.sharing.dto.car;
 
 import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 public record CarSearchParametersDto(
@@ -9,6 +10,8 @@ public record CarSearchParametersDto(
         List<String> brands,
         @Size(min = 1, max = 2)
         List<BigDecimal> priceBetween,
-        List<String> types
+        List<String> types,
+        @Size(min = 2, max = 2)
+        List<LocalDate> availableBetween
 ) {
 }
@@ -1,5 +1,7 @@
 package car.sharing.dto.car;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import java.math.BigDecimal;
 
 public record CarUpdateDto(
@@ -7,6 +9,12 @@ public record CarUpdateDto(
         String brand,
         Integer inventory,
         BigDecimal dailyFee,
-        String type
+        String type,
+        @DecimalMin("-90")
+        @DecimalMax("90")
+        Double latitude,
+        @DecimalMin("-180")
+        @DecimalMax("180")
+        Double longitude
 ) {
 }
@@ -1,5 +1,7 @@
 package car.sharing.dto.car;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import java.math.BigDecimal;
@@ -14,6 +16,12 @@ public record CreateCarRequestDto(
         @Min(0)
         Integer inventory,
         @Min(0)
-        BigDecimal dailyFee
+        BigDecimal dailyFee,
+        @DecimalMin("-90")
+        @DecimalMax("90")
+        Double latitude,
+        @DecimalMin("-180")
+        @DecimalMax("180")
+        Double longitude
 ) {
 }
@@ -0,0 +1,7 @@
+package car.sharing.dto.car;
+
+public record NearbyCarDto(
+        CarResponseDto car,
+        double distanceKm
+) {
+}
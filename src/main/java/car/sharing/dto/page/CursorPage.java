@@ -0,0 +1,53 @@
+package car.sharing.dto.page;
+
+import car.sharing.util.PageCursor;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * A page read with keyset pagination. nextCursor is null on the last page
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Builds a page from rows read with limit size + 1, the extra row only tells
+     * that there is a next page, so a client never asks for an empty one
+     */
+    public static <E, T> CursorPage<T> of(
+            List<E> rows,
+            int size,
+            Function<E, PageCursor> cursorOf,
+            Function<E, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        return new CursorPage<>(
+                pageRows.stream().map(mapper).toList(),
+                hasNext ? cursorOf.apply(pageRows.get(size - 1)).encode() : null);
+    }
+
+    /**
+     * @return page size of a keyset request, which is always ordered by the key it seeks,
+     *         so a sort asked for along with a cursor is rejected rather than ignored
+     */
+    public static int getPageSize(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            throw new IllegalArgumentException(
+                    "Sort can't be combined with cursor, keyset pages have a fixed order");
+        }
+        return pageable.getPageSize();
+    }
+
+    /**
+     * Puts the cursor of the next page, if any, into the X-Next-Cursor header,
+     * so the response body stays the same list as without a cursor
+     */
+    public List<T> withNextCursor(HttpServletResponse response) {
+        if (nextCursor != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return content;
+    }
+}
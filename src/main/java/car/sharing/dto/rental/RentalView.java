@@ -0,0 +1,19 @@
+package car.sharing.dto.rental;
+
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+
+/**
+ * Rental columns selected by a projection query, the status and the raw
+ * actual return date are needed to describe the return in RentalResponseDto
+ */
+public record RentalView(
+        Long id,
+        LocalDate rentalDate,
+        LocalDate requiredReturnDate,
+        LocalDate actualReturnDate,
+        Long carId,
+        Long userId,
+        Rental.Status status
+) {
+}
@@ -0,0 +1,16 @@
+package car.sharing.dto.stats;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record CarDailyStatsDto(
+        Long carId,
+        LocalDate date,
+        int rentalsStarted,
+        int rentalsReturned,
+        int rentalsExpired,
+        BigDecimal paidAmount,
+        BigDecimal fineAmount,
+        long rentedDays
+) {
+}
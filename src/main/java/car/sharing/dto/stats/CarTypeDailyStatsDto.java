@@ -0,0 +1,17 @@
+package car.sharing.dto.stats;
+
+import car.sharing.model.Car;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record CarTypeDailyStatsDto(
+        Car.Type type,
+        LocalDate date,
+        int rentalsStarted,
+        int rentalsReturned,
+        int rentalsExpired,
+        BigDecimal paidAmount,
+        BigDecimal fineAmount,
+        long rentedDays
+) {
+}
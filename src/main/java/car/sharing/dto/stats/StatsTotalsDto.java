@@ -0,0 +1,19 @@
+package car.sharing.dto.stats;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Measures of all cars summed over the days between from and to (both inclusive)
+ */
+public record StatsTotalsDto(
+        LocalDate from,
+        LocalDate to,
+        long rentalsStarted,
+        long rentalsReturned,
+        long rentalsExpired,
+        BigDecimal paidAmount,
+        BigDecimal fineAmount,
+        long rentedDays
+) {
+}
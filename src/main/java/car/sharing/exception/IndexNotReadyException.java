@@ -0,0 +1,7 @@
+package car.sharing.exception;
+
+public class IndexNotReadyException extends RuntimeException {
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
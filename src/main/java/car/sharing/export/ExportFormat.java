@@ -0,0 +1,46 @@
+package car.sharing.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportWriter writer(
+            OutputStream outputStream,
+            List<String> columns,
+            ObjectMapper objectMapper) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonExportWriter(outputStream, columns, objectMapper);
+            case CSV -> new CsvExportWriter(outputStream, columns);
+        };
+    }
+
+    public static ExportFormat fromString(String value) {
+        for (ExportFormat format : ExportFormat.values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + value);
+    }
+}
@@ -0,0 +1,44 @@
+package car.sharing.export;
+
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Wraps an export into a downloadable response. The body is written by an async
+ * request thread after the controller returns, rows go out as they are read
+ */
+public final class ExportResponses {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private ExportResponses() {
+    }
+
+    public static ResponseEntity<StreamingResponseBody> attachment(
+            String name,
+            ExportFormat format,
+            boolean gzip,
+            StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build()
+                        .toString());
+        if (!gzip) {
+            return response.body(body);
+        }
+        // an encoding rather than a .gz file, so clients decompress it on the fly
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(outputStream -> {
+                    GZIPOutputStream gzipStream =
+                            new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE, true);
+                    body.writeTo(gzipStream);
+                    gzipStream.finish();
+                });
+    }
+}
@@ -0,0 +1,141 @@
+package car.sharing.export;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Streams rentals and payments to a response row by row for finance exports.
+ * Rows are read through a forward-only cursor with a JDBC fetch size
+ * (MySQL needs useCursorFetch=true in the datasource url to honor it)
+ * and detached as soon as they are written, so memory use does not depend on the row count.
+ * Written rows are exposed as "export.rows" metric with entity tag
+ */
+@Service
+public class ExportService {
+    private static final List<String> RENTAL_COLUMNS = List.of("id", "user_id", "car_id",
+            "rental_date", "required_return_date", "actual_return_date", "status");
+    private static final List<String> PAYMENT_COLUMNS = List.of("id", "user_id", "rental_id",
+            "status", "type", "amount_to_pay", "session_id");
+    private final RentalRepository rentalRepository;
+    private final PaymentRepository paymentRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int flushRows;
+    private final Counter exportedRentals;
+    private final Counter exportedPayments;
+
+    public ExportService(
+            RentalRepository rentalRepository,
+            PaymentRepository paymentRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${export.flush.rows:1000}") int flushRows) {
+        this.rentalRepository = rentalRepository;
+        this.paymentRepository = paymentRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.flushRows = flushRows;
+        exportedRentals = counter(meterRegistry, "rental");
+        exportedPayments = counter(meterRegistry, "payment");
+    }
+
+    /**
+     * Writes rentals started between the dates (both inclusive)
+     * @param status null to export rentals in any status
+     * @return number of written rows
+     */
+    @Transactional(readOnly = true)
+    public long exportRentals(
+            LocalDate from,
+            LocalDate to,
+            Rental.Status status,
+            ExportFormat format,
+            OutputStream outputStream) throws IOException {
+        ExportWriter writer = format.writer(outputStream, RENTAL_COLUMNS, objectMapper);
+        try (Stream<Rental> rentals =
+                     rentalRepository.streamAllByRentalDateBetween(
+                             from, to, status == null ? null : status.name())) {
+            long written = write(writer, rentals, rental -> new Object[]{
+                    rental.getId(),
+                    rental.getUserId(),
+                    rental.getCarId(),
+                    rental.getRentalDate(),
+                    rental.getRequiredReturnDate(),
+                    rental.getActualReturnDate(),
+                    rental.getStatus()});
+            exportedRentals.increment(written);
+            return written;
+        }
+    }
+
+    /**
+     * Writes payments of rentals started between the dates (both inclusive)
+     * @param status null to export payments in any status
+     * @return number of written rows
+     */
+    @Transactional(readOnly = true)
+    public long exportPayments(
+            LocalDate from,
+            LocalDate to,
+            Payment.Status status,
+            ExportFormat format,
+            OutputStream outputStream) throws IOException {
+        ExportWriter writer = format.writer(outputStream, PAYMENT_COLUMNS, objectMapper);
+        try (Stream<Payment> payments =
+                     paymentRepository.streamAllByRentalDateBetween(
+                             from, to, status == null ? null : status.name())) {
+            long written = write(writer, payments, payment -> new Object[]{
+                    payment.getId(),
+                    payment.getUserId(),
+                    payment.getRentalId(),
+                    payment.getStatus(),
+                    payment.getType(),
+                    payment.getAmountToPay(),
+                    payment.getSessionId()});
+            exportedPayments.increment(written);
+            return written;
+        }
+    }
+
+    private <T> long write(
+            ExportWriter writer,
+            Stream<T> rows,
+            Function<T, Object[]> toValues) throws IOException {
+        long written = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            writer.writeRow(toValues.apply(row));
+            // the persistence context would otherwise keep every row read so far
+            entityManager.detach(row);
+            if (++written % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return written;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String entity) {
+        return Counter.builder("export.rows")
+                .tag("entity", entity)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package car.sharing.export;
+
+import java.io.IOException;
+
+/**
+ * Writes rows of an export one by one, nothing but the current row is kept in memory
+ */
+public interface ExportWriter {
+    /**
+     * @param values values in the order of the columns the writer was created with
+     */
+    void writeRow(Object... values) throws IOException;
+
+    /**
+     * Pushes buffered rows to the client, does not close the response
+     */
+    void flush() throws IOException;
+}
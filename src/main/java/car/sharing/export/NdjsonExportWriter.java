@@ -0,0 +1,44 @@
+package car.sharing.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * One JSON object per line, keys are the column names
+ */
+public class NdjsonExportWriter implements ExportWriter {
+    private final JsonGenerator generator;
+    private final List<String> columns;
+
+    public NdjsonExportWriter(
+            OutputStream outputStream,
+            List<String> columns,
+            ObjectMapper objectMapper) throws IOException {
+        this.columns = columns;
+        generator = objectMapper.createGenerator(outputStream, JsonEncoding.UTF8)
+                // the response stream is closed by the servlet container
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // rows are separated by the line feed written after each of them
+                .setRootValueSeparator(null);
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            generator.writeFieldName(columns.get(i));
+            generator.writeObject(values[i]);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
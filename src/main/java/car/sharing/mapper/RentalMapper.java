@@ -2,6 +2,7 @@ package car.sharing.mapper;
 
 import car.sharing.config.MapperConfig;
 import car.sharing.dto.rental.RentalResponseDto;
+import car.sharing.dto.rental.RentalView;
 import car.sharing.model.Rental;
 import java.time.LocalDate;
 import org.mapstruct.AfterMapping;
@@ -14,24 +15,48 @@ public interface RentalMapper {
     @Mapping(target = "actualReturnDate", ignore = true)
     RentalResponseDto toResponseDto(Rental rental);
 
+    /**
+     * Written by hand, a projection row is mapped on every listing request
+     * and needs nothing but the return description
+     */
+    default RentalResponseDto toResponseDto(RentalView rental) {
+        RentalResponseDto responseDto = new RentalResponseDto();
+        responseDto.setId(rental.id());
+        responseDto.setRentalDate(rental.rentalDate());
+        responseDto.setRequiredReturnDate(rental.requiredReturnDate());
+        responseDto.setCarId(rental.carId());
+        responseDto.setUserId(rental.userId());
+        responseDto.setActualReturnDate(describeActualReturnDate(
+                rental.status(),
+                rental.requiredReturnDate(),
+                rental.actualReturnDate()));
+        return responseDto;
+    }
+
     @AfterMapping
     default void setActualReturnDate(
             @MappingTarget RentalResponseDto responseDto,
             Rental rental) {
-        String actualReturnDate;
-        if (rental.getActualReturnDate() == null
-                && rental.getStatus().equals(Rental.Status.LASTING)) {
-            actualReturnDate = "The car is not returned yet."
+        responseDto.setActualReturnDate(describeActualReturnDate(
+                rental.getStatus(),
+                rental.getRequiredReturnDate(),
+                rental.getActualReturnDate()));
+    }
+
+    private static String describeActualReturnDate(
+            Rental.Status status,
+            LocalDate requiredReturnDate,
+            LocalDate actualReturnDate) {
+        if (actualReturnDate == null && status.equals(Rental.Status.LASTING)) {
+            return "The car is not returned yet."
                     + " Return it in time or you will pay 3x for each day after required day.";
-        } else if (rental.getActualReturnDate() == null) {
-            actualReturnDate = "Your rental is not active yet. Pay for that first.";
-        } else if (!rental.getRequiredReturnDate().isBefore(LocalDate.now())) {
-            actualReturnDate = rental.getActualReturnDate().toString();
-        } else {
-            actualReturnDate = rental.getActualReturnDate().toString()
-                    + ". Car is returned not in required time. "
-                    + "You should pay fine. You can't rent a new car until you pay.";
+        } else if (actualReturnDate == null) {
+            return "Your rental is not active yet. Pay for that first.";
+        } else if (!requiredReturnDate.isBefore(LocalDate.now())) {
+            return actualReturnDate.toString();
         }
-        responseDto.setActualReturnDate(actualReturnDate);
+        return actualReturnDate.toString()
+                + ". Car is returned not in required time. "
+                + "You should pay fine. You can't rent a new car until you pay.";
     }
 }
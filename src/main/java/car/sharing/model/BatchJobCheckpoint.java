@@ -0,0 +1,50 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress of the last run of a chunked maintenance job.
+ * Is updated in the transaction of every chunk, so a run that crashed
+ * continues after the last committed chunk
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "batch_job_checkpoints")
+public class BatchJobCheckpoint {
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    // the greatest id processed by the run
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED
+    }
+}
@@ -8,6 +8,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -52,6 +54,15 @@ public class Car {
     @EqualsAndHashCode.Exclude
     private BigDecimal dailyFee;
 
+    // where the car and all its units are parked, null if it is not known
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    private Double latitude;
+
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    private Double longitude;
+
     @Column(name = "is_deleted")
     private boolean isDeleted = false;
 
@@ -0,0 +1,27 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Daily measures of one car, (statsDate, carId) is unique
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "car_daily_stats")
+public class CarDailyStats extends DailyStats {
+    @Column(name = "car_id", nullable = false)
+    private Long carId;
+
+    public CarDailyStats(Long carId, LocalDate statsDate) {
+        this.carId = carId;
+        setStatsDate(statsDate);
+    }
+}
@@ -0,0 +1,30 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import java.time.LocalDate;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Daily measures of all cars of one type, (statsDate, carType) is unique
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "car_type_daily_stats")
+public class CarTypeDailyStats extends DailyStats {
+    @Enumerated(EnumType.STRING)
+    @Column(name = "car_type", nullable = false)
+    private Car.Type carType;
+
+    public CarTypeDailyStats(Car.Type carType, LocalDate statsDate) {
+        this.carType = carType;
+        setStatsDate(statsDate);
+    }
+}
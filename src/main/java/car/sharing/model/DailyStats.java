@@ -0,0 +1,45 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Measures of one day in a rollup table, see DailyStatsRollup for what is counted on which day
+ */
+@MappedSuperclass
+@Getter
+@Setter
+public abstract class DailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "stats_date", nullable = false)
+    private LocalDate statsDate;
+
+    @Column(name = "rentals_started", nullable = false)
+    private int rentalsStarted;
+
+    @Column(name = "rentals_returned", nullable = false)
+    private int rentalsReturned;
+
+    @Column(name = "rentals_expired", nullable = false)
+    private int rentalsExpired;
+
+    // currency - USD
+    @Column(name = "paid_amount", nullable = false)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "fine_amount", nullable = false)
+    private BigDecimal fineAmount = BigDecimal.ZERO;
+
+    @Column(name = "rented_days", nullable = false)
+    private long rentedDays;
+}
@@ -0,0 +1,45 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A domain event saved in the same transaction as the change that caused it.
+ * Is delivered to consumers by OutboxRelay later
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // simple name of the DomainEvent implementation
+    @Column(nullable = false)
+    private String type;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    private int attempts;
+}
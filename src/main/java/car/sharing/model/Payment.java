@@ -8,7 +8,6 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.net.URL;
@@ -49,16 +48,20 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private Type type;
 
-    @NotNull
+    // stays empty until Stripe session of a pending payment is attached
     @Column(name = "session_url")
     @EqualsAndHashCode.Exclude
     private URL sessionUrl;
 
-    @NotBlank
     @Column(name = "session_id")
     @EqualsAndHashCode.Exclude
     private String sessionId;
 
+    // Stripe sessions attached so far, the next one is requested with a new idempotency key
+    @Column(name = "session_attempts")
+    @EqualsAndHashCode.Exclude
+    private int sessionAttempts;
+
     @NotNull
     @Column(name = "amount_to_pay")
     private BigDecimal amountToPay;
@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -41,6 +42,14 @@ public class Rental {
     @Column(name = "actual_return_date")
     private LocalDate actualReturnDate;
 
+    // a pending rental holds its car for rental.hold.window from this moment
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // RentalOverdue has been published for it, claimed with a conditional update
+    @Column(name = "overdue_announced_at")
+    private LocalDateTime overdueAnnouncedAt;
+
     @NotNull
     @Column(name = "car_id")
     private Long carId;
@@ -55,6 +64,14 @@ public class Rental {
     @Column(name = "is_deleted")
     private boolean isDeleted = false;
 
+    // booked for a later day, so it takes no unit of Car.inventory
+    @Column(name = "is_advance")
+    private boolean isAdvance = false;
+
+    // canceled because it was not paid within rental.hold.window, not by its user
+    @Column(name = "is_expired")
+    private boolean isExpired = false;
+
     public enum Status {
         PENDING,
         LASTING,
@@ -0,0 +1,48 @@
+package car.sharing.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A checkout session event received from Stripe webhook.
+ * Event id is unique, so an event redelivered by Stripe is stored only once.
+ * Is applied to its payment by StripeWebhookProcessor later
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "stripe_webhook_events")
+public class StripeWebhookEvent {
+    public static final String CHECKOUT_SESSION_COMPLETED = "checkout.session.completed";
+    public static final String CHECKOUT_SESSION_EXPIRED = "checkout.session.expired";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true)
+    private String eventId;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    private int attempts;
+}
@@ -42,6 +42,14 @@ public class User implements UserDetails {
     @Column(name = "is_deleted")
     private boolean isDeleted = false;
 
+    /**
+     * Is embedded into every issued token. Incrementing it revokes all the tokens issued before.
+     * It is changed by UserRepository.incrementTokenVersion() only,
+     * so saving a stale entity can't bring revoked tokens back
+     */
+    @Column(name = "token_version", insertable = false, updatable = false)
+    private int tokenVersion;
+
     @ManyToMany
     @JoinTable(
             name = "user_roles",
@@ -0,0 +1,49 @@
+package car.sharing.outbox;
+
+import car.sharing.model.OutboxEvent;
+import car.sharing.outbox.event.DomainEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OutboxEventSerializer {
+    private final ObjectMapper objectMapper;
+    private final Map<String, Class<?>> eventTypes;
+
+    public OutboxEventSerializer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        eventTypes = Arrays.stream(DomainEvent.class.getPermittedSubclasses())
+                .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+    }
+
+    public OutboxEvent serialize(DomainEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setType(event.getClass().getSimpleName());
+        outboxEvent.setAggregateId(event.aggregateId());
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Can't serialize event " + event, e);
+        }
+        return outboxEvent;
+    }
+
+    public DomainEvent deserialize(OutboxEvent outboxEvent) {
+        Class<?> eventType = eventTypes.get(outboxEvent.getType());
+        if (eventType == null) {
+            throw new IllegalArgumentException("Unknown event type: " + outboxEvent.getType());
+        }
+        try {
+            return (DomainEvent) objectMapper.readValue(outboxEvent.getPayload(), eventType);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Can't deserialize event " + outboxEvent.getId(), e);
+        }
+    }
+}
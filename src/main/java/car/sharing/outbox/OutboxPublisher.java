@@ -0,0 +1,24 @@
+package car.sharing.outbox;
+
+import car.sharing.outbox.event.DomainEvent;
+import car.sharing.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Saves an event into the outbox. Requires caller's transaction,
+ * so the event is stored if and only if the change that caused it is committed
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventSerializer outboxEventSerializer;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        outboxEventRepository.save(outboxEventSerializer.serialize(event));
+    }
+}
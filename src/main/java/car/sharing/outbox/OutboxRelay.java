@@ -0,0 +1,104 @@
+package car.sharing.outbox;
+
+import car.sharing.model.OutboxEvent;
+import car.sharing.outbox.consumer.OutboxEventConsumer;
+import car.sharing.outbox.event.DomainEvent;
+import car.sharing.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Delivers outbox events to every consumer in batches, oldest first.
+ * Each batch is handled in its own transaction, and an event is marked as processed
+ * only after all consumers handled it, so delivery is at-least-once.
+ * A failed event is retried on the next runs until outbox.relay.max.attempts is reached,
+ * then it stays in the table unprocessed for manual inspection
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventSerializer outboxEventSerializer;
+    private final List<OutboxEventConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Counter relayed;
+    private final Counter failed;
+
+    public OutboxRelay(
+            OutboxEventRepository outboxEventRepository,
+            OutboxEventSerializer outboxEventSerializer,
+            List<OutboxEventConsumer> consumers,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${outbox.relay.batch.size:100}") int batchSize,
+            @Value("${outbox.relay.max.attempts:10}") int maxAttempts,
+            @Value("${outbox.retention:P7D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventSerializer = outboxEventSerializer;
+        this.consumers = consumers;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        relayed = counter(meterRegistry, "relayed");
+        failed = counter(meterRegistry, "failed");
+    }
+
+    /**
+     * Relays batches until the outbox is drained or a batch has failed events
+     */
+    @Scheduled(initialDelayString = "${outbox.relay.delay:PT1S}",
+            fixedDelayString = "${outbox.relay.delay:PT1S}")
+    public void relay() {
+        Integer relayedInBatch;
+        do {
+            relayedInBatch = transactionTemplate.execute(status -> relayBatch());
+        } while (relayedInBatch != null && relayedInBatch == batchSize);
+    }
+
+    @Scheduled(cron = "0 30 0 * * *")
+    public void deleteProcessedEvents() {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.deleteAllProcessedBefore(
+                        LocalDateTime.now().minus(retention)));
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findUnprocessed(
+                maxAttempts, PageRequest.of(0, batchSize));
+        int relayedInBatch = 0;
+        for (OutboxEvent event : events) {
+            try {
+                DomainEvent domainEvent = outboxEventSerializer.deserialize(event);
+                consumers.forEach(consumer -> consumer.consume(domainEvent));
+                event.setProcessedAt(LocalDateTime.now());
+                relayed.increment();
+                relayedInBatch++;
+            } catch (RuntimeException e) {
+                event.setAttempts(event.getAttempts() + 1);
+                failed.increment();
+                log.warn("Can't relay outbox event {}, attempt {}",
+                        event.getId(), event.getAttempts(), e);
+            }
+        }
+        return relayedInBatch;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("outbox.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,11 @@
+package car.sharing.outbox.consumer;
+
+import car.sharing.outbox.event.DomainEvent;
+
+/**
+ * Receives every event from the outbox at least once, so handling should be idempotent
+ * or tolerate duplicates. Throwing makes the relay deliver the event again later
+ */
+public interface OutboxEventConsumer {
+    void consume(DomainEvent event);
+}
@@ -0,0 +1,71 @@
+package car.sharing.outbox.consumer;
+
+import car.sharing.outbox.event.CarCreated;
+import car.sharing.outbox.event.CarDeleted;
+import car.sharing.outbox.event.CarUpdated;
+import car.sharing.outbox.event.DomainEvent;
+import car.sharing.outbox.event.PaymentSucceeded;
+import car.sharing.outbox.event.RentalCreated;
+import car.sharing.outbox.event.RentalOverdue;
+import car.sharing.outbox.event.RentalReturned;
+import car.sharing.outbox.event.RoleChanged;
+import car.sharing.telegram.strategy.NotificationStrategy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands a Telegram message per event to TelegramNotificationQueue, so an event is marked
+ * as processed once the queue has accepted its message. Telegram is called by the queue's
+ * workers, never while the relay keeps the rows of its batch locked
+ */
+@Component
+@RequiredArgsConstructor
+public class TelegramOutboxEventConsumer implements OutboxEventConsumer {
+    private static final String TELEGRAM = "telegram";
+    private static final String RENTAL_CREATION = "rental creation";
+    private static final String RENTAL_RETURNING = "rental returning";
+    private static final String RENTAL_OVERDUE = "rental overdue";
+    private static final String SUCCESSFUL_PAYMENT = "successful payment";
+    private static final String CAR_CREATION = "car creation";
+    private static final String CAR_UPDATING = "car updating";
+    private static final String CAR_DELETION = "car deletion";
+    private static final String ROLE_UPDATING = "role updating";
+    private final NotificationStrategy<RentalCreated> rentalCreationNotificationStrategy;
+    private final NotificationStrategy<RentalReturned> rentalReturningNotificationStrategy;
+    private final NotificationStrategy<RentalOverdue> overdueNotificationStrategy;
+    private final NotificationStrategy<PaymentSucceeded> paymentNotificationStrategy;
+    private final NotificationStrategy<CarCreated> carCreationNotificationStrategy;
+    private final NotificationStrategy<CarUpdated> carUpdatingNotificationStrategy;
+    private final NotificationStrategy<CarDeleted> carDeletionNotificationStrategy;
+    private final NotificationStrategy<RoleChanged> roleNotificationStrategy;
+
+    @Override
+    public void consume(DomainEvent event) {
+        switch (event) {
+            case RentalCreated created -> sendMessage(
+                    rentalCreationNotificationStrategy, RENTAL_CREATION, created);
+            case RentalReturned returned -> sendMessage(
+                    rentalReturningNotificationStrategy, RENTAL_RETURNING, returned);
+            case RentalOverdue overdue -> sendMessage(
+                    overdueNotificationStrategy, RENTAL_OVERDUE, overdue);
+            case PaymentSucceeded succeeded -> sendMessage(
+                    paymentNotificationStrategy, SUCCESSFUL_PAYMENT, succeeded);
+            case CarCreated created -> sendMessage(
+                    carCreationNotificationStrategy, CAR_CREATION, created);
+            case CarUpdated updated -> sendMessage(
+                    carUpdatingNotificationStrategy, CAR_UPDATING, updated);
+            case CarDeleted deleted -> sendMessage(
+                    carDeletionNotificationStrategy, CAR_DELETION, deleted);
+            case RoleChanged changed -> sendMessage(
+                    roleNotificationStrategy, ROLE_UPDATING, changed);
+        }
+    }
+
+    private <T> void sendMessage(
+            NotificationStrategy<T> notificationStrategy,
+            String messageType,
+            T type) {
+        notificationStrategy.getNotificationService(TELEGRAM, messageType)
+                .sendMessage(type, null);
+    }
+}
@@ -0,0 +1,22 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Car;
+import java.math.BigDecimal;
+
+public record CarCreated(
+        Long carId,
+        String brand,
+        String model,
+        Car.Type type,
+        Integer inventory,
+        BigDecimal dailyFee) implements DomainEvent {
+    public static CarCreated of(Car car) {
+        return new CarCreated(car.getId(), car.getBrand(), car.getModel(), car.getType(),
+                car.getInventory(), car.getDailyFee());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return carId;
+    }
+}
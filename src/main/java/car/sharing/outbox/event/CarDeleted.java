@@ -0,0 +1,8 @@
+package car.sharing.outbox.event;
+
+public record CarDeleted(Long carId) implements DomainEvent {
+    @Override
+    public Long aggregateId() {
+        return carId;
+    }
+}
@@ -0,0 +1,22 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Car;
+import java.math.BigDecimal;
+
+public record CarUpdated(
+        Long carId,
+        String brand,
+        String model,
+        Car.Type type,
+        Integer inventory,
+        BigDecimal dailyFee) implements DomainEvent {
+    public static CarUpdated of(Car car) {
+        return new CarUpdated(car.getId(), car.getBrand(), car.getModel(), car.getType(),
+                car.getInventory(), car.getDailyFee());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return carId;
+    }
+}
@@ -0,0 +1,12 @@
+package car.sharing.outbox.event;
+
+/**
+ * An event is serialized into outbox_events as json and restored by its simple class name,
+ * so every implementation should be a record of plain json friendly fields.
+ * Entities are copied into such fields when the event is created, never embedded
+ */
+public sealed interface DomainEvent permits
+        RentalCreated, RentalReturned, RentalOverdue, PaymentSucceeded,
+        CarCreated, CarUpdated, CarDeleted, RoleChanged {
+    Long aggregateId();
+}
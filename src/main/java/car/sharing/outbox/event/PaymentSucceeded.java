@@ -0,0 +1,21 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Payment;
+import java.math.BigDecimal;
+
+public record PaymentSucceeded(
+        Long paymentId,
+        Long rentalId,
+        Long userId,
+        Payment.Type type,
+        BigDecimal amountToPay) implements DomainEvent {
+    public static PaymentSucceeded of(Payment payment) {
+        return new PaymentSucceeded(payment.getId(), payment.getRentalId(), payment.getUserId(),
+                payment.getType(), payment.getAmountToPay());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return paymentId;
+    }
+}
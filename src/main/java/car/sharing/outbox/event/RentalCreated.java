@@ -0,0 +1,21 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+
+public record RentalCreated(
+        Long rentalId,
+        Long userId,
+        Long carId,
+        LocalDate rentalDate,
+        LocalDate requiredReturnDate) implements DomainEvent {
+    public static RentalCreated of(Rental rental) {
+        return new RentalCreated(rental.getId(), rental.getUserId(), rental.getCarId(),
+                rental.getRentalDate(), rental.getRequiredReturnDate());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return rentalId;
+    }
+}
@@ -0,0 +1,21 @@
+package car.sharing.outbox.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A lasting rental has passed its required return date, accruedFine is the fine
+ * the user would pay when returning the car today
+ */
+public record RentalOverdue(
+        Long rentalId,
+        Long userId,
+        Long carId,
+        LocalDate rentalDate,
+        LocalDate requiredReturnDate,
+        BigDecimal accruedFine) implements DomainEvent {
+    @Override
+    public Long aggregateId() {
+        return rentalId;
+    }
+}
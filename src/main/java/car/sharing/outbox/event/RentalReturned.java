@@ -0,0 +1,19 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+
+public record RentalReturned(
+        Long rentalId,
+        LocalDate requiredReturnDate,
+        LocalDate actualReturnDate) implements DomainEvent {
+    public static RentalReturned of(Rental rental) {
+        return new RentalReturned(rental.getId(), rental.getRequiredReturnDate(),
+                rental.getActualReturnDate());
+    }
+
+    @Override
+    public Long aggregateId() {
+        return rentalId;
+    }
+}
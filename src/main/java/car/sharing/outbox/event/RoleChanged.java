@@ -0,0 +1,11 @@
+package car.sharing.outbox.event;
+
+import car.sharing.model.Role;
+import java.util.Set;
+
+public record RoleChanged(Long userId, Set<Role.RoleName> roles) implements DomainEvent {
+    @Override
+    public Long aggregateId() {
+        return userId;
+    }
+}
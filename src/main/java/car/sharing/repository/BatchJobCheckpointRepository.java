@@ -0,0 +1,21 @@
+package car.sharing.repository;
+
+import car.sharing.model.BatchJobCheckpoint;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BatchJobCheckpointRepository
+        extends JpaRepository<BatchJobCheckpoint, String> {
+    /**
+     * The checkpoint is locked for the whole chunk transaction,
+     * so several application instances running the same job take chunks one after another
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("FROM BatchJobCheckpoint checkpoint WHERE checkpoint.jobName = :jobName")
+    Optional<BatchJobCheckpoint> findLockedByJobName(String jobName);
+}
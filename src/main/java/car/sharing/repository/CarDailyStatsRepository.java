@@ -0,0 +1,106 @@
+package car.sharing.repository;
+
+import car.sharing.dto.stats.CarDailyStatsDto;
+import car.sharing.model.Car;
+import car.sharing.model.CarDailyStats;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarDailyStatsRepository extends JpaRepository<CarDailyStats, Long> {
+    /**
+     * Adds the deltas to the row of the car and day in a single statement, inserting it
+     * for the first change of the day, so concurrent changes never overwrite each other
+     * and the first ones of a day don't fail on the unique key
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO car_daily_stats (car_id, stats_date, rentals_started, "
+            + "rentals_returned, rentals_expired, paid_amount, fine_amount, rented_days) "
+            + "VALUES (:carId, :statsDate, :rentalsStarted, :rentalsReturned, :rentalsExpired, "
+            + ":paidAmount, :fineAmount, :rentedDays) ON DUPLICATE KEY UPDATE "
+            + "rentals_started = rentals_started + :rentalsStarted, "
+            + "rentals_returned = rentals_returned + :rentalsReturned, "
+            + "rentals_expired = rentals_expired + :rentalsExpired, "
+            + "paid_amount = paid_amount + :paidAmount, "
+            + "fine_amount = fine_amount + :fineAmount, "
+            + "rented_days = rented_days + :rentedDays", nativeQuery = true)
+    int increment(
+            Long carId,
+            LocalDate statsDate,
+            int rentalsStarted,
+            int rentalsReturned,
+            int rentalsExpired,
+            BigDecimal paidAmount,
+            BigDecimal fineAmount,
+            long rentedDays);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CarDailyStats stats WHERE stats.statsDate BETWEEN :from AND :to")
+    int deleteAllByStatsDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * @param carId null to read the stats of every car
+     */
+    @Query("SELECT new car.sharing.dto.stats.CarDailyStatsDto(stats.carId, stats.statsDate, "
+            + "stats.rentalsStarted, stats.rentalsReturned, stats.rentalsExpired, "
+            + "stats.paidAmount, stats.fineAmount, stats.rentedDays) FROM CarDailyStats stats "
+            + "WHERE stats.statsDate BETWEEN :from AND :to "
+            + "AND (:carId IS NULL OR stats.carId = :carId) "
+            + "ORDER BY stats.statsDate, stats.carId")
+    List<CarDailyStatsDto> findAllByStatsDateBetween(
+            LocalDate from,
+            LocalDate to,
+            Long carId,
+            Pageable pageable);
+
+    /**
+     * Every sum is null if there are no stats between the dates
+     */
+    @Query("SELECT SUM(stats.rentalsStarted) AS rentalsStarted, "
+            + "SUM(stats.rentalsReturned) AS rentalsReturned, "
+            + "SUM(stats.rentalsExpired) AS rentalsExpired, "
+            + "SUM(stats.paidAmount) AS paidAmount, SUM(stats.fineAmount) AS fineAmount, "
+            + "SUM(stats.rentedDays) AS rentedDays FROM CarDailyStats stats "
+            + "WHERE stats.statsDate BETWEEN :from AND :to")
+    Totals sumByStatsDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Stats of deleted cars are left out, as their type is unknown
+     */
+    @Query("SELECT car.type AS carType, stats.statsDate AS statsDate, "
+            + "SUM(stats.rentalsStarted) AS rentalsStarted, "
+            + "SUM(stats.rentalsReturned) AS rentalsReturned, "
+            + "SUM(stats.rentalsExpired) AS rentalsExpired, "
+            + "SUM(stats.paidAmount) AS paidAmount, SUM(stats.fineAmount) AS fineAmount, "
+            + "SUM(stats.rentedDays) AS rentedDays FROM CarDailyStats stats "
+            + "JOIN Car car ON car.id = stats.carId WHERE stats.statsDate IN :statsDates "
+            + "GROUP BY car.type, stats.statsDate")
+    List<TypeTotals> sumByCarTypeAndStatsDateIn(Collection<LocalDate> statsDates);
+
+    interface Totals {
+        Long getRentalsStarted();
+
+        Long getRentalsReturned();
+
+        Long getRentalsExpired();
+
+        BigDecimal getPaidAmount();
+
+        BigDecimal getFineAmount();
+
+        Long getRentedDays();
+    }
+
+    interface TypeTotals extends Totals {
+        Car.Type getCarType();
+
+        LocalDate getStatsDate();
+    }
+}
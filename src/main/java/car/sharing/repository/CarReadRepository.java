@@ -0,0 +1,36 @@
+package car.sharing.repository;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.model.Car;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.RepositoryDefinition;
+
+/**
+ * Read-only car listings selected straight into response dtos,
+ * so no entity gets into the persistence context and no mapper is involved
+ */
+@RepositoryDefinition(domainClass = Car.class, idClass = Long.class)
+public interface CarReadRepository {
+    @Query("SELECT new car.sharing.dto.car.CarResponseDto(car.id, car.model, car.brand, "
+            + "car.type, car.inventory, car.dailyFee, car.latitude, car.longitude) "
+            + "FROM Car car WHERE car.inventory > 0")
+    List<CarResponseDto> findAllAvailable(Pageable pageable);
+
+    @Query("SELECT new car.sharing.dto.car.CarResponseDto(car.id, car.model, car.brand, "
+            + "car.type, car.inventory, car.dailyFee, car.latitude, car.longitude) "
+            + "FROM Car car WHERE car.inventory > 0 AND car.id > :afterId ORDER BY car.id")
+    List<CarResponseDto> findAllAvailableAfter(Long afterId, Pageable pageable);
+
+    @Query("SELECT new car.sharing.dto.car.CarResponseDto(car.id, car.model, car.brand, "
+            + "car.type, car.inventory, car.dailyFee, car.latitude, car.longitude) "
+            + "FROM Car car ORDER BY car.id")
+    List<CarResponseDto> findAllForCatalogue();
+
+    @Query("SELECT new car.sharing.dto.car.CarResponseDto(car.id, car.model, car.brand, "
+            + "car.type, car.inventory, car.dailyFee, car.latitude, car.longitude) "
+            + "FROM Car car WHERE car.id IN :ids")
+    List<CarResponseDto> findAllForCatalogueByIdIn(Collection<Long> ids);
+}
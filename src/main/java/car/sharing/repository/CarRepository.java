@@ -1,10 +1,14 @@
 package car.sharing.repository;
 
 import car.sharing.model.Car;
+import jakarta.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -13,4 +17,59 @@ public interface CarRepository extends JpaRepository<Car, Long>,
         JpaSpecificationExecutor<Car> {
     @Query("FROM Car car WHERE car.inventory > 0")
     List<Car> findAllAvailable(Pageable pageable);
+
+    /**
+     * Takes one unit of the car in a single conditional statement,
+     * so concurrent renters can never push inventory below zero
+     * @return 1 if the unit was taken, 0 if there was nothing to take
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Car car SET car.inventory = car.inventory - 1 "
+            + "WHERE car.id = :id AND car.inventory > 0 AND car.isDeleted = FALSE")
+    int decrementInventory(Long id);
+
+    /**
+     * Takes all the units or none of them
+     * @return 1 if the units were taken, 0 if there were not that many to take
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Car car SET car.inventory = car.inventory - :amount "
+            + "WHERE car.id = :id AND car.inventory >= :amount AND car.isDeleted = FALSE")
+    int decrementInventory(Long id, int amount);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Car car SET car.inventory = car.inventory + :amount "
+            + "WHERE car.id = :id AND car.isDeleted = FALSE")
+    int incrementInventory(Long id, int amount);
+
+    @Query("SELECT car.inventory FROM Car car WHERE car.id = :id")
+    Optional<Integer> findInventoryById(Long id);
+
+    /**
+     * Locks the car, so bookings of it are checked one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("FROM Car car WHERE car.id = :id")
+    Optional<Car> lockById(Long id);
+
+    /**
+     * Units of every car, the free ones and those taken by pending and lasting rentals
+     */
+    @Query("SELECT car.id AS carId, car.inventory + (SELECT COUNT(rental) FROM Rental rental "
+            + "WHERE rental.carId = car.id AND rental.isAdvance = FALSE "
+            + "AND (rental.status = 'PENDING' OR rental.status = 'LASTING')) AS capacity "
+            + "FROM Car car")
+    List<CarCapacity> findAllCapacities();
+
+    @Query("SELECT car.id AS carId, car.inventory + (SELECT COUNT(rental) FROM Rental rental "
+            + "WHERE rental.carId = car.id AND rental.isAdvance = FALSE "
+            + "AND (rental.status = 'PENDING' OR rental.status = 'LASTING')) AS capacity "
+            + "FROM Car car WHERE car.id = :id")
+    Optional<CarCapacity> findCapacityById(Long id);
+
+    interface CarCapacity {
+        Long getCarId();
+
+        long getCapacity();
+    }
 }
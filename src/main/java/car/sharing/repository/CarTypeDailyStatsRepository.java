@@ -0,0 +1,37 @@
+package car.sharing.repository;
+
+import car.sharing.dto.stats.CarTypeDailyStatsDto;
+import car.sharing.model.Car;
+import car.sharing.model.CarTypeDailyStats;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CarTypeDailyStatsRepository extends JpaRepository<CarTypeDailyStats, Long> {
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CarTypeDailyStats stats WHERE stats.statsDate BETWEEN :from AND :to")
+    int deleteAllByStatsDateBetween(LocalDate from, LocalDate to);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CarTypeDailyStats stats WHERE stats.statsDate IN :statsDates")
+    int deleteAllByStatsDateIn(Collection<LocalDate> statsDates);
+
+    /**
+     * @param carType null to read the stats of every car type
+     */
+    @Query("SELECT new car.sharing.dto.stats.CarTypeDailyStatsDto(stats.carType, "
+            + "stats.statsDate, stats.rentalsStarted, stats.rentalsReturned, "
+            + "stats.rentalsExpired, stats.paidAmount, stats.fineAmount, stats.rentedDays) "
+            + "FROM CarTypeDailyStats stats WHERE stats.statsDate BETWEEN :from AND :to "
+            + "AND (:carType IS NULL OR stats.carType = :carType) "
+            + "ORDER BY stats.statsDate, stats.carType")
+    List<CarTypeDailyStatsDto> findAllByStatsDateBetween(
+            LocalDate from,
+            LocalDate to,
+            Car.Type carType);
+}
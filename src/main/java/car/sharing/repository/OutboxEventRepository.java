@@ -0,0 +1,32 @@
+package car.sharing.repository;
+
+import car.sharing.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Rows are locked, and rows locked by another relay are skipped (lock timeout -2),
+     * so several application instances never deliver the same batch simultaneously
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("FROM OutboxEvent outboxEvent "
+            + "WHERE outboxEvent.processedAt IS NULL AND outboxEvent.attempts < :maxAttempts "
+            + "ORDER BY outboxEvent.id")
+    List<OutboxEvent> findUnprocessed(int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent outboxEvent WHERE outboxEvent.processedAt < :before")
+    int deleteAllProcessedBefore(LocalDateTime before);
+}
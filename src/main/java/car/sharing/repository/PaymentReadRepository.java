@@ -0,0 +1,26 @@
+package car.sharing.repository;
+
+import car.sharing.dto.payment.PaymentResponseDto;
+import car.sharing.model.Payment;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.RepositoryDefinition;
+
+/**
+ * Read-only payment listings selected straight into response dtos
+ */
+@RepositoryDefinition(domainClass = Payment.class, idClass = Long.class)
+public interface PaymentReadRepository {
+    @Query("SELECT new car.sharing.dto.payment.PaymentResponseDto(payment.id, "
+            + "payment.rentalId, payment.status, payment.type, payment.sessionUrl, "
+            + "payment.sessionId, payment.amountToPay) FROM Payment payment "
+            + "WHERE payment.userId = :userId")
+    List<PaymentResponseDto> findAllByUserId(Long userId, Pageable pageable);
+
+    @Query("SELECT new car.sharing.dto.payment.PaymentResponseDto(payment.id, "
+            + "payment.rentalId, payment.status, payment.type, payment.sessionUrl, "
+            + "payment.sessionId, payment.amountToPay) FROM Payment payment "
+            + "WHERE payment.userId = :userId AND payment.id > :afterId ORDER BY payment.id")
+    List<PaymentResponseDto> findAllByUserIdAfter(Long userId, Long afterId, Pageable pageable);
+}
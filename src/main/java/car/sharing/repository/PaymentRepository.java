@@ -1,10 +1,22 @@
 package car.sharing.repository;
 
 import car.sharing.model.Payment;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -19,4 +31,88 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             Payment.Status status);
 
     Optional<Payment> findByRentalId(Long id);
+
+    /**
+     * Reads payments of rentals started in the given dates for an export
+     * through a forward-only cursor, see RentalRepository.streamAllByRentalDateBetween
+     * @param status name of Payment.Status, null for any
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE,
+                    value = RentalRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT payment.* FROM payments payment JOIN rentals rental "
+            + "ON rental.id = payment.rental_id WHERE rental.rental_date BETWEEN :from AND :to "
+            + "AND (:status IS NULL OR payment.status = :status)", nativeQuery = true)
+    Stream<Payment> streamAllByRentalDateBetween(
+            LocalDate from,
+            LocalDate to,
+            String status);
+
+    /**
+     * Paid payments of rentals started between the dates, by car and rental date
+     */
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS statsDate, "
+            + "SUM(payment.amountToPay) AS amount FROM Payment payment JOIN Rental rental "
+            + "ON rental.id = payment.rentalId WHERE payment.status = 'PAID' "
+            + "AND payment.type = 'PAYMENT' AND rental.rentalDate BETWEEN :from AND :to "
+            + "GROUP BY rental.carId, rental.rentalDate")
+    List<CarDayAmount> sumPaidByCarIdAndRentalDate(LocalDate from, LocalDate to);
+
+    /**
+     * Paid fines of rentals returned between the dates, by car and return date
+     */
+    @Query("SELECT rental.carId AS carId, rental.actualReturnDate AS statsDate, "
+            + "SUM(payment.amountToPay) AS amount FROM Payment payment JOIN Rental rental "
+            + "ON rental.id = payment.rentalId WHERE payment.status = 'PAID' "
+            + "AND payment.type = 'FINE' AND rental.actualReturnDate BETWEEN :from AND :to "
+            + "GROUP BY rental.carId, rental.actualReturnDate")
+    List<CarDayAmount> sumPaidFinesByCarIdAndReturnDate(LocalDate from, LocalDate to);
+
+    /**
+     * Payments are locked, so a session reported by a webhook and found by reconciliation
+     * at the same time is settled only once
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Payment> findAllBySessionIdIn(Collection<String> sessionIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Payment> findAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Locks the pending payment of the user, so it's settled only once
+     * when the user comes back from Stripe while a webhook reports the same session
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("FROM Payment payment WHERE payment.status = 'PENDING' AND payment.userId = :userId")
+    Optional<Payment> lockPendingByUserId(Long userId);
+
+    // fines are kept, a user has to pay them anyway
+    @Modifying
+    @Query("UPDATE Payment payment SET payment.status = 'EXPIRED', payment.isDeleted = TRUE "
+            + "WHERE payment.rentalId IN :rentalIds AND payment.type <> 'FINE' "
+            + "AND payment.isDeleted = FALSE")
+    int expireAllByRentalIdIn(Collection<Long> rentalIds);
+
+    @Query("FROM Payment payment WHERE payment.status = :status "
+            + "AND payment.sessionId IS NOT NULL AND payment.id > :afterId ORDER BY payment.id")
+    List<Payment> findAllWithSessionByStatusAfter(
+            Payment.Status status,
+            Long afterId,
+            Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Payment payment SET payment.sessionId = :sessionId, "
+            + "payment.sessionUrl = :sessionUrl, "
+            + "payment.sessionAttempts = payment.sessionAttempts + 1 WHERE payment.id = :id")
+    int attachSession(Long id, String sessionId, URL sessionUrl);
+
+    interface CarDayAmount {
+        Long getCarId();
+
+        LocalDate getStatsDate();
+
+        BigDecimal getAmount();
+    }
 }
@@ -0,0 +1,25 @@
+package car.sharing.repository;
+
+import car.sharing.dto.rental.RentalView;
+import car.sharing.model.Rental;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.RepositoryDefinition;
+
+/**
+ * Read-only rental listings selected into RentalView rows instead of entities
+ */
+@RepositoryDefinition(domainClass = Rental.class, idClass = Long.class)
+public interface RentalReadRepository {
+    @Query("SELECT new car.sharing.dto.rental.RentalView(rental.id, rental.rentalDate, "
+            + "rental.requiredReturnDate, rental.actualReturnDate, rental.carId, "
+            + "rental.userId, rental.status) FROM Rental rental WHERE rental.userId = :userId")
+    List<RentalView> findAllByUserId(Long userId, Pageable pageable);
+
+    @Query("SELECT new car.sharing.dto.rental.RentalView(rental.id, rental.rentalDate, "
+            + "rental.requiredReturnDate, rental.actualReturnDate, rental.carId, "
+            + "rental.userId, rental.status) FROM Rental rental "
+            + "WHERE rental.userId = :userId AND rental.id > :afterId ORDER BY rental.id")
+    List<RentalView> findAllByUserIdAfter(Long userId, Long afterId, Pageable pageable);
+}
@@ -1,16 +1,28 @@
 package car.sharing.repository;
 
 import car.sharing.model.Rental;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RentalRepository extends JpaRepository<Rental, Long> {
+    String EXPORT_FETCH_SIZE = "1000";
+
     @Query("FROM Rental rental "
             + "WHERE rental.userId = :userId AND rental.actualReturnDate IS NOT NULL")
     List<Rental> findAllWhereActualReturnDateIsNotNull(Long userId, Pageable pageable);
@@ -19,19 +31,243 @@ public interface RentalRepository extends JpaRepository<Rental, Long> {
 
     Optional<Rental> findRentalByStatusAndUserId(Rental.Status status, Long userId);
 
+    /**
+     * Reads rentals for an export through a forward-only cursor,
+     * the caller has to keep a transaction open and detach rows it has written.
+     * Canceled rentals are soft deleted, hence a native query
+     * @param status name of Rental.Status, null for any
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT * FROM rentals rental WHERE rental.rental_date BETWEEN :from AND :to "
+            + "AND (:status IS NULL OR rental.status = :status)", nativeQuery = true)
+    Stream<Rental> streamAllByRentalDateBetween(
+            LocalDate from,
+            LocalDate to,
+            String status);
+
     @Query("FROM Rental rental "
             + "WHERE rental.actualReturnDate IS NULL "
             + "AND rental.requiredReturnDate < :now "
             + "AND rental.status = 'LASTING'")
     List<Rental> findAllOverdueRentals(LocalDate now);
 
+    @Query("SELECT rental.id AS id, rental.userId AS userId, rental.carId AS carId, "
+            + "rental.rentalDate AS rentalDate, rental.requiredReturnDate AS requiredReturnDate, "
+            + "car.dailyFee AS dailyFee, rental.overdueAnnouncedAt AS overdueAnnouncedAt "
+            + "FROM Rental rental JOIN Car car ON car.id = rental.carId "
+            + "WHERE rental.status = 'LASTING' AND rental.actualReturnDate IS NULL")
+    List<LastingRental> findAllLasting();
+
     List<Rental> findAllByStatus(Rental.Status status, Pageable pageable);
 
+    /**
+     * Next page of rentals in the given status sorted by (requiredReturnDate, id),
+     * the pair makes the order total even when many rentals end on the same day
+     */
+    @Query("FROM Rental rental WHERE rental.status = :status "
+            + "AND (rental.requiredReturnDate > :afterDate "
+            + "OR (rental.requiredReturnDate = :afterDate AND rental.id > :afterId)) "
+            + "ORDER BY rental.requiredReturnDate, rental.id")
+    List<Rental> findAllByStatusAfter(
+            Rental.Status status,
+            LocalDate afterDate,
+            Long afterId,
+            Pageable pageable);
+
     @Query("FROM Rental rental "
             + "WHERE (rental.status = 'PENDING' OR rental.status = 'LASTING') "
             + "AND rental.userId = :userId")
     Optional<Rental> findActiveByUserId(Long userId);
 
-    @Query("FROM Rental rental WHERE rental.status = :status AND rental.rentalDate <= :localDate")
-    List<Rental> findAllByStatusAndRentalDate(Rental.Status status, LocalDate localDate);
+    @Query("SELECT rental.id FROM Rental rental WHERE rental.status = :status "
+            + "AND rental.createdAt <= :createdBefore AND rental.id > :afterId "
+            + "ORDER BY rental.id")
+    List<Long> findIdsByStatusAndCreatedAt(
+            Rental.Status status,
+            LocalDateTime createdBefore,
+            Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT rental.id AS id, rental.createdAt AS createdAt FROM Rental rental "
+            + "WHERE rental.status = :status AND rental.id > :afterId ORDER BY rental.id")
+    List<RentalCreation> findCreationsByStatusAfter(
+            Rental.Status status,
+            Long afterId,
+            Pageable pageable);
+
+    /**
+     * Locks the rentals by their primary key only, so a chunk never locks
+     * rows of the next chunks, and keeps those that are still in the given status
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT rental.id FROM Rental rental WHERE rental.id IN :ids "
+            + "AND rental.status = :status")
+    List<Long> lockIdsByIdInAndStatus(Collection<Long> ids, Rental.Status status);
+
+    /**
+     * Pending and lasting rentals booked ahead whose rental date has come
+     */
+    @Query("SELECT rental.id FROM Rental rental WHERE rental.isAdvance = TRUE "
+            + "AND (rental.status = 'PENDING' OR rental.status = 'LASTING') "
+            + "AND rental.rentalDate <= :today AND rental.id > :afterId ORDER BY rental.id")
+    List<Long> findStartedAdvanceIds(LocalDate today, Long afterId, Pageable pageable);
+
+    /**
+     * Locks the rentals by their primary key only and keeps those still booked ahead
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT rental.id FROM Rental rental WHERE rental.id IN :ids "
+            + "AND rental.isAdvance = TRUE "
+            + "AND (rental.status = 'PENDING' OR rental.status = 'LASTING')")
+    List<Long> lockAdvanceIdsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS statsDate, "
+            + "COUNT(rental) AS rentals FROM Rental rental "
+            + "WHERE rental.id IN :ids GROUP BY rental.carId, rental.rentalDate")
+    List<CarDayRentals> countByCarIdAndRentalDateIn(Collection<Long> ids);
+
+    /**
+     * Rentals that have been paid, by car and the day they started on
+     */
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS statsDate, "
+            + "COUNT(rental) AS rentals FROM Rental rental "
+            + "WHERE (rental.status = 'LASTING' OR rental.status = 'RETURNED') "
+            + "AND rental.rentalDate BETWEEN :from AND :to "
+            + "GROUP BY rental.carId, rental.rentalDate")
+    List<CarDayRentals> countStartedByCarIdAndRentalDate(LocalDate from, LocalDate to);
+
+    /**
+     * Returned rentals grouped by car and both dates, so the caller can count their days
+     */
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS rentalDate, "
+            + "rental.actualReturnDate AS actualReturnDate, COUNT(rental) AS rentals "
+            + "FROM Rental rental WHERE rental.status = 'RETURNED' "
+            + "AND rental.actualReturnDate BETWEEN :from AND :to "
+            + "GROUP BY rental.carId, rental.rentalDate, rental.actualReturnDate")
+    List<CarReturns> countReturnedByCarIdAndReturnDate(LocalDate from, LocalDate to);
+
+    /**
+     * Canceled rentals are soft deleted, hence a native query.
+     * Rentals canceled by their users are not counted, as DailyStatsRollup doesn't count them
+     */
+    @Query(value = "SELECT rental.car_id AS carId, rental.rental_date AS statsDate, "
+            + "COUNT(*) AS rentals FROM rentals rental WHERE rental.status = 'CANCELED' "
+            + "AND rental.is_expired = TRUE AND rental.rental_date BETWEEN :from AND :to "
+            + "GROUP BY rental.car_id, rental.rental_date", nativeQuery = true)
+    List<CarDayRentals> countExpiredByCarIdAndRentalDate(LocalDate from, LocalDate to);
+
+    /**
+     * The first day of the history including canceled rentals
+     */
+    @Query(value = "SELECT MIN(rental_date) FROM rentals", nativeQuery = true)
+    Optional<LocalDate> findFirstRentalDate();
+
+    /**
+     * Units of Car.inventory taken by the rentals, by car. Rentals booked ahead take none,
+     * so a car may have zero units
+     */
+    @Query("SELECT rental.carId AS carId, "
+            + "SUM(CASE WHEN rental.isAdvance = FALSE THEN 1 ELSE 0 END) AS units "
+            + "FROM Rental rental WHERE rental.id IN :ids GROUP BY rental.carId")
+    List<CarUnits> countUnitsByCarIdIn(Collection<Long> ids);
+
+    @Query("SELECT rental.carId AS carId, COUNT(rental) AS units "
+            + "FROM Rental rental WHERE rental.id IN :ids GROUP BY rental.carId")
+    List<CarUnits> countRentalsByCarIdIn(Collection<Long> ids);
+
+    /**
+     * Pending and lasting rentals, each of them takes a unit of its car
+     * from its rental date till its required return date
+     */
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS rentalDate, "
+            + "rental.requiredReturnDate AS requiredReturnDate FROM Rental rental "
+            + "WHERE rental.status = 'PENDING' OR rental.status = 'LASTING'")
+    List<Occupancy> findAllOccupancies();
+
+    @Query("SELECT rental.carId AS carId, rental.rentalDate AS rentalDate, "
+            + "rental.requiredReturnDate AS requiredReturnDate FROM Rental rental "
+            + "WHERE rental.carId = :carId "
+            + "AND (rental.status = 'PENDING' OR rental.status = 'LASTING')")
+    List<Occupancy> findAllOccupanciesByCarId(Long carId);
+
+    @Modifying
+    @Query("UPDATE Rental rental SET rental.status = 'CANCELED', rental.isDeleted = TRUE, "
+            + "rental.isExpired = TRUE WHERE rental.id IN :ids")
+    int expireAllByIdIn(Collection<Long> ids);
+
+    /**
+     * The rentals of the cars have taken their units of Car.inventory,
+     * so they give them back like any other rental from now on
+     */
+    @Modifying
+    @Query("UPDATE Rental rental SET rental.isAdvance = FALSE "
+            + "WHERE rental.id IN :ids AND rental.carId IN :carIds")
+    int startAllByIdInAndCarIdIn(Collection<Long> ids, Collection<Long> carIds);
+
+    /**
+     * @return 1 if the caller is the one to announce the rental is overdue,
+     *         0 if it has been announced already or is not lasting anymore
+     */
+    @Modifying
+    @Query("UPDATE Rental rental SET rental.overdueAnnouncedAt = :announcedAt "
+            + "WHERE rental.id = :id AND rental.status = 'LASTING' "
+            + "AND rental.actualReturnDate IS NULL AND rental.overdueAnnouncedAt IS NULL")
+    int claimOverdueAnnouncement(Long id, LocalDateTime announcedAt);
+
+    interface LastingRental {
+        Long getId();
+
+        Long getUserId();
+
+        Long getCarId();
+
+        LocalDate getRentalDate();
+
+        LocalDate getRequiredReturnDate();
+
+        BigDecimal getDailyFee();
+
+        LocalDateTime getOverdueAnnouncedAt();
+    }
+
+    interface RentalCreation {
+        Long getId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    interface CarDayRentals {
+        Long getCarId();
+
+        LocalDate getStatsDate();
+
+        long getRentals();
+    }
+
+    interface CarReturns {
+        Long getCarId();
+
+        LocalDate getRentalDate();
+
+        LocalDate getActualReturnDate();
+
+        long getRentals();
+    }
+
+    interface CarUnits {
+        Long getCarId();
+
+        long getUnits();
+    }
+
+    interface Occupancy {
+        Long getCarId();
+
+        LocalDate getRentalDate();
+
+        LocalDate getRequiredReturnDate();
+    }
 }
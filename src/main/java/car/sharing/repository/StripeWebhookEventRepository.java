@@ -0,0 +1,46 @@
+package car.sharing.repository;
+
+import car.sharing.model.StripeWebhookEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StripeWebhookEventRepository extends JpaRepository<StripeWebhookEvent, Long> {
+    boolean existsByEventId(String eventId);
+
+    /**
+     * Rows locked by another application instance are skipped (lock timeout -2),
+     * so the same event is never applied by two processors simultaneously
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("FROM StripeWebhookEvent webhookEvent WHERE webhookEvent.processedAt IS NULL "
+            + "AND webhookEvent.attempts < :maxAttempts ORDER BY webhookEvent.id")
+    List<StripeWebhookEvent> findUnprocessed(int maxAttempts, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("FROM StripeWebhookEvent webhookEvent "
+            + "WHERE webhookEvent.id = :id AND webhookEvent.processedAt IS NULL")
+    Optional<StripeWebhookEvent> findUnprocessedById(Long id);
+
+    @Modifying
+    @Query("UPDATE StripeWebhookEvent webhookEvent "
+            + "SET webhookEvent.attempts = webhookEvent.attempts + 1 WHERE webhookEvent.id = :id")
+    int incrementAttempts(Long id);
+
+    @Modifying
+    @Query("DELETE FROM StripeWebhookEvent webhookEvent "
+            + "WHERE webhookEvent.processedAt < :before")
+    int deleteAllProcessedBefore(LocalDateTime before);
+}
@@ -1,10 +1,14 @@
 package car.sharing.repository;
 
 import car.sharing.model.User;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,4 +18,26 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     @EntityGraph(attributePaths = "roles")
     Optional<User> findById(Long id);
+
+    @Query("SELECT user.tokenVersion FROM User user WHERE user.id = :id")
+    Optional<Integer> findTokenVersionById(Long id);
+
+    @Modifying
+    @Query("UPDATE User user SET user.tokenVersion = user.tokenVersion + 1 WHERE user.id = :id")
+    int incrementTokenVersion(Long id);
+
+    @Query("SELECT user.id AS id, user.email AS email, user.firstName AS firstName, "
+            + "user.lastName AS lastName FROM User user WHERE user.id > :afterId "
+            + "ORDER BY user.id")
+    List<SearchFields> findSearchFieldsByIdGreaterThan(Long afterId, Pageable pageable);
+
+    interface SearchFields {
+        Long getId();
+
+        String getEmail();
+
+        String getFirstName();
+
+        String getLastName();
+    }
 }
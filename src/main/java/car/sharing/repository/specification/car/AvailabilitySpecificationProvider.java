@@ -0,0 +1,34 @@
+package car.sharing.repository.specification.car;
+
+import car.sharing.model.Car;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps cars with a free unit on every day of the window, which are found
+ * in the availability index, so the query doesn't join rentals
+ */
+@Component
+@RequiredArgsConstructor
+public class AvailabilitySpecificationProvider {
+    private static final String ID_COLUMN = "id";
+    private final CarAvailabilityIndex carAvailabilityIndex;
+
+    public Specification<Car> getSpecification(List<LocalDate> params) {
+        LocalDate from = params.get(0);
+        LocalDate to = params.get(1);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException(
+                    "Available to should not be before available from, but was " + params);
+        }
+        Set<Long> ids = carAvailabilityIndex.findAvailableCarIds(from, to);
+        return (root, query, criteriaBuilder) -> ids.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get(ID_COLUMN).in(ids);
+    }
+}
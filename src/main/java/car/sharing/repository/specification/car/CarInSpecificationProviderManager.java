@@ -1,23 +1,32 @@
 package car.sharing.repository.specification.car;
 
 import car.sharing.model.Car;
+import car.sharing.util.DispatchRegistry;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class CarInSpecificationProviderManager
         implements InSpecificationProviderManager<Car> {
-    private final List<InSpecificationProvider<Car>> specificationProviders;
+    private final Map<String, InSpecificationProvider<Car>> specificationProviders;
+
+    public CarInSpecificationProviderManager(
+            List<InSpecificationProvider<Car>> specificationProviders) {
+        this.specificationProviders = DispatchRegistry.byKey(
+                specificationProviders,
+                InSpecificationProvider::getKey,
+                "car specification provider");
+    }
 
     @Override
     public InSpecificationProvider<Car> getSpecificationProvider(String key) {
-        return specificationProviders
-                .stream()
-                .filter(provider -> provider.getKey().equals(key))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException(
-                        "Can't find correct specification for key " + key));
+        InSpecificationProvider<Car> provider =
+                specificationProviders.get(DispatchRegistry.normalize(key));
+        if (provider == null) {
+            throw new RuntimeException(
+                    "Can't find correct specification for key " + key);
+        }
+        return provider;
     }
 }
@@ -17,6 +17,7 @@ public class CarSpecificationBuilder
     private final CarInSpecificationProviderManager inSpecificationProviderManager;
     private final TypeSpecificationProvider typeSpecificationProvider;
     private final DailyFeeSpecificationProvider priceSpecificationProvider;
+    private final AvailabilitySpecificationProvider availabilitySpecificationProvider;
 
     @Override
     public Specification<Car> build(CarSearchParametersDto parametersDto) {
@@ -40,6 +41,11 @@ public class CarSpecificationBuilder
                             .getSpecification(
                                     parametersDto.types()));
         }
+        if (parametersDto.availableBetween() != null) {
+            specification = specification.and(
+                    availabilitySpecificationProvider
+                            .getSpecification(parametersDto.availableBetween()));
+        }
         return specification;
     }
 
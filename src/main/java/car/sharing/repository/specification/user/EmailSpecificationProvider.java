@@ -1,23 +1,11 @@
 package car.sharing.repository.specification.user;
 
-import car.sharing.model.User;
-import org.springframework.data.jpa.domain.Specification;
+import car.sharing.service.user.UserSearchIndex;
 import org.springframework.stereotype.Component;
 
 @Component
-public class EmailSpecificationProvider implements LikeSpecificationProvider<User> {
-    private static final String EMAIL_COLUMN = "email";
-    private static final String PERCENT = "%";
-
-    @Override
-    public Specification<User> getSpecification(String param) {
-        return (root, query, criteriaBuilder)
-                -> criteriaBuilder.like(
-                        root.get(EMAIL_COLUMN), PERCENT + param + PERCENT);
-    }
-
-    @Override
-    public String getKey() {
-        return EMAIL_COLUMN;
+public class EmailSpecificationProvider extends IndexedLikeSpecificationProvider {
+    public EmailSpecificationProvider(UserSearchIndex userSearchIndex) {
+        super(userSearchIndex, UserSearchIndex.EMAIL);
     }
 }
@@ -0,0 +1,50 @@
+package car.sharing.repository.specification.user;
+
+import car.sharing.model.User;
+import car.sharing.service.user.UserSearchIndex;
+import jakarta.persistence.criteria.Predicate;
+import java.util.Optional;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * LIKE '%param%' on a column of users, narrowed down to the ids the user search index
+ * finds for the param, so the database reads the candidates by primary key instead
+ * of scanning the table. The index only finds candidates, LIKE still decides which
+ * of them match. Users registered after the index was rebuilt are read as the range
+ * of ids above it. Without the index narrowing them down, the whole table is scanned
+ */
+public abstract class IndexedLikeSpecificationProvider implements LikeSpecificationProvider<User> {
+    private static final String ID_COLUMN = "id";
+    private static final String PERCENT = "%";
+    private final UserSearchIndex userSearchIndex;
+    private final String column;
+
+    protected IndexedLikeSpecificationProvider(UserSearchIndex userSearchIndex, String column) {
+        this.userSearchIndex = userSearchIndex;
+        this.column = column;
+    }
+
+    @Override
+    public Specification<User> getSpecification(String param) {
+        Optional<UserSearchIndex.Candidates> candidates =
+                userSearchIndex.findCandidates(column, param);
+        return (root, query, criteriaBuilder) -> {
+            Predicate like = criteriaBuilder.like(root.get(column), PERCENT + param + PERCENT);
+            if (candidates.isEmpty()) {
+                return like;
+            }
+            Predicate notIndexed = criteriaBuilder.greaterThan(
+                    root.<Long>get(ID_COLUMN), candidates.get().indexedUpTo());
+            Predicate candidate = candidates.get().ids().isEmpty()
+                    ? notIndexed
+                    : criteriaBuilder.or(
+                            root.get(ID_COLUMN).in(candidates.get().ids()), notIndexed);
+            return criteriaBuilder.and(candidate, like);
+        };
+    }
+
+    @Override
+    public String getKey() {
+        return column;
+    }
+}
@@ -1,23 +1,31 @@
 package car.sharing.repository.specification.user;
 
 import car.sharing.model.User;
+import car.sharing.util.DispatchRegistry;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class UserLikeSpecificationProviderManager
         implements LikeSpecificationProviderManager<User> {
-    private final List<LikeSpecificationProvider<User>> specificationProviders;
+    private final Map<String, LikeSpecificationProvider<User>> specificationProviders;
+
+    public UserLikeSpecificationProviderManager(
+            List<LikeSpecificationProvider<User>> specificationProviders) {
+        this.specificationProviders = DispatchRegistry.byKey(
+                specificationProviders,
+                LikeSpecificationProvider::getKey,
+                "user specification provider");
+    }
 
     @Override
     public LikeSpecificationProvider<User> getSpecificationProvider(String key) {
-        return specificationProviders
-                .stream()
-                .filter(provider -> provider.getKey().equals(key))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException(
-                        "Can't find specification for key " + key));
+        LikeSpecificationProvider<User> provider =
+                specificationProviders.get(DispatchRegistry.normalize(key));
+        if (provider == null) {
+            throw new RuntimeException("Can't find specification for key " + key);
+        }
+        return provider;
     }
 }
@@ -2,6 +2,7 @@ package car.sharing.security;
 
 import car.sharing.dto.user.UserLoginRequestDto;
 import car.sharing.dto.user.UserLoginResponseDto;
+import car.sharing.model.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,7 +19,7 @@ public class AuthenticationService {
         final Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         requestDto.email(), requestDto.password()));
-        String token = jwtUtil.generateToken(authentication.getName());
+        String token = jwtUtil.generateToken((User) authentication.getPrincipal());
         return new UserLoginResponseDto(token);
     }
 }
@@ -1,11 +1,14 @@
 package car.sharing.security;
 
+import car.sharing.model.User;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,6 +24,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final int TOKEN_START = 7;
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    /**
+     * When enabled, principal is built from token's claims without loading the user.
+     * Services that need the whole user (profile endpoints) load it by id themselves
+     */
+    @Value("${security.jwt.stateless.enabled:false}")
+    private boolean statelessPrincipal;
 
     @Override
     protected void doFilterInternal(
@@ -29,10 +40,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             FilterChain filterChain)
             throws ServletException, IOException {
         String token = getToken(request);
-        if (token != null && jwtUtil.isValid(token)) {
-            String username = jwtUtil.getUsername(token);
-            UserDetails userDetails =
-                    userDetailsService.loadUserByUsername(username);
+        if (token != null) {
+            UserDetails userDetails;
+            try {
+                userDetails = getPrincipal(token);
+            } catch (JwtException e) {
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+                return;
+            }
             Authentication authentication =
                     new UsernamePasswordAuthenticationToken(
                             userDetails,
@@ -43,6 +58,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * The token version is checked in both modes, so a revoked token isn't accepted
+     * for as long as its user stays in the principal cache
+     */
+    private UserDetails getPrincipal(String token) {
+        User user = jwtUtil.getUser(token);
+        if (tokenRevocationService.isRevoked(user.getId(), user.getTokenVersion())) {
+            throw new JwtException("User is not authenticated. JWT token is revoked");
+        }
+        return statelessPrincipal
+                ? user
+                : principalCache.get(user.getEmail(), userDetailsService::loadUserByUsername);
+    }
+
     private String getToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer")) {
@@ -1,59 +1,112 @@
 package car.sharing.security;
 
+import car.sharing.model.Role;
+import car.sharing.model.User;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cglib.core.internal.Function;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtUtil {
+    private static final String ID_CLAIM = "id";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String VERSION_CLAIM = "ver";
     private final Key secret;
+    // parser is immutable and thread-safe, so it is built once instead of per call
+    private final JwtParser parser;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
     public JwtUtil(@Value("${jwt.secret}") String secretString) {
         secret = Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(secret)
+                .build();
     }
 
-    public String generateToken(String email) {
+    /**
+     * Besides the email (subject), token carries user's id, roles and token version,
+     * so a principal can be built from the token alone (see JwtAuthenticationFilter)
+     */
+    public String generateToken(User user) {
+        List<String> roles = user.getRoles()
+                .stream()
+                .map(Role::getAuthority)
+                .toList();
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, roles)
+                .claim(VERSION_CLAIM, user.getTokenVersion())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(secret)
                 .compact();
     }
 
-    public boolean isValid(String token) {
-        try {
-            Jws<Claims> claimsJws = Jwts.parserBuilder()
-                    .setSigningKey(secret)
-                    .build()
-                    .parseClaimsJws(token);
-            return !claimsJws.getBody().getExpiration().before(new Date());
-        } catch (JwtException | IllegalArgumentException e) {
-            throw new JwtException("User is not authenticated. Invalid or expired JWT token");
-        }
-    }
-
+    /**
+     * Validates the token and returns its subject with a single parsing.
+     * Expired or tampered tokens are rejected by the parser itself
+     */
     public String getUsername(String token) {
         return getClaimsFromToken(token, Claims::getSubject);
     }
 
+    /**
+     * Validates the token and builds a lightweight user from its claims.
+     * Only email, id, roles and token version are set, nothing else is loaded.
+     * A token without any of them is invalid
+     */
+    public User getUser(String token) {
+        return getClaimsFromToken(token, this::toUser);
+    }
+
+    private User toUser(Claims claims) {
+        User user = new User();
+        user.setEmail(claims.getSubject());
+        user.setId(getRequiredClaim(claims, ID_CLAIM, Long.class));
+        user.setTokenVersion(getRequiredClaim(claims, VERSION_CLAIM, Integer.class));
+        List<?> roles = getRequiredClaim(claims, ROLES_CLAIM, List.class);
+        Set<Role> userRoles = roles.stream()
+                .map(roleName -> {
+                    Role role = new Role();
+                    role.setName(Role.RoleName.fromString(String.valueOf(roleName)));
+                    return role;
+                })
+                .collect(Collectors.toSet());
+        user.setRoles(userRoles);
+        return user;
+    }
+
+    private <T> T getRequiredClaim(Claims claims, String name, Class<T> type) {
+        T claim = claims.get(name, type);
+        if (claim == null) {
+            throw new JwtException("User is not authenticated. JWT token has no " + name);
+        }
+        return claim;
+    }
+
     private <T> T getClaimsFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parse(token));
+    }
+
+    private Claims parse(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new JwtException("User is not authenticated. Invalid or expired JWT token");
+        }
     }
 }
@@ -0,0 +1,53 @@
+package car.sharing.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps authenticated principals by their username (email),
+ * so JwtAuthenticationFilter doesn't go to the database on every request.
+ * Entries live for a short time only and are evicted explicitly
+ * whenever user's roles, profile or existence change
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, UserDetails> principals;
+
+    public PrincipalCache(
+            @Value("${security.principal.cache.ttl:PT5M}") Duration ttl,
+            @Value("${security.principal.cache.max.size:10000}") long maxSize) {
+        principals = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        return principals.get(username, loader);
+    }
+
+    /**
+     * Inside a transaction eviction happens after commit,
+     * otherwise a concurrent request could cache the principal that is being changed
+     */
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            principals.invalidate(username);
+                        }
+                    });
+            return;
+        }
+        principals.invalidate(username);
+    }
+}
@@ -0,0 +1,57 @@
+package car.sharing.security;
+
+import car.sharing.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Checks the version embedded into a token against the user's current token version.
+ * Versions are cached, so in stateless mode the database is asked about a user
+ * once per ttl instead of once per request
+ */
+@Service
+public class TokenRevocationService {
+    private static final int NO_USER = -1;
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public TokenRevocationService(
+            UserRepository userRepository,
+            @Value("${security.token.version.cache.ttl:PT1M}") Duration ttl,
+            @Value("${security.token.version.cache.max.size:100000}") long maxSize) {
+        this.userRepository = userRepository;
+        versions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        int currentVersion = versions.get(userId, id ->
+                userRepository.findTokenVersionById(id).orElse(NO_USER));
+        return currentVersion != tokenVersion;
+    }
+
+    /**
+     * Makes every token issued for the user before this call invalid.
+     * The cached version is invalidated after commit, otherwise a concurrent request
+     * could cache the version that is being incremented
+     */
+    @Transactional
+    public void revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        versions.invalidate(userId);
+                    }
+                });
+    }
+}
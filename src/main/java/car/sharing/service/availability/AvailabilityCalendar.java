@@ -0,0 +1,53 @@
+package car.sharing.service.availability;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/**
+ * Units of one car taken on every day from the first day of the calendar on,
+ * with a bitmap of the days on which every unit is taken, so a window
+ * is checked with a single scan of the bitmap. Days before the calendar are ignored,
+ * days after it are never free. Not thread safe, is filled before it is shared
+ */
+public class AvailabilityCalendar {
+    private final int capacity;
+    private final long firstDay;
+    private final int[] taken;
+    private final BitSet fullDays;
+
+    public AvailabilityCalendar(int capacity, LocalDate firstDay, int days) {
+        this.capacity = capacity;
+        this.firstDay = firstDay.toEpochDay();
+        this.taken = new int[days];
+        this.fullDays = new BitSet(days);
+    }
+
+    /**
+     * Takes a unit on every day from one date till the other (both inclusive)
+     */
+    public void occupy(LocalDate from, LocalDate to) {
+        int last = Math.min(index(to), taken.length - 1);
+        for (int day = Math.max(index(from), 0); day <= last; day++) {
+            if (++taken[day] >= capacity) {
+                fullDays.set(day);
+            }
+        }
+    }
+
+    /**
+     * @return true if a unit is free on every day from one date till the other
+     *         (both inclusive)
+     */
+    public boolean isFree(LocalDate from, LocalDate to) {
+        int last = index(to);
+        if (capacity <= 0 || last >= taken.length) {
+            return false;
+        }
+        int firstFull = fullDays.nextSetBit(Math.max(index(from), 0));
+        return firstFull < 0 || firstFull > last;
+    }
+
+    private int index(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay() - firstDay);
+    }
+}
@@ -0,0 +1,260 @@
+package car.sharing.service.availability;
+
+import car.sharing.exception.CarRentalException;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.RentalRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Availability calendars of every car from today till rental.availability.horizon days ahead,
+ * kept in memory, so cars free for a window are found without going to the database.
+ * A pending or lasting rental takes a unit of its car from its rental date till its
+ * required return date, a lasting one at least till today. The calendar of a car is reloaded
+ * after every booking, release or change of the car is committed, and all of them are rebuilt
+ * on startup and every rental.availability.resync.delay, which also picks up changes
+ * made on other instances. Calendars reloaded while a rebuild reads the rentals are reloaded
+ * again once it is applied. Till the first rebuild is done, cars free for a window are found
+ * in the database. The index may be behind for a moment, so bookings
+ * are checked once again against the database with the car locked
+ */
+@Slf4j
+@Component
+public class CarAvailabilityIndex {
+    // the calendars are rebuilt long before today catches up with this slack
+    private static final int SLACK_DAYS = 7;
+    private static final String RELOADER_NAME = "car-availability-reloader";
+    private final CarRepository carRepository;
+    private final RentalRepository rentalRepository;
+    private final TransactionTemplate newTransaction;
+    private final int horizonDays;
+    private final Map<Long, AvailabilityCalendar> calendars = new ConcurrentHashMap<>();
+    // one rebuild at a time, without pinning the carrier of a virtual thread to a monitor
+    private final Lock rebuildLock = new ReentrantLock();
+    private final Set<Long> pendingReloads = ConcurrentHashMap.newKeySet();
+    private final ExecutorService reloader;
+    private final Object reloads = new Object();
+    // guarded by reloads
+    private Set<Long> reloadedDuringRebuild;
+    private volatile boolean ready;
+
+    public CarAvailabilityIndex(
+            CarRepository carRepository,
+            RentalRepository rentalRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${rental.availability.horizon:365}") int horizonDays,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.carRepository = carRepository;
+        this.rentalRepository = rentalRepository;
+        this.horizonDays = horizonDays;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        this.reloader = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name(RELOADER_NAME).factory()
+                : Thread.ofPlatform().name(RELOADER_NAME).daemon().factory());
+        Gauge.builder("cars.availability.indexed", calendars, Map::size)
+                .description("Cars in the availability index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${rental.availability.resync.delay:PT1H}",
+            fixedDelayString = "${rental.availability.resync.delay:PT1H}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            synchronized (reloads) {
+                reloadedDuringRebuild = new HashSet<>();
+            }
+            Map<Long, AvailabilityCalendar> rebuilt = buildCalendars(
+                    LocalDate.now(), horizonDays + SLACK_DAYS);
+            calendars.putAll(rebuilt);
+            calendars.keySet().retainAll(rebuilt.keySet());
+            Set<Long> missed;
+            synchronized (reloads) {
+                missed = reloadedDuringRebuild;
+                reloadedDuringRebuild = null;
+            }
+            ready = true;
+            // the rebuild may have put back calendars read before these reloads
+            missed.forEach(this::reloadInNewTransaction);
+            log.info("Indexed availability of {} cars", rebuilt.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reloader.shutdownNow();
+    }
+
+    /**
+     * Reloads the calendar of the car once the caller's transaction commits
+     * (right away if there is none). After a commit the reload runs on the reloader thread,
+     * as the committing thread still holds its connection and would wait for a second one
+     * of the pool
+     */
+    public void refresh(Long carId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            if (pendingReloads.add(carId)) {
+                                reloader.execute(() -> reloadPending());
+                            }
+                        }
+                    });
+            return;
+        }
+        reloadInNewTransaction(carId);
+    }
+
+    /**
+     * @return ids of the cars with a free unit on every day from one date till the other
+     *         (both inclusive)
+     */
+    public Set<Long> findAvailableCarIds(LocalDate from, LocalDate to) {
+        Map<Long, AvailabilityCalendar> source = calendars;
+        if (!ready) {
+            // days after the calendars are never free, as they are not in the index
+            LocalDate today = LocalDate.now();
+            source = buildCalendars(today, Math.toIntExact(Math.max(1, Math.min(
+                    horizonDays + SLACK_DAYS, ChronoUnit.DAYS.between(today, to) + 1))));
+        }
+        return source.entrySet()
+                .stream()
+                .filter(car -> car.getValue().isFree(from, to))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return whether the car has a free unit on every day from one date till the other
+     *         (both inclusive) as far as the index knows, true for a car it doesn't know
+     */
+    public boolean isFree(Long carId, LocalDate from, LocalDate to) {
+        AvailabilityCalendar calendar = ready
+                ? calendars.get(carId)
+                : load(carId, from, Math.toIntExact(ChronoUnit.DAYS.between(from, to) + 1));
+        return calendar == null || calendar.isFree(from, to);
+    }
+
+    /**
+     * Reads the calendar of the car in the caller's transaction
+     *
+     * @return empty calendar of a car that doesn't exist
+     */
+    public AvailabilityCalendar load(Long carId, LocalDate firstDay, int days) {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(
+                carRepository.findCapacityById(carId)
+                        .map(car -> Math.toIntExact(car.getCapacity()))
+                        .orElse(0),
+                firstDay,
+                days);
+        LocalDate today = LocalDate.now();
+        rentalRepository.findAllOccupanciesByCarId(carId)
+                .forEach(rental -> occupy(calendar, rental, today));
+        return calendar;
+    }
+
+    /**
+     * Rentals can start today or later, but no later than the horizon of the calendars
+     */
+    public void checkWindow(LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now();
+        if (from.isBefore(today)) {
+            throw new CarRentalException("A rental can't start before today");
+        }
+        if (to.isAfter(today.plusDays(horizonDays))) {
+            throw new CarRentalException("Cars can be booked at most "
+                    + horizonDays + " days ahead");
+        }
+    }
+
+    private Map<Long, AvailabilityCalendar> buildCalendars(LocalDate firstDay, int days) {
+        LocalDate today = LocalDate.now();
+        Map<Long, AvailabilityCalendar> built = new HashMap<>();
+        carRepository.findAllCapacities().forEach(car -> built.put(car.getCarId(),
+                new AvailabilityCalendar(Math.toIntExact(car.getCapacity()), firstDay, days)));
+        rentalRepository.findAllOccupancies().forEach(rental -> {
+            AvailabilityCalendar calendar = built.get(rental.getCarId());
+            if (calendar != null) {
+                occupy(calendar, rental, today);
+            }
+        });
+        return built;
+    }
+
+    /**
+     * A car changed by several commits meanwhile is reloaded once
+     */
+    private void reloadPending() {
+        for (Long carId : pendingReloads) {
+            // removed before it is read, so a later commit of the car queues it again
+            if (pendingReloads.remove(carId)) {
+                reloadInNewTransaction(carId);
+            }
+        }
+    }
+
+    private void reloadInNewTransaction(Long carId) {
+        try {
+            newTransaction.executeWithoutResult(status -> reload(carId));
+        } catch (RuntimeException e) {
+            // the change is committed already, the next rebuild picks it up
+            log.error("Can't reload availability of car {}", carId, e);
+        }
+    }
+
+    private void reload(Long carId) {
+        synchronized (reloads) {
+            if (reloadedDuringRebuild != null) {
+                reloadedDuringRebuild.add(carId);
+            }
+        }
+        if (carRepository.existsById(carId)) {
+            calendars.put(carId, load(carId, LocalDate.now(), horizonDays + SLACK_DAYS));
+        } else {
+            calendars.remove(carId);
+        }
+    }
+
+    private void occupy(
+            AvailabilityCalendar calendar,
+            RentalRepository.Occupancy rental,
+            LocalDate today) {
+        // a lasting rental keeps its car till it is returned, even if that is late
+        calendar.occupy(rental.getRentalDate(),
+                rental.getRequiredReturnDate().isBefore(today)
+                        ? today
+                        : rental.getRequiredReturnDate());
+    }
+}
@@ -0,0 +1,202 @@
+package car.sharing.service.car;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.model.Car;
+import car.sharing.util.GeoGrid;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Cars of the catalogue kept in slots, with a bitmap of slots for every brand, model
+ * and type and slots ordered by daily fee, so a search is an intersection of a few bitmaps
+ * and a facet is the cardinality of one. Brands and models are matched ignoring case,
+ * as the database collation does. Cars with a location are put into a GeoGrid too,
+ * so the nearest ones of the matched cars are found without measuring the distance
+ * to every car. Slots of removed cars are reused.
+ * Not thread safe, CarCatalogueIndex guards it
+ */
+public class CarCatalogue {
+    // cells of about a kilometre, a few of them hold the nearest cars in a city
+    private static final int CELLS_PER_DEGREE = 100;
+    private final List<CarResponseDto> cars = new ArrayList<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet present = new BitSet();
+    private final Map<String, BitSet> byBrand = new HashMap<>();
+    private final Map<String, BitSet> byModel = new HashMap<>();
+    private final Map<Car.Type, BitSet> byType = new EnumMap<>(Car.Type.class);
+    private final NavigableMap<BigDecimal, BitSet> byDailyFee = new TreeMap<>();
+    private final BitSet inStock = new BitSet();
+    private final GeoGrid locations = new GeoGrid(CELLS_PER_DEGREE);
+
+    public void put(CarResponseDto car) {
+        remove(car.id());
+        int slot = freeSlots.isEmpty() ? cars.size() : freeSlots.pop();
+        if (slot == cars.size()) {
+            cars.add(car);
+        } else {
+            cars.set(slot, car);
+        }
+        slots.put(car.id(), slot);
+        present.set(slot);
+        set(byBrand, key(car.brand()), slot);
+        set(byModel, key(car.model()), slot);
+        set(byType, car.type(), slot);
+        set(byDailyFee, car.dailyFee(), slot);
+        inStock.set(slot, car.inventory() != null && car.inventory() > 0);
+        if (car.latitude() != null && car.longitude() != null) {
+            locations.put(slot, car.latitude(), car.longitude());
+        }
+    }
+
+    public void remove(Long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        CarResponseDto car = cars.set(slot, null);
+        present.clear(slot);
+        clear(byBrand, key(car.brand()), slot);
+        clear(byModel, key(car.model()), slot);
+        clear(byType, car.type(), slot);
+        clear(byDailyFee, car.dailyFee(), slot);
+        inStock.clear(slot);
+        locations.remove(slot);
+        freeSlots.push(slot);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public CarResponseDto get(int slot) {
+        return cars.get(slot);
+    }
+
+    /**
+     * @return a new bitmap of all cars, to be narrowed down by the other bitmaps
+     */
+    public BitSet all() {
+        return (BitSet) present.clone();
+    }
+
+    public BitSet withBrands(Collection<String> brands) {
+        return union(brands.stream().map(brand -> byBrand.get(key(brand))).toList());
+    }
+
+    public BitSet withModels(Collection<String> models) {
+        return union(models.stream().map(model -> byModel.get(key(model))).toList());
+    }
+
+    public BitSet withTypes(Collection<Car.Type> types) {
+        return union(types.stream().map(byType::get).toList());
+    }
+
+    /**
+     * Both bounds are inclusive, as in BETWEEN
+     */
+    public BitSet withDailyFeeBetween(BigDecimal from, BigDecimal to) {
+        return union(byDailyFee.subMap(from, true, to, true).values());
+    }
+
+    /**
+     * @return cars with at least one unit not rented out
+     */
+    public BitSet inStock() {
+        return (BitSet) inStock.clone();
+    }
+
+    public BitSet withIds(Collection<Long> ids) {
+        BitSet matched = new BitSet();
+        ids.forEach(id -> {
+            Integer slot = slots.get(id);
+            if (slot != null) {
+                matched.set(slot);
+            }
+        });
+        return matched;
+    }
+
+    /**
+     * @return slots of at most limit cars matched by the bitmap and parked
+     *         within radiusKm, the nearest first
+     */
+    public List<GeoGrid.Neighbour> findNearest(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            int limit,
+            BitSet matched) {
+        return locations.findNearest(latitude, longitude, radiusKm, limit, matched::get);
+    }
+
+    /**
+     * @return cars matched by the bitmap per brand, named as one of the cars spells it
+     */
+    public Map<String, Integer> countBrands(BitSet matched) {
+        return count(byBrand, matched, slot -> get(slot).brand(),
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+    }
+
+    public Map<Car.Type, Integer> countTypes(BitSet matched) {
+        return count(byType, matched, slot -> get(slot).type(), new EnumMap<>(Car.Type.class));
+    }
+
+    private <K, N> Map<N, Integer> count(
+            Map<K, BitSet> bitmaps,
+            BitSet matched,
+            Function<Integer, N> name,
+            Map<N, Integer> counts) {
+        bitmaps.values().forEach(bitmap -> {
+            BitSet both = (BitSet) bitmap.clone();
+            both.and(matched);
+            if (!both.isEmpty()) {
+                counts.put(name.apply(bitmap.nextSetBit(0)), both.cardinality());
+            }
+        });
+        return counts;
+    }
+
+    private BitSet union(Collection<BitSet> bitmaps) {
+        BitSet union = new BitSet();
+        bitmaps.forEach(bitmap -> {
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        });
+        return union;
+    }
+
+    private <K> void set(Map<K, BitSet> bitmaps, K key, int slot) {
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, absent -> new BitSet()).set(slot);
+        }
+    }
+
+    private <K> void clear(Map<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bitmap = key == null ? null : bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.clear(slot);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private String key(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
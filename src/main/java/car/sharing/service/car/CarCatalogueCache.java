@@ -0,0 +1,211 @@
+package car.sharing.service.car;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CarSearchParametersDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of the public car catalogue.
+ * Keeps single cars by id and result lists of getAllCars() and search()
+ * by normalized search params and pageable.
+ * A change of a car evicts the car and every cached list, because any list may start
+ * or stop containing it. A change of its inventory only makes stale the lists that contain
+ * the car or are sorted by inventory, and the lists of available cars once the car runs out
+ * or is back in stock. Every change gets a sequence number, a list remembers the number
+ * it was loaded at and is reloaded on a hit if a change it depends on came later,
+ * so lists not touched by rentals stay cached under rental traffic.
+ * Hits, misses and evictions are exposed as "cache.*" metrics with cache tag
+ * "cars" or "car-lists", explicit evictions and stale lists - as "cache.invalidations"
+ */
+@Component
+public class CarCatalogueCache {
+    private static final String CARS = "cars";
+    private static final String CAR_LISTS = "car-lists";
+    private static final String INVENTORY = "inventory";
+    private final Cache<Long, CarResponseDto> cars;
+    private final Cache<ListKey, CachedList> lists;
+    private final Counter carInvalidations;
+    private final Counter listInvalidations;
+    private final AtomicLong changes = new AtomicLong();
+    private final Map<Long, Long> inventoryChangedAt = new ConcurrentHashMap<>();
+    private volatile long anyInventoryChangedAt;
+    private volatile long availabilityChangedAt;
+
+    public CarCatalogueCache(
+            MeterRegistry meterRegistry,
+            @Value("${cars.catalogue.cache.ttl:PT1M}") Duration ttl,
+            @Value("${cars.catalogue.cache.max.size:10000}") long maxSize) {
+        cars = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        lists = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cars, CARS);
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, CAR_LISTS);
+        carInvalidations = invalidationsCounter(meterRegistry, CARS);
+        listInvalidations = invalidationsCounter(meterRegistry, CAR_LISTS);
+    }
+
+    public CarResponseDto getCar(Long id, Function<Long, CarResponseDto> loader) {
+        return cars.get(id, loader);
+    }
+
+    public List<CarResponseDto> getList(
+            CarSearchParametersDto parametersDto,
+            Pageable pageable,
+            Supplier<List<CarResponseDto>> loader) {
+        ListKey listKey = new ListKey(normalize(parametersDto), pageable);
+        CachedList cached = lists.get(listKey, key -> load(loader));
+        if (isFresh(listKey, cached)) {
+            return cached.cars();
+        }
+        listInvalidations.increment();
+        return lists.asMap().compute(listKey, (key, current) ->
+                current != null && isFresh(key, current) ? current : load(loader)).cars();
+    }
+
+    /**
+     * Evicts the car and every cached list.
+     * Inside a transaction eviction happens after commit,
+     * otherwise a concurrent reader could cache the state that is being changed
+     */
+    public void evict(Long carId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            evictNow(carId);
+                        }
+                    });
+            return;
+        }
+        evictNow(carId);
+    }
+
+    /**
+     * Evicts the car and marks its inventory changed, after commit inside a transaction
+     *
+     * @param availabilityChanged whether the car ran out or is back in stock,
+     *                            so lists of available cars have to be reloaded too
+     */
+    public void evictInventory(Long carId, boolean availabilityChanged) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            evictInventoryNow(carId, availabilityChanged);
+                        }
+                    });
+            return;
+        }
+        evictInventoryNow(carId, availabilityChanged);
+    }
+
+    private void evictNow(Long carId) {
+        cars.invalidate(carId);
+        carInvalidations.increment();
+        lists.invalidateAll();
+        listInvalidations.increment();
+    }
+
+    private void evictInventoryNow(Long carId, boolean availabilityChanged) {
+        long change = changes.incrementAndGet();
+        inventoryChangedAt.put(carId, change);
+        anyInventoryChangedAt = change;
+        if (availabilityChanged) {
+            availabilityChangedAt = change;
+        }
+        cars.invalidate(carId);
+        carInvalidations.increment();
+    }
+
+    /**
+     * The sequence number is taken before loading, so a change committed
+     * while the list is loaded makes it stale
+     */
+    private CachedList load(Supplier<List<CarResponseDto>> loader) {
+        long loadedAt = changes.get();
+        return new CachedList(List.copyOf(loader.get()), loadedAt);
+    }
+
+    private boolean isFresh(ListKey key, CachedList cached) {
+        long loadedAt = cached.loadedAt();
+        // lists without params are the available cars
+        if (key.parametersDto() == null && availabilityChangedAt > loadedAt) {
+            return false;
+        }
+        if (key.pageable().getSort().getOrderFor(INVENTORY) != null
+                && anyInventoryChangedAt > loadedAt) {
+            return false;
+        }
+        for (CarResponseDto car : cached.cars()) {
+            if (inventoryChangedAt.getOrDefault(car.id(), 0L) > loadedAt) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Order of values in every IN-like param doesn't change the result,
+     * so such params are sorted to get the same key for the same search
+     */
+    private CarSearchParametersDto normalize(CarSearchParametersDto parametersDto) {
+        if (parametersDto == null) {
+            return null;
+        }
+        return new CarSearchParametersDto(
+                sorted(parametersDto.models()),
+                sorted(parametersDto.brands()),
+                parametersDto.priceBetween(),
+                sorted(parametersDto.types()),
+                parametersDto.availableBetween());
+    }
+
+    private List<String> sorted(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        return values.stream()
+                .distinct()
+                .sorted(Comparator.nullsFirst(Comparator.naturalOrder()))
+                .toList();
+    }
+
+    private Counter invalidationsCounter(MeterRegistry meterRegistry, String cacheName) {
+        return Counter.builder("cache.invalidations")
+                .description("Explicit evictions made because a car was changed")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+
+    private record ListKey(CarSearchParametersDto parametersDto, Pageable pageable) {
+    }
+
+    private record CachedList(List<CarResponseDto> cars, long loadedAt) {
+    }
+}
@@ -0,0 +1,452 @@
+package car.sharing.service.car;
+
+import car.sharing.dto.car.CarFacetsDto;
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CarSearchParametersDto;
+import car.sharing.dto.car.NearbyCarDto;
+import car.sharing.exception.IndexNotReadyException;
+import car.sharing.model.Car;
+import car.sharing.repository.CarReadRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The whole car catalogue kept in memory as a CarCatalogue, so searches are answered
+ * by intersecting bitmaps instead of querying the database and facets are counted
+ * for the same filters. A car is reloaded after every change of it or of its inventory
+ * is committed, and the catalogue is rebuilt on startup and every
+ * cars.catalogue.index.resync.delay, which also picks up changes made on other instances.
+ * Cars reloaded while a rebuild reads the catalogue are reloaded again once it is replaced.
+ * Searches sorted by a property the catalogue doesn't know go to the database,
+ * inventory among them, as it changes with every rental. The cars of a page found
+ * in the catalogue are read from the database by id, so they come with their current
+ * inventory. The nearest cars in stock are found in the catalogue, twice as many
+ * as asked for, and those still in stock are kept once their inventory is read from
+ * the database; cars found out of stock are reloaded. Till the first rebuild is done,
+ * facets and nearest cars are not available
+ */
+@Slf4j
+@Component
+public class CarCatalogueIndex {
+    // nulls come first in ascending order, as MySQL sorts them
+    private static final Map<String, Comparator<CarResponseDto>> SORTABLE = Map.of(
+            "id", Comparator.comparing(CarResponseDto::id, nullsFirst()),
+            "model", Comparator.comparing(CarResponseDto::model,
+                    Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)),
+            "brand", Comparator.comparing(CarResponseDto::brand,
+                    Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)),
+            "type", Comparator.comparing(
+                    (CarResponseDto car) -> car.type() == null ? null : car.type().name(),
+                    nullsFirst()),
+            "dailyFee", Comparator.comparing(CarResponseDto::dailyFee, nullsFirst()));
+    private static final Comparator<CarResponseDto> BY_ID = SORTABLE.get("id");
+    // spare candidates, so cars rented out since they were indexed don't shorten the list
+    private static final int NEAREST_CANDIDATES_PER_CAR = 2;
+    private static final String RELOADER_NAME = "car-catalogue-reloader";
+    private final CarReadRepository carReadRepository;
+    private final CarAvailabilityIndex carAvailabilityIndex;
+    private final TransactionTemplate newTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // one rebuild at a time, without pinning the carrier of a virtual thread to a monitor
+    private final Lock rebuildLock = new ReentrantLock();
+    private final Set<Long> pendingReloads = ConcurrentHashMap.newKeySet();
+    private final ExecutorService reloader;
+    // guarded by lock
+    private CarCatalogue catalogue = new CarCatalogue();
+    private Set<Long> reloadedDuringRebuild;
+    private volatile boolean ready;
+
+    public CarCatalogueIndex(
+            CarReadRepository carReadRepository,
+            CarAvailabilityIndex carAvailabilityIndex,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.carReadRepository = carReadRepository;
+        this.carAvailabilityIndex = carAvailabilityIndex;
+        this.reloader = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name(RELOADER_NAME).factory()
+                : Thread.ofPlatform().name(RELOADER_NAME).daemon().factory());
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        Gauge.builder("cars.catalogue.indexed", this, CarCatalogueIndex::size)
+                .description("Cars in the catalogue index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${cars.catalogue.index.resync.delay:PT5M}",
+            fixedDelayString = "${cars.catalogue.index.resync.delay:PT5M}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            withWriteLock(() -> reloadedDuringRebuild = new HashSet<>());
+            CarCatalogue rebuilt = new CarCatalogue();
+            carReadRepository.findAllForCatalogue().forEach(rebuilt::put);
+            Set<Long> missed = withWriteLock(() -> {
+                catalogue = rebuilt;
+                Set<Long> reloaded = reloadedDuringRebuild;
+                reloadedDuringRebuild = null;
+                return reloaded;
+            });
+            ready = true;
+            if (!missed.isEmpty()) {
+                reload(missed);
+            }
+            log.info("Indexed {} cars of the catalogue", rebuilt.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        reloader.shutdownNow();
+    }
+
+    /**
+     * Reloads the car once the caller's transaction commits (right away if there is none).
+     * After a commit the reload runs on the reloader thread, as the committing thread
+     * still holds its connection and would wait for a second one of the pool
+     */
+    public void refresh(Long carId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            if (pendingReloads.add(carId)) {
+                                reloader.execute(() -> reloadPending());
+                            }
+                        }
+                    });
+            return;
+        }
+        reload(List.of(carId));
+    }
+
+    /**
+     * @return a page of cars matching the params, empty if the search has to go
+     *         to the database
+     */
+    public Optional<List<CarResponseDto>> search(
+            CarSearchParametersDto parametersDto,
+            Pageable pageable) {
+        Optional<Comparator<CarResponseDto>> order = comparator(pageable.getSort());
+        if (!ready || order.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<Long> availableIds = availableIds(parametersDto);
+        List<Long> ids;
+        lock.readLock().lock();
+        try {
+            BitSet matched = match(parametersDto, availableIds, null);
+            ids = matched.stream()
+                    .mapToObj(catalogue::get)
+                    .sorted(order.get())
+                    .skip(pageable.isPaged() ? pageable.getOffset() : 0)
+                    .limit(pageable.isPaged() ? pageable.getPageSize() : Long.MAX_VALUE)
+                    .map(CarResponseDto::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ids.isEmpty()) {
+            return Optional.of(List.of());
+        }
+        // a car deleted since it was indexed is left out of the page
+        Map<Long, CarResponseDto> current = carReadRepository.findAllForCatalogueByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(CarResponseDto::id, Function.identity()));
+        return Optional.of(ids.stream()
+                .map(current::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /**
+     * Counts cars per brand with every filter but brands applied, and per type
+     * with every filter but types, so a client sees what choosing one more value
+     * of a facet would give
+     */
+    public CarFacetsDto getFacets(CarSearchParametersDto parametersDto) {
+        checkReady();
+        Set<Long> availableIds = availableIds(parametersDto);
+        lock.readLock().lock();
+        try {
+            return new CarFacetsDto(
+                    match(parametersDto, availableIds, null).cardinality(),
+                    catalogue.countBrands(match(parametersDto, availableIds, Facet.BRAND)),
+                    catalogue.countTypes(match(parametersDto, availableIds, Facet.TYPE)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param types types of the cars, all of them if null or empty
+     * @return at most limit cars in stock parked within radiusKm, the nearest first
+     */
+    public List<NearbyCarDto> findNearest(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            List<String> types,
+            int limit) {
+        checkReady();
+        List<NearbyCarDto> candidates;
+        lock.readLock().lock();
+        try {
+            BitSet matched = catalogue.inStock();
+            if (notEmpty(types)) {
+                matched.and(catalogue.withTypes(types.stream()
+                        .map(Car.Type::fromString)
+                        .toList()));
+            }
+            candidates = catalogue.findNearest(latitude, longitude, radiusKm,
+                            limit * NEAREST_CANDIDATES_PER_CAR, matched)
+                    .stream()
+                    .map(neighbour -> new NearbyCarDto(
+                            catalogue.get(neighbour.id()), neighbour.distanceKm()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        // the last unit of a candidate may have been rented since it was reloaded
+        Map<Long, CarResponseDto> current = carReadRepository.findAllForCatalogueByIdIn(
+                        candidates.stream()
+                                .map(candidate -> candidate.car().id())
+                                .toList())
+                .stream()
+                .collect(Collectors.toMap(CarResponseDto::id, Function.identity()));
+        List<NearbyCarDto> nearest = new ArrayList<>(limit);
+        List<Long> staleIds = new ArrayList<>();
+        for (NearbyCarDto candidate : candidates) {
+            CarResponseDto car = current.get(candidate.car().id());
+            if (car == null || car.inventory() == null || car.inventory() <= 0) {
+                staleIds.add(candidate.car().id());
+                continue;
+            }
+            if (nearest.size() < limit) {
+                nearest.add(new NearbyCarDto(car, candidate.distanceKm()));
+            }
+        }
+        if (!staleIds.isEmpty()) {
+            // the rows just read are as fresh as a reload would get
+            apply(staleIds, staleIds.stream()
+                    .map(current::get)
+                    .filter(Objects::nonNull)
+                    .toList());
+        }
+        return nearest;
+    }
+
+    /**
+     * Rebuilding on a request thread would hold every request up behind the lock
+     * of the rebuild, so the client is told to try again instead
+     */
+    private void checkReady() {
+        if (!ready) {
+            throw new IndexNotReadyException(
+                    "The car catalogue is being loaded, please try again in a moment");
+        }
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return catalogue.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cars changed by several commits meanwhile are reloaded together
+     */
+    private void reloadPending() {
+        List<Long> carIds = new ArrayList<>();
+        for (Long carId : pendingReloads) {
+            // removed before it is read, so a later commit of the car queues it again
+            if (pendingReloads.remove(carId)) {
+                carIds.add(carId);
+            }
+        }
+        if (!carIds.isEmpty()) {
+            reload(carIds);
+        }
+    }
+
+    private void reload(Collection<Long> carIds) {
+        try {
+            apply(carIds, newTransaction.execute(
+                    status -> carReadRepository.findAllForCatalogueByIdIn(carIds)));
+        } catch (RuntimeException e) {
+            // the change is committed already, the next rebuild picks it up
+            log.error("Can't reload cars {} of the catalogue", carIds, e);
+        }
+    }
+
+    /**
+     * Puts the rows read by id and removes the cars that were not found among them
+     */
+    private void apply(Collection<Long> carIds, List<CarResponseDto> cars) {
+        withWriteLock(() -> {
+            Set<Long> deleted = new HashSet<>(carIds);
+            cars.forEach(car -> {
+                catalogue.put(car);
+                deleted.remove(car.id());
+            });
+            deleted.forEach(catalogue::remove);
+            if (reloadedDuringRebuild != null) {
+                reloadedDuringRebuild.addAll(carIds);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Has to be called with the read lock held
+     *
+     * @param ignored facet whose filter is not applied, null to apply all of them
+     */
+    private BitSet match(
+            CarSearchParametersDto parametersDto,
+            Set<Long> availableIds,
+            Facet ignored) {
+        BitSet matched = catalogue.all();
+        if (parametersDto == null) {
+            return matched;
+        }
+        if (notEmpty(parametersDto.models())) {
+            matched.and(catalogue.withModels(parametersDto.models()));
+        }
+        if (notEmpty(parametersDto.brands()) && ignored != Facet.BRAND) {
+            matched.and(catalogue.withBrands(parametersDto.brands()));
+        }
+        if (parametersDto.priceBetween() != null) {
+            BigDecimal[] range = dailyFeeRange(parametersDto.priceBetween());
+            matched.and(catalogue.withDailyFeeBetween(range[0], range[1]));
+        }
+        if (notEmpty(parametersDto.types()) && ignored != Facet.TYPE) {
+            matched.and(catalogue.withTypes(parametersDto.types().stream()
+                    .map(Car.Type::fromString)
+                    .toList()));
+        }
+        if (availableIds != null) {
+            matched.and(catalogue.withIds(availableIds));
+        }
+        return matched;
+    }
+
+    /**
+     * Read before the lock is taken, the availability index has locks of its own
+     */
+    private Set<Long> availableIds(CarSearchParametersDto parametersDto) {
+        if (parametersDto == null || parametersDto.availableBetween() == null) {
+            return null;
+        }
+        LocalDate from = parametersDto.availableBetween().get(0);
+        LocalDate to = parametersDto.availableBetween().get(1);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Available to should not be before "
+                    + "available from, but was " + parametersDto.availableBetween());
+        }
+        return carAvailabilityIndex.findAvailableCarIds(from, to);
+    }
+
+    /**
+     * The same bounds as DailyFeeSpecificationProvider takes
+     */
+    private BigDecimal[] dailyFeeRange(List<BigDecimal> params) {
+        BigDecimal from = params.size() == 1 ? BigDecimal.ZERO : params.get(0);
+        BigDecimal to = params.size() == 1 ? params.get(0) : params.get(1);
+        if (from.compareTo(to) >= 0) {
+            throw new IllegalArgumentException(
+                    "Price to should be greater than price price from, but was " + params);
+        }
+        return new BigDecimal[]{from, to};
+    }
+
+    /**
+     * Ties are broken by id
+     *
+     * @return empty if the sort has a property the catalogue can't sort by
+     */
+    private Optional<Comparator<CarResponseDto>> comparator(Sort sort) {
+        Comparator<CarResponseDto> order = (first, second) -> 0;
+        for (Sort.Order property : sort) {
+            Comparator<CarResponseDto> byProperty = SORTABLE.get(property.getProperty());
+            if (byProperty == null || property.isIgnoreCase()) {
+                return Optional.empty();
+            }
+            order = order.thenComparing(property.isAscending()
+                    ? byProperty
+                    : byProperty.reversed());
+        }
+        return Optional.of(order.thenComparing(BY_ID));
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<T> nullsFirst() {
+        return Comparator.nullsFirst(Comparator.naturalOrder());
+    }
+
+    private boolean notEmpty(List<?> params) {
+        return params != null && !params.isEmpty();
+    }
+
+    private <T> T withWriteLock(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private enum Facet {
+        BRAND,
+        TYPE
+    }
+}
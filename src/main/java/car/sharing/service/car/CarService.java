@@ -1,9 +1,12 @@
 package car.sharing.service.car;
 
+import car.sharing.dto.car.CarFacetsDto;
 import car.sharing.dto.car.CarResponseDto;
 import car.sharing.dto.car.CarSearchParametersDto;
 import car.sharing.dto.car.CarUpdateDto;
 import car.sharing.dto.car.CreateCarRequestDto;
+import car.sharing.dto.car.NearbyCarDto;
+import car.sharing.dto.page.CursorPage;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 
@@ -12,6 +15,8 @@ public interface CarService {
 
     List<CarResponseDto> getAllCars(Pageable pageable);
 
+    CursorPage<CarResponseDto> getAllCars(String cursor, int size);
+
     CarResponseDto getInfo(Long id);
 
     CarResponseDto update(Long id, CarUpdateDto updateDto);
@@ -19,4 +24,13 @@ public interface CarService {
     void delete(Long id);
 
     List<CarResponseDto> search(CarSearchParametersDto parametersDto, Pageable pageable);
+
+    CarFacetsDto getFacets(CarSearchParametersDto parametersDto);
+
+    List<NearbyCarDto> findNearest(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            List<String> types,
+            int limit);
 }
@@ -1,74 +1,112 @@
 package car.sharing.service.car;
 
+import car.sharing.dto.car.CarFacetsDto;
 import car.sharing.dto.car.CarResponseDto;
 import car.sharing.dto.car.CarSearchParametersDto;
 import car.sharing.dto.car.CarUpdateDto;
 import car.sharing.dto.car.CreateCarRequestDto;
+import car.sharing.dto.car.NearbyCarDto;
+import car.sharing.dto.page.CursorPage;
 import car.sharing.mapper.CarMapper;
 import car.sharing.model.Car;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.CarCreated;
+import car.sharing.outbox.event.CarDeleted;
+import car.sharing.outbox.event.CarUpdated;
+import car.sharing.repository.CarReadRepository;
 import car.sharing.repository.CarRepository;
 import car.sharing.repository.specification.car.CarSpecificationBuilder;
-import car.sharing.telegram.strategy.NotificationStrategy;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.util.PageCursor;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class CarServiceImpl implements CarService {
-    private static final String TELEGRAM = "telegram";
-    private static final String CAR_CREATION = "car creation";
-    private static final String CAR_DELETION = "car deletion";
-    private static final String CAR_UPDATING = "car updating";
     private final CarRepository carRepository;
+    private final CarReadRepository carReadRepository;
     private final CarMapper carMapper;
     private final CarSpecificationBuilder carSpecificationBuilder;
-    private final NotificationStrategy<Car> notificationStrategy;
+    private final OutboxPublisher outboxPublisher;
+    private final CarCatalogueCache carCatalogueCache;
+    private final CarAvailabilityIndex carAvailabilityIndex;
+    private final CarCatalogueIndex carCatalogueIndex;
 
     @Override
+    @Transactional
     public CarResponseDto create(CreateCarRequestDto requestDto) {
         Car car = carMapper.toModel(requestDto);
         carRepository.save(car);
-        sendMessage(TELEGRAM, CAR_CREATION, car, null);
+        carCatalogueCache.evict(car.getId());
+        carAvailabilityIndex.refresh(car.getId());
+        carCatalogueIndex.refresh(car.getId());
+        outboxPublisher.publish(CarCreated.of(car));
         return carMapper.toResponseDto(car);
     }
 
     @Override
     public List<CarResponseDto> getAllCars(Pageable pageable) {
-        return carRepository.findAllAvailable(pageable)
-                .stream()
-                .map(carMapper::toResponseDto)
-                .collect(Collectors.toList());
+        return carCatalogueCache.getList(null, pageable,
+                () -> carReadRepository.findAllAvailable(pageable));
+    }
+
+    /**
+     * Not cached, cursors are unbounded, so every page would get its own cache entry
+     */
+    @Override
+    public CursorPage<CarResponseDto> getAllCars(String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        return CursorPage.of(
+                carReadRepository.findAllAvailableAfter(
+                        after == null ? 0L : after.id(),
+                        PageRequest.of(0, size + 1)),
+                size,
+                car -> new PageCursor(null, car.id()),
+                Function.identity());
     }
 
     @Override
     public CarResponseDto getInfo(Long id) {
-        return carRepository.findById(id)
+        return carCatalogueCache.getCar(id, carId -> carRepository.findById(carId)
                 .map(carMapper::toResponseDto)
                 .orElseThrow(
-                    () -> new EntityNotFoundException("There is no car available by id " + id));
+                    () -> new EntityNotFoundException("There is no car available by id " + id)));
     }
 
     @Override
+    @Transactional
     public CarResponseDto update(Long id, CarUpdateDto updateDto) {
         Car car = carRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException("There is no car available by id " + id));
         carMapper.toModel(car, updateDto);
         carRepository.save(car);
-        sendMessage(TELEGRAM, CAR_UPDATING, car, null);
+        carCatalogueCache.evict(id);
+        carAvailabilityIndex.refresh(id);
+        carCatalogueIndex.refresh(id);
+        outboxPublisher.publish(CarUpdated.of(car));
         return carMapper.toResponseDto(car);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
-        Car car = carRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find a car by id " + id));
+        if (!carRepository.existsById(id)) {
+            throw new EntityNotFoundException("Can't find a car by id " + id);
+        }
         carRepository.deleteById(id);
-        sendMessage(TELEGRAM, CAR_DELETION, car, null);
+        carCatalogueCache.evict(id);
+        carAvailabilityIndex.refresh(id);
+        carCatalogueIndex.refresh(id);
+        outboxPublisher.publish(new CarDeleted(id));
     }
 
     @Override
@@ -77,8 +115,37 @@ public class CarServiceImpl implements CarService {
             throw new IllegalArgumentException(
                     "Searching should be done by at least one param, but was 0");
         }
-        return carRepository.findAll(
-                carSpecificationBuilder.build(parametersDto), pageable)
+        Optional<List<CarResponseDto>> indexed = carCatalogueIndex.search(parametersDto, pageable);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        // bookings don't evict the cache, so searches by availability are never cached
+        if (parametersDto.availableBetween() != null) {
+            return findAll(parametersDto, pageable);
+        }
+        return carCatalogueCache.getList(parametersDto, pageable,
+                () -> findAll(parametersDto, pageable));
+    }
+
+    @Override
+    public CarFacetsDto getFacets(CarSearchParametersDto parametersDto) {
+        return carCatalogueIndex.getFacets(parametersDto);
+    }
+
+    @Override
+    public List<NearbyCarDto> findNearest(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            List<String> types,
+            int limit) {
+        return carCatalogueIndex.findNearest(latitude, longitude, radiusKm, types, limit);
+    }
+
+    private List<CarResponseDto> findAll(
+            CarSearchParametersDto parametersDto,
+            Pageable pageable) {
+        return carRepository.findAll(carSpecificationBuilder.build(parametersDto), pageable)
                 .stream()
                 .map(carMapper::toResponseDto)
                 .collect(Collectors.toList());
@@ -89,17 +156,7 @@ public class CarServiceImpl implements CarService {
                 || (parametersDto.brands() == null || parametersDto.brands().isEmpty())
                 && (parametersDto.types() == null)
                 && (parametersDto.priceBetween() == null)
-                && (parametersDto.models() == null || parametersDto.models().isEmpty());
-    }
-
-    private void sendMessage(
-            String notificationService,
-            String messageType,
-            Car car,
-            Long chatId) {
-        notificationStrategy.getNotificationService(
-                        notificationService, messageType
-                )
-                .sendMessage(car, chatId);
+                && (parametersDto.models() == null || parametersDto.models().isEmpty())
+                && (parametersDto.availableBetween() == null);
     }
 }
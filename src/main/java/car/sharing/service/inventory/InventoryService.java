@@ -0,0 +1,40 @@
+package car.sharing.service.inventory;
+
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+public interface InventoryService {
+    void reserve(Long carId);
+
+    /**
+     * Books a unit of the car from one date till the other (both inclusive),
+     * a booking that is not in advance takes a unit of Car.inventory as well.
+     * Has to be called in a read committed transaction, which keeps the car locked till its end
+     *
+     * @param isAdvance whether the booking starts on a later day, decided by the caller
+     *                  together with the flag it saves on the rental
+     */
+    void reserve(Long carId, LocalDate from, LocalDate to, boolean isAdvance);
+
+    /**
+     * Takes several units of several cars at once, one statement per car.
+     * A car gives all its units or none of them
+     *
+     * @return ids of the cars whose units have been taken
+     */
+    Set<Long> reserveAll(Map<Long, Integer> unitsByCarId);
+
+    void release(Long carId);
+
+    /**
+     * Gives back the unit and the days booked by a pending or lasting rental
+     */
+    void release(Rental rental);
+
+    /**
+     * Gives back several units of several cars at once, one statement per car
+     */
+    void releaseAll(Map<Long, Integer> unitsByCarId);
+}
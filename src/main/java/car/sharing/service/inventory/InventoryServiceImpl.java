@@ -0,0 +1,142 @@
+package car.sharing.service.inventory;
+
+import car.sharing.exception.CarRentalException;
+import car.sharing.model.Rental;
+import car.sharing.repository.CarRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import jakarta.persistence.EntityNotFoundException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Every change of Car.inventory made by rentals and payments goes through this service.
+ * Inventory is changed by conditional UPDATE statements instead of read-modify-write,
+ * so there is no window between checking availability and taking a unit.
+ * Every successful change evicts the car from the catalogue cache, telling it whether
+ * the car ran out or is back in stock, and reloads the car in the catalogue index.
+ * Bookings for a later day are checked against the calendar of the car read with the car locked
+ * and take no unit of Car.inventory. Rentals starting today take a unit with the same
+ * conditional update and check the days after it against the availability index only;
+ * a rental booked ahead that finds no unit on its day waits for one in StartedAdvanceRentalsJob
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+    private static final int ONE = 1;
+    private static final int NOTHING_UPDATED = 0;
+    private final CarRepository carRepository;
+    private final CarCatalogueCache carCatalogueCache;
+    private final CarAvailabilityIndex carAvailabilityIndex;
+    private final CarCatalogueIndex carCatalogueIndex;
+
+    @Override
+    @Transactional
+    public void reserve(Long carId) {
+        if (carRepository.decrementInventory(carId) == NOTHING_UPDATED) {
+            if (!carRepository.existsById(carId)) {
+                throw new EntityNotFoundException("There is no car by id " + carId);
+            }
+            throw new CarRentalException("Sorry, this car is not available now."
+                    + " Every one is busy");
+        }
+        carCatalogueCache.evictInventory(carId, isSoldOut(carId));
+        carCatalogueIndex.refresh(carId);
+    }
+
+    @Override
+    @Transactional
+    public void reserve(Long carId, LocalDate from, LocalDate to, boolean isAdvance) {
+        carAvailabilityIndex.checkWindow(from, to);
+        if (isAdvance) {
+            carRepository.lockById(carId).orElseThrow(
+                    () -> new EntityNotFoundException("There is no car by id " + carId));
+            checkFree(carAvailabilityIndex.load(carId, from,
+                    Math.toIntExact(ChronoUnit.DAYS.between(from, to) + 1)).isFree(from, to));
+        } else {
+            // the unit of today is guarded by Car.inventory, so the days booked ahead
+            // are checked against the index only
+            checkFree(carAvailabilityIndex.isFree(carId, from, to));
+            reserve(carId);
+        }
+        carAvailabilityIndex.refresh(carId);
+    }
+
+    @Override
+    @Transactional
+    public Set<Long> reserveAll(Map<Long, Integer> unitsByCarId) {
+        Set<Long> reservedCarIds = new HashSet<>();
+        unitsByCarId.forEach((carId, units) -> {
+            if (carRepository.decrementInventory(carId, units) != NOTHING_UPDATED) {
+                carCatalogueCache.evictInventory(carId, isSoldOut(carId));
+                carCatalogueIndex.refresh(carId);
+                reservedCarIds.add(carId);
+            }
+            // the days were booked already, so the calendar of the car stays as it is
+        });
+        return reservedCarIds;
+    }
+
+    @Override
+    @Transactional
+    public void release(Long carId) {
+        // a deleted car has nothing to give back to, so such a release is just skipped
+        if (carRepository.incrementInventory(carId, ONE) != NOTHING_UPDATED) {
+            carCatalogueCache.evictInventory(carId, isBackInStock(carId, ONE));
+            carCatalogueIndex.refresh(carId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void release(Rental rental) {
+        if (!rental.isAdvance()) {
+            release(rental.getCarId());
+        }
+        carAvailabilityIndex.refresh(rental.getCarId());
+    }
+
+    @Override
+    @Transactional
+    public void releaseAll(Map<Long, Integer> unitsByCarId) {
+        unitsByCarId.forEach((carId, units) -> {
+            // rentals booked ahead give back their days only
+            if (units > 0 && carRepository.incrementInventory(carId, units) != NOTHING_UPDATED) {
+                carCatalogueCache.evictInventory(carId, isBackInStock(carId, units));
+                carCatalogueIndex.refresh(carId);
+            }
+            carAvailabilityIndex.refresh(carId);
+        });
+    }
+
+    private void checkFree(boolean isFree) {
+        if (!isFree) {
+            throw new CarRentalException("Sorry, this car is not available for these days."
+                    + " Every one is booked");
+        }
+    }
+
+    /**
+     * Read right after a unit is taken in the same transaction, which keeps the car locked
+     */
+    private boolean isSoldOut(Long carId) {
+        return carRepository.findInventoryById(carId).orElse(0) == 0;
+    }
+
+    /**
+     * Read right after the units are given back in the same transaction,
+     * which keeps the car locked
+     *
+     * @return true if the car had no unit left before these ones
+     */
+    private boolean isBackInStock(Long carId, int units) {
+        return carRepository.findInventoryById(carId).orElse(0) == units;
+    }
+}
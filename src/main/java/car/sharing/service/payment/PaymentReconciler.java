@@ -0,0 +1,178 @@
+package car.sharing.service.payment;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.util.RateLimiter;
+import car.sharing.util.StripeUtil;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Settles pending payments whose checkout has finished in Stripe,
+ * but neither the webhook nor /payments/success has reached the application.
+ * Pending payments are paged by id. Sessions of a page are fetched from Stripe
+ * outside of any transaction, by stripe.reconciliation.parallelism requests at most
+ * and stripe.reconciliation.rate requests per second, then the page is settled in one transaction
+ */
+@Slf4j
+@Component
+public class PaymentReconciler {
+    private static final String COMPLETE = "complete";
+    private static final String EXPIRED = "expired";
+    private final PaymentRepository paymentRepository;
+    private final RentalRepository rentalRepository;
+    private final StripeUtil stripeUtil;
+    private final PaymentSettlement paymentSettlement;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final int parallelism;
+    private final RateLimiter rateLimiter;
+    private final Map<String, Counter> results = new HashMap<>();
+    private final Timer lag;
+    private final Timer runs;
+    private final AtomicLong throughput;
+
+    public PaymentReconciler(
+            PaymentRepository paymentRepository,
+            RentalRepository rentalRepository,
+            StripeUtil stripeUtil,
+            PaymentSettlement paymentSettlement,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.reconciliation.page.size:100}") int pageSize,
+            @Value("${stripe.reconciliation.parallelism:8}") int parallelism,
+            @Value("${stripe.reconciliation.rate:20}") double rate) {
+        this.paymentRepository = paymentRepository;
+        this.rentalRepository = rentalRepository;
+        this.stripeUtil = stripeUtil;
+        this.paymentSettlement = paymentSettlement;
+        this.transactionTemplate = transactionTemplate;
+        this.pageSize = pageSize;
+        this.parallelism = parallelism;
+        this.rateLimiter = new RateLimiter(rate);
+        for (String result : List.of(COMPLETE, EXPIRED, "open", "failed")) {
+            results.put(result, Counter.builder("stripe.reconciliation.sessions")
+                    .tag("result", result)
+                    .register(meterRegistry));
+        }
+        lag = Timer.builder("stripe.reconciliation.lag")
+                .description("Time from checkout session creation to its settlement"
+                        + " by reconciliation")
+                .register(meterRegistry);
+        runs = Timer.builder("stripe.reconciliation.runs")
+                .register(meterRegistry);
+        throughput = meterRegistry.gauge("stripe.reconciliation.throughput",
+                new AtomicLong());
+    }
+
+    @Scheduled(initialDelayString = "${stripe.reconciliation.delay:PT10M}",
+            fixedDelayString = "${stripe.reconciliation.delay:PT10M}")
+    public void reconcile() {
+        long startedAt = System.nanoTime();
+        int checked = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("stripe-reconciliation-", 0).factory())) {
+            Long afterId = 0L;
+            List<Payment> page;
+            do {
+                page = paymentRepository.findAllWithSessionByStatusAfter(
+                        Payment.Status.PENDING, afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                Map<Long, Session> sessions = retrieveSessions(page, executor);
+                transactionTemplate.executeWithoutResult(status -> settle(sessions));
+                checked += page.size();
+                afterId = page.get(page.size() - 1).getId();
+            } while (page.size() == pageSize);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        runs.record(Duration.ofNanos(elapsedNanos));
+        throughput.set(Math.round(checked / (elapsedNanos / 1_000_000_000.0)));
+        log.info("Checked {} pending payments in Stripe in {} ms",
+                checked, Duration.ofNanos(elapsedNanos).toMillis());
+    }
+
+    private Map<Long, Session> retrieveSessions(List<Payment> page, ExecutorService executor) {
+        Map<Long, Future<Session>> futures = new LinkedHashMap<>();
+        for (Payment payment : page) {
+            futures.put(payment.getId(), executor.submit(() -> {
+                rateLimiter.acquire();
+                return stripeUtil.retrieveSession(payment.getSessionId());
+            }));
+        }
+        Map<Long, Session> sessions = new HashMap<>();
+        for (Map.Entry<Long, Future<Session>> future : futures.entrySet()) {
+            try {
+                sessions.put(future.getKey(), future.getValue().get());
+            } catch (ExecutionException e) {
+                results.get("failed").increment();
+                log.warn("Can't retrieve Stripe session of payment {}",
+                        future.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reconciliation was interrupted", e);
+            }
+        }
+        return sessions;
+    }
+
+    private void settle(Map<Long, Session> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        // payments are read again under lock, a webhook could have settled them meanwhile
+        List<Payment> payments = paymentRepository.findAllByIdIn(sessions.keySet());
+        Map<Long, Rental> rentals = rentalRepository.findAllById(
+                        payments.stream()
+                                .map(Payment::getRentalId)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Rental::getId, Function.identity()));
+        for (Payment payment : payments) {
+            Session session = sessions.get(payment.getId());
+            if (payment.getStatus() != Payment.Status.PENDING
+                    || !session.getId().equals(payment.getSessionId())) {
+                continue;
+            }
+            String status = session.getStatus();
+            Rental rental = rentals.get(payment.getRentalId());
+            if (COMPLETE.equals(status)) {
+                paymentSettlement.complete(payment, rental);
+            } else if (EXPIRED.equals(status)) {
+                paymentSettlement.expire(payment, rental);
+            } else {
+                results.get("open").increment();
+                continue;
+            }
+            results.get(status).increment();
+            if (session.getCreated() != null) {
+                lag.record(Duration.between(Instant.ofEpochSecond(session.getCreated()),
+                        Instant.now()));
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package car.sharing.service.payment;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.payment.PaymentResponseDto;
 import car.sharing.model.User;
 import com.stripe.exception.StripeException;
@@ -11,6 +12,8 @@ public interface PaymentService {
 
     List<PaymentResponseDto> getUserPayments(Long userId, Pageable pageable);
 
+    CursorPage<PaymentResponseDto> getUserPayments(Long userId, String cursor, int size);
+
     PaymentResponseDto create(User user)
             throws StripeException, MalformedURLException;
 
@@ -1,5 +1,6 @@
 package car.sharing.service.payment;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.payment.PaymentResponseDto;
 import car.sharing.mapper.PaymentMapper;
 import car.sharing.model.Car;
@@ -7,130 +8,112 @@ import car.sharing.model.Payment;
 import car.sharing.model.Rental;
 import car.sharing.model.User;
 import car.sharing.repository.CarRepository;
+import car.sharing.repository.PaymentReadRepository;
 import car.sharing.repository.PaymentRepository;
 import car.sharing.repository.RentalRepository;
+import car.sharing.service.inventory.InventoryService;
 import car.sharing.service.payment.strategy.PaymentStrategy;
-import car.sharing.telegram.strategy.NotificationStrategy;
+import car.sharing.util.PageCursor;
 import car.sharing.util.StripeUtil;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
-import com.stripe.model.checkout.Session;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.time.LocalDate;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
-    private static final String TELEGRAM = "telegram";
-    private static final String SUCCESSFUL_PAYMENT = "successful payment";
-    private static final String RENTAL_CREATION = "rental creation";
-    private static final int ONE = 1;
+    private static final Duration SETTLEMENT_MARGIN = Duration.ofMinutes(5);
     private final PaymentRepository paymentRepository;
+    private final PaymentReadRepository paymentReadRepository;
     private final PaymentMapper paymentMapper;
     private final RentalRepository rentalRepository;
     private final CarRepository carRepository;
-    private final StripeUtil stripeUtil;
+    private final PaymentSessionService paymentSessionService;
     private final PaymentStrategy paymentStrategy;
-    private final NotificationStrategy<Payment> paymentNotificationStrategy;
-    private final NotificationStrategy<Rental> rentalNotificationStrategy;
+    private final PaymentSettlement paymentSettlement;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${rental.hold.window:PT24H}")
+    private Duration holdWindow;
     @Value("${stripe.api.key}")
     private String apiKey;
+    // lets load tests point Stripe client to a local stub
+    @Value("${stripe.api.base:}")
+    private String apiBase;
 
     @PostConstruct
     public void init() {
         Stripe.apiKey = apiKey;
+        if (!apiBase.isBlank()) {
+            Stripe.overrideApiBase(apiBase);
+        }
     }
 
     @Override
     public List<PaymentResponseDto> getUserPayments(Long userId, Pageable pageable) {
-        return paymentRepository.findAllByUserId(userId, pageable)
-                .stream()
-                .map(paymentMapper::toResponseDto)
-                .collect(Collectors.toList());
+        return paymentReadRepository.findAllByUserId(userId, pageable);
+    }
+
+    @Override
+    public CursorPage<PaymentResponseDto> getUserPayments(Long userId, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        return CursorPage.of(
+                paymentReadRepository.findAllByUserIdAfter(
+                        userId,
+                        after == null ? 0L : after.id(),
+                        PageRequest.of(0, size + 1)),
+                size,
+                payment -> new PageCursor(null, payment.id()),
+                Function.identity());
     }
 
     @Override
     public PaymentResponseDto create(User user)
             throws StripeException, MalformedURLException {
-        if (paymentRepository.findByStatusAndUserId(
-                Payment.Status.PENDING,
-                user.getId())
-                .isPresent()) {
-            throw new IllegalArgumentException("You already have a pending payment."
-                    + " You should pay for that first or cancel (or return) your rental");
-        }
-        Rental rental = rentalRepository.findRentalByStatusAndUserId(
-                        Rental.Status.PENDING,
-                        user.getId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "You should create a rental first. Then you can pay for that."));
-        Car car = carRepository.findById(rental.getCarId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find a car by id " + rental.getCarId()));
-        long days = ChronoUnit.DAYS.between(
-                rental.getRentalDate(),
-                rental.getRequiredReturnDate());
-        BigDecimal price = paymentStrategy.getPaymentService(Payment.Type.PAYMENT)
-                .calculateAmount(car.getDailyFee(), days);
-        Session session = stripeUtil.createSession(
-                price.longValue(),
-                car.getBrand() + " " + car.getModel());
-        Payment payment = createPayment(price
-                .multiply(BigDecimal.valueOf(0.01))
-                .setScale(2,
-                        RoundingMode.HALF_UP),
-                rental, session, user);
-        paymentRepository.save(payment);
+        PaymentIntent intent = transactionTemplate.execute(status -> createIntent(user));
+        Payment payment = paymentSessionService.attachSession(
+                intent.payment(),
+                intent.unitName(),
+                intent.expiresAt());
         return paymentMapper.toResponseDto(payment);
     }
 
     @Override
     @Transactional
     public PaymentResponseDto success(User user) {
-        Payment payment = updateStatus(Payment.Status.PAID, user.getId());
-        if (rentalRepository.findRentalByStatusAndUserId(
-                Rental.Status.PENDING,
-                user.getId()).isPresent()) {
-            Rental rental =
-                    updateRentalStatus(payment, Rental.Status.LASTING);
-            rentalRepository.save(rental);
-            rentalNotificationStrategy.getNotificationService(
-                            TELEGRAM, RENTAL_CREATION
-                    )
-                    .sendMessage(rental, null);
-        }
-        paymentRepository.save(payment);
-        paymentNotificationStrategy.getNotificationService(
-                TELEGRAM, SUCCESSFUL_PAYMENT
-                )
-                .sendMessage(payment, null);
-
+        // a webhook settling the same session waits for the lock and then skips the payment
+        Payment payment = getPendingPayment(user.getId());
+        paymentSettlement.complete(payment, getRental(payment));
         return paymentMapper.toResponseDto(payment);
     }
 
     @Override
     @Transactional
     public void cancel(User user) {
-        Payment payment = updateStatus(Payment.Status.CANCELED, user.getId());
+        Payment payment = getPendingPayment(user.getId());
+        payment.setStatus(Payment.Status.CANCELED);
         paymentRepository.save(payment);
-        Rental rental = updateRentalStatus(payment, Rental.Status.CANCELED);
+        Rental rental = getRental(payment);
+        rental.setStatus(Rental.Status.CANCELED);
         rentalRepository.save(rental);
-        Car car = updateInventory(rental);
-        carRepository.save(car);
+        inventoryService.release(rental);
     }
 
     @Override
@@ -143,72 +126,94 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentMapper.toResponseDto(payment);
     }
 
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
-    public void markAllExpiredRentalsAndPaymentsAsCanceled() {
-        rentalRepository.findAllByStatusAndRentalDate(
+    private PaymentIntent createIntent(User user) {
+        Optional<Payment> pendingPayment = paymentRepository.findByStatusAndUserId(
+                Payment.Status.PENDING,
+                user.getId());
+        if (pendingPayment.isPresent()) {
+            Payment payment = pendingPayment.get();
+            if (payment.getSessionId() != null) {
+                throw new IllegalArgumentException("You already have a pending payment."
+                        + " You should pay for that first or cancel (or return) your rental");
+            }
+            // previous attempt failed while talking to Stripe, so its session is requested again
+            Rental rental = rentalRepository.findById(payment.getRentalId())
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            "Can't find a rental by id " + payment.getRentalId()));
+            LocalDateTime expiresAt = payment.getType() == Payment.Type.PAYMENT
+                    ? getSessionExpiry(rental)
+                    : null;
+            return new PaymentIntent(payment, getUnitName(getCar(rental)), expiresAt);
+        }
+        Rental rental = rentalRepository.findRentalByStatusAndUserId(
                         Rental.Status.PENDING,
-                        LocalDate.now().minusDays(ONE)
-                )
-                .forEach(rental -> {
-                    rental.setStatus(Rental.Status.CANCELED);
-                    rental.setDeleted(true);
-                    rentalRepository.save(rental);
-                    Car car = carRepository.findById(rental.getCarId())
-                            .orElseThrow(() -> new EntityNotFoundException(
-                                    "Can't find a car by id " + rental.getCarId()));
-                    car.setInventory(car.getInventory() + ONE);
-                    carRepository.save(car);
-                    paymentRepository.findByRentalId(rental.getId())
-                            .ifPresent((payment) -> {
-                                if (!payment.getType().equals(Payment.Type.FINE)) {
-                                    payment.setStatus(Payment.Status.EXPIRED);
-                                    payment.setDeleted(true);
-                                    paymentRepository.save(payment);
-                                }
-                            });
-                });
+                        user.getId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "You should create a rental first. Then you can pay for that."));
+        LocalDateTime expiresAt = getSessionExpiry(rental);
+        Car car = getCar(rental);
+        long days = ChronoUnit.DAYS.between(
+                rental.getRentalDate(),
+                rental.getRequiredReturnDate());
+        BigDecimal price = paymentStrategy.getPaymentService(Payment.Type.PAYMENT)
+                .calculateAmount(car.getDailyFee(), days);
+        Payment payment = createPayment(price
+                .multiply(BigDecimal.valueOf(0.01))
+                .setScale(2,
+                        RoundingMode.HALF_UP),
+                rental, user);
+        paymentRepository.save(payment);
+        return new PaymentIntent(payment, getUnitName(car), expiresAt);
+    }
+
+    // the checkout closes a few minutes before ExpiredRentalsJob cancels the rental,
+    // so nobody pays for a released car and a last-minute payment has time to be settled
+    private LocalDateTime getSessionExpiry(Rental rental) {
+        LocalDateTime holdEnd = rental.getCreatedAt().plus(holdWindow).minus(SETTLEMENT_MARGIN);
+        LocalDateTime latest = rental.getCreatedAt().plus(StripeUtil.MAX_SESSION_LIFETIME);
+        LocalDateTime expiresAt = holdEnd.isBefore(latest) ? holdEnd : latest;
+        if (expiresAt.isBefore(LocalDateTime.now().plus(StripeUtil.MIN_SESSION_LIFETIME))) {
+            throw new IllegalArgumentException("Your rental is about to expire, so it can't be"
+                    + " paid for anymore. Cancel it and create a new one");
+        }
+        return expiresAt;
+    }
+
+    private Car getCar(Rental rental) {
+        return carRepository.findById(rental.getCarId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Can't find a car by id " + rental.getCarId()));
+    }
+
+    private String getUnitName(Car car) {
+        return car.getBrand() + " " + car.getModel();
     }
 
     private Payment createPayment(
             BigDecimal price,
             Rental rental,
-            Session session,
-            User user)
-            throws MalformedURLException {
+            User user) {
         return Payment.builder()
                 .type(Payment.Type.PAYMENT)
                 .amountToPay(price)
                 .rentalId(rental.getId())
-                .sessionId(session.getId())
-                .sessionUrl(new URL(session.getUrl()))
                 .status(Payment.Status.PENDING)
                 .userId(user.getId())
                 .build();
     }
 
-    private Car updateInventory(Rental rental) {
-        Car car = carRepository.findById(rental.getCarId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find a car by id " + rental.getCarId()));
-        car.setInventory(car.getInventory() + ONE);
-        return car;
-    }
-
-    private Rental updateRentalStatus(Payment payment, Rental.Status status) {
-        Rental rental = rentalRepository.findById(payment.getRentalId())
+    private Rental getRental(Payment payment) {
+        return rentalRepository.findById(payment.getRentalId())
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Can't find a rental by id " + payment.getRentalId()));
-        rental.setStatus(status);
-        return rental;
     }
 
-    private Payment updateStatus(Payment.Status status, Long userId) {
-        Payment payment = paymentRepository
-                .findByStatusAndUserId(Payment.Status.PENDING, userId)
+    private Payment getPendingPayment(Long userId) {
+        return paymentRepository.lockPendingByUserId(userId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Can't find user's payment"));
-        payment.setStatus(status);
-        return payment;
+    }
+
+    private record PaymentIntent(Payment payment, String unitName, LocalDateTime expiresAt) {
     }
 }
@@ -0,0 +1,18 @@
+package car.sharing.service.payment;
+
+import car.sharing.model.Payment;
+import com.stripe.exception.StripeException;
+import java.net.MalformedURLException;
+import java.time.LocalDateTime;
+
+public interface PaymentSessionService {
+    /**
+     * Creates Stripe checkout session for already saved pending payment and attaches it.
+     * Must be called after the transaction that saved the payment has committed,
+     * so no database connection is held while Stripe answers
+     *
+     * @param expiresAt when the checkout closes, null for Stripe's default
+     */
+    Payment attachSession(Payment payment, String unitName, LocalDateTime expiresAt)
+            throws StripeException, MalformedURLException;
+}
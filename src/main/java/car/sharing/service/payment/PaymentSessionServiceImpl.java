@@ -0,0 +1,58 @@
+package car.sharing.service.payment;
+
+import car.sharing.model.Payment;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.util.StripeUtil;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+@RequiredArgsConstructor
+public class PaymentSessionServiceImpl implements PaymentSessionService {
+    private static final int CENTS_SCALE = 2;
+    private final StripeUtil stripeUtil;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public Payment attachSession(Payment payment, String unitName, LocalDateTime expiresAt)
+            throws StripeException, MalformedURLException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(
+                    "Stripe session must not be created inside a database transaction");
+        }
+        Session session = stripeUtil.createSession(
+                toCents(payment),
+                unitName,
+                getIdempotencyKey(payment),
+                expiresAt);
+        URL sessionUrl = new URL(session.getUrl());
+        transactionTemplate.executeWithoutResult(status -> paymentRepository.attachSession(
+                payment.getId(), session.getId(), sessionUrl));
+        payment.setSessionId(session.getId());
+        payment.setSessionUrl(sessionUrl);
+        payment.setSessionAttempts(payment.getSessionAttempts() + 1);
+        return payment;
+    }
+
+    // a retry gets the same key until a session is attached,
+    // a fine whose session has expired gets a new one
+    private String getIdempotencyKey(Payment payment) {
+        return "payment-" + payment.getId() + "-session-" + (payment.getSessionAttempts() + 1);
+    }
+
+    private long toCents(Payment payment) {
+        return payment.getAmountToPay()
+                .movePointRight(CENTS_SCALE)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+}
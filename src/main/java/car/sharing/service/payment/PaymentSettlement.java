@@ -0,0 +1,57 @@
+package car.sharing.service.payment;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.PaymentSucceeded;
+import car.sharing.outbox.event.RentalCreated;
+import car.sharing.service.inventory.InventoryService;
+import car.sharing.service.rental.OverdueRentalIndex;
+import car.sharing.service.stats.DailyStatsRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * State transitions of a pending payment whose Stripe checkout session has finished.
+ * Is used for the sessions reported by Stripe webhooks, found by reconciliation
+ * and completed by the user's return from Stripe,
+ * callers have to load the payment with a lock and check that it is still pending
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentSettlement {
+    private final OutboxPublisher outboxPublisher;
+    private final InventoryService inventoryService;
+    private final OverdueRentalIndex overdueRentalIndex;
+    private final DailyStatsRollup dailyStatsRollup;
+
+    public void complete(Payment payment, Rental rental) {
+        payment.setStatus(Payment.Status.PAID);
+        if (rental != null && rental.getStatus() == Rental.Status.PENDING) {
+            rental.setStatus(Rental.Status.LASTING);
+            outboxPublisher.publish(RentalCreated.of(rental));
+            overdueRentalIndex.add(rental);
+            dailyStatsRollup.rentalStarted(rental);
+        }
+        outboxPublisher.publish(PaymentSucceeded.of(payment));
+        dailyStatsRollup.paymentPaid(payment);
+    }
+
+    public void expire(Payment payment, Rental rental) {
+        if (payment.getType() == Payment.Type.FINE) {
+            // a fine can't expire, POST /payments creates a new session for it
+            payment.setSessionId(null);
+            payment.setSessionUrl(null);
+            return;
+        }
+        payment.setStatus(Payment.Status.EXPIRED);
+        payment.setDeleted(true);
+        if (rental != null && rental.getStatus() == Rental.Status.PENDING) {
+            rental.setStatus(Rental.Status.CANCELED);
+            rental.setDeleted(true);
+            rental.setExpired(true);
+            inventoryService.release(rental);
+            dailyStatsRollup.rentalExpired(rental);
+        }
+    }
+}
@@ -1,23 +1,24 @@
 package car.sharing.service.payment.strategy;
 
 import car.sharing.model.Payment;
-import jakarta.persistence.EntityNotFoundException;
+import car.sharing.util.DispatchRegistry;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class PaymentStrategy {
-    private final List<PaymentService> paymentServices;
+    private final Map<Payment.Type, PaymentService> paymentServices;
+
+    public PaymentStrategy(List<PaymentService> paymentServices) {
+        this.paymentServices = DispatchRegistry.byEnum(
+                Payment.Type.class,
+                paymentServices,
+                paymentService -> paymentService::isApplicable,
+                "payment service");
+    }
 
     public PaymentService getPaymentService(Payment.Type type) {
-        return paymentServices
-                .stream()
-                .filter(paymentService ->
-                        paymentService.isApplicable(type))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find payment service by payment type " + type));
+        return paymentServices.get(type);
     }
 }
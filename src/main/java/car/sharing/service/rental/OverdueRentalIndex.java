@@ -0,0 +1,415 @@
+package car.sharing.service.rental;
+
+import car.sharing.model.Car;
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RentalOverdue;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Lasting rentals kept in memory, ordered by the moment they become overdue
+ * (the day after the required return date starts). A worker waits for the earliest of them
+ * and publishes RentalOverdue as soon as it passes its deadline, then keeps it among overdue
+ * rentals, whose accrued fines are calculated without going to the database.
+ * Rentals are added when they start and removed when they are returned, after commit.
+ * The index is rebuilt from all lasting rentals with one query on startup and every
+ * rental.overdue.resync.delay, which also picks up rentals started or returned on other
+ * instances. Every instance races for the announcement, the one whose conditional update
+ * sets rentals.overdue_announced_at publishes it, so a rental is announced once, and
+ * an overdue rental that has not been announced yet at rebuild is announced right away.
+ * Rentals added or removed while a rebuild reads the lasting ones are added or removed
+ * again once it is applied
+ */
+@Slf4j
+@Component
+public class OverdueRentalIndex {
+    private static final String WORKER_NAME = "overdue-rentals";
+    private static final BigDecimal CENTS = BigDecimal.valueOf(0.01)
+            .setScale(2, RoundingMode.HALF_UP);
+    private static final Comparator<LastingRental> BY_DEADLINE = Comparator
+            .comparing(LastingRental::requiredReturnDate)
+            .thenComparing(LastingRental::id);
+    private final RentalRepository rentalRepository;
+    private final CarRepository carRepository;
+    private final PaymentStrategy paymentStrategy;
+    private final OutboxPublisher outboxPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory threadFactory;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // guarded by lock
+    private final Map<Long, LastingRental> rentals = new HashMap<>();
+    private final NavigableSet<LastingRental> upcoming = new TreeSet<>(BY_DEADLINE);
+    private final Map<Long, LastingRental> overdue = new HashMap<>();
+    // the latest change of every rental since a rebuild started, null for a removal
+    private Map<Long, LastingRental> changedDuringRebuild;
+    private final Counter announced;
+    private Thread worker;
+
+    public OverdueRentalIndex(
+            RentalRepository rentalRepository,
+            CarRepository carRepository,
+            PaymentStrategy paymentStrategy,
+            OutboxPublisher outboxPublisher,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.rentalRepository = rentalRepository;
+        this.carRepository = carRepository;
+        this.paymentStrategy = paymentStrategy;
+        this.outboxPublisher = outboxPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.threadFactory = virtualThreads
+                ? Thread.ofVirtual().name(WORKER_NAME).factory()
+                : Thread.ofPlatform().name(WORKER_NAME).daemon().factory();
+        Gauge.builder("rentals.lasting", this, index -> index.count(index.rentals))
+                .description("Lasting rentals in the overdue index")
+                .register(meterRegistry);
+        Gauge.builder("rentals.overdue", this, index -> index.count(index.overdue))
+                .description("Lasting rentals past their required return date")
+                .register(meterRegistry);
+        Gauge.builder("rentals.overdue.fines", this,
+                        index -> index.getTotalAccruedFine().doubleValue())
+                .description("Fines accrued by overdue rentals so far, USD")
+                .register(meterRegistry);
+        announced = Counter.builder("rentals.overdue.announced")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = threadFactory.newThread(this::work);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${rental.overdue.resync.delay:PT1H}",
+            fixedDelayString = "${rental.overdue.resync.delay:PT1H}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Adds a rental that has become lasting once the caller's transaction commits
+     * (right away if there is none). Reads the daily fee of its car in the caller's transaction
+     */
+    public void add(Rental rental) {
+        Car car = carRepository.findById(rental.getCarId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Can't find a car by id " + rental.getCarId()));
+        LastingRental lastingRental = new LastingRental(
+                rental.getId(),
+                rental.getUserId(),
+                rental.getCarId(),
+                rental.getRentalDate(),
+                rental.getRequiredReturnDate(),
+                car.getDailyFee());
+        afterCommit(() -> put(lastingRental));
+    }
+
+    /**
+     * Removes a returned rental once the caller's transaction commits
+     */
+    public void remove(Long rentalId) {
+        afterCommit(() -> removeNow(rentalId));
+    }
+
+    /**
+     * @return overdue rentals with their accrued fines, the most overdue first
+     */
+    public List<RentalOverdue> getOverdueRentals() {
+        LocalDate today = LocalDate.now();
+        lock.lock();
+        try {
+            return overdue.values()
+                    .stream()
+                    .sorted(BY_DEADLINE)
+                    .map(rental -> toEvent(rental, today))
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return fine the user would pay if the rental was returned today,
+     *         empty if the rental is not lasting in this index
+     */
+    public Optional<BigDecimal> getAccruedFine(Long rentalId) {
+        LocalDate today = LocalDate.now();
+        lock.lock();
+        try {
+            return Optional.ofNullable(rentals.get(rentalId))
+                    .map(rental -> calculateFine(rental, today));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BigDecimal getTotalAccruedFine() {
+        return getOverdueRentals()
+                .stream()
+                .map(RentalOverdue::accruedFine)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private void rebuildLocked() {
+        lock.lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        List<RentalRepository.LastingRental> lasting = rentalRepository.findAllLasting();
+        LocalDate today = LocalDate.now();
+        lock.lock();
+        try {
+            final Map<Long, LastingRental> missed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            rentals.clear();
+            upcoming.clear();
+            overdue.clear();
+            for (RentalRepository.LastingRental row : lasting) {
+                LastingRental rental = new LastingRental(
+                        row.getId(),
+                        row.getUserId(),
+                        row.getCarId(),
+                        row.getRentalDate(),
+                        row.getRequiredReturnDate(),
+                        row.getDailyFee());
+                rentals.put(rental.id(), rental);
+                // an unannounced one goes to upcoming, where the worker takes it at once
+                if (row.getOverdueAnnouncedAt() != null && isOverdue(rental, today)) {
+                    overdue.put(rental.id(), rental);
+                } else {
+                    upcoming.add(rental);
+                }
+            }
+            // the query may have read these rentals before they were added or removed
+            missed.forEach((rentalId, rental) -> {
+                if (rental == null) {
+                    removeNow(rentalId);
+                } else {
+                    put(rental);
+                }
+            });
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Indexed {} lasting rentals, {} of them are overdue",
+                lasting.size(), count(overdue));
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                announce(takeOverdue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until the earliest upcoming rental becomes overdue
+     * and moves it and every other overdue one from upcoming to overdue
+     */
+    private List<LastingRental> takeOverdue() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (upcoming.isEmpty()) {
+                    changed.await();
+                    continue;
+                }
+                long waitMillis = overdueAt(upcoming.first()) - System.currentTimeMillis();
+                if (waitMillis > 0) {
+                    changed.await(waitMillis, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                List<LastingRental> becameOverdue = new ArrayList<>();
+                LocalDate today = LocalDate.now();
+                while (!upcoming.isEmpty() && isOverdue(upcoming.first(), today)) {
+                    LastingRental rental = upcoming.pollFirst();
+                    overdue.put(rental.id(), rental);
+                    becameOverdue.add(rental);
+                }
+                return becameOverdue;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void announce(List<LastingRental> becameOverdue) {
+        LocalDate today = LocalDate.now();
+        for (LastingRental rental : becameOverdue) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (rentalRepository.claimOverdueAnnouncement(
+                            rental.id(), LocalDateTime.now()) == 1) {
+                        outboxPublisher.publish(toEvent(rental, today));
+                        announced.increment();
+                    } else if (!isStillLasting(rental.id())) {
+                        // returned on another instance
+                        removeNow(rental.id());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Can't announce overdue rental {}", rental.id(), e);
+            }
+        }
+    }
+
+    private boolean isStillLasting(Long rentalId) {
+        return rentalRepository.findById(rentalId)
+                .filter(rental -> rental.getStatus() == Rental.Status.LASTING)
+                .filter(rental -> rental.getActualReturnDate() == null)
+                .isPresent();
+    }
+
+    private void put(LastingRental rental) {
+        lock.lock();
+        try {
+            removeNow(rental.id());
+            rentals.put(rental.id(), rental);
+            upcoming.add(rental);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(rental.id(), rental);
+            }
+            // the worker may wait for a later deadline
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeNow(Long rentalId) {
+        lock.lock();
+        try {
+            LastingRental rental = rentals.remove(rentalId);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(rentalId, null);
+            }
+            if (rental != null) {
+                upcoming.remove(rental);
+                overdue.remove(rentalId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int count(Map<Long, LastingRental> map) {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            action.run();
+                        }
+                    });
+            return;
+        }
+        action.run();
+    }
+
+    // same check as RentalRepository.findAllOverdueRentals
+    private boolean isOverdue(LastingRental rental, LocalDate today) {
+        return rental.requiredReturnDate().isBefore(today);
+    }
+
+    private long overdueAt(LastingRental rental) {
+        return rental.requiredReturnDate()
+                .plusDays(1)
+                .atStartOfDay(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+    }
+
+    // is calculated the same way as the fine created when the rental is returned
+    private BigDecimal calculateFine(LastingRental rental, LocalDate today) {
+        long days = Math.max(ChronoUnit.DAYS.between(rental.requiredReturnDate(), today), 0);
+        return paymentStrategy.getPaymentService(Payment.Type.FINE)
+                .calculateAmount(rental.dailyFee(), days)
+                .multiply(CENTS);
+    }
+
+    private RentalOverdue toEvent(LastingRental rental, LocalDate today) {
+        return new RentalOverdue(
+                rental.id(),
+                rental.userId(),
+                rental.carId(),
+                rental.rentalDate(),
+                rental.requiredReturnDate(),
+                calculateFine(rental, today));
+    }
+
+    private record LastingRental(
+            Long id,
+            Long userId,
+            Long carId,
+            LocalDate rentalDate,
+            LocalDate requiredReturnDate,
+            BigDecimal dailyFee) {
+    }
+}
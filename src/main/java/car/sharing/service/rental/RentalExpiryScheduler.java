@@ -0,0 +1,180 @@
+package car.sharing.service.rental;
+
+import car.sharing.batch.ChunkedJobRunner;
+import car.sharing.batch.ExpiredRentalsJob;
+import car.sharing.model.Rental;
+import car.sharing.repository.RentalRepository;
+import car.sharing.util.TimerWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Expires every pending rental at its own deadline (creation time plus rental.hold.window),
+ * so an unpaid rental gives its car back as soon as its hold is over.
+ * Deadlines are kept in a TimerWheel: a rental is scheduled after the transaction
+ * that created it commits, and the wheel is rebuilt from pending rentals on startup.
+ * Rentals due in the same tick are expired together by ExpiredRentalsJob.
+ * Timers live in this instance only, so every rental.expiry.sweep.delay
+ * ExpiredRentalsJob also sweeps the rentals the timers have missed
+ * (created by a crashed instance or failed to expire)
+ */
+@Slf4j
+@Component
+public class RentalExpiryScheduler {
+    private static final String WORKER_NAME = "rental-expiry";
+    private final RentalRepository rentalRepository;
+    private final ExpiredRentalsJob expiredRentalsJob;
+    private final ChunkedJobRunner chunkedJobRunner;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdWindow;
+    private final int chunkSize;
+    private final ThreadFactory threadFactory;
+    private final TimerWheel<PendingRental> timerWheel;
+    private final Timer timeToRelease;
+    private final Timer lateness;
+
+    public RentalExpiryScheduler(
+            RentalRepository rentalRepository,
+            ExpiredRentalsJob expiredRentalsJob,
+            ChunkedJobRunner chunkedJobRunner,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${rental.hold.window:PT24H}") Duration holdWindow,
+            @Value("${rental.expiry.tick:PT1S}") Duration tick,
+            @Value("${rental.expiry.wheel.size:4096}") int wheelSize,
+            @Value("${batch.chunk.size:1000}") int chunkSize,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.rentalRepository = rentalRepository;
+        this.expiredRentalsJob = expiredRentalsJob;
+        this.chunkedJobRunner = chunkedJobRunner;
+        this.transactionTemplate = transactionTemplate;
+        this.holdWindow = holdWindow;
+        this.chunkSize = chunkSize;
+        this.threadFactory = virtualThreads
+                ? Thread.ofVirtual().name(WORKER_NAME).factory()
+                : Thread.ofPlatform().name(WORKER_NAME).daemon().factory();
+        this.timerWheel = new TimerWheel<>(tick, wheelSize, this::expire);
+        Gauge.builder("rental.expiry.scheduled", timerWheel, TimerWheel::size)
+                .description("Pending rentals waiting for their deadline")
+                .register(meterRegistry);
+        timeToRelease = Timer.builder("rental.expiry.release")
+                .description("Time from rental creation to the release of its car")
+                .register(meterRegistry);
+        lateness = Timer.builder("rental.expiry.lateness")
+                .description("Time from rental deadline to the release of its car")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        timerWheel.start(threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        timerWheel.stop();
+    }
+
+    /**
+     * Loads deadlines of pending rentals page by page.
+     * A rental created meanwhile may be scheduled twice, its second timer finds it canceled
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long scheduled = 0;
+        Long afterId = 0L;
+        List<RentalRepository.RentalCreation> page;
+        do {
+            page = rentalRepository.findCreationsByStatusAfter(
+                    Rental.Status.PENDING, afterId, PageRequest.of(0, chunkSize));
+            for (RentalRepository.RentalCreation rental : page) {
+                schedule(new PendingRental(rental.getId(), rental.getCreatedAt()));
+                afterId = rental.getId();
+            }
+            scheduled += page.size();
+        } while (page.size() == chunkSize);
+        log.info("Scheduled expiry of {} pending rentals", scheduled);
+    }
+
+    /**
+     * Schedules expiry of a new rental once the caller's transaction commits
+     * (right away if there is none), so a rolled back rental is never scheduled
+     */
+    public void schedule(Rental rental) {
+        PendingRental pendingRental = new PendingRental(rental.getId(), rental.getCreatedAt());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            schedule(pendingRental);
+                        }
+                    });
+            return;
+        }
+        schedule(pendingRental);
+    }
+
+    private void schedule(PendingRental rental) {
+        timerWheel.schedule(rental, deadline(rental).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Scheduled(initialDelayString = "${rental.expiry.sweep.delay:PT1H}",
+            fixedDelayString = "${rental.expiry.sweep.delay:PT1H}")
+    public void sweep() {
+        chunkedJobRunner.run(expiredRentalsJob);
+    }
+
+    private void expire(List<PendingRental> due) {
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<PendingRental> chunk = due.subList(from, Math.min(from + chunkSize, due.size()));
+            List<Long> ids = chunk.stream()
+                    .map(PendingRental::id)
+                    .toList();
+            try {
+                Set<Long> expired = new HashSet<>(transactionTemplate.execute(
+                        status -> expiredRentalsJob.expire(ids)));
+                record(chunk, expired);
+            } catch (RuntimeException e) {
+                log.error("Can't expire rentals {}, the sweep will expire them later", ids, e);
+            }
+        }
+    }
+
+    private void record(List<PendingRental> chunk, Set<Long> expired) {
+        LocalDateTime now = LocalDateTime.now();
+        for (PendingRental rental : chunk) {
+            if (expired.contains(rental.id())) {
+                timeToRelease.record(Duration.between(rental.createdAt(), now));
+                lateness.record(Duration.between(deadline(rental), now));
+            }
+        }
+    }
+
+    private LocalDateTime deadline(PendingRental rental) {
+        return rental.createdAt().plus(holdWindow);
+    }
+
+    private record PendingRental(Long id, LocalDateTime createdAt) {
+    }
+}
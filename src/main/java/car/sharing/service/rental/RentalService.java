@@ -1,14 +1,19 @@
 package car.sharing.service.rental;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.rental.RentalResponseDto;
 import car.sharing.model.User;
 import com.stripe.exception.StripeException;
 import java.net.MalformedURLException;
+import java.time.LocalDate;
 import java.util.List;
 import org.springframework.data.domain.Pageable;
 
 public interface RentalService {
-    RentalResponseDto addRental(User user, Long carId, int daysToRent);
+    /**
+     * @param rentalDate null to start the rental today
+     */
+    RentalResponseDto addRental(User user, Long carId, LocalDate rentalDate, int daysToRent);
 
     List<RentalResponseDto> getUserRentals(Long userId, boolean isActive, Pageable pageable);
 
@@ -18,7 +23,11 @@ public interface RentalService {
 
     List<RentalResponseDto> getAllRentals(User user, Pageable pageable);
 
+    CursorPage<RentalResponseDto> getAllRentals(User user, String cursor, int size);
+
     void cancel(User user);
 
     List<RentalResponseDto> getAllActive(Pageable pageable);
+
+    CursorPage<RentalResponseDto> getAllActive(String cursor, int size);
 }
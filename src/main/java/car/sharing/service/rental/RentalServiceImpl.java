@@ -1,5 +1,6 @@
 package car.sharing.service.rental;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.rental.RentalResponseDto;
 import car.sharing.exception.CarRentalException;
 import car.sharing.mapper.RentalMapper;
@@ -7,56 +8,70 @@ import car.sharing.model.Car;
 import car.sharing.model.Payment;
 import car.sharing.model.Rental;
 import car.sharing.model.User;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RentalReturned;
 import car.sharing.repository.CarRepository;
 import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalReadRepository;
 import car.sharing.repository.RentalRepository;
+import car.sharing.service.inventory.InventoryService;
+import car.sharing.service.payment.PaymentSessionService;
 import car.sharing.service.payment.strategy.PaymentStrategy;
-import car.sharing.telegram.strategy.NotificationStrategy;
-import car.sharing.util.StripeUtil;
+import car.sharing.service.stats.DailyStatsRollup;
+import car.sharing.util.PageCursor;
 import com.stripe.exception.StripeException;
-import com.stripe.model.checkout.Session;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class RentalServiceImpl implements RentalService {
-    private static final int ONE = 1;
-    private static final String TELEGRAM = "telegram";
-    private static final String RENTAL_RETURNING = "rental returning";
-    private static final int NO_INVENTORY = 0;
     private final RentalRepository rentalRepository;
+    private final RentalReadRepository rentalReadRepository;
     private final RentalMapper rentalMapper;
     private final CarRepository carRepository;
     private final PaymentStrategy paymentStrategy;
-    private final StripeUtil stripeUtil;
+    private final PaymentSessionService paymentSessionService;
     private final PaymentRepository paymentRepository;
-    private final NotificationStrategy<Rental> notificationStrategy;
+    private final OutboxPublisher outboxPublisher;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final RentalExpiryScheduler rentalExpiryScheduler;
+    private final OverdueRentalIndex overdueRentalIndex;
+    private final DailyStatsRollup dailyStatsRollup;
 
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public RentalResponseDto addRental(
             User user,
             Long carId,
+            LocalDate rentalDate,
             int daysToRent) {
         checkIfRentalExists(user);
         checkIfFineExists(user);
-        Car car = ifAvailable(carId);
-        Rental rental = createRental(user, daysToRent, carId);
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = rentalDate == null ? today : rentalDate;
+        // decided once, so the unit taken and the flag saved always agree around midnight
+        boolean isAdvance = startDate.isAfter(today);
+        inventoryService.reserve(carId, startDate, startDate.plusDays(daysToRent), isAdvance);
+        Rental rental = createRental(user, startDate, daysToRent, carId, isAdvance);
         rentalRepository.save(rental);
-        car.setInventory(car.getInventory() - ONE);
-        carRepository.save(car);
+        rentalExpiryScheduler.schedule(rental);
         return rentalMapper.toResponseDto(rental);
     }
 
@@ -87,37 +102,35 @@ public class RentalServiceImpl implements RentalService {
 
     @Override
     public List<RentalResponseDto> getAllRentals(User user, Pageable pageable) {
-        return mapToResponseDto(
-                rentalRepository.findAllByUserId(
+        return rentalReadRepository.findAllByUserId(user.getId(), pageable)
+                .stream()
+                .map(rentalMapper::toResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public CursorPage<RentalResponseDto> getAllRentals(User user, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        return CursorPage.of(
+                rentalReadRepository.findAllByUserIdAfter(
                         user.getId(),
-                        pageable));
+                        after == null ? 0L : after.id(),
+                        PageRequest.of(0, size + 1)),
+                size,
+                rental -> new PageCursor(null, rental.id()),
+                rentalMapper::toResponseDto);
     }
 
     @Override
     public RentalResponseDto setReturnDate(User user)
             throws StripeException, MalformedURLException {
-        Rental rental = rentalRepository.findRentalByStatusAndUserId(
-                        Rental.Status.LASTING,
-                        user.getId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "You don't have an active rental yet"));
-        LocalDate requiredReturnDate = rental.getRequiredReturnDate();
-        LocalDate now = LocalDate.now();
-        Car car = carRepository.findById(rental.getCarId())
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find car by id " + rental.getCarId()));
-        rental.setActualReturnDate(now);
-        if (requiredReturnDate.isBefore(now)) {
-            Payment payment =
-                    createFinePayment(requiredReturnDate, now, car, rental, user);
-            paymentRepository.save(payment);
+        ReturnedRental returned = transactionTemplate.execute(status -> returnRental(user));
+        if (returned.fine() != null) {
+            // if Stripe fails here the fine stays pending and POST /payments retries the session
+            // a fine holds no car, so its checkout stays open as long as Stripe allows
+            paymentSessionService.attachSession(returned.fine(), returned.unitName(), null);
         }
-        car.setInventory(car.getInventory() + ONE);
-        rental.setStatus(Rental.Status.RETURNED);
-        carRepository.save(car);
-        rentalRepository.save(rental);
-        sendMessage(TELEGRAM, RENTAL_RETURNING, rental, null);
-        return rentalMapper.toResponseDto(rental);
+        return rentalMapper.toResponseDto(returned.rental());
     }
 
     @Override
@@ -145,10 +158,7 @@ public class RentalServiceImpl implements RentalService {
                                 payment.setStatus(Payment.Status.CANCELED);
                                 paymentRepository.save(payment);
                             });
-                    carRepository.findById(rental.getCarId()).ifPresent(car -> {
-                        car.setInventory(car.getInventory() + ONE);
-                        carRepository.save(car);
-                    });
+                    inventoryService.release(rental);
                 });
     }
 
@@ -160,6 +170,21 @@ public class RentalServiceImpl implements RentalService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<RentalResponseDto> getAllActive(String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Rental> rentals = after == null
+                ? rentalRepository.findAllByStatus(Rental.Status.LASTING,
+                        PageRequest.of(0, size + 1, Sort.by("requiredReturnDate", "id")))
+                : rentalRepository.findAllByStatusAfter(Rental.Status.LASTING,
+                        after.dateKey(), after.id(), PageRequest.of(0, size + 1));
+        return CursorPage.of(rentals, size,
+                rental -> new PageCursor(
+                        rental.getRequiredReturnDate().toString(),
+                        rental.getId()),
+                rentalMapper::toResponseDto);
+    }
+
     private List<RentalResponseDto> mapToResponseDto(List<Rental> rentals) {
         return rentals
                 .stream()
@@ -187,39 +212,62 @@ public class RentalServiceImpl implements RentalService {
         }
     }
 
-    private Car ifAvailable(Long carId) {
-        Car car = carRepository.findById(carId).orElseThrow(
-                () -> new EntityNotFoundException("There is no car by id " + carId));
-        if (car.getInventory() <= NO_INVENTORY) {
-            throw new CarRentalException("Sorry, this car is not available now."
-                    + " Every one is busy");
-        }
-        return car;
-    }
-
-    private Rental createRental(User user, int daysToRent, Long carId) {
+    private Rental createRental(
+            User user,
+            LocalDate rentalDate,
+            int daysToRent,
+            Long carId,
+            boolean isAdvance) {
         return Rental.builder()
-                .rentalDate(LocalDate.now())
+                .rentalDate(rentalDate)
+                .createdAt(LocalDateTime.now())
                 .userId(user.getId())
-                .requiredReturnDate(LocalDate.now().plusDays(daysToRent))
+                .requiredReturnDate(rentalDate.plusDays(daysToRent))
                 .carId(carId)
                 .status(Rental.Status.PENDING)
+                .isAdvance(isAdvance)
                 .build();
     }
 
+    private ReturnedRental returnRental(User user) {
+        Rental rental = rentalRepository.findRentalByStatusAndUserId(
+                        Rental.Status.LASTING,
+                        user.getId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "You don't have an active rental yet"));
+        LocalDate requiredReturnDate = rental.getRequiredReturnDate();
+        LocalDate now = LocalDate.now();
+        if (rental.getRentalDate().isAfter(now)) {
+            throw new CarRentalException("You can't return a car before your rental starts on "
+                    + rental.getRentalDate());
+        }
+        Car car = carRepository.findById(rental.getCarId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Can't find car by id " + rental.getCarId()));
+        rental.setActualReturnDate(now);
+        Payment fine = null;
+        if (requiredReturnDate.isBefore(now)) {
+            fine = createFinePayment(requiredReturnDate, now, car, rental, user);
+            paymentRepository.save(fine);
+        }
+        rental.setStatus(Rental.Status.RETURNED);
+        rentalRepository.save(rental);
+        inventoryService.release(rental);
+        outboxPublisher.publish(RentalReturned.of(rental));
+        overdueRentalIndex.remove(rental.getId());
+        dailyStatsRollup.rentalReturned(rental);
+        return new ReturnedRental(rental, fine, car.getBrand() + " " + car.getModel());
+    }
+
     private Payment createPayment(
             BigDecimal price,
             Rental rental,
-            Session session,
             User user,
-            Payment.Type type)
-            throws MalformedURLException {
+            Payment.Type type) {
         return Payment.builder()
                 .type(type)
                 .amountToPay(price)
                 .rentalId(rental.getId())
-                .sessionId(session.getId())
-                .sessionUrl(new URL(session.getUrl()))
                 .status(Payment.Status.PENDING)
                 .userId(user.getId())
                 .build();
@@ -230,28 +278,15 @@ public class RentalServiceImpl implements RentalService {
             LocalDate now,
             Car car,
             Rental rental,
-            User user)
-            throws StripeException, MalformedURLException {
+            User user) {
         long days = ChronoUnit.DAYS.between(requiredReturnDate, now);
         BigDecimal fine = paymentStrategy.getPaymentService(Payment.Type.FINE)
                 .calculateAmount(car.getDailyFee(), days);
-        Session session = stripeUtil.createSession(
-                fine.longValue(),
-                car.getBrand() + " " + car.getModel());
-        Payment payment = createPayment(
+        return createPayment(
                 fine.multiply(BigDecimal.valueOf(0.01).setScale(2, RoundingMode.HALF_UP)),
-                rental, session, user, Payment.Type.FINE);
-        return payment;
+                rental, user, Payment.Type.FINE);
     }
 
-    private void sendMessage(
-            String notificationService,
-            String messageType,
-            Rental rental,
-            Long chatId) {
-        notificationStrategy.getNotificationService(
-                        notificationService, messageType
-                )
-                .sendMessage(rental, chatId);
+    private record ReturnedRental(Rental rental, Payment fine, String unitName) {
     }
 }
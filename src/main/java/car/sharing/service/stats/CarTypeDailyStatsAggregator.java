@@ -0,0 +1,113 @@
+package car.sharing.service.stats;
+
+import car.sharing.model.CarTypeDailyStats;
+import car.sharing.repository.CarDailyStatsRepository;
+import car.sharing.repository.CarTypeDailyStatsRepository;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the car_type_daily_stats rows of the days changed in car_daily_stats
+ * from the car rows of those days, after their changes are committed and in a transaction
+ * of its own. So payments, returns and expiries of cars of one type don't wait for each
+ * other on the type row of their day. Days changed by several commits meanwhile
+ * are recomputed together. Type rows use the type a car has when its day is recomputed,
+ * days of a failed or interrupted aggregation are repaired by DailyStatsBackfillJob
+ */
+@Slf4j
+@Component
+public class CarTypeDailyStatsAggregator {
+    private static final String AGGREGATOR_NAME = "car-type-stats-aggregator";
+    private final CarDailyStatsRepository carDailyStatsRepository;
+    private final CarTypeDailyStatsRepository carTypeDailyStatsRepository;
+    private final TransactionTemplate newTransaction;
+    private final Set<LocalDate> pendingDays = ConcurrentHashMap.newKeySet();
+    private final ExecutorService aggregator;
+
+    public CarTypeDailyStatsAggregator(
+            CarDailyStatsRepository carDailyStatsRepository,
+            CarTypeDailyStatsRepository carTypeDailyStatsRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.carDailyStatsRepository = carDailyStatsRepository;
+        this.carTypeDailyStatsRepository = carTypeDailyStatsRepository;
+        this.aggregator = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name(AGGREGATOR_NAME).factory()
+                : Thread.ofPlatform().name(AGGREGATOR_NAME).daemon().factory());
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void stop() {
+        aggregator.shutdownNow();
+    }
+
+    /**
+     * Recomputes the day once the caller's transaction is committed, nothing happens
+     * if it is rolled back
+     */
+    public void aggregateAfterCommit(LocalDate statsDate) {
+        TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        if (pendingDays.add(statsDate)) {
+                            aggregator.execute(() -> aggregatePending());
+                        }
+                    }
+                });
+    }
+
+    private void aggregatePending() {
+        List<LocalDate> statsDates = new ArrayList<>();
+        for (LocalDate statsDate : pendingDays) {
+            // removed before it is read, so a later commit of the day queues it again
+            if (pendingDays.remove(statsDate)) {
+                statsDates.add(statsDate);
+            }
+        }
+        if (!statsDates.isEmpty()) {
+            aggregate(statsDates);
+        }
+    }
+
+    private void aggregate(Collection<LocalDate> statsDates) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                carTypeDailyStatsRepository.deleteAllByStatsDateIn(statsDates);
+                carTypeDailyStatsRepository.saveAll(carDailyStatsRepository
+                        .sumByCarTypeAndStatsDateIn(statsDates)
+                        .stream()
+                        .map(totals -> new StatsDelta(
+                                Math.toIntExact(totals.getRentalsStarted()),
+                                Math.toIntExact(totals.getRentalsReturned()),
+                                Math.toIntExact(totals.getRentalsExpired()),
+                                totals.getPaidAmount(),
+                                totals.getFineAmount(),
+                                totals.getRentedDays())
+                                .applyTo(new CarTypeDailyStats(
+                                        totals.getCarType(), totals.getStatsDate())))
+                        .toList());
+            });
+        } catch (RuntimeException e) {
+            // the car rows are committed already, the next change of a day recomputes it
+            log.error("Can't aggregate the car type stats of {}", statsDates, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package car.sharing.service.stats;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.repository.CarDailyStatsRepository;
+import car.sharing.repository.RentalRepository;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps car_daily_stats up to date in the transaction of every state change it counts,
+ * so reports read a few rollup rows instead of scanning rentals and payments.
+ * A rental is counted as started on its rental date once it is paid,
+ * as returned on its actual return date together with the days it lasted
+ * and as expired on its rental date. A paid payment is counted on the rental date
+ * of its rental, a paid fine on the return date of its rental.
+ * Every change is an upsert of the row of its car and day in the caller's transaction,
+ * so it needs no connection of its own and the first changes of a day
+ * made concurrently don't fail on the unique key. The car_type_daily_stats rows
+ * of the changed days are recomputed by CarTypeDailyStatsAggregator after the commit,
+ * so changes of different cars of one type don't wait for each other
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyStatsRollup {
+    private final CarDailyStatsRepository carDailyStatsRepository;
+    private final CarTypeDailyStatsAggregator carTypeDailyStatsAggregator;
+    private final RentalRepository rentalRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rentalStarted(Rental rental) {
+        add(rental.getCarId(), rental.getRentalDate(), StatsDelta.started(1));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rentalReturned(Rental rental) {
+        add(rental.getCarId(), rental.getActualReturnDate(), StatsDelta.returned(1,
+                ChronoUnit.DAYS.between(rental.getRentalDate(), rental.getActualReturnDate())));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rentalExpired(Rental rental) {
+        add(rental.getCarId(), rental.getRentalDate(), StatsDelta.expired(1));
+    }
+
+    /**
+     * Has to be called before the rentals are canceled, canceled rentals can't be counted
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rentalsExpired(List<RentalRepository.CarDayRentals> expired) {
+        // the same order in every transaction, so two of them can't wait for each other
+        expired.stream()
+                .sorted(Comparator.comparing(RentalRepository.CarDayRentals::getCarId)
+                        .thenComparing(RentalRepository.CarDayRentals::getStatsDate))
+                .forEach(rentals -> add(rentals.getCarId(), rentals.getStatsDate(),
+                        StatsDelta.expired(Math.toIntExact(rentals.getRentals()))));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void paymentPaid(Payment payment) {
+        rentalRepository.findById(payment.getRentalId()).ifPresentOrElse(
+                rental -> add(rental.getCarId(),
+                        payment.getType() == Payment.Type.FINE
+                                ? rental.getActualReturnDate()
+                                : rental.getRentalDate(),
+                        StatsDelta.paid(payment.getType(), payment.getAmountToPay())),
+                () -> log.warn("Payment {} of a deleted rental {} is not counted",
+                        payment.getId(), payment.getRentalId()));
+    }
+
+    private void add(Long carId, LocalDate statsDate, StatsDelta delta) {
+        carDailyStatsRepository.increment(carId, statsDate,
+                delta.rentalsStarted(), delta.rentalsReturned(), delta.rentalsExpired(),
+                delta.paidAmount(), delta.fineAmount(), delta.rentedDays());
+        carTypeDailyStatsAggregator.aggregateAfterCommit(statsDate);
+    }
+}
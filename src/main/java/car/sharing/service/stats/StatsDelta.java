@@ -0,0 +1,56 @@
+package car.sharing.service.stats;
+
+import car.sharing.model.DailyStats;
+import car.sharing.model.Payment;
+import java.math.BigDecimal;
+
+/**
+ * Change of the daily measures made by one state transition,
+ * or the sum of such changes when a day is recomputed
+ */
+public record StatsDelta(
+        int rentalsStarted,
+        int rentalsReturned,
+        int rentalsExpired,
+        BigDecimal paidAmount,
+        BigDecimal fineAmount,
+        long rentedDays
+) {
+    public static StatsDelta started(int rentals) {
+        return new StatsDelta(rentals, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+    }
+
+    public static StatsDelta returned(int rentals, long rentedDays) {
+        return new StatsDelta(0, rentals, 0, BigDecimal.ZERO, BigDecimal.ZERO, rentedDays);
+    }
+
+    public static StatsDelta expired(int rentals) {
+        return new StatsDelta(0, 0, rentals, BigDecimal.ZERO, BigDecimal.ZERO, 0);
+    }
+
+    public static StatsDelta paid(Payment.Type type, BigDecimal amount) {
+        return type == Payment.Type.FINE
+                ? new StatsDelta(0, 0, 0, BigDecimal.ZERO, amount, 0)
+                : new StatsDelta(0, 0, 0, amount, BigDecimal.ZERO, 0);
+    }
+
+    public StatsDelta plus(StatsDelta other) {
+        return new StatsDelta(
+                rentalsStarted + other.rentalsStarted,
+                rentalsReturned + other.rentalsReturned,
+                rentalsExpired + other.rentalsExpired,
+                paidAmount.add(other.paidAmount),
+                fineAmount.add(other.fineAmount),
+                rentedDays + other.rentedDays);
+    }
+
+    public <T extends DailyStats> T applyTo(T stats) {
+        stats.setRentalsStarted(stats.getRentalsStarted() + rentalsStarted);
+        stats.setRentalsReturned(stats.getRentalsReturned() + rentalsReturned);
+        stats.setRentalsExpired(stats.getRentalsExpired() + rentalsExpired);
+        stats.setPaidAmount(stats.getPaidAmount().add(paidAmount));
+        stats.setFineAmount(stats.getFineAmount().add(fineAmount));
+        stats.setRentedDays(stats.getRentedDays() + rentedDays);
+        return stats;
+    }
+}
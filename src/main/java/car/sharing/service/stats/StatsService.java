@@ -0,0 +1,27 @@
+package car.sharing.service.stats;
+
+import car.sharing.dto.stats.CarDailyStatsDto;
+import car.sharing.dto.stats.CarTypeDailyStatsDto;
+import car.sharing.dto.stats.StatsTotalsDto;
+import car.sharing.model.Car;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+
+public interface StatsService {
+
+    List<CarDailyStatsDto> getCarStats(
+            LocalDate from,
+            LocalDate to,
+            Long carId,
+            Pageable pageable);
+
+    List<CarTypeDailyStatsDto> getCarTypeStats(LocalDate from, LocalDate to, Car.Type carType);
+
+    StatsTotalsDto getTotals(LocalDate from, LocalDate to);
+
+    /**
+     * @return number of recomputed days
+     */
+    long backfill();
+}
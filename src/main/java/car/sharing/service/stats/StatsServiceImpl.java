@@ -0,0 +1,76 @@
+package car.sharing.service.stats;
+
+import car.sharing.batch.ChunkedJobRunner;
+import car.sharing.batch.DailyStatsBackfillJob;
+import car.sharing.dto.stats.CarDailyStatsDto;
+import car.sharing.dto.stats.CarTypeDailyStatsDto;
+import car.sharing.dto.stats.StatsTotalsDto;
+import car.sharing.model.Car;
+import car.sharing.repository.CarDailyStatsRepository;
+import car.sharing.repository.CarTypeDailyStatsRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reports read the rollup tables only, never rentals or payments
+ */
+@Service
+@RequiredArgsConstructor
+public class StatsServiceImpl implements StatsService {
+    private final CarDailyStatsRepository carDailyStatsRepository;
+    private final CarTypeDailyStatsRepository carTypeDailyStatsRepository;
+    private final ChunkedJobRunner chunkedJobRunner;
+    private final DailyStatsBackfillJob dailyStatsBackfillJob;
+
+    @Override
+    public List<CarDailyStatsDto> getCarStats(
+            LocalDate from,
+            LocalDate to,
+            Long carId,
+            Pageable pageable) {
+        checkRange(from, to);
+        return carDailyStatsRepository.findAllByStatsDateBetween(from, to, carId, pageable);
+    }
+
+    @Override
+    public List<CarTypeDailyStatsDto> getCarTypeStats(
+            LocalDate from,
+            LocalDate to,
+            Car.Type carType) {
+        checkRange(from, to);
+        return carTypeDailyStatsRepository.findAllByStatsDateBetween(from, to, carType);
+    }
+
+    @Override
+    public StatsTotalsDto getTotals(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        CarDailyStatsRepository.Totals totals =
+                carDailyStatsRepository.sumByStatsDateBetween(from, to);
+        return new StatsTotalsDto(
+                from,
+                to,
+                Objects.requireNonNullElse(totals.getRentalsStarted(), 0L),
+                Objects.requireNonNullElse(totals.getRentalsReturned(), 0L),
+                Objects.requireNonNullElse(totals.getRentalsExpired(), 0L),
+                Objects.requireNonNullElse(totals.getPaidAmount(), BigDecimal.ZERO),
+                Objects.requireNonNullElse(totals.getFineAmount(), BigDecimal.ZERO),
+                Objects.requireNonNullElse(totals.getRentedDays(), 0L));
+    }
+
+    @Override
+    public long backfill() {
+        return chunkedJobRunner.run(dailyStatsBackfillJob);
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from
+                    + " can't be after end date " + to);
+        }
+    }
+}
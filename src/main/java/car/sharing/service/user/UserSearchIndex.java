@@ -0,0 +1,216 @@
+package car.sharing.service.user;
+
+import car.sharing.model.User;
+import car.sharing.repository.UserRepository;
+import car.sharing.util.TrigramIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Trigram indexes of emails, first and last names of users, so a substring search
+ * reads the few users that may match by id instead of scanning the whole table.
+ * Users are added, replaced and removed after their registration, update or deletion
+ * is committed. The indexes are rebuilt from all users, user.search.rebuild.chunk
+ * at a time, on startup and every user.search.resync.delay, which also picks up
+ * changes made on other instances; changes committed while a rebuild reads the users
+ * are applied to the rebuilt indexes again before they replace the old ones.
+ * Users registered on other instances since the last rebuild are not indexed here,
+ * so every id above the last one the rebuild has read is a candidate too.
+ * Till the first rebuild is done, nothing is narrowed down
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+    public static final String EMAIL = "email";
+    public static final String FIRST_NAME = "firstName";
+    public static final String LAST_NAME = "lastName";
+    private final UserRepository userRepository;
+    private final int maxPostings;
+    private final int maxCandidates;
+    private final int rebuildChunk;
+    // one rebuild at a time, without pinning the carrier of a virtual thread to a monitor
+    private final Lock rebuildLock = new ReentrantLock();
+    private final Lock lock = new ReentrantLock();
+    // guarded by lock
+    private List<Consumer<Map<String, TrigramIndex>>> missedByRebuild;
+    private volatile Map<String, TrigramIndex> indexes;
+    // written after indexes and read before them, so it is never ahead of the indexes read
+    private volatile long indexedUpTo;
+    private volatile boolean ready;
+
+    public UserSearchIndex(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${user.search.max.postings:100000}") int maxPostings,
+            @Value("${user.search.max.candidates:5000}") int maxCandidates,
+            @Value("${user.search.rebuild.chunk:10000}") int rebuildChunk) {
+        this.userRepository = userRepository;
+        this.maxPostings = maxPostings;
+        this.maxCandidates = maxCandidates;
+        this.rebuildChunk = rebuildChunk;
+        this.indexes = emptyIndexes();
+        Gauge.builder("users.search.postings", this, index -> index.indexes.values()
+                        .stream()
+                        .mapToLong(TrigramIndex::size)
+                        .sum())
+                .description("User ids in the postings of the user search indexes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user.search.resync.delay:PT1H}",
+            fixedDelayString = "${user.search.resync.delay:PT1H}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            withLock(() -> missedByRebuild = new ArrayList<>());
+            Map<String, TrigramIndex> rebuilt = emptyIndexes();
+            long users = 0;
+            long afterId = 0;
+            List<UserRepository.SearchFields> chunk;
+            do {
+                chunk = userRepository.findSearchFieldsByIdGreaterThan(
+                        afterId, PageRequest.ofSize(rebuildChunk));
+                for (UserRepository.SearchFields user : chunk) {
+                    index(rebuilt, new Indexed(user.getId(), user.getEmail(),
+                            user.getFirstName(), user.getLastName()));
+                    afterId = user.getId();
+                }
+                users += chunk.size();
+            } while (chunk.size() == rebuildChunk);
+            final long lastId = afterId;
+            withLock(() -> {
+                missedByRebuild.forEach(change -> change.accept(rebuilt));
+                missedByRebuild = null;
+                indexes = rebuilt;
+                indexedUpTo = lastId;
+            });
+            ready = true;
+            log.info("Indexed {} users for search", users);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public void add(User user) {
+        Indexed indexed = Indexed.of(user);
+        afterCommit(indexes -> index(indexes, indexed));
+    }
+
+    /**
+     * @param before the user as it was indexed, before it was changed
+     */
+    public void replace(Indexed before, User user) {
+        Indexed after = Indexed.of(user);
+        afterCommit(indexes -> {
+            unindex(indexes, before);
+            index(indexes, after);
+        });
+    }
+
+    public void remove(User user) {
+        Indexed indexed = Indexed.of(user);
+        afterCommit(indexes -> unindex(indexes, indexed));
+    }
+
+    /**
+     * @param field one of EMAIL, FIRST_NAME and LAST_NAME
+     * @return candidates among all users whose field may contain the substring, empty
+     *         if the index can't narrow them down, so the whole table has to be searched
+     */
+    public Optional<Candidates> findCandidates(String field, String substring) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        long upTo = indexedUpTo;
+        long[] candidates = indexes.get(field).findCandidates(substring, maxCandidates);
+        return Optional.ofNullable(candidates)
+                .map(ids -> new Candidates(Arrays.stream(ids).boxed().toList(), upTo));
+    }
+
+    private Map<String, TrigramIndex> emptyIndexes() {
+        return Map.of(EMAIL, new TrigramIndex(maxPostings),
+                FIRST_NAME, new TrigramIndex(maxPostings),
+                LAST_NAME, new TrigramIndex(maxPostings));
+    }
+
+    private void index(Map<String, TrigramIndex> indexes, Indexed user) {
+        indexes.get(EMAIL).add(user.id(), user.email());
+        indexes.get(FIRST_NAME).add(user.id(), user.firstName());
+        indexes.get(LAST_NAME).add(user.id(), user.lastName());
+    }
+
+    private void unindex(Map<String, TrigramIndex> indexes, Indexed user) {
+        indexes.get(EMAIL).remove(user.id(), user.email());
+        indexes.get(FIRST_NAME).remove(user.id(), user.firstName());
+        indexes.get(LAST_NAME).remove(user.id(), user.lastName());
+    }
+
+    /**
+     * Adding and removing are idempotent, so a change the rebuild has already read
+     * is harmless to apply again
+     */
+    private void afterCommit(Consumer<Map<String, TrigramIndex>> change) {
+        Runnable apply = () -> withLock(() -> {
+            change.accept(indexes);
+            if (missedByRebuild != null) {
+                missedByRebuild.add(change);
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            apply.run();
+                        }
+                    });
+            return;
+        }
+        apply.run();
+    }
+
+    private void withLock(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param ids         indexed users that may match
+     * @param indexedUpTo users with greater ids may match as well, they are not indexed
+     *                    on every instance yet
+     */
+    public record Candidates(List<Long> ids, long indexedUpTo) {
+    }
+
+    /**
+     * Fields of a user as they are put into the indexes
+     */
+    public record Indexed(Long id, String email, String firstName, String lastName) {
+        public static Indexed of(User user) {
+            return new Indexed(user.getId(), user.getEmail(), user.getFirstName(),
+                    user.getLastName());
+        }
+    }
+}
@@ -9,30 +9,36 @@ import car.sharing.exception.RegistrationException;
 import car.sharing.mapper.UserMapper;
 import car.sharing.model.Role;
 import car.sharing.model.User;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RoleChanged;
 import car.sharing.repository.UserRepository;
 import car.sharing.repository.specification.user.UserSpecificationBuilder;
-import car.sharing.telegram.strategy.NotificationStrategy;
+import car.sharing.security.PrincipalCache;
+import car.sharing.security.TokenRevocationService;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-    private static final String TELEGRAM = "telegram";
-    private static final String ROLE_UPDATING = "role updating";
     private static final String ROLE_CUSTOMER = "ROLE_CUSTOMER";
     private static final String ROLE_MANAGER = "ROLE_MANAGER";
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final UserSpecificationBuilder userSpecificationBuilder;
-    private final NotificationStrategy<User> notificationStrategy;
+    private final OutboxPublisher outboxPublisher;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserSearchIndex userSearchIndex;
 
     @Override
     public UserResponseDto register(UserRegistrationRequestDto requestDto)
@@ -44,10 +50,12 @@ public class UserServiceImpl implements UserService {
         User user = userMapper.toModel(requestDto);
         user.setPassword(passwordEncoder.encode(requestDto.password()));
         userRepository.save(user);
+        userSearchIndex.add(user);
         return userMapper.toResponseDto(user);
     }
 
     @Override
+    @Transactional
     public UserUpdatedRolesResponseDto updateUserRole(Long id, String roleName) {
         User user = userRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(
@@ -55,35 +63,60 @@ public class UserServiceImpl implements UserService {
         if (alreadyIs(user, roleName)) {
             return userMapper.toUpdatedResponseDto(user);
         }
+        Set<Role.RoleName> newRoles;
         if (hasRole(user, ROLE_MANAGER)
                 && roleName.equalsIgnoreCase(ROLE_CUSTOMER)) {
             user.setRoles(Set.of(new Role(1L)));
+            newRoles = Set.of(Role.RoleName.ROLE_CUSTOMER);
         } else {
             user.setRoles(Set.of(new Role(1L), new Role(2L)));
+            newRoles = Set.of(Role.RoleName.ROLE_CUSTOMER, Role.RoleName.ROLE_MANAGER);
         }
         userRepository.save(user);
-        sendMessage(TELEGRAM, ROLE_UPDATING, user, null);
+        // roles are embedded into tokens, so tokens with the old roles are revoked
+        tokenRevocationService.revokeAll(user.getId());
+        principalCache.evict(user.getEmail());
+        outboxPublisher.publish(new RoleChanged(user.getId(), newRoles));
         return userMapper.toUpdatedResponseDto(user);
     }
 
     @Override
     public UserResponseDto getMyProfileInfo(User user) {
-        return userMapper.toResponseDto(user);
+        return userMapper.toResponseDto(getFullUser(user));
     }
 
     @Override
-    public UserResponseDto updateProfile(User user, UserUpdateInfoRequestDto requestDto) {
+    @Transactional
+    public UserResponseDto updateProfile(User principal, UserUpdateInfoRequestDto requestDto) {
+        User user = getFullUser(principal);
+        final String oldEmail = user.getEmail();
+        final UserSearchIndex.Indexed indexed = UserSearchIndex.Indexed.of(user);
         userMapper.updateModel(user, requestDto);
         if (requestDto.password() != null) {
             user.setPassword(passwordEncoder.encode(requestDto.password()));
         }
         userRepository.save(user);
+        userSearchIndex.replace(indexed, user);
+        // evicted by the old email, because it may have been changed right above
+        principalCache.evict(oldEmail);
+        // email is a token's subject and a new password has to end the other sessions,
+        // a name only change keeps the tokens valid
+        if (requestDto.password() != null || !oldEmail.equals(user.getEmail())) {
+            tokenRevocationService.revokeAll(user.getId());
+        }
         return userMapper.toResponseDto(user);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
+        Optional<User> deleted = userRepository.findById(id);
+        deleted.ifPresent(user -> {
+            tokenRevocationService.revokeAll(id);
+            principalCache.evict(user.getEmail());
+        });
         userRepository.deleteById(id);
+        deleted.ifPresent(userSearchIndex::remove);
     }
 
     @Override
@@ -99,6 +132,16 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Principal may be built from token's claims only (stateless mode),
+     * so user is loaded by id whenever its other fields are needed
+     */
+    private User getFullUser(User principal) {
+        return userRepository.findById(principal.getId())
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "There is no user by id " + principal.getId()));
+    }
+
     private boolean isEmpty(UserSearchParametersDto parametersDto) {
         return (parametersDto == null)
                 || (parametersDto.firstName() == null || parametersDto.firstName().isEmpty())
@@ -106,17 +149,6 @@ public class UserServiceImpl implements UserService {
                 && (parametersDto.email() == null || parametersDto.email().isEmpty());
     }
 
-    private void sendMessage(
-            String notificationService,
-            String messageType,
-            User user,
-            Long chatId) {
-        notificationStrategy.getNotificationService(
-                        notificationService, messageType
-                )
-                .sendMessage(user, chatId);
-    }
-
     private boolean alreadyIs(User user, String roleName) {
         return (isCustomer(user)
                 && roleName.equalsIgnoreCase(ROLE_CUSTOMER))
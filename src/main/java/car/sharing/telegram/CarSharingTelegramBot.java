@@ -4,6 +4,7 @@ import car.sharing.telegram.strategy.response.AdminResponseStrategy;
 import java.util.Objects;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.objects.Update;
@@ -17,12 +18,24 @@ public class CarSharingTelegramBot extends TelegramLongPollingBot {
     public CarSharingTelegramBot(
             @Value("${telegram.bot.token}") String botToken,
             AdminResponseStrategy adminResponseStrategy,
-            @Value("${default.telegram.admin.chat.id}") Long chatId) {
-        super(botToken);
+            @Value("${default.telegram.admin.chat.id}") Long chatId,
+            @Value("${telegram.api.base:}") String apiBase) {
+        super(botOptions(apiBase), botToken);
         this.adminResponseStrategy = adminResponseStrategy;
         this.chatId = chatId;
     }
 
+    /**
+     * Base url can be overridden to point the bot to a local stub (see load tests)
+     */
+    private static DefaultBotOptions botOptions(String apiBase) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        if (!apiBase.isBlank()) {
+            options.setBaseUrl(apiBase);
+        }
+        return options;
+    }
+
     @Override
     public String getBotUsername() {
         return "bond_car_sharing_bot";
@@ -54,7 +67,7 @@ public class CarSharingTelegramBot extends TelegramLongPollingBot {
         try {
             execute(sendMessage);
         } catch (TelegramApiException e) {
-            throw new RuntimeException("Can't send message " + text);
+            throw new RuntimeException("Can't send message " + text, e);
         }
     }
 }
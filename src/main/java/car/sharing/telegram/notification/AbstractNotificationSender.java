@@ -1,6 +1,9 @@
 package car.sharing.telegram.notification;
 
+import car.sharing.util.DispatchRegistry;
+import jakarta.annotation.PostConstruct;
 import java.util.List;
+import java.util.Map;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -12,6 +15,15 @@ public class AbstractNotificationSender {
     private static final String MESSAGE_SEPARATOR = "***";
     @Autowired
     private List<NotificationService> notificationServices;
+    private Map<String, NotificationService> notificationServicesByName;
+
+    @PostConstruct
+    private void indexNotificationServices() {
+        notificationServicesByName = DispatchRegistry.byKey(
+                notificationServices,
+                NotificationService::getName,
+                "notification service");
+    }
 
     protected void sendMessage(String notificationService,
                                Long chatId,
@@ -25,15 +37,12 @@ public class AbstractNotificationSender {
                 .append(LINE_SEPARATOR)
                 .append(MESSAGE_SEPARATOR)
                 .toString();
-        notificationServices
-                .stream()
-                .filter(service -> service.isApplicable(notificationService))
-                .findFirst()
-                .orElseThrow(
-                        () -> new RuntimeException(
-                                String.format(
-                                        "Can't find %s notification service",
-                                        notificationService)))
-                .sendMessage(chatId, message);
+        NotificationService service = notificationServicesByName.get(
+                DispatchRegistry.normalize(notificationService));
+        if (service == null) {
+            throw new RuntimeException(String.format(
+                    "Can't find %s notification service", notificationService));
+        }
+        service.sendMessage(chatId, message);
     }
 }
@@ -0,0 +1,18 @@
+package car.sharing.telegram.notification;
+
+import car.sharing.telegram.CarSharingTelegramBot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.sender", havingValue = "bot", matchIfMissing = true)
+public class BotTelegramMessageSender implements TelegramMessageSender {
+    private final CarSharingTelegramBot telegramBot;
+
+    @Override
+    public void send(Long chatId, String message) {
+        telegramBot.sendMessage(chatId, message);
+    }
+}
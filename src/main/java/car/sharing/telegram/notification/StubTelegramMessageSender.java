@@ -0,0 +1,33 @@
+package car.sharing.telegram.notification;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps messages in memory instead of sending them,
+ * so the application can be run and tested without access to Telegram.
+ * Is enabled by telegram.sender=stub, which also skips registering the bot
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.sender", havingValue = "stub")
+public class StubTelegramMessageSender implements TelegramMessageSender {
+    private final List<SentMessage> sentMessages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(Long chatId, String message) {
+        sentMessages.add(new SentMessage(chatId, message));
+    }
+
+    public List<SentMessage> getSentMessages() {
+        return List.copyOf(sentMessages);
+    }
+
+    public void clear() {
+        sentMessages.clear();
+    }
+
+    public record SentMessage(Long chatId, String message) {
+    }
+}
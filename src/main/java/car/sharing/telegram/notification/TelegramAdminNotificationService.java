@@ -1,9 +1,7 @@
 package car.sharing.telegram.notification;
 
-import car.sharing.model.Rental;
-import car.sharing.repository.RentalRepository;
-import car.sharing.telegram.CarSharingTelegramBot;
-import java.time.LocalDate;
+import car.sharing.outbox.event.RentalOverdue;
+import car.sharing.service.rental.OverdueRentalIndex;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,36 +12,41 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class TelegramAdminNotificationService implements NotificationService {
     private static final String TELEGRAM = "Telegram";
-    private final CarSharingTelegramBot telegramBot;
-    private final RentalRepository rentalRepository;
+    private final TelegramNotificationQueue notificationQueue;
+    private final OverdueRentalIndex overdueRentalIndex;
     @Value("${default.telegram.admin.chat.id}")
     private Long chatId;
 
+    /**
+     * Is called by the outbox relay only, so the message is handed to the queue right away
+     * and a full queue makes the relay deliver the event again
+     */
     @Override
     public void sendMessage(Long chatId, String message) {
-        telegramBot.sendMessage(chatId, message);
+        notificationQueue.accept(chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService) {
-        return notificationService.equalsIgnoreCase(TELEGRAM);
+    public String getName() {
+        return TELEGRAM;
     }
 
+    // every rental is also announced when it becomes overdue, this is a daily summary,
+    // queue's workers join its messages into as few Telegram messages as possible
     @Scheduled(cron = "0 0 9 * * *")
     private void remindOfOverdueRentals() {
-        List<Rental> overdueRentals =
-                rentalRepository.findAllOverdueRentals(LocalDate.now());
+        List<RentalOverdue> overdueRentals = overdueRentalIndex.getOverdueRentals();
         if (!overdueRentals.isEmpty()) {
             overdueRentals
                     .stream()
                     .map(this::createMessageAboutRental)
-                    .forEach(message -> sendMessage(chatId, message));
+                    .forEach(message -> notificationQueue.enqueue(chatId, message));
             return;
         }
-        sendMessage(chatId, "No rentals overdue today!");
+        notificationQueue.enqueue(chatId, "No rentals overdue today!");
     }
 
-    private String createMessageAboutRental(Rental rental) {
+    private String createMessageAboutRental(RentalOverdue rental) {
         String message = """
                 ***
                 The following rental is overdue.
@@ -52,16 +55,18 @@ public class TelegramAdminNotificationService implements NotificationService {
                 User id: %s,
                 Car id: %s,
                 Rental date: %s,
-                Required return date: %s.
+                Required return date: %s,
+                Accrued fine: %s.
                 ***
                 """;
         return String.format(
                 message,
-                rental.getId(),
-                rental.getUserId(),
-                rental.getCarId(),
-                rental.getRentalDate(),
-                rental.getRequiredReturnDate());
+                rental.rentalId(),
+                rental.userId(),
+                rental.carId(),
+                rental.rentalDate(),
+                rental.requiredReturnDate(),
+                rental.accruedFine());
 
     }
 }
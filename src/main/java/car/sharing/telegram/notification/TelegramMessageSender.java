@@ -0,0 +1,9 @@
+package car.sharing.telegram.notification;
+
+/**
+ * Actually delivers a message to Telegram, throws if Telegram doesn't accept it.
+ * Is called by TelegramNotificationQueue workers and by the outbox relay, never by requests
+ */
+public interface TelegramMessageSender {
+    void send(Long chatId, String message);
+}
@@ -0,0 +1,272 @@
+package car.sharing.telegram.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends Telegram notifications off the caller's thread.
+ * Messages are enqueued after the caller's transaction commits (right away if there is none),
+ * so a rolled back change never notifies and a slow Telegram never slows down or
+ * rolls back the caller. A bounded pool of workers drains the queue in batches,
+ * joins messages for the same chat into as few Telegram messages as possible
+ * (Telegram limits messages per chat) and retries failed sends with exponential backoff.
+ * A failed message is put back into the queue by a scheduler once its backoff passes,
+ * so workers keep sending other messages meanwhile.
+ * When the queue is full, enqueue() waits for a short time and then drops the message,
+ * so messages that must not be lost are sent through the outbox instead, whose relay
+ * hands them over with accept() and delivers the event again if the queue is full.
+ * Queue depth and sent/retried/failed/dropped counts are exposed as telegram.notifications.*
+ * Workers are virtual threads when spring.threads.virtual.enabled is set. The Telegram client
+ * blocks inside synchronized sections, so a sending worker still pins its carrier thread,
+ * and the bounded number of workers is what keeps them from taking all the carriers.
+ * On shutdown workers send what is queued or waiting for a retry,
+ * for at most telegram.notifications.shutdown.timeout
+ */
+@Slf4j
+@Component
+public class TelegramNotificationQueue {
+    private static final int TELEGRAM_MESSAGE_LIMIT = 4096;
+    private static final String MESSAGES_SEPARATOR = System.lineSeparator();
+    private static final long POLL_TIMEOUT_MILLIS = 500;
+    private static final String WORKER_NAME = "telegram-notifications-";
+    private static final String RETRIES_NAME = "telegram-notifications-retries";
+    private final TelegramMessageSender sender;
+    private final BlockingQueue<Notification> queue;
+    private final int workersCount;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration enqueueTimeout;
+    private final Duration shutdownTimeout;
+    private final ThreadFactory threadFactory;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter dropped;
+    private ExecutorService workers;
+    private ScheduledExecutorService retries;
+    private volatile boolean running;
+
+    public TelegramNotificationQueue(
+            TelegramMessageSender sender,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.notifications.queue.capacity:10000}") int capacity,
+            @Value("${telegram.notifications.workers:2}") int workersCount,
+            @Value("${telegram.notifications.batch.size:50}") int batchSize,
+            @Value("${telegram.notifications.max.attempts:5}") int maxAttempts,
+            @Value("${telegram.notifications.initial.backoff:PT1S}") Duration initialBackoff,
+            @Value("${telegram.notifications.enqueue.timeout:PT0.1S}") Duration enqueueTimeout,
+            @Value("${telegram.notifications.shutdown.timeout:PT10S}") Duration shutdownTimeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workersCount = workersCount;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.enqueueTimeout = enqueueTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.threadFactory = virtualThreads
+                ? Thread.ofVirtual().name(WORKER_NAME, 0).factory()
+                : Thread.ofPlatform().name(WORKER_NAME, 0).daemon().factory();
+        Gauge.builder("telegram.notifications.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be sent")
+                .register(meterRegistry);
+        sent = counter(meterRegistry, "sent");
+        retried = counter(meterRegistry, "retried");
+        failed = counter(meterRegistry, "failed");
+        dropped = counter(meterRegistry, "dropped");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        retries = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name(RETRIES_NAME).daemon().factory());
+        workers = Executors.newFixedThreadPool(workersCount, threadFactory);
+        for (int i = 0; i < workersCount; i++) {
+            workers.submit(this::work);
+        }
+    }
+
+    /**
+     * Waits for workers to send the queued messages and the pending retries,
+     * then interrupts them if the shutdown timeout has passed
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // retries already scheduled still run, new ones are rejected
+        retries.shutdown();
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Telegram notifications are not sent before shutdown, {} left in the queue",
+                    queue.size());
+            retries.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    public void enqueue(Long chatId, String message) {
+        Notification notification = new Notification(chatId, message, 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            offer(notification);
+                        }
+                    });
+            return;
+        }
+        offer(notification);
+    }
+
+    /**
+     * Puts the message into the queue right away, even inside a transaction
+     *
+     * @throws IllegalStateException if the queue stays full for the enqueue timeout
+     */
+    public void accept(Long chatId, String message) {
+        if (!tryOffer(new Notification(chatId, message, 1))) {
+            throw new IllegalStateException("Telegram notifications queue is full");
+        }
+    }
+
+    private boolean tryOffer(Notification notification) {
+        try {
+            return queue.offer(notification, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void offer(Notification notification) {
+        if (tryOffer(notification)) {
+            return;
+        }
+        dropped.increment();
+        log.warn("Telegram notifications queue is full, message is dropped: {}",
+                notification.message());
+    }
+
+    private void work() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !retries.isTerminated()) {
+            try {
+                Notification first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<Notification> batch) {
+        // HashMap allows null key, which means default admin chat
+        Map<Long, List<String>> messagesByChat = new LinkedHashMap<>();
+        for (Notification notification : batch) {
+            if (notification.attempt() > 1) {
+                // is coalesced already
+                send(notification);
+                continue;
+            }
+            messagesByChat.computeIfAbsent(notification.chatId(), chatId -> new ArrayList<>())
+                    .add(notification.message());
+        }
+        for (Map.Entry<Long, List<String>> entry : messagesByChat.entrySet()) {
+            for (String message : coalesce(entry.getValue())) {
+                send(new Notification(entry.getKey(), message, 1));
+            }
+        }
+    }
+
+    /**
+     * Joins messages into as few messages as possible, none longer than Telegram allows
+     */
+    private List<String> coalesce(List<String> messages) {
+        List<String> coalesced = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String message : messages) {
+            if (!current.isEmpty() && current.length() + MESSAGES_SEPARATOR.length()
+                    + message.length() > TELEGRAM_MESSAGE_LIMIT) {
+                coalesced.add(current.toString());
+                current.setLength(0);
+            }
+            if (!current.isEmpty()) {
+                current.append(MESSAGES_SEPARATOR);
+            }
+            current.append(message);
+        }
+        coalesced.add(current.toString());
+        return coalesced;
+    }
+
+    private void send(Notification notification) {
+        try {
+            sender.send(notification.chatId(), notification.message());
+            sent.increment();
+        } catch (RuntimeException e) {
+            if (notification.attempt() >= maxAttempts) {
+                failed.increment();
+                log.error("Can't send Telegram message after {} attempts: {}",
+                        notification.attempt(), notification.message(), e);
+                return;
+            }
+            retry(notification);
+        }
+    }
+
+    private void retry(Notification notification) {
+        Duration backoff = initialBackoff.multipliedBy(1L << (notification.attempt() - 1));
+        Notification next = new Notification(
+                notification.chatId(), notification.message(), notification.attempt() + 1);
+        try {
+            retries.schedule(() -> offer(next), backoff.toMillis(), TimeUnit.MILLISECONDS);
+            retried.increment();
+        } catch (RejectedExecutionException e) {
+            failed.increment();
+            log.error("Can't retry Telegram message during shutdown: {}",
+                    notification.message(), e);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("telegram.notifications")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Notification(Long chatId, String message, int attempt) {
+    }
+}
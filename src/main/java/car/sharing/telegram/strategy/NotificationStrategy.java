@@ -1,26 +1,39 @@
 package car.sharing.telegram.strategy;
 
+import car.sharing.util.DispatchRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
 import org.springframework.stereotype.Component;
 
 @Component
-@RequiredArgsConstructor
 public class NotificationStrategy<T> {
-    private final List<NotificationService<T>> notificationServices;
+    private static final String KEY_SEPARATOR = ":";
+    private final Map<String, NotificationService<T>> notificationServices;
+
+    public NotificationStrategy(List<NotificationService<T>> notificationServices) {
+        this.notificationServices = DispatchRegistry.byKey(
+                notificationServices,
+                service -> key(service.getNotificationService(), service.getMessageType()),
+                "notification service");
+    }
 
     public NotificationService<T> getNotificationService(
             String notificationService,
             String messageType) {
-        return notificationServices
-                .stream()
-                .filter(service -> service.isApplicable(notificationService, messageType))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find service for "
-                                + notificationServices
-                                + " and "
-                                + messageType));
+        NotificationService<T> service = notificationServices.get(
+                DispatchRegistry.normalize(key(notificationService, messageType)));
+        if (service == null) {
+            throw new EntityNotFoundException(
+                    "Can't find service for "
+                            + notificationService
+                            + " and "
+                            + messageType);
+        }
+        return service;
+    }
+
+    private static String key(String notificationService, String messageType) {
+        return notificationService + KEY_SEPARATOR + messageType;
     }
 }
@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.car;
 
-import car.sharing.model.Car;
+import car.sharing.outbox.event.CarCreated;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramCarCreationNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Car> {
+        implements NotificationService<CarCreated> {
     private static final String TELEGRAM = "telegram";
     private static final String CAR_CREATION = "Car creation";
 
@@ -17,7 +17,7 @@ public class TelegramCarCreationNotificationService
     }
 
     @Override
-    public void sendMessage(Car car, Long chatId) {
+    public void sendMessage(CarCreated car, Long chatId) {
         String message = """
                   A new car is created.
  
@@ -30,18 +30,22 @@ public class TelegramCarCreationNotificationService
                   """;
         message = String.format(
                 message,
-                car.getId(),
-                car.getBrand(),
-                car.getModel(),
-                car.getType(),
-                car.getInventory(),
-                car.getDailyFee());
+                car.carId(),
+                car.brand(),
+                car.model(),
+                car.type(),
+                car.inventory(),
+                car.dailyFee());
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(CAR_CREATION);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return CAR_CREATION;
     }
 }
@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.car;
 
-import car.sharing.model.Car;
+import car.sharing.outbox.event.CarDeleted;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramCarDeletionNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Car> {
+        implements NotificationService<CarDeleted> {
     private static final String TELEGRAM = "telegram";
     private static final String CAR_DELETION = "Car deletion";
 
@@ -17,14 +17,18 @@ public class TelegramCarDeletionNotificationService
     }
 
     @Override
-    public void sendMessage(Car car, Long chatId) {
-        String message = "The car with id " + car.getId() + " is deleted.";
+    public void sendMessage(CarDeleted car, Long chatId) {
+        String message = "The car with id " + car.carId() + " is deleted.";
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(CAR_DELETION);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return CAR_DELETION;
     }
 }
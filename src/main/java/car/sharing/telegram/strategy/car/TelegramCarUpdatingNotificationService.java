@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.car;
 
-import car.sharing.model.Car;
+import car.sharing.outbox.event.CarUpdated;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramCarUpdatingNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Car> {
+        implements NotificationService<CarUpdated> {
     private static final String TELEGRAM = "telegram";
     private static final String CAR_UPDATING = "Car updating";
 
@@ -17,7 +17,7 @@ public class TelegramCarUpdatingNotificationService
     }
 
     @Override
-    public void sendMessage(Car car, Long chatId) {
+    public void sendMessage(CarUpdated car, Long chatId) {
         String message = """
                 Car with id %s is updated
                 
@@ -30,18 +30,22 @@ public class TelegramCarUpdatingNotificationService
                 """;
         message = String.format(
                 message,
-                car.getId(),
-                car.getBrand(),
-                car.getModel(),
-                car.getType(),
-                car.getInventory(),
-                car.getDailyFee());
+                car.carId(),
+                car.brand(),
+                car.model(),
+                car.type(),
+                car.inventory(),
+                car.dailyFee());
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(CAR_UPDATING);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return CAR_UPDATING;
     }
 }
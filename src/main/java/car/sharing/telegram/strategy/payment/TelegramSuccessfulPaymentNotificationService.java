@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.payment;
 
-import car.sharing.model.Payment;
+import car.sharing.outbox.event.PaymentSucceeded;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramSuccessfulPaymentNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Payment> {
+        implements NotificationService<PaymentSucceeded> {
     private static final String TELEGRAM = "telegram";
     private static final String SUCCESSFUL_PAYMENT = "successful payment";
 
@@ -17,7 +17,7 @@ public class TelegramSuccessfulPaymentNotificationService
     }
 
     @Override
-    public void sendMessage(Payment payment, Long chatId) {
+    public void sendMessage(PaymentSucceeded payment, Long chatId) {
         String message = """
                 Payment is paid.
                 
@@ -28,17 +28,21 @@ public class TelegramSuccessfulPaymentNotificationService
                 Paid amount: %s.
                 """;
         message = String.format(message,
-                payment.getId(),
-                payment.getRentalId(),
-                payment.getUserId(),
-                payment.getType(),
-                payment.getAmountToPay());
+                payment.paymentId(),
+                payment.rentalId(),
+                payment.userId(),
+                payment.type(),
+                payment.amountToPay());
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(SUCCESSFUL_PAYMENT);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return SUCCESSFUL_PAYMENT;
     }
 }
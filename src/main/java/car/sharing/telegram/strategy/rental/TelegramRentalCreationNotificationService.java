@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.rental;
 
-import car.sharing.model.Rental;
+import car.sharing.outbox.event.RentalCreated;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramRentalCreationNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Rental> {
+        implements NotificationService<RentalCreated> {
     private static final String TELEGRAM = "telegram";
     private static final String RENTAL_CREATION = "Rental creation";
 
@@ -17,7 +17,7 @@ public class TelegramRentalCreationNotificationService
     }
 
     @Override
-    public void sendMessage(Rental rental, Long chatId) {
+    public void sendMessage(RentalCreated rental, Long chatId) {
         String message = """
                 A new rent is created.
 
@@ -28,16 +28,20 @@ public class TelegramRentalCreationNotificationService
                 """;
         message = String.format(
                 message,
-                rental.getCarId(),
-                rental.getUserId(),
-                rental.getRentalDate(),
-                rental.getRequiredReturnDate());
+                rental.carId(),
+                rental.userId(),
+                rental.rentalDate(),
+                rental.requiredReturnDate());
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(RENTAL_CREATION);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return RENTAL_CREATION;
     }
 }
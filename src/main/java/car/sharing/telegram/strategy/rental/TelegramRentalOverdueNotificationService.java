@@ -0,0 +1,49 @@
+package car.sharing.telegram.strategy.rental;
+
+import car.sharing.outbox.event.RentalOverdue;
+import car.sharing.telegram.notification.AbstractNotificationSender;
+import car.sharing.telegram.strategy.NotificationService;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TelegramRentalOverdueNotificationService
+        extends AbstractNotificationSender
+        implements NotificationService<RentalOverdue> {
+    private static final String TELEGRAM = "telegram";
+    private static final String RENTAL_OVERDUE = "Rental overdue";
+
+    public TelegramRentalOverdueNotificationService() {
+        super();
+    }
+
+    @Override
+    public void sendMessage(RentalOverdue overdue, Long chatId) {
+        String message = """
+                Rental has become overdue.
+
+                Rental id: %s,
+                User id: %s,
+                Car id: %s,
+                Required return date: %s,
+                Accrued fine: %s.
+                """;
+        message = String.format(
+                message,
+                overdue.rentalId(),
+                overdue.userId(),
+                overdue.carId(),
+                overdue.requiredReturnDate(),
+                overdue.accruedFine());
+        sendMessage(TELEGRAM, chatId, message);
+    }
+
+    @Override
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return RENTAL_OVERDUE;
+    }
+}
@@ -1,6 +1,6 @@
 package car.sharing.telegram.strategy.rental;
 
-import car.sharing.model.Rental;
+import car.sharing.outbox.event.RentalReturned;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramRentalReturningNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<Rental> {
+        implements NotificationService<RentalReturned> {
     private static final String TELEGRAM = "telegram";
     private static final String RENTAL_RETURNING = "Rental returning";
 
@@ -17,7 +17,7 @@ public class TelegramRentalReturningNotificationService
     }
 
     @Override
-    public void sendMessage(Rental rental, Long chatId) {
+    public void sendMessage(RentalReturned rental, Long chatId) {
         String message = """
                 Car is returned.
 
@@ -27,15 +27,19 @@ public class TelegramRentalReturningNotificationService
                 """;
         message = String.format(
                 message,
-                rental.getId(),
-                rental.getRequiredReturnDate(),
-                rental.getActualReturnDate());
+                rental.rentalId(),
+                rental.requiredReturnDate(),
+                rental.actualReturnDate());
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(RENTAL_RETURNING);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return RENTAL_RETURNING;
     }
 }
@@ -0,0 +1,9 @@
+package car.sharing.telegram.strategy.response;
+
+/**
+ * Responds to the commands matching its regex. Matching is case-insensitive
+ * and the whole text should match, so the regex should have no anchors
+ */
+public interface AdminCommandResponseService extends AdminResponseService {
+    String getCommandRegex();
+}
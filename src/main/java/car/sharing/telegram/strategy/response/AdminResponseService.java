@@ -6,8 +6,6 @@ public interface AdminResponseService {
 
     String getMessage(String text);
 
-    boolean isApplicable(String text);
-
     default Long getId(String text) {
         return Long.valueOf(
                 text.substring(
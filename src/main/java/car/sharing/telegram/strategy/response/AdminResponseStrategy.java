@@ -1,21 +1,52 @@
 package car.sharing.telegram.strategy.response;
 
-import jakarta.persistence.EntityNotFoundException;
+import car.sharing.telegram.strategy.response.impl.AdminUnknownResponseService;
+import car.sharing.util.DispatchRegistry;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.springframework.stereotype.Component;
 
+/**
+ * Every command regex is compiled into a single alternation with a named group per service,
+ * so a text is matched once instead of once per service.
+ * Text that matches no command is answered by AdminUnknownResponseService
+ */
 @Component
-@RequiredArgsConstructor
 public class AdminResponseStrategy {
-    private final List<AdminResponseService> adminResponseServices;
+    private static final String GROUP_PREFIX = "command";
+    private final List<AdminCommandResponseService> commandResponseServices;
+    private final AdminUnknownResponseService unknownResponseService;
+    private final Pattern commands;
+
+    public AdminResponseStrategy(
+            List<AdminCommandResponseService> commandResponseServices,
+            AdminUnknownResponseService unknownResponseService) {
+        // fails on start if two services are registered for the same command
+        DispatchRegistry.byKey(
+                commandResponseServices,
+                AdminCommandResponseService::getCommandRegex,
+                "admin response service");
+        this.commandResponseServices = List.copyOf(commandResponseServices);
+        this.unknownResponseService = unknownResponseService;
+        this.commands = Pattern.compile(IntStream.range(0, commandResponseServices.size())
+                .mapToObj(i -> "(?<" + GROUP_PREFIX + i + ">"
+                        + commandResponseServices.get(i).getCommandRegex() + ")")
+                .collect(Collectors.joining("|")), Pattern.CASE_INSENSITIVE);
+    }
 
     public AdminResponseService getResponseService(String text) {
-        return adminResponseServices
-                .stream()
-                .filter(service -> service.isApplicable(text))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Can't find a response service for text " + text));
+        Matcher matcher = commands.matcher(text);
+        if (!matcher.matches()) {
+            return unknownResponseService;
+        }
+        for (int i = 0; i < commandResponseServices.size(); i++) {
+            if (matcher.start(GROUP_PREFIX + i) != -1) {
+                return commandResponseServices.get(i);
+            }
+        }
+        return unknownResponseService;
     }
 }
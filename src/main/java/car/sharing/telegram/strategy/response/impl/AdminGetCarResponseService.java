@@ -2,16 +2,16 @@ package car.sharing.telegram.strategy.response.impl;
 
 import car.sharing.model.Car;
 import car.sharing.repository.CarRepository;
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class AdminGetCarResponseService implements AdminResponseService {
+public class AdminGetCarResponseService implements AdminCommandResponseService {
     private static final String CAR_REGEX =
-            "^(?i)Get info about a car with id:\\s*\\d+$";
+            "Get info about a car with id:\\s*\\d+";
     private final CarRepository carRepository;
 
     @Override
@@ -36,7 +36,7 @@ public class AdminGetCarResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.matches(CAR_REGEX);
+    public String getCommandRegex() {
+        return CAR_REGEX;
     }
 }
@@ -2,16 +2,16 @@ package car.sharing.telegram.strategy.response.impl;
 
 import car.sharing.model.Payment;
 import car.sharing.repository.PaymentRepository;
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class AdminGetPaymentResponseService implements AdminResponseService {
+public class AdminGetPaymentResponseService implements AdminCommandResponseService {
     private static final String PAYMENT_REGEX =
-            "^(?i)Get info about a payment with id:\\s*\\d+$";
+            "Get info about a payment with id:\\s*\\d+";
     private final PaymentRepository paymentRepository;
 
     @Override
@@ -41,7 +41,7 @@ public class AdminGetPaymentResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.matches(PAYMENT_REGEX);
+    public String getCommandRegex() {
+        return PAYMENT_REGEX;
     }
 }
@@ -2,16 +2,16 @@ package car.sharing.telegram.strategy.response.impl;
 
 import car.sharing.model.Rental;
 import car.sharing.repository.RentalRepository;
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class AdminGetRentalResponseService implements AdminResponseService {
+public class AdminGetRentalResponseService implements AdminCommandResponseService {
     private static final String RENTAL_REGEX =
-            "^(?i)Get info about a rental with id:\\s*\\d+$";
+            "Get info about a rental with id:\\s*\\d+";
     private final RentalRepository rentalRepository;
 
     @Override
@@ -44,7 +44,7 @@ public class AdminGetRentalResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.matches(RENTAL_REGEX);
+    public String getCommandRegex() {
+        return RENTAL_REGEX;
     }
 }
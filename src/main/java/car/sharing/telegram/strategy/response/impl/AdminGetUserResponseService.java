@@ -2,16 +2,16 @@ package car.sharing.telegram.strategy.response.impl;
 
 import car.sharing.model.User;
 import car.sharing.repository.UserRepository;
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
-public class AdminGetUserResponseService implements AdminResponseService {
+public class AdminGetUserResponseService implements AdminCommandResponseService {
     private static final String USER_REGEX =
-            "^(?i)Get info about a user with id:\\s*\\d+$";
+            "Get info about a user with id:\\s*\\d+";
     private final UserRepository userRepository;
 
     @Override
@@ -38,7 +38,7 @@ public class AdminGetUserResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.matches(USER_REGEX);
+    public String getCommandRegex() {
+        return USER_REGEX;
     }
 }
@@ -1,10 +1,10 @@
 package car.sharing.telegram.strategy.response.impl;
 
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import org.springframework.stereotype.Service;
 
 @Service
-public class AdminHelpResponseService implements AdminResponseService {
+public class AdminHelpResponseService implements AdminCommandResponseService {
     @Override
     public String getMessage(String text) {
         return """
@@ -34,7 +34,7 @@ public class AdminHelpResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.equalsIgnoreCase("/help");
+    public String getCommandRegex() {
+        return "/help";
     }
 }
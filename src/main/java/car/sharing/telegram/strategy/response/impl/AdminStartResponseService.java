@@ -1,10 +1,10 @@
 package car.sharing.telegram.strategy.response.impl;
 
-import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminCommandResponseService;
 import org.springframework.stereotype.Service;
 
 @Service
-public class AdminStartResponseService implements AdminResponseService {
+public class AdminStartResponseService implements AdminCommandResponseService {
     @Override
     public String getMessage(String text) {
         return """
@@ -20,7 +20,7 @@ public class AdminStartResponseService implements AdminResponseService {
     }
 
     @Override
-    public boolean isApplicable(String text) {
-        return text.equalsIgnoreCase("/start");
+    public String getCommandRegex() {
+        return "/start";
     }
 }
@@ -11,10 +11,4 @@ public class AdminUnknownResponseService implements AdminResponseService {
                 + System.lineSeparator()
                 + "Maybe you meant to type /start ?", text);
     }
-
-    @Override
-    public boolean isApplicable(String text) {
-        return !text.equalsIgnoreCase("/start")
-                && !text.equalsIgnoreCase("/help");
-    }
 }
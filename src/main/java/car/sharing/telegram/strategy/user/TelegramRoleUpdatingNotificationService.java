@@ -1,7 +1,7 @@
 package car.sharing.telegram.strategy.user;
 
 import car.sharing.model.Role;
-import car.sharing.model.User;
+import car.sharing.outbox.event.RoleChanged;
 import car.sharing.telegram.notification.AbstractNotificationSender;
 import car.sharing.telegram.strategy.NotificationService;
 import org.springframework.stereotype.Service;
@@ -9,7 +9,7 @@ import org.springframework.stereotype.Service;
 @Service
 public class TelegramRoleUpdatingNotificationService
         extends AbstractNotificationSender
-        implements NotificationService<User> {
+        implements NotificationService<RoleChanged> {
     private static final String TELEGRAM = "telegram";
     private static final String ROLE_UPDATING = "Role updating";
 
@@ -18,21 +18,24 @@ public class TelegramRoleUpdatingNotificationService
     }
 
     @Override
-    public void sendMessage(User user, Long chatId) {
+    public void sendMessage(RoleChanged roleChanged, Long chatId) {
         String message = "User roles were updated to "
-                + user.getRoles()
+                + roleChanged.roles()
                 .stream()
-                .map(Role::getName)
                 .map(Role.RoleName::toString)
                 .toList()
                 + " , user id is "
-                + user.getId();
+                + roleChanged.userId();
         sendMessage(TELEGRAM, chatId, message);
     }
 
     @Override
-    public boolean isApplicable(String notificationService, String messageType) {
-        return notificationService.equalsIgnoreCase(TELEGRAM)
-                && messageType.equalsIgnoreCase(ROLE_UPDATING);
+    public String getNotificationService() {
+        return TELEGRAM;
+    }
+
+    @Override
+    public String getMessageType() {
+        return ROLE_UPDATING;
     }
 }
@@ -0,0 +1,80 @@
+package car.sharing.util;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Builds lookup maps for strategies once, when a strategy bean is created,
+ * so a lookup is a single map access instead of scanning every bean.
+ * A duplicate key (or a missing enum constant) throws IllegalStateException,
+ * which fails the application on start instead of on the first unlucky request
+ */
+public final class DispatchRegistry {
+    private DispatchRegistry() {
+    }
+
+    /**
+     * Keys are compared case-insensitively
+     */
+    public static <V> Map<String, V> byKey(
+            Collection<V> values,
+            Function<V, String> keyExtractor,
+            String description) {
+        Map<String, V> registry = new HashMap<>();
+        for (V value : values) {
+            String key = normalize(keyExtractor.apply(value));
+            V previous = registry.putIfAbsent(key, value);
+            if (previous != null) {
+                throw new IllegalStateException(String.format(
+                        "Duplicate %s for key '%s': %s and %s",
+                        description, key, previous.getClass().getSimpleName(),
+                        value.getClass().getSimpleName()));
+            }
+        }
+        return Map.copyOf(registry);
+    }
+
+    /**
+     * Every constant of the enum should be served by exactly one value
+     */
+    public static <E extends Enum<E>, V> Map<E, V> byEnum(
+            Class<E> enumType,
+            Collection<V> values,
+            Function<V, Predicate<E>> applicability,
+            String description) {
+        Map<E, V> registry = new EnumMap<>(enumType);
+        for (V value : values) {
+            Predicate<E> isApplicable = applicability.apply(value);
+            for (E constant : enumType.getEnumConstants()) {
+                if (!isApplicable.test(constant)) {
+                    continue;
+                }
+                V previous = registry.putIfAbsent(constant, value);
+                if (previous != null) {
+                    throw new IllegalStateException(String.format(
+                            "Duplicate %s for %s: %s and %s",
+                            description, constant, previous.getClass().getSimpleName(),
+                            value.getClass().getSimpleName()));
+                }
+            }
+        }
+        Set<E> missing = EnumSet.allOf(enumType);
+        missing.removeAll(registry.keySet());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "There is no %s for %s", description, missing));
+        }
+        return registry;
+    }
+
+    public static String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+}
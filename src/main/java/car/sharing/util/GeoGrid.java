@@ -0,0 +1,271 @@
+package car.sharing.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Points on the earth put into cells of 1 / cellsPerDegree degrees of latitude
+ * and longitude, so the points nearest to a place are found by scanning rings of cells
+ * around it, the nearest ring first, and stopping once no point outside the scanned rings
+ * can be closer than the points found or than the radius. Distances are great-circle ones
+ * on a spherical earth. Not thread safe
+ */
+public class GeoGrid {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+    private static final int INITIAL_CELL_SIZE = 4;
+    private static final Comparator<Neighbour> FARTHEST_FIRST =
+            Comparator.comparingDouble(Neighbour::distanceKm).reversed();
+    private final int cellsPerDegree;
+    private final int rows;
+    private final int columns;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Integer, Long> cellOfId = new HashMap<>();
+
+    public GeoGrid(int cellsPerDegree) {
+        if (cellsPerDegree <= 0) {
+            throw new IllegalArgumentException(
+                    "Cells per degree must be positive, but was " + cellsPerDegree);
+        }
+        this.cellsPerDegree = cellsPerDegree;
+        this.rows = 180 * cellsPerDegree;
+        this.columns = 360 * cellsPerDegree;
+    }
+
+    public void put(int id, double latitude, double longitude) {
+        checkCoordinates(latitude, longitude);
+        remove(id);
+        long key = key(row(latitude), column(longitude));
+        cells.computeIfAbsent(key, absent -> new Cell()).add(id, latitude, longitude);
+        cellOfId.put(id, key);
+    }
+
+    public void remove(int id) {
+        Long key = cellOfId.remove(id);
+        if (key == null) {
+            return;
+        }
+        Cell cell = cells.get(key);
+        cell.remove(id);
+        if (cell.size == 0) {
+            cells.remove(key);
+        }
+    }
+
+    public int size() {
+        return cellOfId.size();
+    }
+
+    /**
+     * @param accepted filter of the ids, points it rejects are skipped
+     * @return at most limit accepted points within radiusKm, the nearest first
+     */
+    public List<Neighbour> findNearest(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            int limit,
+            IntPredicate accepted) {
+        checkCoordinates(latitude, longitude);
+        if (radiusKm <= 0 || limit <= 0) {
+            throw new IllegalArgumentException("Radius and limit must be positive, but were "
+                    + radiusKm + " and " + limit);
+        }
+        int row = row(latitude);
+        // not wrapped around, so the scanned longitudes are counted from it
+        int column = (int) Math.floor((longitude + 180) * cellsPerDegree);
+        // the box of cells the circle of the radius fits in, as offsets from the centre cell
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        int fromRow = Math.max(0, row(Math.max(-90, latitude - latitudeSpan))) - row;
+        int toRow = Math.min(rows - 1, row(Math.min(90, latitude + latitudeSpan))) - row;
+        double longitudeSpan = longitudeSpan(latitude, latitudeSpan, radiusKm);
+        int fromColumn = (int) Math.floor((longitude - longitudeSpan + 180) * cellsPerDegree)
+                - column;
+        int toColumn = (int) Math.floor((longitude + longitudeSpan + 180) * cellsPerDegree)
+                - column;
+        if (toColumn - fromColumn + 1 >= columns) {
+            // around the pole every column is in, each one once
+            fromColumn = -columns / 2;
+            toColumn = fromColumn + columns - 1;
+        }
+        int lastRing = Math.max(Math.max(-fromRow, toRow), Math.max(-fromColumn, toColumn));
+
+        PriorityQueue<Neighbour> nearest = new PriorityQueue<>(limit + 1, FARTHEST_FIRST);
+        Search search = new Search(latitude, longitude, radiusKm, limit, accepted, nearest);
+        for (int ring = 0; ring <= lastRing; ring++) {
+            for (int rowOffset = Math.max(-ring, fromRow);
+                    rowOffset <= Math.min(ring, toRow); rowOffset++) {
+                if (Math.abs(rowOffset) == ring) {
+                    for (int columnOffset = Math.max(-ring, fromColumn);
+                            columnOffset <= Math.min(ring, toColumn); columnOffset++) {
+                        scan(row + rowOffset, column + columnOffset, search);
+                    }
+                    continue;
+                }
+                // rows between the edges of the ring have its first and last column only
+                if (-ring >= fromColumn) {
+                    scan(row + rowOffset, column - ring, search);
+                }
+                if (ring <= toColumn) {
+                    scan(row + rowOffset, column + ring, search);
+                }
+            }
+            double unscanned = distanceOutside(latitude, longitude, row, column, ring,
+                    fromColumn, toColumn);
+            if (unscanned > radiusKm
+                    || nearest.size() == limit && nearest.peek().distanceKm() <= unscanned) {
+                break;
+            }
+        }
+        List<Neighbour> found = new ArrayList<>(nearest);
+        found.sort(FARTHEST_FIRST.reversed());
+        return found;
+    }
+
+    public static double distanceKm(
+            double fromLatitude,
+            double fromLongitude,
+            double toLatitude,
+            double toLongitude) {
+        double latitudes = Math.sin(Math.toRadians(toLatitude - fromLatitude) / 2);
+        double longitudes = Math.sin(Math.toRadians(toLongitude - fromLongitude) / 2);
+        double haversine = latitudes * latitudes + Math.cos(Math.toRadians(fromLatitude))
+                * Math.cos(Math.toRadians(toLatitude)) * longitudes * longitudes;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+
+    private void scan(int row, int column, Search search) {
+        Cell cell = cells.get(key(row, Math.floorMod(column, columns)));
+        if (cell != null) {
+            cell.collect(search);
+        }
+    }
+
+    /**
+     * Half the longitudes a circle of the radius spans, 180 if it covers a pole
+     */
+    private double longitudeSpan(double latitude, double latitudeSpan, double radiusKm) {
+        double sinRadius = Math.sin(Math.min(Math.PI / 2, radiusKm / EARTH_RADIUS_KM));
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        if (Math.abs(latitude) + latitudeSpan >= 90 || sinRadius >= cosLatitude) {
+            return 180;
+        }
+        return Math.toDegrees(Math.asin(sinRadius / cosLatitude));
+    }
+
+    /**
+     * @return how near to the place a point outside the rings scanned so far can be
+     */
+    private double distanceOutside(
+            double latitude,
+            double longitude,
+            int row,
+            int column,
+            int ring,
+            int fromColumn,
+            int toColumn) {
+        double south = (double) (row - ring) / cellsPerDegree - 90;
+        double north = (double) (row + ring + 1) / cellsPerDegree - 90;
+        double byLatitude = Math.min(latitude - south, north - latitude) * KM_PER_DEGREE;
+        if (ring >= -fromColumn && ring >= toColumn) {
+            return byLatitude;
+        }
+        double west = (double) (column - ring) / cellsPerDegree - 180;
+        double east = (double) (column + ring + 1) / cellsPerDegree - 180;
+        double longitudes = Math.min(90, Math.min(longitude - west, east - longitude));
+        // distance to the meridian bounding the scanned columns
+        double byLongitude = EARTH_RADIUS_KM * Math.asin(Math.cos(Math.toRadians(latitude))
+                * Math.sin(Math.toRadians(longitudes)));
+        return Math.min(byLatitude, byLongitude);
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, (int) Math.floor((latitude + 90) * cellsPerDegree));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) * cellsPerDegree), columns);
+    }
+
+    private long key(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Latitude should be between -90 and 90 and "
+                    + "longitude between -180 and 180, but were " + latitude + ", " + longitude);
+        }
+    }
+
+    public record Neighbour(int id, double distanceKm) {
+    }
+
+    private record Search(
+            double latitude,
+            double longitude,
+            double radiusKm,
+            int limit,
+            IntPredicate accepted,
+            PriorityQueue<Neighbour> nearest) {
+    }
+
+    /**
+     * Coordinates of the points of a cell in arrays, scanned one after another
+     */
+    private static class Cell {
+        private int[] ids = new int[INITIAL_CELL_SIZE];
+        private double[] latitudes = new double[INITIAL_CELL_SIZE];
+        private double[] longitudes = new double[INITIAL_CELL_SIZE];
+        private int size;
+
+        private void add(int id, double latitude, double longitude) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            ids[size] = id;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    latitudes[i] = latitudes[size];
+                    longitudes[i] = longitudes[size];
+                    return;
+                }
+            }
+        }
+
+        private void collect(Search search) {
+            PriorityQueue<Neighbour> nearest = search.nearest();
+            for (int i = 0; i < size; i++) {
+                if (!search.accepted().test(ids[i])) {
+                    continue;
+                }
+                double distanceKm = distanceKm(search.latitude(), search.longitude(),
+                        latitudes[i], longitudes[i]);
+                if (distanceKm > search.radiusKm() || nearest.size() == search.limit()
+                        && nearest.peek().distanceKm() <= distanceKm) {
+                    continue;
+                }
+                nearest.add(new Neighbour(ids[i], distanceKm));
+                if (nearest.size() > search.limit()) {
+                    nearest.poll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package car.sharing.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position right after the last row of a page for keyset pagination:
+ * the sort key of that row (null when rows are sorted by id only) and its id.
+ * Clients get it as an opaque url-safe token and send it back to get the next page,
+ * which is read with "WHERE (key, id) > (cursor key, cursor id)" instead of OFFSET,
+ * so a deep page costs the same as the first one
+ */
+public record PageCursor(String key, Long id) {
+    private static final String SEPARATOR = "|";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        String value = key == null ? String.valueOf(id) : key + SEPARATOR + id;
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate dateKey() {
+        if (key == null) {
+            throw new IllegalArgumentException("Page cursor has no date key");
+        }
+        try {
+            return LocalDate.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor date " + key, e);
+        }
+    }
+
+    /**
+     * @return null for a blank token, which asks for the first page
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(DECODER.decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return separator < 0
+                    ? new PageCursor(null, Long.parseLong(value))
+                    : new PageCursor(value.substring(0, separator),
+                            Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor " + token, e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package car.sharing.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaces permits evenly, so callers together never exceed permitsPerSecond.
+ * Each caller reserves the next free slot without locking and sleeps until it comes,
+ * which keeps virtual threads unpinned while they wait
+ */
+public class RateLimiter {
+    private static final double NANOS_IN_SECOND = 1_000_000_000.0;
+    private final long intervalNanos;
+    private final AtomicLong nextFreeSlot = new AtomicLong(Long.MIN_VALUE);
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException(
+                    "Permits per second must be positive, but was " + permitsPerSecond);
+        }
+        intervalNanos = (long) (NANOS_IN_SECOND / permitsPerSecond);
+    }
+
+    public void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long previousSlot = nextFreeSlot.getAndAccumulate(now,
+                (nextFree, current) -> nextFreeAfter(nextFree, current) + intervalNanos);
+        long waitNanos = nextFreeAfter(previousSlot, now) - now;
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // System.nanoTime() may be negative, so slots are compared by difference
+    private static long nextFreeAfter(long nextFree, long now) {
+        return nextFree == Long.MIN_VALUE || nextFree - now < 0 ? now : nextFree;
+    }
+}
@@ -2,22 +2,43 @@ package car.sharing.util;
 
 import com.stripe.exception.StripeException;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.checkout.SessionCreateParams;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class StripeUtil {
+    // Stripe accepts expires_at from 30 minutes to 24 hours after the session is created,
+    // the extra minute covers the time between checking it and Stripe receiving the request
+    public static final Duration MIN_SESSION_LIFETIME = Duration.ofMinutes(31);
+    public static final Duration MAX_SESSION_LIFETIME = Duration.ofHours(24);
     private static final String USD = "usd";
     private static final long DEFAULT_QUANTITY = 1L;
     // Port 8088 is used for local port pointed in .env file.
-    // You should change it to the port you are going to use.
-    private static final String SUCCESS_URL = "http://localhost:8088/api/payments/success";
-    private static final String CANCEL_URL = "http://localhost:8088/api/payments/cancel";
+    // Set stripe.success.url and stripe.cancel.url to the pages your users should come back to.
+    @Value("${stripe.success.url:http://localhost:8088/api/payments/success}")
+    private String successUrl;
+    @Value("${stripe.cancel.url:http://localhost:8088/api/payments/cancel}")
+    private String cancelUrl;
 
-    public Session createSession(Long price, String unitName) throws StripeException {
-        SessionCreateParams params = SessionCreateParams.builder()
-                .setSuccessUrl(SUCCESS_URL)
-                .setCancelUrl(CANCEL_URL)
+    /**
+     * Stripe returns the session created by the first request for every retry
+     * sent with the same idempotency key, so a retried payment never opens a second checkout
+     *
+     * @param expiresAt when the checkout closes, null leaves Stripe's default of 24 hours
+     */
+    public Session createSession(
+            Long price,
+            String unitName,
+            String idempotencyKey,
+            LocalDateTime expiresAt) throws StripeException {
+        SessionCreateParams.Builder builder = SessionCreateParams.builder()
+                .setSuccessUrl(successUrl)
+                .setCancelUrl(cancelUrl)
                 .addLineItem(
                         SessionCreateParams.LineItem.builder()
                                 .setPriceData(SessionCreateParams.LineItem.PriceData.builder()
@@ -32,8 +53,18 @@ public class StripeUtil {
                                 .setQuantity(DEFAULT_QUANTITY)
                                 .build()
                 )
-                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setMode(SessionCreateParams.Mode.PAYMENT);
+        if (expiresAt != null) {
+            builder.setExpiresAt(expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond());
+        }
+        SessionCreateParams params = builder.build();
+        RequestOptions options = RequestOptions.builder()
+                .setIdempotencyKey(idempotencyKey)
                 .build();
-        return Session.create(params);
+        return Session.create(params, options);
+    }
+
+    public Session retrieveSession(String sessionId) throws StripeException {
+        return Session.retrieve(sessionId);
     }
 }
@@ -0,0 +1,150 @@
+package car.sharing.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timer wheel: a task is put into the bucket of the tick its deadline falls on,
+ * and a single worker visits one bucket per tick, so scheduling costs O(1)
+ * whatever the number of timers is. Deadlines later than one turn of the wheel
+ * wait in their bucket for the needed number of turns.
+ * Tasks due in the same tick are handed over to onExpired together.
+ * A deadline is met with the precision of one tick; deadlines in the past expire on the next tick
+ */
+@Slf4j
+public class TimerWheel<T> {
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Timeout<T>>> buckets;
+    private final Consumer<List<T>> onExpired;
+    // written by any thread, moved into buckets by the worker only
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Thread worker;
+    private long startedAt;
+    private long tick;
+
+    public TimerWheel(Duration tickDuration, int wheelSize, Consumer<List<T>> onExpired) {
+        if (tickDuration.toMillis() <= 0) {
+            throw new IllegalArgumentException(
+                    "Tick must be at least one millisecond, but was " + tickDuration);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException(
+                    "Wheel size must be a power of two, but was " + wheelSize);
+        }
+        this.tickMillis = tickDuration.toMillis();
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.onExpired = onExpired;
+    }
+
+    public synchronized void start(ThreadFactory threadFactory) {
+        if (worker != null) {
+            throw new IllegalStateException("Timer wheel has already been started");
+        }
+        startedAt = System.currentTimeMillis();
+        worker = threadFactory.newThread(this::work);
+        worker.start();
+    }
+
+    public void stop() throws InterruptedException {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+            current.join(tickMillis * 2);
+        }
+    }
+
+    /**
+     * Can be called before start(), the task is put into its bucket when the wheel starts
+     */
+    public void schedule(T task, Instant deadline) {
+        scheduled.add(new Timeout<>(task, deadline.toEpochMilli()));
+        size.incrementAndGet();
+    }
+
+    /**
+     * @return number of tasks waiting for their deadline
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                waitForNextTick();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            placeScheduled();
+            List<T> expired = expireBucket(buckets.get((int) (tick & mask)));
+            tick++;
+            if (!expired.isEmpty()) {
+                size.addAndGet(-expired.size());
+                try {
+                    onExpired.accept(expired);
+                } catch (RuntimeException e) {
+                    log.error("Can't handle {} expired timers", expired.size(), e);
+                }
+            }
+        }
+    }
+
+    private void waitForNextTick() throws InterruptedException {
+        long waitMillis = startedAt + (tick + 1) * tickMillis - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            TimeUnit.MILLISECONDS.sleep(waitMillis);
+        }
+    }
+
+    private void placeScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            long deadlineTick = Math.max((timeout.deadline - startedAt) / tickMillis, tick);
+            timeout.rounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private List<T> expireBucket(List<Timeout<T>> bucket) {
+        List<T> expired = new ArrayList<>();
+        Iterator<Timeout<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+            iterator.remove();
+            expired.add(timeout.task);
+        }
+        return expired;
+    }
+
+    private static class Timeout<T> {
+        private final T task;
+        private final long deadline;
+        private long rounds;
+
+        private Timeout(T task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package car.sharing.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+/**
+ * Inverted index from every three consecutive characters of a value to the sorted ids
+ * of the values containing them, so ids of the values that may contain a substring
+ * are found by intersecting the postings of its trigrams. Values and queries are folded
+ * to lower case without accents, as case and accent insensitive collations compare them.
+ * Values that don't fold to ASCII are candidates of every query. A trigram found
+ * in more than maxPostings values narrows nothing down, so its postings are dropped
+ * and it is skipped in queries till the index is built again. Thread safe
+ */
+public class TrigramIndex {
+    private static final int GRAM = 3;
+    private static final int INITIAL_POSTINGS = 4;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    // wildcards and the escape character of LIKE patterns
+    private static final Pattern LIKE_SPECIALS = Pattern.compile("[%_\\\\]");
+    private final int maxPostings;
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Set<Long> stopped = new HashSet<>();
+    private final Set<Long> unfolded = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long size;
+
+    public TrigramIndex(int maxPostings) {
+        if (maxPostings <= 0) {
+            throw new IllegalArgumentException(
+                    "Max postings must be positive, but was " + maxPostings);
+        }
+        this.maxPostings = maxPostings;
+    }
+
+    public void add(long id, String value) {
+        if (value == null) {
+            return;
+        }
+        String folded = fold(value);
+        lock.writeLock().lock();
+        try {
+            if (!isAscii(folded)) {
+                unfolded.add(id);
+                return;
+            }
+            for (long trigram : trigrams(folded)) {
+                if (stopped.contains(trigram)) {
+                    continue;
+                }
+                Postings ids = postings.computeIfAbsent(trigram, key -> new Postings());
+                if (ids.add(id)) {
+                    size++;
+                }
+                if (ids.size > maxPostings) {
+                    postings.remove(trigram);
+                    stopped.add(trigram);
+                    size -= ids.size;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id, String value) {
+        if (value == null) {
+            return;
+        }
+        String folded = fold(value);
+        lock.writeLock().lock();
+        try {
+            if (!isAscii(folded)) {
+                unfolded.remove(id);
+                return;
+            }
+            for (long trigram : trigrams(folded)) {
+                Postings ids = postings.get(trigram);
+                if (ids != null && ids.remove(id)) {
+                    size--;
+                    if (ids.size == 0) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query substring as it is put into a LIKE pattern, wildcards included
+     * @return sorted ids of every value that may contain the query, or null if the index
+     *         can't narrow them down to maxCandidates
+     */
+    public long[] findCandidates(String query, int maxCandidates) {
+        String folded = fold(query);
+        if (!isAscii(folded)) {
+            return null;
+        }
+        Set<Long> trigrams = new HashSet<>();
+        for (String part : LIKE_SPECIALS.split(folded)) {
+            trigrams.addAll(trigrams(part));
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = trigrams.stream()
+                    .filter(trigram -> !stopped.contains(trigram))
+                    .map(trigram -> postings.getOrDefault(trigram, Postings.EMPTY))
+                    .sorted(Comparator.comparingInt(ids -> ids.size))
+                    .toList();
+            if (lists.isEmpty()) {
+                return null;
+            }
+            long[] candidates = LongStream.concat(
+                            intersect(lists),
+                            unfolded.stream().mapToLong(Long::longValue))
+                    .sorted()
+                    .distinct()
+                    .toArray();
+            return candidates.length > maxCandidates ? null : candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids in the postings of all trigrams, a measure of the memory taken
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the shortest list is walked, so the work is bounded by the most selective trigram
+    private static LongStream intersect(List<Postings> lists) {
+        Postings shortest = lists.get(0);
+        return Arrays.stream(shortest.ids, 0, shortest.size)
+                .filter(id -> lists.stream()
+                        .skip(1)
+                        .allMatch(ids -> ids.contains(id)));
+    }
+
+    private static String fold(String value) {
+        return ACCENTS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String value) {
+        return value.chars().allMatch(character -> character < 0x80);
+    }
+
+    private static Set<Long> trigrams(String value) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            trigrams.add(((long) value.charAt(i) << 32)
+                    | ((long) value.charAt(i + 1) << 16)
+                    | value.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private static class Postings {
+        private static final Postings EMPTY = new Postings();
+        private long[] ids = new long[INITIAL_POSTINGS];
+        private int size;
+
+        /**
+         * Ids mostly come in ascending order, so they are appended without shifting
+         */
+        boolean add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return false;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package car.sharing.webhook;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.model.StripeWebhookEvent;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.repository.StripeWebhookEventRepository;
+import car.sharing.service.payment.PaymentSettlement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Applies stored Stripe events in micro-batches, oldest first.
+ * A batch loads its payments and rentals with one query each and commits
+ * all of its transitions in a single transaction, so a burst of webhooks
+ * costs a few transactions instead of one per event.
+ * When a batch fails, its events are applied one per transaction, so one failing event
+ * doesn't hold up the others. A failing event is retried on the next runs
+ * until stripe.webhook.max.attempts is reached, then it stays unprocessed for manual inspection.
+ * Only pending payments are changed, so an event that was already applied
+ * (or a payment completed through /payments/success) is skipped
+ */
+@Slf4j
+@Component
+public class StripeWebhookProcessor {
+    private final StripeWebhookEventRepository webhookEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final RentalRepository rentalRepository;
+    private final PaymentSettlement paymentSettlement;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retention;
+    private final Counter applied;
+    private final Counter skipped;
+    private final Counter failed;
+
+    public StripeWebhookProcessor(
+            StripeWebhookEventRepository webhookEventRepository,
+            PaymentRepository paymentRepository,
+            RentalRepository rentalRepository,
+            PaymentSettlement paymentSettlement,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.webhook.batch.size:200}") int batchSize,
+            @Value("${stripe.webhook.max.attempts:10}") int maxAttempts,
+            @Value("${stripe.webhook.retention:P7D}") Duration retention) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentRepository = paymentRepository;
+        this.rentalRepository = rentalRepository;
+        this.paymentSettlement = paymentSettlement;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retention = retention;
+        applied = counter(meterRegistry, "applied");
+        skipped = counter(meterRegistry, "skipped");
+        failed = counter(meterRegistry, "failed");
+    }
+
+    /**
+     * Processes batches until there are no unprocessed events left
+     */
+    @Scheduled(initialDelayString = "${stripe.webhook.batch.delay:PT1S}",
+            fixedDelayString = "${stripe.webhook.batch.delay:PT1S}")
+    public void process() {
+        int processedInBatch;
+        do {
+            processedInBatch = processBatch();
+        } while (processedInBatch == batchSize);
+    }
+
+    // processed events are kept for a while to recognize redeliveries
+    @Scheduled(cron = "0 45 0 * * *")
+    public void deleteProcessedEvents() {
+        transactionTemplate.executeWithoutResult(status ->
+                webhookEventRepository.deleteAllProcessedBefore(
+                        LocalDateTime.now().minus(retention)));
+    }
+
+    private int processBatch() {
+        List<Long> eventIds = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StripeWebhookEvent> events = webhookEventRepository.findUnprocessed(
+                        maxAttempts, PageRequest.of(0, batchSize));
+                events.forEach(event -> eventIds.add(event.getId()));
+                apply(events);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Can't apply a batch of {} Stripe events, applying them one by one",
+                    eventIds.size(), e);
+            eventIds.forEach(this::processEvent);
+        }
+        return eventIds.size();
+    }
+
+    private void processEvent(Long eventId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    webhookEventRepository.findUnprocessedById(eventId)
+                            .ifPresent(event -> apply(List.of(event))));
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status ->
+                    webhookEventRepository.incrementAttempts(eventId));
+            failed.increment();
+            log.warn("Can't apply Stripe event {}", eventId, e);
+        }
+    }
+
+    private void apply(List<StripeWebhookEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<String, Payment> payments = paymentRepository.findAllBySessionIdIn(
+                        events.stream()
+                                .map(StripeWebhookEvent::getSessionId)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Payment::getSessionId, Function.identity()));
+        Map<Long, Rental> rentals = rentalRepository.findAllById(
+                        payments.values()
+                                .stream()
+                                .map(Payment::getRentalId)
+                                .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Rental::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        for (StripeWebhookEvent event : events) {
+            Payment payment = payments.get(event.getSessionId());
+            if (payment == null || payment.getStatus() != Payment.Status.PENDING) {
+                log.debug("Skipping Stripe event {}, session {} has no pending payment",
+                        event.getEventId(), event.getSessionId());
+                skipped.increment();
+            } else if (StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED.equals(event.getType())) {
+                paymentSettlement.complete(payment, rentals.get(payment.getRentalId()));
+                applied.increment();
+            } else {
+                paymentSettlement.expire(payment, rentals.get(payment.getRentalId()));
+                applied.increment();
+            }
+            event.setProcessedAt(now);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stripe.webhook.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,89 @@
+package car.sharing.webhook;
+
+import car.sharing.model.StripeWebhookEvent;
+import car.sharing.repository.StripeWebhookEventRepository;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies Stripe signature of a webhook request and stores its checkout session event.
+ * Nothing but one insert happens while Stripe waits for the response,
+ * the event is applied by StripeWebhookProcessor afterwards
+ */
+@Component
+public class StripeWebhookReceiver {
+    private static final Set<String> SUPPORTED_TYPES = Set.of(
+            StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED,
+            StripeWebhookEvent.CHECKOUT_SESSION_EXPIRED);
+    private final StripeWebhookEventRepository webhookEventRepository;
+    private final String secret;
+    private final Counter received;
+    private final Counter duplicated;
+    private final Counter ignored;
+
+    public StripeWebhookReceiver(
+            StripeWebhookEventRepository webhookEventRepository,
+            MeterRegistry meterRegistry,
+            @Value("${stripe.webhook.secret}") String secret) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.secret = secret;
+        received = counter(meterRegistry, "received");
+        duplicated = counter(meterRegistry, "duplicated");
+        ignored = counter(meterRegistry, "ignored");
+    }
+
+    /**
+     * @return true if the event was stored, false if it was a redelivery or of another type
+     */
+    public boolean receive(String payload, String signature)
+            throws SignatureVerificationException {
+        Event event = Webhook.constructEvent(payload, signature, secret);
+        if (!SUPPORTED_TYPES.contains(event.getType())) {
+            ignored.increment();
+            return false;
+        }
+        if (webhookEventRepository.existsByEventId(event.getId())) {
+            duplicated.increment();
+            return false;
+        }
+        StripeWebhookEvent webhookEvent = new StripeWebhookEvent();
+        webhookEvent.setEventId(event.getId());
+        webhookEvent.setType(event.getType());
+        webhookEvent.setSessionId(getSession(event).getId());
+        webhookEvent.setReceivedAt(LocalDateTime.now());
+        try {
+            webhookEventRepository.saveAndFlush(webhookEvent);
+        } catch (DataIntegrityViolationException e) {
+            // the same event was stored by a concurrent delivery
+            duplicated.increment();
+            return false;
+        }
+        received.increment();
+        return true;
+    }
+
+    private Session getSession(Event event) {
+        try {
+            return (Session) event.getDataObjectDeserializer().deserializeUnsafe();
+        } catch (EventDataObjectDeserializationException | ClassCastException e) {
+            throw new IllegalArgumentException(
+                    "Event " + event.getId() + " doesn't contain a checkout session", e);
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stripe.webhook.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
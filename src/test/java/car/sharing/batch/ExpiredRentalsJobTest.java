@@ -0,0 +1,137 @@
+package car.sharing.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import car.sharing.model.BatchJobCheckpoint;
+import car.sharing.repository.BatchJobCheckpointRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import car.sharing.service.stats.CarTypeDailyStatsAggregator;
+import car.sharing.service.stats.DailyStatsRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "batch.chunk.size=2")
+@Import({ExpiredRentalsJob.class, ChunkedJobRunner.class, InventoryServiceImpl.class,
+        CarAvailabilityIndex.class, CarCatalogueCache.class, CarCatalogueIndex.class,
+        DailyStatsRollup.class, CarTypeDailyStatsAggregator.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql",
+        "classpath:database/insert-pending-payments.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class ExpiredRentalsJobTest {
+    private static final String JOB_NAME = "expired-rentals";
+    private static final int CAR_INVENTORY = 10;
+    private static final Long FRESH_RENTAL_ID = 4L;
+    @Autowired
+    private ChunkedJobRunner chunkedJobRunner;
+    @Autowired
+    private ExpiredRentalsJob expiredRentalsJob;
+    @Autowired
+    private BatchJobCheckpointRepository checkpointRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("""
+            Verify that run() cancels expired rentals, expires their payments
+            and returns their cars once per rental
+            """)
+    void run_ExpiredRentals_CancelsRentalsAndReleasesCars() {
+        insertFreshRental();
+
+        long processed = chunkedJobRunner.run(expiredRentalsJob);
+
+        assertEquals(3, processed);
+        assertEquals(List.of("CANCELED", "CANCELED", "CANCELED", "PENDING"), rentalStatuses());
+        assertEquals(List.of("EXPIRED", "EXPIRED", "EXPIRED", "PENDING"), paymentStatuses());
+        assertEquals(Map.of(1L, CAR_INVENTORY + 2, 2L, CAR_INVENTORY + 1), inventories());
+        BatchJobCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElseThrow();
+        assertEquals(BatchJobCheckpoint.Status.COMPLETED, checkpoint.getStatus());
+        assertEquals(3, checkpoint.getProcessed());
+    }
+
+    @Test
+    @DisplayName("Verify that run() resumes after the last committed chunk of a crashed run")
+    void run_CrashedRun_ResumesWithoutProcessingRowsTwice() {
+        ChunkedJob crashingJob = new ChunkedJob() {
+            @Override
+            public String getName() {
+                return expiredRentalsJob.getName();
+            }
+
+            @Override
+            public List<Long> findNextChunk(Long afterId, int chunkSize) {
+                return expiredRentalsJob.findNextChunk(afterId, chunkSize);
+            }
+
+            @Override
+            public void processChunk(List<Long> ids) {
+                if (ids.contains(3L)) {
+                    throw new IllegalStateException("Crash");
+                }
+                expiredRentalsJob.processChunk(ids);
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> chunkedJobRunner.run(crashingJob));
+
+        BatchJobCheckpoint interrupted = checkpointRepository.findById(JOB_NAME).orElseThrow();
+        assertEquals(BatchJobCheckpoint.Status.RUNNING, interrupted.getStatus());
+        assertEquals(2L, interrupted.getLastId());
+        assertEquals(List.of("CANCELED", "CANCELED", "PENDING"), rentalStatuses());
+
+        long processed = chunkedJobRunner.run(expiredRentalsJob);
+
+        assertEquals(1, processed);
+        assertEquals(List.of("CANCELED", "CANCELED", "CANCELED"), rentalStatuses());
+        assertEquals(List.of("EXPIRED", "EXPIRED", "EXPIRED"), paymentStatuses());
+        assertEquals(Map.of(1L, CAR_INVENTORY + 2, 2L, CAR_INVENTORY + 1), inventories());
+    }
+
+    private void insertFreshRental() {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, is_deleted) "
+                + "VALUES (?, CURRENT_DATE, CURRENT_DATE + 5, 2, 4, 'PENDING', FALSE)",
+                FRESH_RENTAL_ID);
+        jdbcTemplate.update("INSERT INTO payments (id, user_id, rental_id, status, type, "
+                + "amount_to_pay, is_deleted) VALUES (4, 4, ?, 'PENDING', 'PAYMENT', 93.54, FALSE)",
+                FRESH_RENTAL_ID);
+    }
+
+    private List<String> rentalStatuses() {
+        return jdbcTemplate.queryForList("SELECT status FROM rentals ORDER BY id", String.class);
+    }
+
+    private List<String> paymentStatuses() {
+        return jdbcTemplate.queryForList("SELECT status FROM payments ORDER BY id", String.class);
+    }
+
+    private Map<Long, Integer> inventories() {
+        return Map.of(
+                1L, jdbcTemplate.queryForObject(
+                        "SELECT inventory FROM cars WHERE id = 1", Integer.class),
+                2L, jdbcTemplate.queryForObject(
+                        "SELECT inventory FROM cars WHERE id = 2", Integer.class));
+    }
+}
@@ -0,0 +1,103 @@
+package car.sharing.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = "batch.chunk.size=2")
+@Import({StartedAdvanceRentalsJob.class, ChunkedJobRunner.class, InventoryServiceImpl.class,
+        CarAvailabilityIndex.class, CarCatalogueCache.class, CarCatalogueIndex.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class StartedAdvanceRentalsJobTest {
+    private static final int CAR_INVENTORY = 10;
+    @Autowired
+    private ChunkedJobRunner chunkedJobRunner;
+    @Autowired
+    private StartedAdvanceRentalsJob startedAdvanceRentalsJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("""
+            Verify that run() takes a unit for every rental booked ahead whose day has come
+            and leaves the later and finished ones booked ahead
+            """)
+    void run_AdvanceRentalsStartingToday_TakesTheirUnits() {
+        LocalDate today = LocalDate.now();
+        insertAdvanceRental(1L, 1L, today, "LASTING");
+        insertAdvanceRental(2L, 1L, today.minusDays(1), "PENDING");
+        insertAdvanceRental(3L, 2L, today, "PENDING");
+        insertAdvanceRental(4L, 2L, today.plusDays(1), "PENDING");
+        insertAdvanceRental(5L, 2L, today, "CANCELED");
+
+        startedAdvanceRentalsJob.run();
+
+        assertEquals(List.of(false, false, false, true, true), advanceFlags());
+        assertEquals(Map.of(1L, CAR_INVENTORY - 2, 2L, CAR_INVENTORY - 1), inventories());
+    }
+
+    @Test
+    @DisplayName("Verify that run() leaves rentals of a car short of units booked ahead")
+    void run_CarShortOfUnits_RetriesOnNextRun() {
+        jdbcTemplate.update("UPDATE cars SET inventory = 0 WHERE id = 2");
+        insertAdvanceRental(1L, 1L, LocalDate.now(), "PENDING");
+        insertAdvanceRental(2L, 2L, LocalDate.now(), "PENDING");
+
+        chunkedJobRunner.run(startedAdvanceRentalsJob);
+
+        assertEquals(List.of(false, true), advanceFlags());
+        assertEquals(Map.of(1L, CAR_INVENTORY - 1, 2L, 0), inventories());
+
+        jdbcTemplate.update("UPDATE cars SET inventory = 1 WHERE id = 2");
+        chunkedJobRunner.run(startedAdvanceRentalsJob);
+
+        assertEquals(List.of(false, false), advanceFlags());
+        assertEquals(Map.of(1L, CAR_INVENTORY - 1, 2L, 0), inventories());
+    }
+
+    private void insertAdvanceRental(Long id, Long carId, LocalDate rentalDate, String status) {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, is_deleted, is_advance) "
+                + "VALUES (?, ?, ?, ?, ?, ?, FALSE, TRUE)",
+                id, rentalDate, rentalDate.plusDays(3), carId, id, status);
+    }
+
+    private List<Boolean> advanceFlags() {
+        return jdbcTemplate.queryForList(
+                "SELECT is_advance FROM rentals ORDER BY id", Boolean.class);
+    }
+
+    private Map<Long, Integer> inventories() {
+        return Map.of(
+                1L, jdbcTemplate.queryForObject(
+                        "SELECT inventory FROM cars WHERE id = 1", Integer.class),
+                2L, jdbcTemplate.queryForObject(
+                        "SELECT inventory FROM cars WHERE id = 2", Integer.class));
+    }
+}
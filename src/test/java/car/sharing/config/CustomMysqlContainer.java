@@ -10,6 +10,13 @@ public class CustomMysqlContainer extends MySQLContainer<CustomMysqlContainer> {
         super(DB_IMAGE);
     }
 
+    public static synchronized CustomMysqlContainer getInstance() {
+        if (mysqlContainer == null) {
+            mysqlContainer = new CustomMysqlContainer();
+        }
+        return mysqlContainer;
+    }
+
     @Override
     public void start() {
         super.start();
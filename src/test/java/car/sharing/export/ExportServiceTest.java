@@ -0,0 +1,121 @@
+package car.sharing.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ExportService.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportServiceTest {
+    private static final LocalDate FROM = LocalDate.parse("2024-04-01");
+    private static final LocalDate TO = LocalDate.parse("2024-04-05");
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Sql(scripts = {
+            "classpath:database/insert-rentals-to-rentals-table.sql"
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            "classpath:database/remove-rentals-from-rentals-table.sql"
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that exportRentals() writes rentals in the dates and status as csv")
+    void exportRentals_Csv_WritesHeaderAndFilteredRows() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long written = exportService.exportRentals(
+                FROM, TO, Rental.Status.LASTING, ExportFormat.CSV, outputStream);
+
+        List<String> lines = new ArrayList<>(
+                outputStream.toString(StandardCharsets.UTF_8).lines().toList());
+        assertEquals(2, written);
+        assertEquals("id,user_id,car_id,rental_date,required_return_date,"
+                + "actual_return_date,status", lines.remove(0));
+        assertEquals(List.of(
+                "1,1,1,2024-04-01,2024-04-10,,LASTING",
+                "4,3,1,2024-04-01,2024-04-10,,LASTING"), lines.stream().sorted().toList());
+    }
+
+    @Test
+    @Sql(scripts = {
+            "classpath:database/insert-rentals-to-rentals-table.sql"
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            "classpath:database/remove-rentals-from-rentals-table.sql"
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that exportRentals() writes canceled rentals, which are soft deleted")
+    void exportRentals_CanceledRental_WritesIt() throws IOException {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, is_deleted) "
+                + "VALUES (5, '2024-04-02', '2024-04-06', 1, 4, 'CANCELED', TRUE)");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long written = exportService.exportRentals(
+                FROM, TO, Rental.Status.CANCELED, ExportFormat.CSV, outputStream);
+
+        List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(1, written);
+        assertEquals("5,4,1,2024-04-02,2024-04-06,,CANCELED", lines.get(1));
+    }
+
+    @Test
+    @Sql(scripts = {
+            "classpath:database/insert-cars-to-cars-table.sql",
+            "classpath:database/insert-pending-payments.sql"
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            "classpath:database/remove-pending-payments.sql",
+            "classpath:database/remove-cars-from-cars-table.sql"
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that exportPayments() writes a json object per line")
+    void exportPayments_Ndjson_WritesObjectPerLine() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long written = exportService.exportPayments(
+                FROM, TO, Payment.Status.PENDING, ExportFormat.NDJSON, outputStream);
+
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : outputStream.toString(StandardCharsets.UTF_8).split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        assertEquals(3, written);
+        assertEquals(3, rows.size());
+        JsonNode second = rows.stream()
+                .filter(row -> row.get("id").asLong() == 2L)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2L, second.get("rental_id").asLong());
+        assertEquals("PENDING", second.get("status").asText());
+        assertEquals("93.54", second.get("amount_to_pay").decimalValue().toPlainString());
+        assertEquals("cs_test_2", second.get("session_id").asText());
+    }
+}
@@ -0,0 +1,148 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.dto.car.CarFacetsDto;
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CarSearchParametersDto;
+import car.sharing.model.Car;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.specification.car.AvailabilitySpecificationProvider;
+import car.sharing.repository.specification.car.BrandSpecificationProvider;
+import car.sharing.repository.specification.car.CarInSpecificationProviderManager;
+import car.sharing.repository.specification.car.CarSpecificationBuilder;
+import car.sharing.repository.specification.car.DailyFeeSpecificationProvider;
+import car.sharing.repository.specification.car.ModelSpecificationProvider;
+import car.sharing.repository.specification.car.TypeSpecificationProvider;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Searches a hundred thousand cars through CarSpecificationBuilder and through
+ * the catalogue index and counts brands and types with GROUP BY and with the index,
+ * printing how long each takes. Both paths have to return the same cars and counts.
+ * Run with "mvn -Pload-test test -Dtest=CarCatalogueSearchLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@Import({CarCatalogueIndex.class, CarAvailabilityIndex.class, CarSpecificationBuilder.class,
+        CarInSpecificationProviderManager.class, BrandSpecificationProvider.class,
+        ModelSpecificationProvider.class, TypeSpecificationProvider.class,
+        DailyFeeSpecificationProvider.class, AvailabilitySpecificationProvider.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CarCatalogueSearchLoadTest {
+    private static final int CARS = Integer.getInteger("load.catalogue.cars", 100_000);
+    private static final int REPETITIONS = 5;
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by("dailyFee", "id"));
+    private static final List<CarSearchParametersDto> SEARCHES = List.of(
+            new CarSearchParametersDto(null, List.of("Tesla"), null, null, null),
+            new CarSearchParametersDto(null, List.of("BMW", "Audi"), null,
+                    List.of("SUV"), null),
+            new CarSearchParametersDto(null, null, List.of(new BigDecimal("50"),
+                    new BigDecimal("60")), List.of("SEDAN", "HATCHBACK"), null),
+            new CarSearchParametersDto(List.of("Model 42", "Model 4242"), null, null,
+                    null, null));
+    @Autowired
+    private CarCatalogueIndex carCatalogueIndex;
+    @Autowired
+    private CarSpecificationBuilder carSpecificationBuilder;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM cars");
+    }
+
+    @Test
+    @DisplayName("Verify that the catalogue index finds and counts the same cars as SQL")
+    void search_HundredThousandCars_ReturnsSameCarsAsSql() {
+        jdbcTemplate.update("INSERT INTO cars (id, model, brand, type, inventory, daily_fee, "
+                + "is_deleted) SELECT X, 'Model ' || X, CASE MOD(X, 8) WHEN 0 THEN 'Tesla' "
+                + "WHEN 1 THEN 'BMW' WHEN 2 THEN 'Audi' WHEN 3 THEN 'Toyota' "
+                + "WHEN 4 THEN 'Honda' WHEN 5 THEN 'Ford' WHEN 6 THEN 'Skoda' ELSE 'Kia' END, "
+                + "CASE MOD(X, 4) WHEN 0 THEN 'SEDAN' WHEN 1 THEN 'SUV' "
+                + "WHEN 2 THEN 'HATCHBACK' ELSE 'UNIVERSAL' END, MOD(X, 5), "
+                + "20 + MOD(X * 37, 180), FALSE FROM SYSTEM_RANGE(1, ?)", CARS);
+
+        long startedAt = System.nanoTime();
+        carCatalogueIndex.rebuild();
+        System.out.printf(Locale.ROOT, "Indexed %d cars in %d ms%n", CARS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        System.out.printf(Locale.ROOT, "%-60s %10s %10s%n", "search", "sql ms", "index ms");
+        for (CarSearchParametersDto search : SEARCHES) {
+            Measurement<List<Long>> bySql = measure(() -> carRepository.findAll(
+                            carSpecificationBuilder.build(search), PAGE)
+                    .map(Car::getId)
+                    .getContent());
+            Measurement<List<Long>> byIndex = measure(() -> carCatalogueIndex
+                    .search(search, PAGE)
+                    .orElseThrow()
+                    .stream()
+                    .map(CarResponseDto::id)
+                    .toList());
+            System.out.printf(Locale.ROOT, "%-60s %10.2f %10.2f%n",
+                    search.brands() + " " + search.types() + " " + search.priceBetween(),
+                    bySql.millis(), byIndex.millis());
+
+            assertEquals(bySql.result(), byIndex.result());
+        }
+
+        Measurement<Map<String, Integer>> brandsBySql = measure(() -> jdbcTemplate.queryForList(
+                        "SELECT brand, COUNT(*) AS cars FROM cars WHERE is_deleted = FALSE "
+                                + "AND type = 'SUV' GROUP BY brand")
+                .stream()
+                .collect(Collectors.toMap(row -> (String) row.get("brand"),
+                        row -> ((Number) row.get("cars")).intValue())));
+        Measurement<CarFacetsDto> facets = measure(() -> carCatalogueIndex.getFacets(
+                new CarSearchParametersDto(null, List.of("Tesla"), null, List.of("SUV"), null)));
+        System.out.printf(Locale.ROOT, "%-60s %10.2f %10.2f%n", "brand facets of SUVs",
+                brandsBySql.millis(), facets.millis());
+
+        assertEquals(brandsBySql.result(), facets.result().brands());
+    }
+
+    /**
+     * Warms the call up once and keeps the best time of the repetitions
+     */
+    private <T> Measurement<T> measure(Supplier<T> call) {
+        T result = call.get();
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long startedAt = System.nanoTime();
+            result = call.get();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startedAt);
+        }
+        return new Measurement<>(result, bestNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private record Measurement<T>(T result, double millis) {
+    }
+}
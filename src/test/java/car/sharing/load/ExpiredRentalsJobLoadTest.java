@@ -0,0 +1,85 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.batch.ChunkedJobRunner;
+import car.sharing.batch.ExpiredRentalsJob;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import car.sharing.service.stats.CarTypeDailyStatsAggregator;
+import car.sharing.service.stats.DailyStatsRollup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Runs the expiry sweep over a million pending rentals and their payments
+ * and reports how long it takes. Run with "mvn -Pload-test test -Dtest=ExpiredRentalsJobLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@Import({ExpiredRentalsJob.class, ChunkedJobRunner.class, InventoryServiceImpl.class,
+        CarAvailabilityIndex.class, CarCatalogueCache.class, CarCatalogueIndex.class,
+        DailyStatsRollup.class, CarTypeDailyStatsAggregator.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExpiredRentalsJobLoadTest {
+    private static final int RENTALS = Integer.getInteger("load.expired.rentals", 1_000_000);
+    private static final int CARS = 100;
+    private static final int CAR_INVENTORY = 10;
+    @Autowired
+    private ChunkedJobRunner chunkedJobRunner;
+    @Autowired
+    private ExpiredRentalsJob expiredRentalsJob;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM payments");
+        jdbcTemplate.update("DELETE FROM rentals");
+        jdbcTemplate.update("DELETE FROM cars");
+        jdbcTemplate.update("DELETE FROM batch_job_checkpoints");
+    }
+
+    @Test
+    @DisplayName("Verify that run() expires a million pending rentals in chunks")
+    void run_MillionPendingRentals_ExpiresAll() {
+        jdbcTemplate.update("INSERT INTO cars (id, model, brand, type, inventory, daily_fee, "
+                + "is_deleted) SELECT X, 'Camry', 'Toyota', 'SEDAN', ?, 9.00, FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", CAR_INVENTORY, CARS);
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, created_at, is_deleted) SELECT X, DATE '2024-04-01', "
+                + "DATE '2024-04-06', MOD(X, ?) + 1, X, 'PENDING', "
+                + "TIMESTAMP '2024-04-01 10:00:00', FALSE FROM SYSTEM_RANGE(1, ?)", CARS, RENTALS);
+        jdbcTemplate.update("INSERT INTO payments (id, user_id, rental_id, status, type, "
+                + "amount_to_pay, is_deleted) SELECT X, X, X, 'PENDING', 'PAYMENT', 54.00, FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", RENTALS);
+
+        long startedAt = System.nanoTime();
+        long processed = chunkedJobRunner.run(expiredRentalsJob);
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        System.out.printf("Expired rentals job: %d rentals in %d ms (%.0f rows/s)%n",
+                processed,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                processed / (elapsedNanos / 1_000_000_000.0));
+        assertEquals(RENTALS, processed);
+        assertEquals(RENTALS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payments WHERE status = 'EXPIRED'", Integer.class));
+        assertEquals(CARS * CAR_INVENTORY + RENTALS, jdbcTemplate.queryForObject(
+                "SELECT SUM(inventory) FROM cars", Integer.class));
+    }
+}
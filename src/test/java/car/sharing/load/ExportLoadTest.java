@@ -0,0 +1,110 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.export.ExportFormat;
+import car.sharing.export.ExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exports a million rentals as gzipped csv and reports throughput and heap in use
+ * while the export runs, which stays flat whatever the number of rows is.
+ * Run with "mvn -Pload-test test -Dtest=ExportLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ExportService.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportLoadTest {
+    private static final int RENTALS = Integer.getInteger("load.export.rentals", 1_000_000);
+    private static final int SAMPLE_EVERY_BYTES = 1 << 18;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM rentals");
+    }
+
+    @Test
+    @DisplayName("Verify that exportRentals() streams a million rentals")
+    void exportRentals_MillionRentals_WritesAll() throws IOException {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, created_at, is_deleted) SELECT X, "
+                + "DATEADD('DAY', MOD(X, 365), DATE '2024-01-01'), DATE '2025-01-10', "
+                + "MOD(X, 100) + 1, X, 'RETURNED', TIMESTAMP '2024-01-01 10:00:00', FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", RENTALS);
+        System.gc();
+        long heapBefore = MEMORY.getHeapMemoryUsage().getUsed();
+        HeapSamplingStream discarded = new HeapSamplingStream();
+
+        long startedAt = System.nanoTime();
+        long written;
+        try (GZIPOutputStream gzip = new GZIPOutputStream(discarded)) {
+            written = exportService.exportRentals(LocalDate.parse("2024-01-01"),
+                    LocalDate.parse("2024-12-31"), null, ExportFormat.CSV, gzip);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+
+        System.out.printf("Export: %d rentals, %d KB gzipped in %d ms (%.0f rows/s), "
+                        + "heap before %d MB, peak while streaming %d MB%n",
+                written,
+                discarded.bytes / 1024,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                written / (elapsedNanos / 1_000_000_000.0),
+                heapBefore >> 20,
+                discarded.peakHeap >> 20);
+        assertEquals(RENTALS, written);
+    }
+
+    /**
+     * Throws the export away and samples heap in use every 256 KB written
+     */
+    private static class HeapSamplingStream extends OutputStream {
+        private long bytes;
+        private long peakHeap;
+
+        @Override
+        public void write(int value) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            count(length);
+        }
+
+        private void count(int length) {
+            long sampledBefore = bytes / SAMPLE_EVERY_BYTES;
+            bytes += length;
+            if (bytes / SAMPLE_EVERY_BYTES != sampledBefore) {
+                peakHeap = Math.max(peakHeap, MEMORY.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
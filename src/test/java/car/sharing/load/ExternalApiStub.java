@@ -0,0 +1,150 @@
+package car.sharing.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for Stripe checkout sessions and Telegram Bot API.
+ * Answers with the smallest bodies the clients accept, optionally after a fixed delay
+ * to imitate the network round trip of the real services.
+ * Retrieved sessions are open unless another status was set with setStripeSessionStatus
+ */
+public class ExternalApiStub implements AutoCloseable {
+    private static final String STRIPE_SESSIONS_PATH = "/v1/checkout/sessions";
+    private static final String TELEGRAM_PATH = "/bot";
+    private static final long GET_UPDATES_DELAY_MILLIS = 1000;
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final AtomicLong stripeSessions = new AtomicLong();
+    private final AtomicLong telegramMessages = new AtomicLong();
+    private final Map<String, String> stripeSessionStatuses = new ConcurrentHashMap<>();
+    private final AtomicLong stripeRetrievals = new AtomicLong();
+    private final AtomicInteger activeStripeRetrievals = new AtomicInteger();
+    private final AtomicInteger maxActiveStripeRetrievals = new AtomicInteger();
+
+    public ExternalApiStub(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(STRIPE_SESSIONS_PATH, this::handleStripeSessions);
+        server.createContext(TELEGRAM_PATH, this::handleTelegramMethod);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String getStripeApiBase() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public String getTelegramApiBase() {
+        return getStripeApiBase() + TELEGRAM_PATH;
+    }
+
+    public long getStripeSessions() {
+        return stripeSessions.get();
+    }
+
+    public long getStripeRetrievals() {
+        return stripeRetrievals.get();
+    }
+
+    public int getMaxActiveStripeRetrievals() {
+        return maxActiveStripeRetrievals.get();
+    }
+
+    public void setStripeSessionStatus(String sessionId, String status) {
+        stripeSessionStatuses.put(sessionId, status);
+    }
+
+    public long getTelegramMessages() {
+        return telegramMessages.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handleStripeSessions(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            retrieveStripeSession(exchange);
+        } else {
+            createStripeSession(exchange);
+        }
+    }
+
+    private void retrieveStripeSession(HttpExchange exchange) throws IOException {
+        int active = activeStripeRetrievals.incrementAndGet();
+        maxActiveStripeRetrievals.accumulateAndGet(active, Math::max);
+        stripeRetrievals.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String sessionId = path.substring(path.lastIndexOf('/') + 1);
+        try {
+            respond(exchange, latencyMillis, """
+                    {"id": "%s", "object": "checkout.session", "status": "%s",
+                     "created": %d}"""
+                    .formatted(sessionId,
+                            stripeSessionStatuses.getOrDefault(sessionId, "open"),
+                            System.currentTimeMillis() / 1000));
+        } finally {
+            activeStripeRetrievals.decrementAndGet();
+        }
+    }
+
+    private void createStripeSession(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        long id = stripeSessions.incrementAndGet();
+        String sessionId = "cs_test_load_" + id;
+        respond(exchange, latencyMillis, """
+                {"id": "%s", "object": "checkout.session", "status": "open",
+                 "url": "%s/pay/%s"}"""
+                .formatted(sessionId, getStripeApiBase(), sessionId));
+    }
+
+    private void handleTelegramMethod(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        String method = path.substring(path.lastIndexOf('/') + 1);
+        switch (method) {
+            // long polling of the bot, answered slowly to keep it from spinning
+            case "getupdates", "getUpdates" ->
+                    respond(exchange, GET_UPDATES_DELAY_MILLIS, "{\"ok\": true, \"result\": []}");
+            case "sendmessage", "sendMessage" -> {
+                long id = telegramMessages.incrementAndGet();
+                respond(exchange, latencyMillis, """
+                        {"ok": true, "result": {"message_id": %d, "date": 0,
+                         "chat": {"id": 1, "type": "private"}, "text": ""}}"""
+                        .formatted(id));
+            }
+            default -> respond(exchange, latencyMillis, "{\"ok\": true, \"result\": true}");
+        }
+    }
+
+    private void respond(HttpExchange exchange, long delayMillis, String body)
+            throws IOException {
+        sleep(delayMillis);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
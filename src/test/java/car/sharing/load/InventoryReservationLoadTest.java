@@ -0,0 +1,110 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryService;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Concurrent renters take and give back units of one car everybody wants
+ * and of a hundred cars, and the throughput and p50/p99 latency of reserve() and release()
+ * are printed for both. Run with "mvn -Pload-test test -Dtest=InventoryReservationLoadTest",
+ * load.reservation.concurrency and load.reservation.iterations set the renters
+ * and the reservations of each
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@Import({InventoryServiceImpl.class, CarAvailabilityIndex.class, CarCatalogueCache.class,
+        CarCatalogueIndex.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationLoadTest {
+    private static final int CONCURRENCY = Integer.getInteger(
+            "load.reservation.concurrency", 8);
+    private static final int ITERATIONS = Integer.getInteger(
+            "load.reservation.iterations", 2_000);
+    private static final int CARS = 100;
+    private static final int CAR_INVENTORY = 1_000;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM cars");
+    }
+
+    @Test
+    @DisplayName("Verify that concurrent renters give back every unit they take")
+    void reserve_ConcurrentRenters_ReportsThroughput() throws Exception {
+        jdbcTemplate.update("INSERT INTO cars (id, model, brand, type, inventory, daily_fee, "
+                + "is_deleted) SELECT X, 'Camry', 'Toyota', 'SEDAN', ?, 9.00, FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", CAR_INVENTORY, CARS);
+
+        System.out.printf("One car, %d renters:%n%s", CONCURRENCY, run(1));
+        System.out.printf("%d cars, %d renters:%n%s", CARS, CONCURRENCY, run(CARS));
+
+        assertEquals(CARS * CAR_INVENTORY, jdbcTemplate.queryForObject(
+                "SELECT SUM(inventory) FROM cars", Integer.class));
+    }
+
+    private String run(int cars) throws Exception {
+        LatencyReport report = new LatencyReport();
+        ExecutorService renters = Executors.newFixedThreadPool(CONCURRENCY);
+        long startedAt = System.nanoTime();
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int renter = 0; renter < CONCURRENCY; renter++) {
+                long firstCarId = renter % cars + 1;
+                done.add(renters.submit(() -> rent(report, firstCarId, cars)));
+            }
+            for (Future<?> renter : done) {
+                renter.get();
+            }
+        } finally {
+            renters.shutdown();
+        }
+        assertEquals(0, report.getErrors());
+        return report.format(System.nanoTime() - startedAt);
+    }
+
+    private void rent(LatencyReport report, long firstCarId, int cars) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Long carId = (firstCarId + i - 1) % cars + 1;
+            measure(report, "reserve", () -> inventoryService.reserve(carId));
+            measure(report, "release", () -> inventoryService.release(carId));
+        }
+    }
+
+    private void measure(LatencyReport report, String operation, Runnable call) {
+        long startedAt = System.nanoTime();
+        boolean successful = false;
+        try {
+            call.run();
+            successful = true;
+        } finally {
+            report.record(operation, System.nanoTime() - startedAt, successful);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.model.Rental;
+import car.sharing.repository.RentalRepository;
+import car.sharing.util.PageCursor;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the same pages of active rentals with OFFSET and with a keyset cursor
+ * and prints how long each page takes. OFFSET walks all the skipped rows,
+ * so its latency grows with the page number, while a seek stays flat.
+ * Run with "mvn -Pload-test test -Dtest=KeysetPaginationLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class KeysetPaginationLoadTest {
+    private static final int PAGE_SIZE = 20;
+    private static final int[] PAGES = {1, 100, 1_000, 10_000};
+    private static final int RENTALS = PAGES[PAGES.length - 1] * PAGE_SIZE + PAGE_SIZE;
+    private static final int REPETITIONS = 5;
+    private static final Sort SORT = Sort.by("requiredReturnDate", "id");
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM rentals");
+    }
+
+    @Test
+    @DisplayName("Verify that a keyset page is read in the same time whatever its number is")
+    void findAllByStatusAfter_DeepPages_ReturnSamePagesAsOffset() {
+        // a year of return dates, so a lot of rentals share one and the id breaks ties
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, created_at, is_deleted) SELECT X, "
+                + "DATE '2024-04-01', DATEADD('DAY', MOD(X * 7, 365), DATE '2024-04-02'), "
+                + "MOD(X, 100) + 1, X, 'LASTING', TIMESTAMP '2024-04-01 10:00:00', FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", RENTALS);
+
+        System.out.printf(Locale.ROOT, "%8s %12s %12s%n", "page", "offset ms", "keyset ms");
+        for (int page : PAGES) {
+            PageRequest offsetPage = PageRequest.of(page - 1, PAGE_SIZE, SORT);
+            Measurement byOffset = measure(() ->
+                    rentalRepository.findAllByStatus(Rental.Status.LASTING, offsetPage));
+            Measurement byKeyset = measure(keysetQuery(page));
+            System.out.printf(Locale.ROOT, "%8d %12.2f %12.2f%n",
+                    page, byOffset.millis(), byKeyset.millis());
+
+            assertEquals(ids(byOffset.rentals()), ids(byKeyset.rentals()));
+        }
+    }
+
+    /**
+     * Seeks from the last row of the previous page, the cursor a client would get with it
+     */
+    private Supplier<List<Rental>> keysetQuery(int page) {
+        if (page == 1) {
+            return () -> rentalRepository.findAllByStatus(
+                    Rental.Status.LASTING, PageRequest.of(0, PAGE_SIZE, SORT));
+        }
+        PageCursor cursor = jdbcTemplate.queryForObject(
+                "SELECT required_return_date, id FROM rentals "
+                        + "ORDER BY required_return_date, id LIMIT 1 OFFSET ?",
+                (resultSet, rowNumber) -> new PageCursor(
+                        resultSet.getObject("required_return_date", LocalDate.class).toString(),
+                        resultSet.getLong("id")),
+                (page - 1) * PAGE_SIZE - 1);
+        return () -> rentalRepository.findAllByStatusAfter(Rental.Status.LASTING,
+                cursor.dateKey(), cursor.id(), PageRequest.of(0, PAGE_SIZE));
+    }
+
+    /**
+     * Warms the query up once and keeps the best time of the repetitions
+     */
+    private Measurement measure(Supplier<List<Rental>> query) {
+        List<Rental> rentals = query.get();
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long startedAt = System.nanoTime();
+            rentals = query.get();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startedAt);
+        }
+        return new Measurement(rentals, bestNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private List<Long> ids(List<Rental> rentals) {
+        return rentals.stream()
+                .map(Rental::getId)
+                .toList();
+    }
+
+    private record Measurement(List<Rental> rentals, double millis) {
+    }
+}
@@ -0,0 +1,68 @@
+package car.sharing.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects latencies of every request per endpoint and prints p50/p99 and throughput
+ */
+public class LatencyReport {
+    private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long nanos, boolean successful) {
+        latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+        if (!successful) {
+            errors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public long getErrors() {
+        return errors.values().stream()
+                .mapToLong(AtomicLong::get)
+                .sum();
+    }
+
+    public String format(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "%-28s %8s %7s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "req/s"));
+        latencies.keySet().stream()
+                .sorted()
+                .forEach(endpoint -> {
+                    List<Long> sorted = new ArrayList<>(latencies.get(endpoint));
+                    sorted.sort(null);
+                    report.append(String.format(Locale.ROOT,
+                            "%-28s %8d %7d %9.2f %9.2f %9.1f%n",
+                            endpoint,
+                            sorted.size(),
+                            errors.getOrDefault(endpoint, new AtomicLong()).get(),
+                            toMillis(percentile(sorted, 50)),
+                            toMillis(percentile(sorted, 99)),
+                            sorted.size() / seconds));
+                });
+        long total = latencies.values().stream()
+                .mapToLong(Queue::size)
+                .sum();
+        report.append(String.format(Locale.ROOT, "%d requests in %.1f s (%.1f req/s)%n",
+                total, seconds, total / seconds));
+        return report.toString();
+    }
+
+    private long percentile(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    private double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,138 @@
+package car.sharing.load;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills the database with cars, customers and their rental and payment history.
+ * Rows get explicit ids starting from ID_OFFSET, so they never clash with liquibase data
+ */
+public class LoadTestDataSeeder {
+    public static final String PASSWORD = "1234567890";
+    private static final String PASSWORD_HASH =
+            "$2a$10$pgIWyO86Wu8MkPWRlSwWVeKa283CeLZjCQUco5k7avrLi6xGpu3je";
+    private static final long ID_OFFSET = 1000L;
+    private static final long CUSTOMER_ROLE_ID = 1L;
+    private static final int BATCH_SIZE = 1000;
+    private static final int CAR_INVENTORY = 1000;
+    private static final String[] BRANDS =
+            {"Tesla", "BMW", "Audi", "Toyota", "Honda", "Ford", "Skoda", "Kia"};
+    private static final String[] TYPES = {"SEDAN", "SUV", "HATCHBACK", "UNIVERSAL"};
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(42);
+    private long nextRentalId = ID_OFFSET;
+
+    public LoadTestDataSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static long getCarId(int car) {
+        return ID_OFFSET + car;
+    }
+
+    public static long getUserId(int user) {
+        return ID_OFFSET + user;
+    }
+
+    public static String getEmail(int user) {
+        return "load.user." + user + "@example.com";
+    }
+
+    public void seed(int cars, int users, int rentalsPerUser) {
+        insertCars(cars);
+        insertUsers(users);
+        insertHistory(cars, users, rentalsPerUser);
+    }
+
+    /**
+     * Imitates a car that was taken a week ago and should have been returned three days ago
+     */
+    public void addOverdueRental(long userId, long carId) {
+        LocalDate now = LocalDate.now();
+        jdbcTemplate.update("UPDATE cars SET inventory = inventory - 1 WHERE id = ?", carId);
+        jdbcTemplate.update("INSERT INTO rentals (rental_date, required_return_date, car_id, "
+                        + "user_id, status, is_deleted) VALUES (?, ?, ?, ?, 'LASTING', FALSE)",
+                Date.valueOf(now.minusDays(7)), Date.valueOf(now.minusDays(3)), carId, userId);
+    }
+
+    private void insertCars(int cars) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int car = 0; car < cars; car++) {
+            rows.add(new Object[]{
+                    getCarId(car),
+                    "Model " + car,
+                    BRANDS[car % BRANDS.length],
+                    BigDecimal.valueOf(20 + random.nextInt(180)),
+                    TYPES[car % TYPES.length],
+                    CAR_INVENTORY
+            });
+        }
+        batchUpdate("INSERT INTO cars (id, model, brand, daily_fee, type, inventory, is_deleted) "
+                + "VALUES (?, ?, ?, ?, ?, ?, FALSE)", rows);
+    }
+
+    private void insertUsers(int users) {
+        List<Object[]> userRows = new ArrayList<>();
+        List<Object[]> roleRows = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            userRows.add(new Object[]{
+                    getUserId(user),
+                    getEmail(user),
+                    "Load",
+                    "User " + user,
+                    PASSWORD_HASH
+            });
+            roleRows.add(new Object[]{getUserId(user), CUSTOMER_ROLE_ID});
+        }
+        batchUpdate("INSERT INTO users (id, email, first_name, last_name, password, is_deleted) "
+                + "VALUES (?, ?, ?, ?, ?, FALSE)", userRows);
+        batchUpdate("INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)", roleRows);
+    }
+
+    private void insertHistory(int cars, int users, int rentalsPerUser) {
+        List<Object[]> rentalRows = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int user = 0; user < users; user++) {
+            for (int i = 0; i < rentalsPerUser; i++) {
+                long rentalId = nextRentalId++;
+                LocalDate rentalDate = today.minusDays(10 + random.nextInt(700));
+                LocalDate returnDate = rentalDate.plusDays(1 + random.nextInt(7));
+                rentalRows.add(new Object[]{
+                        rentalId,
+                        Date.valueOf(rentalDate),
+                        Date.valueOf(returnDate),
+                        Date.valueOf(returnDate),
+                        getCarId(random.nextInt(cars)),
+                        getUserId(user)
+                });
+                paymentRows.add(new Object[]{
+                        rentalId,
+                        getUserId(user),
+                        rentalId,
+                        "https://checkout.stripe.com/c/pay/cs_test_history_" + rentalId,
+                        "cs_test_history_" + rentalId,
+                        BigDecimal.valueOf(50 + random.nextInt(1000))
+                });
+            }
+        }
+        batchUpdate("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "actual_return_date, car_id, user_id, status, is_deleted) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 'RETURNED', FALSE)", rentalRows);
+        batchUpdate("INSERT INTO payments (id, user_id, rental_id, status, type, session_url, "
+                + "session_id, amount_to_pay, is_deleted) "
+                + "VALUES (?, ?, ?, 'PAID', 'PAYMENT', ?, ?, ?, FALSE)", paymentRows);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from,
+                    Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
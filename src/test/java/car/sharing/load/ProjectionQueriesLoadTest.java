@@ -0,0 +1,153 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.mapper.CarMapper;
+import car.sharing.mapper.PaymentMapper;
+import car.sharing.mapper.RentalMapper;
+import car.sharing.mapper.impl.CarMapperImpl;
+import car.sharing.mapper.impl.PaymentMapperImpl;
+import car.sharing.mapper.impl.RentalMapperImpl;
+import car.sharing.repository.CarReadRepository;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.PaymentReadRepository;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalReadRepository;
+import car.sharing.repository.RentalRepository;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the same listing pages as entities copied by a mapper and as projection rows
+ * and prints latency and heap allocated per call for both.
+ * Run with "mvn -Pload-test test -Dtest=ProjectionQueriesLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@Import({CarMapperImpl.class, RentalMapperImpl.class, PaymentMapperImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProjectionQueriesLoadTest {
+    private static final Long USER_ID = 1L;
+    private static final int ROWS = Integer.getInteger("load.projection.rows", 2_000);
+    private static final int CALLS = Integer.getInteger("load.projection.calls", 200);
+    private static final Pageable PAGE = PageRequest.of(0, 500, Sort.by("id"));
+    private static final ThreadMXBean THREADS =
+            (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private CarReadRepository carReadRepository;
+    @Autowired
+    private CarMapper carMapper;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private RentalReadRepository rentalReadRepository;
+    @Autowired
+    private RentalMapper rentalMapper;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PaymentReadRepository paymentReadRepository;
+    @Autowired
+    private PaymentMapper paymentMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM payments");
+        jdbcTemplate.update("DELETE FROM rentals");
+        jdbcTemplate.update("DELETE FROM cars");
+    }
+
+    @Test
+    @DisplayName("Verify that projection queries return the same pages as entities and mappers")
+    void readPaths_SamePage_ReturnSameDtos() {
+        jdbcTemplate.update("INSERT INTO cars (id, model, brand, type, inventory, daily_fee, "
+                + "is_deleted) SELECT X, 'Camry', 'Toyota', 'SEDAN', 10, 9.00, FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+        // every other rental is returned, so both lasting and returned messages are built
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "actual_return_date, car_id, user_id, status, created_at, is_deleted) "
+                + "SELECT X, DATE '2024-04-01', DATE '2024-04-06', "
+                + "CASEWHEN(MOD(X, 2) = 0, DATE '2024-04-06', NULL), X, ?, "
+                + "CASEWHEN(MOD(X, 2) = 0, 'RETURNED', 'LASTING'), "
+                + "TIMESTAMP '2024-04-01 10:00:00', FALSE FROM SYSTEM_RANGE(1, ?)",
+                USER_ID, ROWS);
+        jdbcTemplate.update("INSERT INTO payments (id, user_id, rental_id, status, type, "
+                + "session_url, session_id, amount_to_pay, is_deleted) SELECT X, ?, X, 'PAID', "
+                + "'PAYMENT', 'https://checkout.stripe.com', CONCAT('cs_test_', X), 54.00, FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", USER_ID, ROWS);
+
+        System.out.printf(Locale.ROOT, "%-10s %-12s %12s %14s%n",
+                "listing", "path", "us/call", "KB/call");
+        assertEquals(
+                measure("cars", "entities", () -> carRepository.findAllAvailable(PAGE)
+                        .stream()
+                        .map(carMapper::toResponseDto)
+                        .toList()),
+                measure("cars", "projection", () -> carReadRepository.findAllAvailable(PAGE)));
+        assertEquals(
+                measure("rentals", "entities", () -> rentalRepository
+                        .findAllByUserId(USER_ID, PAGE)
+                        .stream()
+                        .map(rentalMapper::toResponseDto)
+                        .toList()),
+                measure("rentals", "projection", () -> rentalReadRepository
+                        .findAllByUserId(USER_ID, PAGE)
+                        .stream()
+                        .map(rentalMapper::toResponseDto)
+                        .toList()));
+        assertEquals(
+                measure("payments", "entities", () -> paymentRepository
+                        .findAllByUserId(USER_ID, PAGE)
+                        .stream()
+                        .map(paymentMapper::toResponseDto)
+                        .toList()),
+                measure("payments", "projection",
+                        () -> paymentReadRepository.findAllByUserId(USER_ID, PAGE)));
+    }
+
+    /**
+     * Warms the path up with as many calls as it measures
+     * and prints the mean latency and allocation of the measured calls
+     */
+    private List<?> measure(String listing, String path, Supplier<List<?>> read) {
+        for (int i = 0; i < CALLS; i++) {
+            read.get();
+        }
+        List<?> page = List.of();
+        long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            page = read.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        long allocatedBytes = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        System.out.printf(Locale.ROOT, "%-10s %-12s %12.1f %14.1f%n",
+                listing,
+                path,
+                elapsedNanos / 1_000.0 / CALLS,
+                allocatedBytes / 1_024.0 / CALLS);
+        return page;
+    }
+}
@@ -0,0 +1,195 @@
+package car.sharing.load;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.config.CustomMysqlContainer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Drives rental and payment endpoints with concurrent customers against MySQL,
+ * with Stripe and Telegram replaced by a local stub, and reports p50/p99 latency
+ * and throughput per endpoint. Run with "mvn -Pload-test test", see README for the knobs
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "telegram.sender=bot",
+        "outbox.relay.delay=PT1S",
+        "spring.jpa.show-sql=false"
+})
+class RentalFlowLoadTest {
+    private static final int CARS = Integer.getInteger("load.cars", 500);
+    private static final int USERS = Integer.getInteger("load.users", 5000);
+    private static final int HISTORY_PER_USER = Integer.getInteger("load.history", 4);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int ITERATIONS = Integer.getInteger("load.iterations", 20);
+    // every n-th iteration of a customer is a late return with a fine
+    private static final int LATE_RETURN_EVERY = Integer.getInteger("load.late.every", 5);
+    private static final long STUB_LATENCY_MILLIS = Long.getLong("load.stub.latency", 50L);
+    private static final Path REPORT = Path.of("target", "load-test-report.txt");
+    private static final String[] BRANDS = {"Tesla", "BMW", "Audi", "Toyota"};
+    @Container
+    private static final CustomMysqlContainer MYSQL_CONTAINER = CustomMysqlContainer.getInstance();
+    private static ExternalApiStub externalApiStub;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyReport report = new LatencyReport();
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @LocalServerPort
+    private int port;
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws IOException {
+        externalApiStub = new ExternalApiStub(STUB_LATENCY_MILLIS);
+        registry.add("spring.datasource.url", MYSQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", MYSQL_CONTAINER::getPassword);
+        registry.add("stripe.api.base", externalApiStub::getStripeApiBase);
+        registry.add("telegram.api.base", externalApiStub::getTelegramApiBase);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        externalApiStub.close();
+    }
+
+    @Test
+    @DisplayName("Rent, pay and return cars with concurrent customers")
+    void rentalFlow_ConcurrentCustomers_ReportsLatencies() throws Exception {
+        LoadTestDataSeeder seeder = new LoadTestDataSeeder(jdbcTemplate);
+        seeder.seed(CARS, USERS, HISTORY_PER_USER);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<?>> customers = new ArrayList<>();
+        final long startedAt = System.nanoTime();
+        for (int customer = 0; customer < CONCURRENCY; customer++) {
+            int user = customer;
+            customers.add(executor.submit(() -> {
+                runCustomer(seeder, user);
+                return null;
+            }));
+        }
+        for (Future<?> customer : customers) {
+            customer.get(30, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        String result = report.format(elapsedNanos);
+        System.out.print(result);
+        Files.writeString(REPORT, result);
+
+        assertEquals(0, report.getErrors(), "Some requests failed, see " + REPORT);
+        assertTrue(externalApiStub.getStripeSessions() >= (long) CONCURRENCY * ITERATIONS);
+        await().atMost(Duration.ofSeconds(30))
+                .until(() -> externalApiStub.getTelegramMessages() > 0);
+    }
+
+    private void runCustomer(LoadTestDataSeeder seeder, int user) throws Exception {
+        String token = login(LoadTestDataSeeder.getEmail(user));
+        for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+            long carId = LoadTestDataSeeder.getCarId(ThreadLocalRandom.current().nextInt(CARS));
+            if (iteration % LATE_RETURN_EVERY == 0) {
+                seeder.addOverdueRental(LoadTestDataSeeder.getUserId(user), carId);
+                returnLateAndPayFine(token);
+            } else {
+                rentPayAndReturn(token, carId);
+            }
+        }
+    }
+
+    private void rentPayAndReturn(String token, long carId) throws Exception {
+        int page = ThreadLocalRandom.current().nextInt(CARS / 20);
+        String brand = BRANDS[ThreadLocalRandom.current().nextInt(BRANDS.length)];
+        send("GET /cars", get("/cars?size=20&page=" + page));
+        send("GET /cars/search", HttpRequest.newBuilder(uri("/cars/search?size=20"))
+                .header("Content-Type", "application/json")
+                .method("GET", HttpRequest.BodyPublishers.ofString(
+                        "{\"brands\": [\"" + brand + "\"]}")));
+        send("GET /cars/{id}", get("/cars/" + carId));
+        send("POST /rentals", post("/rentals?days_to_rent=2&car_id=" + carId, token));
+        send("POST /payments", post("/payments", token));
+        send("GET /payments/success", get("/payments/success").header("Authorization", token));
+        send("GET /rentals/mine", get("/rentals/mine?size=10").header("Authorization", token));
+        send("POST /rentals/return", post("/rentals/return", token));
+    }
+
+    private void returnLateAndPayFine(String token) throws Exception {
+        send("POST /rentals/return (late)", post("/rentals/return", token));
+        send("GET /payments/pending", get("/payments/pending").header("Authorization", token));
+        send("GET /payments/success", get("/payments/success").header("Authorization", token));
+    }
+
+    private String login(String email) throws Exception {
+        String body = "{\"email\": \"%s\", \"password\": \"%s\"}"
+                .formatted(email, LoadTestDataSeeder.PASSWORD);
+        HttpResponse<String> response = send("POST /authentication/login",
+                HttpRequest.newBuilder(uri("/authentication/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)));
+        JsonNode json = objectMapper.readTree(response.body());
+        if (!json.has("token")) {
+            throw new IllegalStateException("Can't login as " + email + ": " + response.body());
+        }
+        return "Bearer " + json.get("token").asText();
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest.Builder request)
+            throws Exception {
+        long startedAt = System.nanoTime();
+        HttpResponse<String> response =
+                httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        report.record(endpoint, System.nanoTime() - startedAt, response.statusCode() < 400);
+        return response;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String token) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Authorization", token)
+                .POST(HttpRequest.BodyPublishers.noBody());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + contextPath + path);
+    }
+}
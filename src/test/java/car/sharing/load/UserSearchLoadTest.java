@@ -0,0 +1,153 @@
+package car.sharing.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.dto.user.UserSearchParametersDto;
+import car.sharing.model.User;
+import car.sharing.repository.UserRepository;
+import car.sharing.repository.specification.user.EmailSpecificationProvider;
+import car.sharing.repository.specification.user.FirstNameSpecificationProvider;
+import car.sharing.repository.specification.user.LastNameSpecificationProvider;
+import car.sharing.repository.specification.user.UserLikeSpecificationProviderManager;
+import car.sharing.repository.specification.user.UserSpecificationBuilder;
+import car.sharing.service.user.UserSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Searches five million users by substrings of their emails and names with a plain
+ * LIKE '%param%' and with LIKE narrowed down by the user search index, and prints
+ * how long the rebuild of the index and each search take. A plain LIKE scans
+ * the whole table, an indexed one reads the candidates by id.
+ * Run with "mvn -Pload-test test -Dtest=UserSearchLoadTest"
+ */
+@Tag("load")
+@DataJpaTest(showSql = false)
+@Import({UserSearchIndex.class, UserSpecificationBuilder.class,
+        UserLikeSpecificationProviderManager.class, EmailSpecificationProvider.class,
+        FirstNameSpecificationProvider.class, LastNameSpecificationProvider.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSearchLoadTest {
+    private static final int USERS = Integer.getInteger("load.search.users", 5_000_000);
+    private static final long ID_OFFSET = 1000L;
+    private static final int REPETITIONS = 5;
+    private static final Pageable PAGE = PageRequest.of(0, 20, Sort.by("id"));
+    private static final List<UserSearchParametersDto> SEARCHES = List.of(
+            new UserSearchParametersDto(null, null, "user.1234567@"),
+            new UserSearchParametersDto(null, null, "r.42@mail2"),
+            new UserSearchParametersDto("ame4321", null, null),
+            new UserSearchParametersDto(null, "Surname1999", null),
+            new UserSearchParametersDto("Name12", "Surname77", "mail3.exa"),
+            // too common to narrow down, scans the table like a plain LIKE
+            new UserSearchParametersDto(null, null, "example"));
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+    @Autowired
+    private UserSpecificationBuilder userSpecificationBuilder;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM users WHERE id > ?", ID_OFFSET);
+    }
+
+    @Test
+    @DisplayName("Verify that indexed searches find the same users as plain LIKE")
+    void search_FiveMillionUsers_ReturnsSameUsersAsLike() {
+        jdbcTemplate.update("INSERT INTO users (id, email, first_name, last_name, password, "
+                + "is_deleted) SELECT X + ?, 'user.' || X || '@mail' || MOD(X, 10) "
+                + "|| '.example.com', 'Name' || MOD(X * 7, 10000), "
+                + "'Surname' || MOD(X * 13, 50000), 'password', FALSE "
+                + "FROM SYSTEM_RANGE(1, ?)", ID_OFFSET, USERS);
+
+        long startedAt = System.nanoTime();
+        userSearchIndex.rebuild();
+        System.out.printf(Locale.ROOT, "Indexed %d users in %d ms%n", USERS,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        System.out.printf(Locale.ROOT, "%-40s %12s %12s%n", "search", "like ms", "indexed ms");
+        for (UserSearchParametersDto search : SEARCHES) {
+            Measurement byLike = measure(() -> userRepository.findAll(like(search), PAGE)
+                    .getContent());
+            Measurement byIndex = measure(() -> userRepository.findAll(
+                    userSpecificationBuilder.build(search), PAGE).getContent());
+            System.out.printf(Locale.ROOT, "%-40s %12.2f %12.2f%n",
+                    search, byLike.millis(), byIndex.millis());
+
+            assertEquals(ids(byLike.users()), ids(byIndex.users()));
+        }
+
+        // registered on another instance after the rebuild, so it isn't indexed here
+        long lateId = ID_OFFSET + USERS + 1;
+        jdbcTemplate.update("INSERT INTO users (id, email, first_name, last_name, password, "
+                + "is_deleted) VALUES (?, 'late.registered@mail0.example.com', 'Late', "
+                + "'Registered', 'password', FALSE)", lateId);
+        assertEquals(List.of(lateId), ids(userRepository.findAll(userSpecificationBuilder.build(
+                new UserSearchParametersDto(null, null, "late.registered@")), PAGE)
+                .getContent()));
+    }
+
+    private Specification<User> like(UserSearchParametersDto search) {
+        Specification<User> specification = Specification.where(null);
+        specification = like(specification, UserSearchIndex.EMAIL, search.email());
+        specification = like(specification, UserSearchIndex.FIRST_NAME, search.firstName());
+        return like(specification, UserSearchIndex.LAST_NAME, search.lastName());
+    }
+
+    private Specification<User> like(
+            Specification<User> specification,
+            String column,
+            String param) {
+        if (param == null) {
+            return specification;
+        }
+        return specification.and((root, query, criteriaBuilder) ->
+                criteriaBuilder.like(root.get(column), "%" + param + "%"));
+    }
+
+    /**
+     * Warms the search up once and keeps the best time of the repetitions
+     */
+    private Measurement measure(Supplier<List<User>> search) {
+        List<User> users = search.get();
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long startedAt = System.nanoTime();
+            users = search.get();
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startedAt);
+        }
+        return new Measurement(users, bestNanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private List<Long> ids(List<User> users) {
+        return users.stream()
+                .map(User::getId)
+                .toList();
+    }
+
+    private record Measurement(List<User> users, double millis) {
+    }
+}
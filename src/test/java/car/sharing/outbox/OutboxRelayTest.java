@@ -0,0 +1,127 @@
+package car.sharing.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import car.sharing.model.Car;
+import car.sharing.model.OutboxEvent;
+import car.sharing.model.Role;
+import car.sharing.outbox.consumer.OutboxEventConsumer;
+import car.sharing.outbox.event.CarUpdated;
+import car.sharing.outbox.event.DomainEvent;
+import car.sharing.outbox.event.RoleChanged;
+import car.sharing.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OutboxPublisher.class, OutboxEventSerializer.class, OutboxRelay.class,
+        SimpleMeterRegistry.class, OutboxRelayTest.RecordingConsumer.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private RecordingConsumer consumer;
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+        consumer.received.clear();
+        consumer.failing.set(false);
+    }
+
+    @Test
+    @DisplayName("Verify that published events are delivered to consumers and marked processed")
+    void relay_PublishedEvents_DeliversThemInOrder() {
+        Car car = Car.builder()
+                .id(1L)
+                .brand("Test brand")
+                .model("Test model")
+                .type(Car.Type.SEDAN)
+                .inventory(5)
+                .dailyFee(BigDecimal.TEN)
+                .build();
+        DomainEvent carUpdated = CarUpdated.of(car);
+        DomainEvent roleChanged = new RoleChanged(2L, Set.of(Role.RoleName.ROLE_MANAGER));
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxPublisher.publish(carUpdated);
+            outboxPublisher.publish(roleChanged);
+        });
+
+        outboxRelay.relay();
+
+        assertEquals(List.of(carUpdated, roleChanged), consumer.received);
+        outboxEventRepository.findAll()
+                .forEach(event -> assertNotNull(event.getProcessedAt()));
+    }
+
+    @Test
+    @DisplayName("Verify that an event is kept unprocessed when a consumer fails")
+    void relay_FailingConsumer_KeepsEventForRetry() {
+        transactionTemplate.executeWithoutResult(status -> outboxPublisher.publish(
+                new RoleChanged(2L, Set.of(Role.RoleName.ROLE_CUSTOMER))));
+        consumer.failing.set(true);
+
+        outboxRelay.relay();
+
+        OutboxEvent event = outboxEventRepository.findAll().get(0);
+        assertNull(event.getProcessedAt());
+        assertEquals(1, event.getAttempts());
+
+        consumer.failing.set(false);
+        outboxRelay.relay();
+
+        assertEquals(1, consumer.received.size());
+    }
+
+    @Test
+    @DisplayName("Verify that publish() can't be called outside of a transaction")
+    void publish_NoTransaction_ThrowsException() {
+        assertThrows(IllegalTransactionStateException.class,
+                () -> outboxPublisher.publish(
+                        new RoleChanged(2L, Set.of(Role.RoleName.ROLE_CUSTOMER))));
+    }
+
+    @TestConfiguration
+    static class RecordingConsumer implements OutboxEventConsumer {
+        private final List<DomainEvent> received = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failing = new AtomicBoolean();
+
+        @Override
+        public void consume(DomainEvent event) {
+            if (failing.get()) {
+                throw new RuntimeException("Consumer is not available");
+            }
+            received.add(event);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package car.sharing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.config.CustomMysqlContainer;
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Calls every rental and payment finder, captures the SQL Hibernate generates for it,
+ * runs EXPLAIN on MySQL for that SQL with the same parameters bound
+ * and checks that it is served by the expected index
+ */
+@DataJpaTest
+@Testcontainers(disabledWithoutDocker = true)
+@Import(QueryPlanTest.RecordingStatementInspector.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql(scripts = {
+        "classpath:database/insert-rentals-and-payments-for-query-plans.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(scripts = {
+        "classpath:database/remove-rentals-and-payments-for-query-plans.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_CLASS)
+class QueryPlanTest {
+    private static final String KEY_COLUMN = "key";
+    private static final Long USER_ID = 21L;
+    private static final Long AFTER_ID = 100L;
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 1);
+    private static final LocalDateTime DATE_TIME = LocalDateTime.of(2024, 3, 1, 12, 0);
+    @Container
+    private static final CustomMysqlContainer MYSQL_CONTAINER = CustomMysqlContainer.getInstance();
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RecordingStatementInspector statementInspector;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private RentalReadRepository rentalReadRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private PaymentReadRepository paymentReadRepository;
+
+    @DynamicPropertySource
+    static void mysqlProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", MYSQL_CONTAINER::getPassword);
+    }
+
+    /**
+     * Parameters are listed in the order they appear in the generated SQL,
+     * the page size goes last as MySQL's LIMIT
+     */
+    static Stream<Arguments> finders() {
+        return Stream.of(
+                finder("RentalRepository.findRentalByStatusAndUserId",
+                        test -> test.rentalRepository.findRentalByStatusAndUserId(
+                                Rental.Status.LASTING, USER_ID),
+                        List.of(Rental.Status.LASTING, USER_ID),
+                        "idx_rentals_user_id_status"),
+                finder("RentalRepository.findActiveByUserId",
+                        test -> test.rentalRepository.findActiveByUserId(USER_ID),
+                        List.of(USER_ID),
+                        "idx_rentals_user_id_status"),
+                // without a status, user_id and is_deleted are both used as the key of this one
+                finder("RentalRepository.findAllByUserId",
+                        test -> test.rentalRepository.findAllByUserId(
+                                USER_ID, PageRequest.of(0, 20)),
+                        List.of(USER_ID, 20),
+                        "idx_rentals_user_id_id"),
+                finder("RentalRepository.findAllWhereActualReturnDateIsNotNull",
+                        test -> test.rentalRepository.findAllWhereActualReturnDateIsNotNull(
+                                USER_ID, PageRequest.of(0, 20)),
+                        List.of(USER_ID, 20),
+                        "idx_rentals_user_id_id"),
+                finder("RentalRepository.findAllOverdueRentals",
+                        test -> test.rentalRepository.findAllOverdueRentals(DATE),
+                        List.of(DATE),
+                        "idx_rentals_status_required_return_date"),
+                // rentals side of the join with cars, which is read by primary key
+                finder("RentalRepository.findAllLasting",
+                        test -> test.rentalRepository.findAllLasting(),
+                        List.of(),
+                        "idx_rentals_status_required_return_date"),
+                finder("RentalRepository.findAllByStatus",
+                        test -> test.rentalRepository.findAllByStatus(
+                                Rental.Status.LASTING, PageRequest.of(0, 20)),
+                        List.of(Rental.Status.LASTING, 20),
+                        "idx_rentals_status_required_return_date"),
+                // is_deleted is fixed, so rows come out of the index in the seek order
+                finder("RentalRepository.findAllByStatusAfter",
+                        test -> test.rentalRepository.findAllByStatusAfter(
+                                Rental.Status.LASTING, DATE, AFTER_ID, PageRequest.of(0, 21)),
+                        List.of(Rental.Status.LASTING, DATE, DATE, AFTER_ID, 21),
+                        "idx_rentals_status_required_return_date"),
+                finder("RentalReadRepository.findAllByUserIdAfter",
+                        test -> test.rentalReadRepository.findAllByUserIdAfter(
+                                USER_ID, AFTER_ID, PageRequest.of(0, 21)),
+                        List.of(USER_ID, AFTER_ID, 21),
+                        "idx_rentals_user_id_id"),
+                finder("RentalRepository.findIdsByStatusAndCreatedAt",
+                        test -> test.rentalRepository.findIdsByStatusAndCreatedAt(
+                                Rental.Status.PENDING, DATE_TIME, AFTER_ID,
+                                PageRequest.of(0, 1000)),
+                        List.of(Rental.Status.PENDING, DATE_TIME, AFTER_ID, 1000),
+                        "idx_rentals_status_created_at"),
+                finder("RentalRepository.findCreationsByStatusAfter",
+                        test -> test.rentalRepository.findCreationsByStatusAfter(
+                                Rental.Status.PENDING, AFTER_ID, PageRequest.of(0, 1000)),
+                        List.of(Rental.Status.PENDING, AFTER_ID, 1000),
+                        "idx_rentals_status_created_at"),
+                finder("PaymentRepository.findAllByUserId",
+                        test -> test.paymentRepository.findAllByUserId(
+                                USER_ID, PageRequest.of(0, 20)),
+                        List.of(USER_ID, 20),
+                        "idx_payments_user_id_id"),
+                finder("PaymentReadRepository.findAllByUserIdAfter",
+                        test -> test.paymentReadRepository.findAllByUserIdAfter(
+                                USER_ID, AFTER_ID, PageRequest.of(0, 21)),
+                        List.of(USER_ID, AFTER_ID, 21),
+                        "idx_payments_user_id_id"),
+                finder("PaymentRepository.findByStatusAndUserId",
+                        test -> test.paymentRepository.findByStatusAndUserId(
+                                Payment.Status.PENDING, USER_ID),
+                        List.of(Payment.Status.PENDING, USER_ID),
+                        "idx_payments_user_id_status_type"),
+                finder("PaymentRepository.lockPendingByUserId",
+                        test -> test.paymentRepository.lockPendingByUserId(USER_ID),
+                        List.of(USER_ID),
+                        "idx_payments_user_id_status_type"),
+                finder("PaymentRepository.findByTypeAndUserIdAndStatus",
+                        test -> test.paymentRepository.findByTypeAndUserIdAndStatus(
+                                Payment.Type.FINE, USER_ID, Payment.Status.PENDING),
+                        List.of(Payment.Type.FINE, USER_ID, Payment.Status.PENDING),
+                        "idx_payments_user_id_status_type"),
+                finder("PaymentRepository.findByRentalId",
+                        test -> test.paymentRepository.findByRentalId(USER_ID),
+                        List.of(USER_ID),
+                        "idx_payments_rental_id"),
+                finder("PaymentRepository.findAllBySessionIdIn",
+                        test -> test.paymentRepository.findAllBySessionIdIn(
+                                List.of("cs_test_1", "cs_test_2")),
+                        List.of("cs_test_1", "cs_test_2"),
+                        "idx_payments_session_id"),
+                finder("PaymentRepository.findAllWithSessionByStatusAfter",
+                        test -> test.paymentRepository.findAllWithSessionByStatusAfter(
+                                Payment.Status.PENDING, AFTER_ID, PageRequest.of(0, 100)),
+                        List.of(Payment.Status.PENDING, AFTER_ID, 100),
+                        "idx_payments_status_id")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    @DisplayName("Verify that every rental and payment finder is served by an index")
+    void explain_RepositoryFinder_UsesIndex(
+            String finder,
+            Consumer<QueryPlanTest> call,
+            List<Object> parameters,
+            String expectedIndex) {
+        statementInspector.statements.clear();
+        try {
+            call.accept(this);
+        } catch (IncorrectResultSizeDataAccessException expected) {
+            // a finder of a single row may find several here, only its SQL matters
+        }
+        assertFalse(statementInspector.statements.isEmpty(), finder + " has run no SQL");
+        String sql = statementInspector.statements.get(0);
+        Object[] bound = parameters.stream()
+                .map(parameter -> parameter instanceof Enum<?> value ? value.name() : parameter)
+                .toArray();
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, bound);
+
+        assertTrue(plan.stream().anyMatch(row -> expectedIndex.equals(row.get(KEY_COLUMN))),
+                finder + " should use " + expectedIndex + ", but plan of " + sql
+                        + " was " + plan);
+    }
+
+    private static Arguments finder(
+            String finder,
+            Consumer<QueryPlanTest> call,
+            List<Object> parameters,
+            String expectedIndex) {
+        return Arguments.of(finder, call, parameters, expectedIndex);
+    }
+
+    /**
+     * Keeps every SQL statement Hibernate is about to prepare
+     */
+    @TestConfiguration
+    static class RecordingStatementInspector
+            implements StatementInspector, HibernatePropertiesCustomizer {
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        @Override
+        public void customize(Map<String, Object> hibernateProperties) {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package car.sharing.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.dto.rental.RentalView;
+import car.sharing.holder.LinksHolder;
+import car.sharing.model.Rental;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RentalReadRepositoryTest extends LinksHolder {
+    @Autowired
+    private RentalReadRepository rentalReadRepository;
+
+    @Test
+    @Sql(scripts = {
+            ADD_RENTALS_FILE_NAME,
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            REMOVE_RENTALS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("""
+            Verify that findAllByUserId() method selects rentals of a user into views
+            """)
+    void findAllByUserId_ValidParams_ReturnsViews() {
+        List<RentalView> expected = List.of(
+                createView(2L, "2024-04-01", "2024-04-10", "2024-04-10"),
+                createView(3L, "2024-04-10", "2024-04-15", "2024-04-15"));
+
+        List<RentalView> actual = rentalReadRepository.findAllByUserId(
+                2L,
+                PageRequest.of(0, 5));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @Sql(scripts = {
+            ADD_RENTALS_FILE_NAME,
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            REMOVE_RENTALS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("""
+            Verify that findAllByUserIdAfter() method returns rentals after the cursor
+            """)
+    void findAllByUserIdAfter_ValidParams_ReturnsNextViews() {
+        List<RentalView> actual = rentalReadRepository.findAllByUserIdAfter(
+                2L,
+                2L,
+                PageRequest.of(0, 5));
+
+        assertEquals(List.of(createView(3L, "2024-04-10", "2024-04-15", "2024-04-15")), actual);
+    }
+
+    private RentalView createView(
+            Long id,
+            String rentalDate,
+            String requiredReturnDate,
+            String actualReturnDate) {
+        return new RentalView(
+                id,
+                LocalDate.parse(rentalDate),
+                LocalDate.parse(requiredReturnDate),
+                LocalDate.parse(actualReturnDate),
+                1L,
+                2L,
+                Rental.Status.RETURNED);
+    }
+}
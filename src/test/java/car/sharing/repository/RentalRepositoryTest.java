@@ -232,6 +232,40 @@ class RentalRepositoryTest extends LinksHolder {
         assertEquals(expected, actual.get());
     }
 
+    @Test
+    @Sql(scripts = {
+            ADD_RENTALS_FILE_NAME,
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            REMOVE_RENTALS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("""
+            Verify that findAllByStatusAfter() method breaks ties of return dates by id
+            """)
+    void findAllByStatusAfter_SameReturnDate_ReturnsRentalsAfterCursorId() {
+        Rental expected = createRental(
+                "2024-04-01",
+                "2024-04-10",
+                null,
+                1L,
+                3L,
+                Rental.Status.LASTING);
+        expected.setId(4L);
+
+        List<Rental> actual = rentalRepository.findAllByStatusAfter(
+                Rental.Status.LASTING,
+                LocalDate.parse("2024-04-10"),
+                1L,
+                PageRequest.of(0, 5));
+
+        assertEquals(List.of(expected), actual);
+        assertEquals(List.of(), rentalRepository.findAllByStatusAfter(
+                Rental.Status.LASTING,
+                LocalDate.parse("2024-04-10"),
+                4L,
+                PageRequest.of(0, 5)));
+    }
+
     private Rental createRental(
             String rentalDate,
             String requiredReturnDate,
@@ -241,6 +275,7 @@ class RentalRepositoryTest extends LinksHolder {
             Rental.Status status) {
         return Rental.builder()
                 .rentalDate(LocalDate.parse(rentalDate))
+                .createdAt(LocalDate.parse(rentalDate).atStartOfDay())
                 .userId(userId)
                 .status(status)
                 .carId(carId)
@@ -0,0 +1,75 @@
+package car.sharing.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import car.sharing.model.Role;
+import car.sharing.model.User;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtUtilTest {
+    private static final String SECRET = "13VPOTB1313VPOTB1313VPOTB1313VPOTB1313VPOTB1313VPOTB13";
+    private static final long EXPIRATION = 600_000L;
+    private final JwtUtil jwtUtil = createJwtUtil();
+
+    @Test
+    @DisplayName("Verify that getUser() builds the user from the claims of a generated token")
+    void getUser_GeneratedToken_ReturnsUserFromClaims() {
+        Role customer = new Role(1L);
+        customer.setName(Role.RoleName.ROLE_CUSTOMER);
+        User user = new User();
+        user.setId(1L);
+        user.setEmail("user@example.com");
+        user.setTokenVersion(3);
+        user.setRoles(Set.of(customer));
+
+        User actual = jwtUtil.getUser(jwtUtil.generateToken(user));
+
+        assertEquals(user.getId(), actual.getId());
+        assertEquals(user.getEmail(), actual.getEmail());
+        assertEquals(user.getTokenVersion(), actual.getTokenVersion());
+        assertEquals(List.of(Role.RoleName.ROLE_CUSTOMER), actual.getRoles()
+                .stream()
+                .map(Role::getName)
+                .toList());
+    }
+
+    @Test
+    @DisplayName("Verify that getUser() rejects a signed token without version or roles")
+    void getUser_MissingClaims_ThrowsException() {
+        String withoutVersion = sign(Jwts.builder()
+                .setSubject("user@example.com")
+                .claim("id", 1L)
+                .claim("roles", List.of("ROLE_CUSTOMER")));
+        String withoutRoles = sign(Jwts.builder()
+                .setSubject("user@example.com")
+                .claim("id", 1L)
+                .claim("ver", 0));
+
+        assertThrows(JwtException.class, () -> jwtUtil.getUser(withoutVersion));
+        assertThrows(JwtException.class, () -> jwtUtil.getUser(withoutRoles));
+    }
+
+    private String sign(JwtBuilder builder) {
+        return builder
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static JwtUtil createJwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", EXPIRATION);
+        return jwtUtil;
+    }
+}
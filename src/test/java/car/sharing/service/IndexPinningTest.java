@@ -0,0 +1,100 @@
+package car.sharing.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.user.UserSearchIndex;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Rebuilds every in-memory index on a virtual thread while all connections of the pool
+ * are taken, so the rebuild waits for one inside its lock. A rebuild guarded by a monitor
+ * would pin the carrier for that wait, which JFR records as jdk.VirtualThreadPinned
+ */
+@DataJpaTest(properties = "spring.threads.virtual.enabled=true")
+@Import({CarCatalogueIndex.class, CarAvailabilityIndex.class, UserSearchIndex.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IndexPinningTest {
+    private static final Duration WAIT_FOR_CONNECTION = Duration.ofMillis(200);
+    @Autowired
+    private CarCatalogueIndex carCatalogueIndex;
+    @Autowired
+    private CarAvailabilityIndex carAvailabilityIndex;
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Test
+    @DisplayName("Verify that rebuilding the catalogue doesn't pin the carrier thread")
+    void rebuild_CarCatalogueIndex_DoesNotPinCarrierThread() throws Exception {
+        assertNotPinned(carCatalogueIndex::rebuild);
+    }
+
+    @Test
+    @DisplayName("Verify that rebuilding the availability calendars doesn't pin the carrier thread")
+    void rebuild_CarAvailabilityIndex_DoesNotPinCarrierThread() throws Exception {
+        assertNotPinned(carAvailabilityIndex::rebuild);
+    }
+
+    @Test
+    @DisplayName("Verify that rebuilding the user search index doesn't pin the carrier thread")
+    void rebuild_UserSearchIndex_DoesNotPinCarrierThread() throws Exception {
+        assertNotPinned(userSearchIndex::rebuild);
+    }
+
+    private void assertNotPinned(Runnable rebuild) throws Exception {
+        // the first rebuild loads classes, which may briefly pin the carrier, so it is not recorded
+        Thread.ofVirtual().start(rebuild).join();
+        List<RecordedEvent> pinnedEvents = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.onEvent("jdk.VirtualThreadPinned", pinnedEvents::add);
+            recording.startAsync();
+
+            List<Connection> taken = takeAllConnections();
+            Thread rebuilding;
+            try {
+                rebuilding = Thread.ofVirtual().start(rebuild);
+                Thread.sleep(WAIT_FOR_CONNECTION);
+            } finally {
+                for (Connection connection : taken) {
+                    connection.close();
+                }
+            }
+            rebuilding.join();
+            // delivers all recorded events before returning
+            recording.stop();
+        }
+
+        assertTrue(pinnedEvents.isEmpty(), "Carrier thread was pinned: " + pinnedEvents);
+    }
+
+    private List<Connection> takeAllConnections() throws SQLException {
+        List<Connection> taken = new ArrayList<>();
+        for (int i = 0; i < dataSource.getMaximumPoolSize(); i++) {
+            taken.add(dataSource.getConnection());
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,50 @@
+package car.sharing.service.availability;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AvailabilityCalendarTest {
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2024-04-01");
+    private static final int DAYS = 30;
+
+    @Test
+    @DisplayName("Verify that a window is free until every unit is taken on one of its days")
+    void isFree_EveryUnitTakenOnOneDay_IsNotFree() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(2, FIRST_DAY, DAYS);
+
+        calendar.occupy(FIRST_DAY.plusDays(2), FIRST_DAY.plusDays(5));
+        assertTrue(calendar.isFree(FIRST_DAY, FIRST_DAY.plusDays(10)));
+
+        calendar.occupy(FIRST_DAY.plusDays(5), FIRST_DAY.plusDays(8));
+        assertFalse(calendar.isFree(FIRST_DAY, FIRST_DAY.plusDays(10)));
+        assertFalse(calendar.isFree(FIRST_DAY.plusDays(5), FIRST_DAY.plusDays(5)));
+        assertTrue(calendar.isFree(FIRST_DAY, FIRST_DAY.plusDays(4)));
+        assertTrue(calendar.isFree(FIRST_DAY.plusDays(6), FIRST_DAY.plusDays(10)));
+    }
+
+    @Test
+    @DisplayName("Verify that days outside the calendar are ignored when taken and never free")
+    void isFree_WindowOutsideCalendar_IsNotFree() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(1, FIRST_DAY, DAYS);
+
+        // a rental that has started before the calendar and ends after it
+        calendar.occupy(FIRST_DAY.minusDays(3), FIRST_DAY.plusDays(DAYS + 3));
+
+        assertFalse(calendar.isFree(FIRST_DAY, FIRST_DAY));
+        assertFalse(calendar.isFree(FIRST_DAY.plusDays(DAYS - 1), FIRST_DAY.plusDays(DAYS)));
+        assertFalse(new AvailabilityCalendar(1, FIRST_DAY, DAYS)
+                .isFree(FIRST_DAY, FIRST_DAY.plusDays(DAYS)));
+    }
+
+    @Test
+    @DisplayName("Verify that a car without units is never free")
+    void isFree_NoUnits_IsNotFree() {
+        AvailabilityCalendar calendar = new AvailabilityCalendar(0, FIRST_DAY, DAYS);
+
+        assertFalse(calendar.isFree(FIRST_DAY, FIRST_DAY.plusDays(1)));
+    }
+}
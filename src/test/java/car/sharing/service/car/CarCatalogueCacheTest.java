@@ -0,0 +1,93 @@
+package car.sharing.service.car;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CarSearchParametersDto;
+import car.sharing.model.Car;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class CarCatalogueCacheTest {
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+    private static final CarSearchParametersDto TESLAS =
+            new CarSearchParametersDto(null, List.of("Tesla"), null, null, null);
+    private static final CarSearchParametersDto BMWS =
+            new CarSearchParametersDto(null, List.of("BMW"), null, null, null);
+    private final CarCatalogueCache carCatalogueCache =
+            new CarCatalogueCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    @DisplayName("Verify that an inventory change reloads only the lists containing the car")
+    void evictInventory_CarInOneList_ReloadsThatListOnly() {
+        load(TESLAS, PAGE, car(1L, "Tesla"));
+        load(BMWS, PAGE, car(2L, "BMW"));
+        load(BMWS, PageRequest.of(0, 10, Sort.by("inventory")), car(2L, "BMW"));
+
+        carCatalogueCache.evictInventory(1L, false);
+        loads.set(0);
+        load(TESLAS, PAGE, car(1L, "Tesla"));
+        load(BMWS, PAGE, car(2L, "BMW"));
+
+        assertEquals(1, loads.get());
+
+        load(BMWS, PageRequest.of(0, 10, Sort.by("inventory")), car(2L, "BMW"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Verify that available cars are reloaded once a car runs out or is back")
+    void evictInventory_AvailabilityChanged_ReloadsAvailableCars() {
+        load(null, PAGE, car(2L, "BMW"));
+
+        carCatalogueCache.evictInventory(1L, false);
+        loads.set(0);
+        load(null, PAGE, car(2L, "BMW"));
+
+        assertEquals(0, loads.get());
+
+        carCatalogueCache.evictInventory(1L, true);
+        load(null, PAGE, car(1L, "Tesla"), car(2L, "BMW"));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Verify that a change of a car reloads every list")
+    void evict_CarChanged_ReloadsEveryList() {
+        load(TESLAS, PAGE, car(1L, "Tesla"));
+        load(BMWS, PAGE, car(2L, "BMW"));
+
+        carCatalogueCache.evict(3L);
+        loads.set(0);
+        load(TESLAS, PAGE, car(1L, "Tesla"));
+        load(BMWS, PAGE, car(2L, "BMW"));
+
+        assertEquals(2, loads.get());
+    }
+
+    private void load(
+            CarSearchParametersDto parametersDto,
+            Pageable pageable,
+            CarResponseDto... cars) {
+        carCatalogueCache.getList(parametersDto, pageable, () -> {
+            loads.incrementAndGet();
+            return List.of(cars);
+        });
+    }
+
+    private CarResponseDto car(Long id, String brand) {
+        return new CarResponseDto(id, "Model", brand, Car.Type.SEDAN, 1, BigDecimal.TEN,
+                null, null);
+    }
+}
@@ -0,0 +1,197 @@
+package car.sharing.service.car;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import car.sharing.dto.car.CarFacetsDto;
+import car.sharing.dto.car.CarResponseDto;
+import car.sharing.dto.car.CarSearchParametersDto;
+import car.sharing.exception.IndexNotReadyException;
+import car.sharing.model.Car;
+import car.sharing.repository.CarReadRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({CarCatalogueIndex.class, CarAvailabilityIndex.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CarCatalogueIndexTest {
+    @Autowired
+    private CarCatalogueIndex carCatalogueIndex;
+    @Autowired
+    private CarReadRepository carReadRepository;
+    @Autowired
+    private CarAvailabilityIndex carAvailabilityIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        insertCar(1L, "Camry", "Toyota", "SEDAN", "9.00");
+        insertCar(2L, "Corolla", "TOYOTA", "SEDAN", "12.00");
+        insertCar(3L, "Model S", "Tesla", "UNIVERSAL", "15.59");
+        insertCar(4L, "X5", "BMW", "SUV", "30.00");
+        carCatalogueIndex.rebuild();
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM cars");
+    }
+
+    @Test
+    @DisplayName("Verify that search() intersects filters, ignores case of brands and sorts")
+    void search_SeveralFilters_ReturnsSortedPage() {
+        CarSearchParametersDto toyotas = params(List.of("toyota"), List.of("SEDAN"),
+                List.of(new BigDecimal("9.00"), new BigDecimal("12.00")));
+        CarSearchParametersDto allPrices = params(null, null, List.of(new BigDecimal("100")));
+
+        assertEquals(List.of(1L, 2L), ids(toyotas, Pageable.unpaged()));
+        assertEquals(List.of(4L, 3L), ids(allPrices,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "dailyFee"))));
+        assertEquals(List.of(2L, 1L), ids(allPrices,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "dailyFee"))));
+    }
+
+    @Test
+    @DisplayName("Verify that search() returns the cars of the page as they are in the database")
+    void search_InventoryChangedSinceIndexed_ReturnsCurrentInventory() {
+        CarSearchParametersDto suvs = params(null, List.of("SUV"), null);
+
+        jdbcTemplate.update("UPDATE cars SET inventory = 0 WHERE id = 4");
+
+        assertEquals(List.of(0), carCatalogueIndex.search(suvs, Pageable.unpaged())
+                .orElseThrow()
+                .stream()
+                .map(CarResponseDto::inventory)
+                .toList());
+        assertEquals(Optional.empty(), carCatalogueIndex.search(suvs,
+                PageRequest.of(0, 2, Sort.by("inventory"))));
+    }
+
+    @Test
+    @DisplayName("Verify that facets and nearest cars are refused till the catalogue is built")
+    void getFacets_CatalogueNotBuilt_ThrowsException() {
+        CarCatalogueIndex notBuilt = new CarCatalogueIndex(carReadRepository,
+                carAvailabilityIndex, transactionManager, new SimpleMeterRegistry(), false);
+
+        assertThrows(IndexNotReadyException.class, () -> notBuilt.getFacets(null));
+        assertThrows(IndexNotReadyException.class,
+                () -> notBuilt.findNearest(50.4501, 30.5234, 10, null, 10));
+        assertEquals(Optional.empty(), notBuilt.search(
+                params(null, List.of("SUV"), null), Pageable.unpaged()));
+    }
+
+    @Test
+    @DisplayName("Verify that each facet is counted with every filter but its own")
+    void getFacets_BrandsFiltered_CountsOtherBrandsToo() {
+        CarFacetsDto expected = new CarFacetsDto(2,
+                Map.of("BMW", 1, "Tesla", 1, "Toyota", 2),
+                Map.of(Car.Type.SUV, 1, Car.Type.UNIVERSAL, 1));
+
+        CarFacetsDto actual = carCatalogueIndex.getFacets(
+                params(List.of("Tesla", "BMW"), null, null));
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Verify that a refreshed car is searched as it is in the database")
+    void refresh_DeletedCar_IsNotFound() {
+        CarSearchParametersDto suvs = params(null, List.of("SUV"), null);
+
+        jdbcTemplate.update("UPDATE cars SET is_deleted = TRUE WHERE id = 4");
+        carCatalogueIndex.refresh(4L);
+
+        assertEquals(List.of(), ids(suvs, Pageable.unpaged()));
+        assertEquals(3, carCatalogueIndex.getFacets(null).total());
+    }
+
+    @Test
+    @DisplayName("Verify that findNearest() finds cars in stock of the types, the nearest first")
+    void findNearest_CarsAround_ReturnsNearestInStock() {
+        locate(1L, 50.4412, 30.5215);
+        locate(2L, 50.4501, 30.5234);
+        locate(3L, 50.4547, 30.5238);
+        locate(4L, 50.4600, 30.6000);
+        jdbcTemplate.update("UPDATE cars SET inventory = 0 WHERE id = 2");
+        carCatalogueIndex.rebuild();
+
+        assertEquals(List.of(3L, 1L, 4L), nearestIds(null));
+        assertEquals(List.of(1L), nearestIds(List.of("sedan")));
+    }
+
+    @Test
+    @DisplayName("Verify that findNearest() leaves out cars rented out since they were indexed")
+    void findNearest_LastUnitRentedElsewhere_ReturnsNextNearest() {
+        locate(1L, 50.4412, 30.5215);
+        locate(3L, 50.4547, 30.5238);
+        locate(4L, 50.4600, 30.6000);
+        carCatalogueIndex.rebuild();
+
+        // taken on another instance, this one hasn't reloaded the car
+        jdbcTemplate.update("UPDATE cars SET inventory = 0 WHERE id = 3");
+
+        assertEquals(List.of(1L), nearestIds(null, 1));
+        assertEquals(List.of(1L, 4L), nearestIds(null, 10));
+    }
+
+    private List<Long> nearestIds(List<String> types) {
+        return nearestIds(types, 10);
+    }
+
+    private List<Long> nearestIds(List<String> types, int limit) {
+        return carCatalogueIndex.findNearest(50.4501, 30.5234, 10, types, limit)
+                .stream()
+                .map(nearbyCar -> nearbyCar.car().id())
+                .toList();
+    }
+
+    private void locate(Long id, double latitude, double longitude) {
+        jdbcTemplate.update("UPDATE cars SET latitude = ?, longitude = ? WHERE id = ?",
+                latitude, longitude, id);
+    }
+
+    private List<Long> ids(CarSearchParametersDto parametersDto, Pageable pageable) {
+        return carCatalogueIndex.search(parametersDto, pageable)
+                .orElseThrow()
+                .stream()
+                .map(CarResponseDto::id)
+                .toList();
+    }
+
+    private CarSearchParametersDto params(
+            List<String> brands,
+            List<String> types,
+            List<BigDecimal> priceBetween) {
+        return new CarSearchParametersDto(null, brands, priceBetween, types, null);
+    }
+
+    private void insertCar(Long id, String model, String brand, String type, String dailyFee) {
+        jdbcTemplate.update("INSERT INTO cars (id, model, brand, type, inventory, daily_fee, "
+                + "is_deleted) VALUES (?, ?, ?, ?, 1, ?, FALSE)",
+                id, model, brand, type, new BigDecimal(dailyFee));
+    }
+}
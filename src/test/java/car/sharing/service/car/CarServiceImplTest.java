@@ -4,9 +4,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -16,13 +16,16 @@ import car.sharing.dto.car.CarUpdateDto;
 import car.sharing.dto.car.CreateCarRequestDto;
 import car.sharing.mapper.CarMapper;
 import car.sharing.model.Car;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.CarCreated;
+import car.sharing.repository.CarReadRepository;
 import car.sharing.repository.CarRepository;
 import car.sharing.repository.specification.car.CarSpecificationBuilder;
-import car.sharing.telegram.strategy.NotificationStrategy;
-import car.sharing.telegram.strategy.car.TelegramCarCreationNotificationService;
-import car.sharing.telegram.strategy.car.TelegramCarUpdatingNotificationService;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.DisplayName;
@@ -30,6 +33,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -39,18 +43,24 @@ import org.springframework.data.jpa.domain.Specification;
 
 @ExtendWith(MockitoExtension.class)
 class CarServiceImplTest {
-    private static final String CAR_CREATION = "car creation";
-    private static final String TELEGRAM = "telegram";
-    private static final String CAR_UPDATING = "car updating";
     private static final String MODEL_COLUMN = "model";
     @Mock
     private CarRepository carRepository;
     @Mock
+    private CarReadRepository carReadRepository;
+    @Mock
     private CarMapper carMapper;
     @Mock
     private CarSpecificationBuilder carSpecificationBuilder;
     @Mock
-    private NotificationStrategy<Car> notificationStrategy;
+    private OutboxPublisher outboxPublisher;
+    @Mock
+    private CarAvailabilityIndex carAvailabilityIndex;
+    @Mock
+    private CarCatalogueIndex carCatalogueIndex;
+    @Spy
+    private CarCatalogueCache carCatalogueCache =
+            new CarCatalogueCache(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
     @InjectMocks
     private CarServiceImpl carService;
 
@@ -62,7 +72,9 @@ class CarServiceImplTest {
                 "Test brand",
                 "Universal",
                 10,
-                BigDecimal.valueOf(10.99)
+                BigDecimal.valueOf(10.99),
+                null,
+                null
         );
 
         Car car = Car.builder()
@@ -80,18 +92,19 @@ class CarServiceImplTest {
                 car.getBrand(),
                 car.getType(),
                 car.getInventory(),
-                car.getDailyFee()
+                car.getDailyFee(),
+                car.getLatitude(),
+                car.getLongitude()
         );
 
         when(carMapper.toModel(requestDto)).thenReturn(car);
         when(carRepository.save(car)).thenReturn(car);
         when(carMapper.toResponseDto(car)).thenReturn(expected);
-        when(notificationStrategy.getNotificationService(TELEGRAM, CAR_CREATION))
-                .thenReturn(mock(TelegramCarCreationNotificationService.class));
 
         CarResponseDto actual = carService.create(requestDto);
 
         assertEquals(expected, actual);
+        verify(outboxPublisher, times(1)).publish(CarCreated.of(car));
     }
 
     @Test
@@ -101,14 +114,11 @@ class CarServiceImplTest {
         Car secondCar = createCar(2L, "Test brand 2", "Test model 2");
 
         Pageable pageable = PageRequest.of(0, 5);
-        List<Car> cars = List.of(firstCar, secondCar);
 
         CarResponseDto firstDto = createResponseDto(firstCar);
         CarResponseDto secondDto = createResponseDto(secondCar);
 
-        when(carRepository.findAllAvailable(pageable)).thenReturn(cars);
-        when(carMapper.toResponseDto(firstCar)).thenReturn(firstDto);
-        when(carMapper.toResponseDto(secondCar)).thenReturn(secondDto);
+        when(carReadRepository.findAllAvailable(pageable)).thenReturn(List.of(firstDto, secondDto));
 
         List<CarResponseDto> expected = List.of(firstDto, secondDto);
         List<CarResponseDto> actual = carService.getAllCars(pageable);
@@ -124,10 +134,10 @@ class CarServiceImplTest {
 
         assertEquals(expected.size(), actual.size());
 
-        verify(carRepository, times(2)).findAllAvailable(any());
-        verify(carMapper, times(2)).toResponseDto(any());
-        verifyNoMoreInteractions(carRepository);
-        verifyNoMoreInteractions(carMapper);
+        verify(carReadRepository, times(2)).findAllAvailable(any());
+        verifyNoMoreInteractions(carReadRepository);
+        verifyNoInteractions(carRepository);
+        verifyNoInteractions(carMapper);
     }
 
     @Test
@@ -152,6 +162,60 @@ class CarServiceImplTest {
         verifyNoMoreInteractions(carMapper);
     }
 
+    @Test
+    @DisplayName("Verify that getInfo() loads the car once and serves repeated calls from cache")
+    void getInfo_RepeatedCalls_LoadsCarOnce() {
+        Car car = createCar(1L, "Test brand", "Test model");
+        CarResponseDto expected = createResponseDto(car);
+
+        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
+        when(carMapper.toResponseDto(car)).thenReturn(expected);
+
+        carService.getInfo(car.getId());
+        CarResponseDto actual = carService.getInfo(car.getId());
+
+        assertEquals(expected, actual);
+        verify(carRepository, times(1)).findById(car.getId());
+    }
+
+    @Test
+    @DisplayName("Verify that update() evicts the car, so the next getInfo() reloads it")
+    void update_CachedCar_EvictsCar() {
+        Car car = createCar(1L, "Test brand", "Test model");
+        final CarUpdateDto updateDto =
+                createUpdateDto(car, "Changed test brand", "Changed test model");
+
+        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
+        when(carMapper.toResponseDto(car)).thenReturn(createResponseDto(car));
+
+        carService.getInfo(car.getId());
+        carService.update(car.getId(), updateDto);
+        carService.getInfo(car.getId());
+
+        verify(carCatalogueCache, times(1)).evict(car.getId());
+        // once for each getInfo() and once for update()
+        verify(carRepository, times(3)).findById(car.getId());
+    }
+
+    @Test
+    @DisplayName("Verify that search() with the same params in other order hits the cache")
+    void search_SameParamsInOtherOrder_LoadsOnce() {
+        CarSearchParametersDto parametersDto = new CarSearchParametersDto(
+                List.of("A", "B"), null, null, null, null);
+        final CarSearchParametersDto reordered = new CarSearchParametersDto(
+                List.of("B", "A"), null, null, null, null);
+        PageRequest pageable = PageRequest.of(0, 5);
+
+        when(carSpecificationBuilder.build(parametersDto)).thenReturn(Specification.where(null));
+        when(carRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(Page.empty());
+
+        carService.search(parametersDto, pageable);
+        carService.search(reordered, pageable);
+
+        verify(carRepository, times(1)).findAll(any(Specification.class), any(Pageable.class));
+    }
+
     @Test
     @DisplayName("Verify that findById() method works as expected with non-valid params")
     void findById_NonValidId_ThrowsException() {
@@ -182,12 +246,11 @@ class CarServiceImplTest {
                 updateDto.brand(),
                 car.getType(),
                 car.getInventory(),
-                car.getDailyFee());
+                car.getDailyFee(),
+                car.getLatitude(),
+                car.getLongitude());
 
         when(carRepository.findById(car.getId())).thenReturn(carOptional);
-        when(notificationStrategy.getNotificationService(
-                TELEGRAM, CAR_UPDATING))
-                .thenReturn(mock(TelegramCarUpdatingNotificationService.class));
         doAnswer(invocation -> {
             Car carToUpdate = invocation.getArgument(0);
             CarUpdateDto dtoToUpdate = invocation.getArgument(1);
@@ -276,6 +339,7 @@ class CarServiceImplTest {
                                         null,
                                         null,
                                         null,
+                                        null,
                                         null),
                                 PageRequest.of(0, 10)));
 
@@ -288,6 +352,7 @@ class CarServiceImplTest {
     private CarSearchParametersDto createSearchParams(String model) {
         return new CarSearchParametersDto(
                 List.of(model), List.of(),
+                        null,
                         null,
                         null);
     }
@@ -298,7 +363,9 @@ class CarServiceImplTest {
                 brand,
                 car.getInventory(),
                 car.getDailyFee(),
-                car.getType().name());
+                car.getType().name(),
+                car.getLatitude(),
+                car.getLongitude());
     }
 
     private CarResponseDto createResponseDto(Car car) {
@@ -308,7 +375,9 @@ class CarServiceImplTest {
                 car.getBrand(),
                 car.getType(),
                 car.getInventory(),
-                car.getDailyFee());
+                car.getDailyFee(),
+                car.getLatitude(),
+                car.getLongitude());
     }
 
     private Car createCar(Long id, String brand, String model) {
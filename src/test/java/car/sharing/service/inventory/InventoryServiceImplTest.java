@@ -0,0 +1,183 @@
+package car.sharing.service.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.exception.CarRentalException;
+import car.sharing.holder.LinksHolder;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@Import({InventoryServiceImpl.class, CarAvailabilityIndex.class, CarCatalogueCache.class,
+        CarCatalogueIndex.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceImplTest extends LinksHolder {
+    private static final int RENTERS = 64;
+    private static final int ATTEMPTS_PER_RENTER = 4;
+    private static final Long CAR_ID = 1L;
+    private static final int CAR_INVENTORY = 10;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private CarAvailabilityIndex carAvailabilityIndex;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Sql(scripts = {
+            ADD_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            REMOVE_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that reserve() never oversells a car under concurrent renters")
+    void reserve_ConcurrentRenters_NeverOversells() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(RENTERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < RENTERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ATTEMPTS_PER_RENTER; j++) {
+                    try {
+                        inventoryService.reserve(CAR_ID);
+                        reserved.incrementAndGet();
+                        // give the unit back every other time to keep the row hot
+                        if (j % 2 == 0) {
+                            inventoryService.release(CAR_ID);
+                            reserved.decrementAndGet();
+                        }
+                    } catch (CarRentalException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int actualInventory = carRepository.findById(CAR_ID).orElseThrow().getInventory();
+        assertTrue(actualInventory >= 0);
+        assertTrue(rejected.get() > 0);
+        assertEquals(CAR_INVENTORY, reserved.get() + actualInventory);
+    }
+
+    @Test
+    @Sql(scripts = {
+            ADD_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            "classpath:database/remove-pending-payments.sql",
+            REMOVE_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that reserve() books ahead only the days a unit is free on")
+    void reserve_WindowBookedAhead_RejectsOverlappingWindows() {
+        LocalDate from = LocalDate.now().plusDays(10);
+        LocalDate to = from.plusDays(2);
+        for (long id = 1; id <= CAR_INVENTORY; id++) {
+            jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                    + "car_id, user_id, status, is_deleted, is_advance) "
+                    + "VALUES (?, ?, ?, ?, ?, 'LASTING', FALSE, TRUE)",
+                    id, from, to, CAR_ID, id);
+        }
+        carAvailabilityIndex.rebuild();
+
+        final CarRentalException exception = assertThrows(CarRentalException.class,
+                () -> inventoryService.reserve(CAR_ID, to, to.plusDays(3), true));
+        assertThrows(CarRentalException.class,
+                () -> inventoryService.reserve(CAR_ID, LocalDate.now(), from, false));
+        inventoryService.reserve(CAR_ID, LocalDate.now(), from.minusDays(1), false);
+        inventoryService.reserve(CAR_ID, to.plusDays(1), to.plusDays(3), true);
+
+        assertEquals("Sorry, this car is not available for these days. Every one is booked",
+                exception.getMessage());
+        // only the rental starting today has taken a unit
+        assertEquals(CAR_INVENTORY - 1,
+                carRepository.findById(CAR_ID).orElseThrow().getInventory());
+        assertEquals(Set.of(2L), carAvailabilityIndex.findAvailableCarIds(from, to));
+        assertEquals(Set.of(CAR_ID, 2L),
+                carAvailabilityIndex.findAvailableCarIds(to.plusDays(1), to.plusDays(3)));
+    }
+
+    @Test
+    @Sql(scripts = {
+            ADD_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = {
+            "classpath:database/remove-pending-payments.sql",
+            REMOVE_CARS_FILE_NAME
+    }, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    @DisplayName("Verify that findAvailableCarIds() reads the database till the index is built")
+    void findAvailableCarIds_IndexNotBuilt_ReadsDatabase() {
+        LocalDate from = LocalDate.now().plusDays(10);
+        LocalDate to = from.plusDays(2);
+        for (long id = 1; id <= CAR_INVENTORY; id++) {
+            jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                    + "car_id, user_id, status, is_deleted, is_advance) "
+                    + "VALUES (?, ?, ?, ?, ?, 'PENDING', FALSE, TRUE)",
+                    id, from, to, CAR_ID, id);
+        }
+        CarAvailabilityIndex notBuilt = new CarAvailabilityIndex(carRepository,
+                rentalRepository, transactionManager, new SimpleMeterRegistry(), 365, false);
+
+        assertEquals(Set.of(2L), notBuilt.findAvailableCarIds(from, to));
+        assertEquals(Set.of(CAR_ID, 2L),
+                notBuilt.findAvailableCarIds(LocalDate.now(), from.minusDays(1)));
+        assertEquals(Set.of(), notBuilt.findAvailableCarIds(from, from.plusYears(2)));
+    }
+
+    @Test
+    @DisplayName("Verify that reserve() throws an exception when passing non-valid car id")
+    void reserve_NonValidCarId_ThrowsException() {
+        Long carId = 1251261363L;
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> inventoryService.reserve(carId));
+
+        String expected = "There is no car by id " + carId;
+        String actual = exception.getMessage();
+
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,123 @@
+package car.sharing.service.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.load.ExternalApiStub;
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.outbox.OutboxEventSerializer;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import car.sharing.service.rental.OverdueRentalIndex;
+import car.sharing.service.stats.CarTypeDailyStatsAggregator;
+import car.sharing.service.stats.DailyStatsRollup;
+import car.sharing.util.StripeUtil;
+import com.stripe.Stripe;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+        "stripe.reconciliation.page.size=2",
+        "stripe.reconciliation.parallelism=2",
+        "stripe.reconciliation.rate=1000"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({PaymentReconciler.class, PaymentSettlement.class, StripeUtil.class, OutboxPublisher.class,
+        OutboxEventSerializer.class, InventoryServiceImpl.class, CarAvailabilityIndex.class,
+        CarCatalogueCache.class, CarCatalogueIndex.class, OverdueRentalIndex.class,
+        PaymentStrategy.class, InTimePaymentService.class, FinePaymentService.class,
+        DailyStatsRollup.class, CarTypeDailyStatsAggregator.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql",
+        "classpath:database/insert-pending-payments.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class PaymentReconcilerTest {
+    private static final long STRIPE_LATENCY_MILLIS = 50;
+    private static ExternalApiStub stripeStub;
+    @Autowired
+    private PaymentReconciler paymentReconciler;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void beforeAll() throws IOException {
+        stripeStub = new ExternalApiStub(STRIPE_LATENCY_MILLIS);
+        stripeStub.setStripeSessionStatus("cs_test_1", "complete");
+        stripeStub.setStripeSessionStatus("cs_test_2", "expired");
+        Stripe.apiKey = "sk_test_reconciliation";
+        Stripe.overrideApiBase(stripeStub.getStripeApiBase());
+    }
+
+    @AfterAll
+    static void afterAll() {
+        Stripe.overrideApiBase(Stripe.LIVE_API_BASE);
+        stripeStub.close();
+    }
+
+    @Test
+    @DisplayName("Verify that reconcile() settles finished sessions and keeps open ones pending")
+    void reconcile_PendingPayments_SettlesFinishedSessions() {
+        paymentReconciler.reconcile();
+
+        Payment paid = paymentRepository.findById(1L).orElseThrow();
+        assertEquals(Payment.Status.PAID, paid.getStatus());
+        assertEquals(Rental.Status.LASTING,
+                rentalRepository.findById(paid.getRentalId()).orElseThrow().getStatus());
+        assertEquals(Payment.Status.EXPIRED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE id = 2", String.class));
+        assertEquals(Payment.Status.PENDING,
+                paymentRepository.findById(3L).orElseThrow().getStatus());
+
+        // three payments in pages of two, two requests to Stripe at most
+        assertEquals(3, stripeStub.getStripeRetrievals());
+        assertTrue(stripeStub.getMaxActiveStripeRetrievals() <= 2);
+        assertEquals(1.0, sessions("complete"));
+        assertEquals(1.0, sessions("expired"));
+        assertEquals(1.0, sessions("open"));
+        assertEquals(2, meterRegistry.get("stripe.reconciliation.lag").timer().count());
+        assertEquals(1, meterRegistry.get("stripe.reconciliation.runs").timer().count());
+    }
+
+    private double sessions(String result) {
+        return meterRegistry.get("stripe.reconciliation.sessions")
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
@@ -3,32 +3,52 @@ package car.sharing.service.payment;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import car.sharing.dto.payment.PaymentResponseDto;
 import car.sharing.mapper.PaymentMapper;
+import car.sharing.model.Car;
 import car.sharing.model.Payment;
+import car.sharing.model.Rental;
 import car.sharing.model.User;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.PaymentReadRepository;
 import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
 import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentServiceImplTest {
@@ -45,7 +65,24 @@ class PaymentServiceImplTest {
     @Mock
     private PaymentRepository paymentRepository;
     @Mock
+    private PaymentReadRepository paymentReadRepository;
+    @Mock
     private PaymentMapper paymentMapper;
+    @Mock
+    private RentalRepository rentalRepository;
+    @Mock
+    private CarRepository carRepository;
+    @Mock
+    private PaymentSessionService paymentSessionService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private PaymentSettlement paymentSettlement;
+    @Spy
+    private PaymentStrategy paymentStrategy = new PaymentStrategy(
+            List.of(new InTimePaymentService(), new FinePaymentService()));
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
     @InjectMocks
     private PaymentServiceImpl paymentService;
 
@@ -55,6 +92,113 @@ class PaymentServiceImplTest {
                 + "1Bo27kGJbBd4jxHX2DRVhKwi0r22d8oXCDasYqhyYBmZS10BGOjT0DwTU00RWf8c3Sd";
     }
 
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+        ReflectionTestUtils.setField(paymentService, "holdWindow", Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("Verify that create() saves a pending payment and creates session after commit")
+    void create_PendingRental_SavesPaymentBeforeCreatingSession()
+            throws StripeException, MalformedURLException {
+        User user = new User();
+        user.setId(1L);
+
+        Car car = createCar();
+        Rental rental = createRental(car.getId());
+
+        when(paymentRepository.findByStatusAndUserId(Payment.Status.PENDING, user.getId()))
+                .thenReturn(Optional.empty());
+        when(rentalRepository.findRentalByStatusAndUserId(Rental.Status.PENDING, user.getId()))
+                .thenReturn(Optional.of(rental));
+        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
+
+        paymentService.create(user);
+
+        Payment expectedPayment = Payment.builder()
+                .type(Payment.Type.PAYMENT)
+                .status(Payment.Status.PENDING)
+                .rentalId(rental.getId())
+                .userId(user.getId())
+                .amountToPay(new BigDecimal("60.00"))
+                .build();
+        InOrder inOrder = inOrder(paymentRepository, transactionManager, paymentSessionService);
+        inOrder.verify(paymentRepository).save(expectedPayment);
+        inOrder.verify(transactionManager).commit(any());
+        // the checkout closes five minutes before the 24 hour hold of the rental ends
+        inOrder.verify(paymentSessionService).attachSession(expectedPayment, "Tesla Model S",
+                rental.getCreatedAt().plusHours(24).minusMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Verify that create() throws an exception when the rental is about to expire")
+    void create_RentalHoldAboutToEnd_ThrowsException() {
+        User user = new User();
+        user.setId(1L);
+
+        Rental rental = createRental(1L);
+        rental.setCreatedAt(LocalDateTime.now().minusHours(23).minusMinutes(30));
+
+        when(paymentRepository.findByStatusAndUserId(Payment.Status.PENDING, user.getId()))
+                .thenReturn(Optional.empty());
+        when(rentalRepository.findRentalByStatusAndUserId(Rental.Status.PENDING, user.getId()))
+                .thenReturn(Optional.of(rental));
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.create(user));
+
+        verify(paymentRepository, never()).save(any());
+        verifyNoInteractions(paymentSessionService);
+    }
+
+    @Test
+    @DisplayName("Verify that create() retries session of a payment left without one")
+    void create_PendingPaymentWithoutSession_RetriesSession()
+            throws StripeException, MalformedURLException {
+        User user = new User();
+        user.setId(1L);
+
+        Car car = createCar();
+        Rental rental = createRental(car.getId());
+        Payment payment = createPayment(Payment.Status.PENDING, rental.getId(), BigDecimal.TEN);
+        payment.setSessionId(null);
+        payment.setSessionUrl(null);
+
+        when(paymentRepository.findByStatusAndUserId(Payment.Status.PENDING, user.getId()))
+                .thenReturn(Optional.of(payment));
+        when(rentalRepository.findById(rental.getId())).thenReturn(Optional.of(rental));
+        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
+
+        paymentService.create(user);
+
+        verify(paymentRepository, never()).save(any());
+        verify(paymentSessionService, times(1)).attachSession(payment, "Tesla Model S",
+                rental.getCreatedAt().plusHours(24).minusMinutes(5));
+    }
+
+    @Test
+    @DisplayName("Verify that create() throws an exception when pending payment has a session")
+    void create_PendingPaymentWithSession_ThrowsException() throws MalformedURLException {
+        User user = new User();
+        user.setId(1L);
+
+        Payment payment = createPayment(Payment.Status.PENDING, 1L, BigDecimal.TEN);
+
+        when(paymentRepository.findByStatusAndUserId(Payment.Status.PENDING, user.getId()))
+                .thenReturn(Optional.of(payment));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> paymentService.create(user));
+
+        String expected = "You already have a pending payment."
+                + " You should pay for that first or cancel (or return) your rental";
+        String actual = exception.getMessage();
+
+        assertEquals(expected, actual);
+        verify(transactionManager, times(1)).rollback(any());
+        verifyNoInteractions(paymentSessionService);
+    }
+
     @Test
     @DisplayName("Verify that getUserPayments() method works as expected with valid params")
     void getUserPayments_ValidParams_ReturnsValidResponse()
@@ -64,24 +208,52 @@ class PaymentServiceImplTest {
         Payment firstPayment = createPayment(Payment.Status.PAID, 1L, BigDecimal.valueOf(10 + 1));
         Payment secondPayment = createPayment(Payment.Status.PAID, 2L, BigDecimal.valueOf(10 + 2));
 
-        List<Payment> expectedPayments = List.of(firstPayment, secondPayment);
-
         PaymentResponseDto firstDto = createResponseDto(firstPayment);
         PaymentResponseDto secondDto = createResponseDto(secondPayment);
 
-        when(paymentRepository.findAllByUserId(1L, pageable)).thenReturn(expectedPayments);
-        when(paymentMapper.toResponseDto(firstPayment)).thenReturn(firstDto);
-        when(paymentMapper.toResponseDto(secondPayment)).thenReturn(secondDto);
+        when(paymentReadRepository.findAllByUserId(1L, pageable))
+                .thenReturn(List.of(firstDto, secondDto));
 
         List<PaymentResponseDto> expected = List.of(firstDto, secondDto);
         List<PaymentResponseDto> actual = paymentService.getUserPayments(1L, pageable);
 
         assertEquals(expected, actual);
 
-        verify(paymentRepository, times(1)).findAllByUserId(any(), any());
-        verify(paymentMapper, times(2)).toResponseDto(any());
-        verifyNoMoreInteractions(paymentRepository);
-        verifyNoMoreInteractions(paymentMapper);
+        verify(paymentReadRepository, times(1)).findAllByUserId(any(), any());
+        verifyNoInteractions(paymentRepository);
+        verifyNoInteractions(paymentMapper);
+    }
+
+    @Test
+    @DisplayName("Verify that success() completes the pending payment read under a lock")
+    void success_PendingPayment_CompletesLockedPayment() throws MalformedURLException {
+        User user = new User();
+        user.setId(1L);
+        Payment payment = createPayment(Payment.Status.PENDING, 1L, BigDecimal.TEN);
+        Rental rental = createRental(1L);
+        PaymentResponseDto expected = createResponseDto(payment);
+
+        when(paymentRepository.lockPendingByUserId(user.getId())).thenReturn(Optional.of(payment));
+        when(rentalRepository.findById(payment.getRentalId())).thenReturn(Optional.of(rental));
+        when(paymentMapper.toResponseDto(payment)).thenReturn(expected);
+
+        PaymentResponseDto actual = paymentService.success(user);
+
+        assertEquals(expected, actual);
+        verify(paymentSettlement, times(1)).complete(payment, rental);
+        verify(paymentRepository, never()).findByStatusAndUserId(any(), any());
+    }
+
+    @Test
+    @DisplayName("Verify that success() throws when the payment is no longer pending")
+    void success_NoPendingPayment_ThrowsException() {
+        User user = new User();
+        user.setId(1L);
+
+        when(paymentRepository.lockPendingByUserId(user.getId())).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> paymentService.success(user));
+        verifyNoInteractions(paymentSettlement);
     }
 
     @Test
@@ -104,6 +276,29 @@ class PaymentServiceImplTest {
         assertEquals(expected, actual);
     }
 
+    private Car createCar() {
+        return Car.builder()
+                .id(1L)
+                .brand("Tesla")
+                .model("Model S")
+                .type(Car.Type.SEDAN)
+                .inventory(10)
+                .dailyFee(BigDecimal.TEN)
+                .build();
+    }
+
+    private Rental createRental(Long carId) {
+        return Rental.builder()
+                .id(1L)
+                .status(Rental.Status.PENDING)
+                .rentalDate(LocalDate.now())
+                .requiredReturnDate(LocalDate.now().plusDays(5))
+                .carId(carId)
+                .userId(1L)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
     private PaymentResponseDto createResponseDto(Payment payment) {
         return new PaymentResponseDto(
                 payment.getId(),
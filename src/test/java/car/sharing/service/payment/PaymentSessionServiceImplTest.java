@@ -0,0 +1,76 @@
+package car.sharing.service.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import car.sharing.model.Payment;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.util.StripeUtil;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.net.URL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentSessionServiceImplTest {
+    private static final String SESSION_ID = "cs_test_a143DWKOtHJiHXu9Tga1ZC644WC6roLAN0IuMSxwkp";
+    private static final String SESSION_URL = "https://checkout.stripe.com/c/pay/" + SESSION_ID;
+    @Mock
+    private StripeUtil stripeUtil;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
+    @InjectMocks
+    private PaymentSessionServiceImpl paymentSessionService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Verify that attachSession() requests session with a key of payment and attempt")
+    void attachSession_PendingFine_AttachesSessionCreatedWithIdempotencyKey()
+            throws StripeException, MalformedURLException {
+        final Payment payment = Payment.builder()
+                .id(3L)
+                .rentalId(7L)
+                .type(Payment.Type.FINE)
+                .status(Payment.Status.PENDING)
+                .userId(1L)
+                .amountToPay(new BigDecimal("449.9100"))
+                .sessionAttempts(1)
+                .build();
+        Session session = new Session();
+        session.setId(SESSION_ID);
+        session.setUrl(SESSION_URL);
+
+        // the first session of the fine has expired
+        when(stripeUtil.createSession(44991L, "Tesla Model S", "payment-3-session-2", null))
+                .thenReturn(session);
+
+        Payment actual = paymentSessionService.attachSession(payment, "Tesla Model S", null);
+
+        assertEquals(SESSION_ID, actual.getSessionId());
+        assertEquals(new URL(SESSION_URL), actual.getSessionUrl());
+        assertEquals(2, actual.getSessionAttempts());
+        verify(paymentRepository, times(1))
+                .attachSession(3L, SESSION_ID, new URL(SESSION_URL));
+    }
+}
@@ -0,0 +1,136 @@
+package car.sharing.service.rental;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.model.Rental;
+import car.sharing.outbox.OutboxEventSerializer;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RentalOverdue;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OverdueRentalIndex.class, OutboxPublisher.class, OutboxEventSerializer.class,
+        PaymentStrategy.class, InTimePaymentService.class, FinePaymentService.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class OverdueRentalIndexTest {
+    private static final Long OVERDUE_RENTAL_ID = 1L;
+    private static final Long UPCOMING_RENTAL_ID = 2L;
+    private static final Long UNANNOUNCED_RENTAL_ID = 3L;
+    private static final int DAYS_OVERDUE = 3;
+    // 9.00 daily fee of the car 1, tripled for every overdue day
+    private static final BigDecimal FINE = BigDecimal.valueOf(81);
+    @Autowired
+    private OverdueRentalIndex overdueRentalIndex;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Verify that rebuild() indexes lasting rentals and calculates accrued fines")
+    void rebuild_LastingRentals_ReturnsOverdueWithFines() {
+        insertLastingRental(OVERDUE_RENTAL_ID, 1L, LocalDate.now().minusDays(DAYS_OVERDUE));
+        markAnnounced(OVERDUE_RENTAL_ID);
+        insertLastingRental(UPCOMING_RENTAL_ID, 2L, LocalDate.now().plusDays(2));
+
+        overdueRentalIndex.rebuild();
+
+        List<RentalOverdue> overdueRentals = overdueRentalIndex.getOverdueRentals();
+        assertEquals(1, overdueRentals.size());
+        assertEquals(OVERDUE_RENTAL_ID, overdueRentals.get(0).rentalId());
+        assertEquals(0, FINE.compareTo(overdueRentals.get(0).accruedFine()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+                overdueRentalIndex.getAccruedFine(UPCOMING_RENTAL_ID).orElseThrow()));
+        // already announced before the rebuild
+        assertEquals(0, overdueEvents());
+    }
+
+    @Test
+    @DisplayName("Verify that an overdue rental nobody has announced is announced once")
+    void rebuild_UnannouncedOverdueRental_PublishesRentalOverdueOnce() {
+        insertLastingRental(UNANNOUNCED_RENTAL_ID, 1L, LocalDate.now().minusDays(DAYS_OVERDUE));
+
+        overdueRentalIndex.rebuild();
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> overdueEvents() == 1);
+        assertEquals(UNANNOUNCED_RENTAL_ID, overdueRentalIndex.getOverdueRentals()
+                .get(0).rentalId());
+
+        // another instance, or this one after a restart, finds it announced
+        overdueRentalIndex.rebuild();
+        Rental rental = rentalRepository.findById(UNANNOUNCED_RENTAL_ID).orElseThrow();
+        overdueRentalIndex.add(rental);
+
+        await().during(Duration.ofMillis(500)).atMost(Duration.ofSeconds(5))
+                .until(() -> overdueEvents() == 1);
+    }
+
+    @Test
+    @DisplayName("Verify that a rental added past its deadline is announced and removed on return")
+    void add_RentalPastDeadline_PublishesRentalOverdue() {
+        insertLastingRental(OVERDUE_RENTAL_ID, 1L, LocalDate.now().minusDays(DAYS_OVERDUE));
+        Rental rental = rentalRepository.findById(OVERDUE_RENTAL_ID).orElseThrow();
+
+        overdueRentalIndex.add(rental);
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> overdueEvents() == 1);
+        assertEquals(1, overdueRentalIndex.getOverdueRentals().size());
+
+        overdueRentalIndex.remove(OVERDUE_RENTAL_ID);
+
+        assertTrue(overdueRentalIndex.getOverdueRentals().isEmpty());
+        assertTrue(overdueRentalIndex.getAccruedFine(OVERDUE_RENTAL_ID).isEmpty());
+    }
+
+    private void insertLastingRental(Long id, Long carId, LocalDate requiredReturnDate) {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, is_deleted) "
+                + "VALUES (?, ?, ?, ?, ?, 'LASTING', FALSE)",
+                id, requiredReturnDate.minusDays(5), requiredReturnDate, carId, id);
+    }
+
+    private void markAnnounced(Long id) {
+        jdbcTemplate.update("UPDATE rentals SET overdue_announced_at = CURRENT_TIMESTAMP "
+                + "WHERE id = ?", id);
+    }
+
+    private int overdueEvents() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_events WHERE type = 'RentalOverdue'",
+                Integer.class);
+    }
+}
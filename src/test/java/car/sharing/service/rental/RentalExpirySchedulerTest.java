@@ -0,0 +1,118 @@
+package car.sharing.service.rental;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import car.sharing.batch.ChunkedJobRunner;
+import car.sharing.batch.ExpiredRentalsJob;
+import car.sharing.model.Rental;
+import car.sharing.repository.RentalRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import car.sharing.service.stats.CarTypeDailyStatsAggregator;
+import car.sharing.service.stats.DailyStatsRollup;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {"rental.hold.window=PT2S", "rental.expiry.tick=PT0.05S"})
+@Import({RentalExpiryScheduler.class, ExpiredRentalsJob.class, ChunkedJobRunner.class,
+        InventoryServiceImpl.class, CarAvailabilityIndex.class, CarCatalogueCache.class,
+        CarCatalogueIndex.class, DailyStatsRollup.class, CarTypeDailyStatsAggregator.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql",
+        "classpath:database/insert-pending-payments.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class RentalExpirySchedulerTest {
+    private static final int CAR_INVENTORY = 10;
+    private static final Long FRESH_RENTAL_ID = 4L;
+    @Autowired
+    private RentalExpiryScheduler rentalExpiryScheduler;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Verify that rebuild() schedules pending rentals and overdue ones expire at once")
+    void rebuild_OverdueRentals_ExpiresThemOnNextTick() {
+        rentalExpiryScheduler.rebuild();
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> rentalStatuses().equals(
+                        List.of("CANCELED", "CANCELED", "CANCELED")));
+        assertEquals(List.of("EXPIRED", "EXPIRED", "EXPIRED"), paymentStatuses());
+        assertEquals(CAR_INVENTORY + 2, inventory(1L));
+        assertEquals(CAR_INVENTORY + 1, inventory(2L));
+    }
+
+    @Test
+    @DisplayName("Verify that a new rental holds its car until its hold window is over")
+    void schedule_NewRental_ExpiresAtDeadline() {
+        LocalDateTime createdAt = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "car_id, user_id, status, created_at, is_deleted) "
+                + "VALUES (?, CURRENT_DATE, CURRENT_DATE + 5, 2, 4, 'PENDING', ?, FALSE)",
+                FRESH_RENTAL_ID, createdAt);
+        Rental rental = Rental.builder()
+                .id(FRESH_RENTAL_ID)
+                .rentalDate(LocalDate.now())
+                .createdAt(createdAt)
+                .status(Rental.Status.PENDING)
+                .build();
+
+        final long releasedBefore = meterRegistry.get("rental.expiry.release").timer().count();
+
+        rentalExpiryScheduler.schedule(rental);
+
+        assertEquals(Rental.Status.PENDING,
+                rentalRepository.findById(FRESH_RENTAL_ID).orElseThrow().getStatus());
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> rentalRepository.findById(FRESH_RENTAL_ID).isEmpty());
+        long heldMillis = Duration.between(createdAt, LocalDateTime.now()).toMillis();
+        assertTrue(heldMillis >= 2_000 && heldMillis < 3_000,
+                "Car was held for " + heldMillis + " ms");
+        assertEquals(CAR_INVENTORY + 1, inventory(2L));
+        // the release is timed once its transaction has committed
+        await().atMost(Duration.ofSeconds(5)).until(() -> releasedBefore + 1
+                == meterRegistry.get("rental.expiry.release").timer().count());
+    }
+
+    private List<String> rentalStatuses() {
+        return jdbcTemplate.queryForList("SELECT status FROM rentals ORDER BY id", String.class);
+    }
+
+    private List<String> paymentStatuses() {
+        return jdbcTemplate.queryForList("SELECT status FROM payments ORDER BY id", String.class);
+    }
+
+    private int inventory(Long carId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT inventory FROM cars WHERE id = ?", Integer.class, carId);
+    }
+}
@@ -1,28 +1,41 @@
 package car.sharing.service.rental;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import car.sharing.dto.page.CursorPage;
 import car.sharing.dto.rental.RentalResponseDto;
+import car.sharing.dto.rental.RentalView;
 import car.sharing.exception.CarRentalException;
 import car.sharing.mapper.RentalMapper;
 import car.sharing.model.Car;
 import car.sharing.model.Payment;
 import car.sharing.model.Rental;
 import car.sharing.model.User;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RentalReturned;
 import car.sharing.repository.CarRepository;
 import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalReadRepository;
 import car.sharing.repository.RentalRepository;
-import car.sharing.telegram.strategy.NotificationStrategy;
-import car.sharing.telegram.strategy.rental.TelegramRentalReturningNotificationService;
+import car.sharing.service.inventory.InventoryService;
+import car.sharing.service.payment.PaymentSessionService;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import car.sharing.service.stats.DailyStatsRollup;
 import com.stripe.exception.StripeException;
 import jakarta.persistence.EntityNotFoundException;
 import java.math.BigDecimal;
@@ -30,29 +43,59 @@ import java.net.MalformedURLException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class RentalServiceImplTest {
     @Mock
     private RentalRepository rentalRepository;
     @Mock
+    private RentalReadRepository rentalReadRepository;
+    @Mock
     private RentalMapper rentalMapper;
     @Mock
     private CarRepository carRepository;
     @Mock
     private PaymentRepository paymentRepository;
     @Mock
-    private NotificationStrategy<Rental> notificationStrategy;
+    private OutboxPublisher outboxPublisher;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private PaymentSessionService paymentSessionService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private RentalExpiryScheduler rentalExpiryScheduler;
+    @Mock
+    private OverdueRentalIndex overdueRentalIndex;
+    @Mock
+    private DailyStatsRollup dailyStatsRollup;
+    @Spy
+    private PaymentStrategy paymentStrategy = new PaymentStrategy(
+            List.of(new InTimePaymentService(), new FinePaymentService()));
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
     @InjectMocks
     private RentalServiceImpl rentalService;
 
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.setTransactionManager(transactionManager);
+    }
+
     @Test
     @DisplayName("Verify that addRental() works as expected with valid params")
     void addRental_ValidParams_ReturnValidResponse() {
@@ -74,14 +117,40 @@ class RentalServiceImplTest {
                 user.getId(),
                 Payment.Status.PENDING))
                 .thenReturn(Optional.empty());
-        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
         when(rentalRepository.save(any())).thenReturn(rental);
-        when(carRepository.save(any())).thenReturn(car);
-        when(rentalMapper.toResponseDto(any())).thenReturn(expected);
+        when(rentalMapper.toResponseDto(any(Rental.class))).thenReturn(expected);
 
-        RentalResponseDto actual = rentalService.addRental(user, car.getId(), daysToRent);
+        RentalResponseDto actual = rentalService.addRental(user, car.getId(), null, daysToRent);
 
         assertEquals(expected, actual);
+        verify(inventoryService, times(1))
+                .reserve(car.getId(), LocalDate.now(), LocalDate.now().plusDays(daysToRent),
+                        false);
+        verify(rentalRepository, times(1)).save(argThat(saved -> !saved.isAdvance()));
+        verify(rentalExpiryScheduler, times(1)).schedule(any());
+    }
+
+    @Test
+    @DisplayName("Verify that addRental() books a car ahead for a later rental date")
+    void addRental_LaterRentalDate_BooksAhead() {
+        User user = new User();
+        user.setId(1L);
+
+        LocalDate rentalDate = LocalDate.now().plusDays(10);
+
+        when(rentalRepository.findActiveByUserId(user.getId())).thenReturn(Optional.empty());
+        when(paymentRepository.findByTypeAndUserIdAndStatus(
+                Payment.Type.FINE,
+                user.getId(),
+                Payment.Status.PENDING))
+                .thenReturn(Optional.empty());
+
+        rentalService.addRental(user, 1L, rentalDate, 3);
+
+        verify(inventoryService, times(1)).reserve(1L, rentalDate, rentalDate.plusDays(3), true);
+        verify(rentalRepository, times(1)).save(argThat(rental -> rental.isAdvance()
+                && rentalDate.equals(rental.getRentalDate())
+                && rentalDate.plusDays(3).equals(rental.getRequiredReturnDate())));
     }
 
     @Test
@@ -94,7 +163,7 @@ class RentalServiceImplTest {
                 .thenReturn(Optional.of(new Rental()));
 
         CarRentalException exception = assertThrows(CarRentalException.class, () ->
-                rentalService.addRental(user, 1L, 5));
+                rentalService.addRental(user, 1L, null, 5));
 
         String expected = "You already have a pending or lasting rental,"
                 + " pay for it first or cancel it."
@@ -120,7 +189,7 @@ class RentalServiceImplTest {
                 .thenReturn(Optional.of(payment));
 
         CarRentalException exception = assertThrows(CarRentalException.class,
-                () -> rentalService.addRental(user, 1L, 5));
+                () -> rentalService.addRental(user, 1L, null, 5));
 
         String expected = "You can't rent a new car until you pay fine";
         String actual = exception.getMessage();
@@ -141,12 +210,14 @@ class RentalServiceImplTest {
                 any()))
                 .thenReturn(Optional.empty());
 
-        when(carRepository.findById(anyLong())).thenReturn(Optional.empty());
+        long carId = 1L;
 
-        long carId = anyLong();
+        doThrow(new EntityNotFoundException("There is no car by id " + carId))
+                .when(inventoryService)
+                .reserve(carId, LocalDate.now(), LocalDate.now().plusDays(5), false);
 
         EntityNotFoundException notFoundException = assertThrows(EntityNotFoundException.class,
-                () -> rentalService.addRental(user, carId, 5));
+                () -> rentalService.addRental(user, carId, null, 5));
 
         String expected = "There is no car by id " + carId;
         String actual = notFoundException.getMessage();
@@ -170,10 +241,13 @@ class RentalServiceImplTest {
                 any()))
                 .thenReturn(Optional.empty());
 
-        when(carRepository.findById(car.getId())).thenReturn(Optional.of(car));
+        doThrow(new CarRentalException("Sorry, this car is not available now."
+                + " Every one is busy"))
+                .when(inventoryService)
+                .reserve(car.getId(), LocalDate.now(), LocalDate.now().plusDays(5), false);
 
         CarRentalException noInventoryException = assertThrows(CarRentalException.class,
-                () -> rentalService.addRental(user, car.getId(), 5));
+                () -> rentalService.addRental(user, car.getId(), null, 5));
 
         String expected = "Sorry, this car is not available now. Every one is busy";
         String actual = noInventoryException.getMessage();
@@ -208,7 +282,7 @@ class RentalServiceImplTest {
         assertEquals(expectedList, actualList);
         assertEquals(expected, actualList.get(0));
 
-        verify(rentalMapper, times(1)).toResponseDto(any());
+        verify(rentalMapper, times(1)).toResponseDto(any(Rental.class));
         verifyNoMoreInteractions(rentalMapper);
     }
 
@@ -247,7 +321,7 @@ class RentalServiceImplTest {
 
         assertEquals(expected, actual);
 
-        verify(rentalMapper, times(2)).toResponseDto(any());
+        verify(rentalMapper, times(2)).toResponseDto(any(Rental.class));
         verifyNoMoreInteractions(rentalMapper);
     }
 
@@ -304,14 +378,15 @@ class RentalServiceImplTest {
         RentalResponseDto firstDto = createResponseDto(firstRental);
         RentalResponseDto secondDto = createResponseDto(secondRental);
 
-        List<Rental> rentals = List.of(firstRental, secondRental);
+        RentalView firstView = createView(firstRental);
+        RentalView secondView = createView(secondRental);
 
-        when(rentalRepository.findAllByUserId(
+        when(rentalReadRepository.findAllByUserId(
                 user.getId(),
                 PageRequest.of(0, 5)))
-                .thenReturn(rentals);
-        when(rentalMapper.toResponseDto(firstRental)).thenReturn(firstDto);
-        when(rentalMapper.toResponseDto(secondRental)).thenReturn(secondDto);
+                .thenReturn(List.of(firstView, secondView));
+        when(rentalMapper.toResponseDto(firstView)).thenReturn(firstDto);
+        when(rentalMapper.toResponseDto(secondView)).thenReturn(secondDto);
 
         List<RentalResponseDto> expected = List.of(firstDto, secondDto);
 
@@ -319,6 +394,7 @@ class RentalServiceImplTest {
                 rentalService.getAllRentals(user, PageRequest.of(0, 5));
 
         assertEquals(expected, actual);
+        verifyNoInteractions(rentalRepository);
     }
 
     @Test
@@ -343,13 +419,54 @@ class RentalServiceImplTest {
                 user.getId()))
                 .thenReturn(Optional.of(rental));
         when(carRepository.findById(rental.getCarId())).thenReturn(Optional.of(car));
-        when(notificationStrategy.getNotificationService(any(), any()))
-                .thenReturn(mock(TelegramRentalReturningNotificationService.class));
         when(rentalMapper.toResponseDto(rental)).thenReturn(expected);
 
         RentalResponseDto actual = rentalService.setReturnDate(user);
 
         assertEquals(expected, actual);
+        verify(inventoryService, times(1)).release(rental);
+        verify(outboxPublisher, times(1)).publish(RentalReturned.of(rental));
+        verify(overdueRentalIndex, times(1)).remove(rental.getId());
+        verify(dailyStatsRollup, times(1)).rentalReturned(rental);
+        verifyNoInteractions(paymentSessionService);
+    }
+
+    @Test
+    @DisplayName("Verify that setReturnDate() creates Stripe session for a fine after commit")
+    void setReturnDate_LateReturn_AttachesFineSessionAfterCommit()
+            throws StripeException, MalformedURLException {
+        User user = new User();
+        user.setId(1L);
+
+        Car car = createCar("Test brand", "Test model");
+        car.setId(1L);
+
+        Rental rental =
+                createRental(Rental.Status.LASTING, car.getId(), user.getId(), 5);
+        rental.setId(1L);
+        rental.setRequiredReturnDate(LocalDate.now().minusDays(2));
+
+        when(rentalRepository.findRentalByStatusAndUserId(
+                Rental.Status.LASTING,
+                user.getId()))
+                .thenReturn(Optional.of(rental));
+        when(carRepository.findById(rental.getCarId())).thenReturn(Optional.of(car));
+
+        rentalService.setReturnDate(user);
+
+        Payment expectedFine = Payment.builder()
+                .type(Payment.Type.FINE)
+                .status(Payment.Status.PENDING)
+                .rentalId(rental.getId())
+                .userId(user.getId())
+                .amountToPay(new BigDecimal("60.00"))
+                .build();
+        InOrder inOrder = inOrder(paymentRepository, transactionManager, paymentSessionService);
+        inOrder.verify(paymentRepository).save(expectedFine);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(paymentSessionService)
+                .attachSession(expectedFine, "Test brand Test model", null);
+        assertEquals(Rental.Status.RETURNED, rental.getStatus());
     }
 
     @Test
@@ -374,6 +491,7 @@ class RentalServiceImplTest {
         assertEquals(payment.getStatus(), Payment.Status.CANCELED);
         assertTrue(rental.isDeleted());
         assertTrue(payment.isDeleted());
+        verify(inventoryService, times(1)).release(rental);
     }
 
     @Test
@@ -403,6 +521,49 @@ class RentalServiceImplTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    @DisplayName("Verify that getAllActive() method pages by cursor of return date and id")
+    void getAllActive_Cursor_ReturnsPagesByReturnDateAndId() {
+        Rental firstRental =
+                createRental(Rental.Status.LASTING, 1L, 1L, 5);
+        firstRental.setId(7L);
+        Rental secondRental =
+                createRental(Rental.Status.LASTING, 2L, 2L, 10);
+        secondRental.setId(3L);
+
+        RentalResponseDto firstDto = createResponseDto(firstRental);
+        RentalResponseDto secondDto = createResponseDto(secondRental);
+
+        when(rentalRepository.findAllByStatus(
+                Rental.Status.LASTING,
+                PageRequest.of(0, 2, Sort.by("requiredReturnDate", "id"))))
+                .thenReturn(List.of(firstRental, secondRental));
+        when(rentalRepository.findAllByStatusAfter(
+                Rental.Status.LASTING,
+                firstRental.getRequiredReturnDate(),
+                firstRental.getId(),
+                PageRequest.of(0, 2)))
+                .thenReturn(List.of(secondRental));
+        when(rentalMapper.toResponseDto(firstRental)).thenReturn(firstDto);
+        when(rentalMapper.toResponseDto(secondRental)).thenReturn(secondDto);
+
+        CursorPage<RentalResponseDto> firstPage = rentalService.getAllActive("", 1);
+        CursorPage<RentalResponseDto> secondPage =
+                rentalService.getAllActive(firstPage.nextCursor(), 1);
+
+        assertEquals(List.of(firstDto), firstPage.content());
+        assertEquals(List.of(secondDto), secondPage.content());
+        assertNull(secondPage.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Verify that getAllActive() method rejects a malformed cursor")
+    void getAllActive_InvalidCursor_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> rentalService.getAllActive("not a cursor", 5));
+        verifyNoInteractions(rentalRepository);
+    }
+
     private Payment createFinePayment() {
         return Payment.builder()
                 .rentalId(1L)
@@ -437,6 +598,17 @@ class RentalServiceImplTest {
                 .build();
     }
 
+    private RentalView createView(Rental rental) {
+        return new RentalView(
+                rental.getId(),
+                rental.getRentalDate(),
+                rental.getRequiredReturnDate(),
+                rental.getActualReturnDate(),
+                rental.getCarId(),
+                rental.getUserId(),
+                rental.getStatus());
+    }
+
     private RentalResponseDto createResponseDto(Rental rental) {
         RentalResponseDto responseDto = new RentalResponseDto();
         responseDto.setId(rental.getId());
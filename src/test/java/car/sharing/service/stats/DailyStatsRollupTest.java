@@ -0,0 +1,152 @@
+package car.sharing.service.stats;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import car.sharing.batch.ChunkedJobRunner;
+import car.sharing.batch.DailyStatsBackfillJob;
+import car.sharing.dto.stats.CarDailyStatsDto;
+import car.sharing.dto.stats.CarTypeDailyStatsDto;
+import car.sharing.model.Car;
+import car.sharing.repository.CarDailyStatsRepository;
+import car.sharing.repository.CarTypeDailyStatsRepository;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@Import({DailyStatsRollup.class, CarTypeDailyStatsAggregator.class, DailyStatsBackfillJob.class,
+        ChunkedJobRunner.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class DailyStatsRollupTest {
+    private static final LocalDate RENTAL_DATE = LocalDate.parse("2024-04-01");
+    private static final LocalDate RETURN_DATE = LocalDate.parse("2024-04-05");
+    private static final BigDecimal NOTHING = new BigDecimal("0.00");
+    private static final BigDecimal PAID = new BigDecimal("18.00");
+    private static final BigDecimal FINE = new BigDecimal("54.00");
+    private static final List<CarDailyStatsDto> CAR_STATS = List.of(
+            new CarDailyStatsDto(1L, RENTAL_DATE, 1, 0, 0, PAID, NOTHING, 0),
+            new CarDailyStatsDto(2L, RENTAL_DATE, 0, 0, 1, NOTHING, NOTHING, 0),
+            new CarDailyStatsDto(1L, RETURN_DATE, 0, 1, 0, NOTHING, FINE, 4));
+    private static final List<CarTypeDailyStatsDto> CAR_TYPE_STATS = List.of(
+            new CarTypeDailyStatsDto(Car.Type.SEDAN, RENTAL_DATE, 1, 0, 0, PAID, NOTHING, 0),
+            new CarTypeDailyStatsDto(Car.Type.UNIVERSAL, RENTAL_DATE, 0, 0, 1,
+                    NOTHING, NOTHING, 0),
+            new CarTypeDailyStatsDto(Car.Type.SEDAN, RETURN_DATE, 0, 1, 0, NOTHING, FINE, 4));
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+    @Autowired
+    private DailyStatsBackfillJob dailyStatsBackfillJob;
+    @Autowired
+    private ChunkedJobRunner chunkedJobRunner;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private CarDailyStatsRepository carDailyStatsRepository;
+    @Autowired
+    private CarTypeDailyStatsRepository carTypeDailyStatsRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("""
+            Verify that increments of rentals and payments and their type rollup
+            add up to their backfill
+            """)
+    void rollup_RentalLifecycles_MatchesBackfill() {
+        // returned two days late with its payment and fine paid
+        insertRental(1L, 1L, "RETURNED", RETURN_DATE);
+        insertPayment(1L, 1L, "PAYMENT", "PAID", PAID);
+        insertPayment(2L, 1L, "FINE", "PAID", FINE);
+        // expired, then canceled by its users before and after creating a payment,
+        // which is not counted
+        insertRental(2L, 2L, "PENDING", null);
+        insertRental(3L, 2L, "CANCELED", null);
+        insertPayment(3L, 3L, "PAYMENT", "CANCELED", NOTHING);
+        insertRental(4L, 2L, "CANCELED", null);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyStatsRollup.rentalStarted(rentalRepository.findById(1L).orElseThrow());
+            dailyStatsRollup.paymentPaid(paymentRepository.findById(1L).orElseThrow());
+            dailyStatsRollup.rentalReturned(rentalRepository.findById(1L).orElseThrow());
+            dailyStatsRollup.paymentPaid(paymentRepository.findById(2L).orElseThrow());
+            dailyStatsRollup.rentalsExpired(
+                    rentalRepository.countByCarIdAndRentalDateIn(List.of(2L)));
+            rentalRepository.expireAllByIdIn(List.of(2L));
+            // type rows are recomputed after the commit, not in the caller's transaction
+            assertEquals(List.of(), carTypeStats());
+        });
+
+        assertEquals(CAR_STATS, carStats());
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertEquals(CAR_TYPE_STATS, carTypeStats()));
+
+        chunkedJobRunner.run(dailyStatsBackfillJob);
+
+        assertEquals(CAR_STATS, carStats());
+        assertEquals(CAR_TYPE_STATS, carTypeStats());
+
+        // a backfill replaces the days it recomputes, so running it again changes nothing
+        chunkedJobRunner.run(dailyStatsBackfillJob);
+
+        assertEquals(CAR_STATS, carStats());
+        assertEquals(CAR_TYPE_STATS, carTypeStats());
+    }
+
+    private void insertRental(Long id, Long carId, String status, LocalDate actualReturnDate) {
+        jdbcTemplate.update("INSERT INTO rentals (id, rental_date, required_return_date, "
+                + "actual_return_date, car_id, user_id, status, is_deleted) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                id, RENTAL_DATE, RENTAL_DATE.plusDays(2), actualReturnDate, carId, id, status,
+                "CANCELED".equals(status));
+    }
+
+    private void insertPayment(
+            Long id,
+            Long rentalId,
+            String type,
+            String status,
+            BigDecimal amount) {
+        jdbcTemplate.update("INSERT INTO payments (id, user_id, rental_id, status, type, "
+                + "amount_to_pay, is_deleted) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, rentalId, rentalId, status, type, amount, "CANCELED".equals(status));
+    }
+
+    private List<CarDailyStatsDto> carStats() {
+        return carDailyStatsRepository.findAllByStatsDateBetween(
+                RENTAL_DATE, RETURN_DATE, null, Pageable.unpaged());
+    }
+
+    private List<CarTypeDailyStatsDto> carTypeStats() {
+        return carTypeDailyStatsRepository.findAllByStatsDateBetween(
+                RENTAL_DATE, RETURN_DATE, null);
+    }
+}
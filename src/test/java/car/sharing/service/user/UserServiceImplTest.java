@@ -2,22 +2,27 @@ package car.sharing.service.user;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import car.sharing.dto.user.UserRegistrationRequestDto;
 import car.sharing.dto.user.UserResponseDto;
 import car.sharing.dto.user.UserSearchParametersDto;
+import car.sharing.dto.user.UserUpdateInfoRequestDto;
 import car.sharing.dto.user.UserUpdatedRolesResponseDto;
 import car.sharing.exception.RegistrationException;
 import car.sharing.mapper.UserMapper;
 import car.sharing.model.Role;
 import car.sharing.model.User;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.outbox.event.RoleChanged;
 import car.sharing.repository.UserRepository;
 import car.sharing.repository.specification.user.UserSpecificationBuilder;
-import car.sharing.telegram.strategy.NotificationStrategy;
-import car.sharing.telegram.strategy.user.TelegramRoleUpdatingNotificationService;
+import car.sharing.security.PrincipalCache;
+import car.sharing.security.TokenRevocationService;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -45,7 +50,13 @@ class UserServiceImplTest {
     @Mock
     private UserSpecificationBuilder userSpecificationBuilder;
     @Mock
-    private NotificationStrategy<User> notificationStrategy;
+    private OutboxPublisher outboxPublisher;
+    @Mock
+    private PrincipalCache principalCache;
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+    @Mock
+    private UserSearchIndex userSearchIndex;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -67,6 +78,7 @@ class UserServiceImplTest {
         UserResponseDto actual = userService.register(requestDto);
 
         assertEquals(expected, actual);
+        verify(userSearchIndex, times(1)).add(user);
     }
 
     @Test
@@ -124,8 +136,6 @@ class UserServiceImplTest {
 
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         when(userRepository.save(user)).thenReturn(user);
-        when(notificationStrategy.getNotificationService(any(), any()))
-                .thenReturn(mock(TelegramRoleUpdatingNotificationService.class));
         when(userMapper.toUpdatedResponseDto(user)).thenReturn(expected);
 
         UserUpdatedRolesResponseDto actual =
@@ -145,8 +155,6 @@ class UserServiceImplTest {
         expected.setRolesIds(Set.of(1L, 2L));
 
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(notificationStrategy.getNotificationService(any(), any()))
-                .thenReturn(mock(TelegramRoleUpdatingNotificationService.class));
         when(userMapper.toUpdatedResponseDto(user)).thenReturn(expected);
 
         UserUpdatedRolesResponseDto actual =
@@ -154,6 +162,52 @@ class UserServiceImplTest {
 
         assertEquals(expected, actual);
         assertEquals(2, actual.getRolesIds().size());
+        verify(tokenRevocationService, times(1)).revokeAll(user.getId());
+        verify(principalCache, times(1)).evict(user.getEmail());
+        verify(outboxPublisher, times(1)).publish(new RoleChanged(user.getId(),
+                Set.of(Role.RoleName.ROLE_CUSTOMER, Role.RoleName.ROLE_MANAGER)));
+    }
+
+    @Test
+    @DisplayName("Verify that delete() evicts cached principal and revokes tokens of the user")
+    void delete_ValidId_EvictsCachedPrincipalAndRevokesTokens() {
+        User user = createUser();
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        userService.delete(user.getId());
+
+        verify(tokenRevocationService, times(1)).revokeAll(user.getId());
+        verify(principalCache, times(1)).evict(user.getEmail());
+        verify(userRepository, times(1)).deleteById(user.getId());
+        verify(userSearchIndex, times(1)).remove(user);
+    }
+
+    @Test
+    @DisplayName("Verify that updateProfile() revokes tokens when the email changes only")
+    void updateProfile_NameThenEmailChanged_RevokesTokensOnEmailChange() {
+        User user = createUser();
+        final String oldEmail = user.getEmail();
+        UserUpdateInfoRequestDto newName =
+                new UserUpdateInfoRequestDto("Changed", null, null, null);
+        final UserUpdateInfoRequestDto newEmail =
+                new UserUpdateInfoRequestDto(null, null, null, "changed@example.com");
+
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        userService.updateProfile(user, newName);
+
+        verify(principalCache, times(1)).evict(oldEmail);
+        verify(tokenRevocationService, never()).revokeAll(user.getId());
+
+        doAnswer(invocation -> {
+            user.setEmail(newEmail.email());
+            return null;
+        }).when(userMapper).updateModel(user, newEmail);
+        userService.updateProfile(user, newEmail);
+
+        verify(principalCache, times(2)).evict(oldEmail);
+        verify(tokenRevocationService, times(1)).revokeAll(user.getId());
     }
 
     @Test
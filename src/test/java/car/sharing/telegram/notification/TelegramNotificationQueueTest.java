@@ -0,0 +1,162 @@
+package car.sharing.telegram.notification;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TelegramNotificationQueueTest {
+    private static final Long FIRST_CHAT_ID = 1L;
+    private static final Long SECOND_CHAT_ID = 2L;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TelegramNotificationQueue notificationQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        notificationQueue.stop();
+    }
+
+    @Test
+    @DisplayName("Verify that messages for the same chat are coalesced into one message")
+    void enqueue_SeveralMessagesForSameChat_SendsOneMessagePerChat() {
+        StubTelegramMessageSender sender = new StubTelegramMessageSender();
+        notificationQueue = createQueue(sender, 10, 1);
+
+        // workers are started after enqueueing, so all messages get into one batch
+        notificationQueue.enqueue(FIRST_CHAT_ID, "first");
+        notificationQueue.enqueue(SECOND_CHAT_ID, "second");
+        notificationQueue.enqueue(FIRST_CHAT_ID, "third");
+        notificationQueue.start();
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> sender.getSentMessages().size() == 2);
+
+        List<StubTelegramMessageSender.SentMessage> actual = sender.getSentMessages();
+        assertEquals(FIRST_CHAT_ID, actual.get(0).chatId());
+        assertEquals("first" + System.lineSeparator() + "third", actual.get(0).message());
+        assertEquals(SECOND_CHAT_ID, actual.get(1).chatId());
+        assertEquals("second", actual.get(1).message());
+    }
+
+    @Test
+    @DisplayName("Verify that a failed send is retried until it succeeds")
+    void enqueue_SenderFailsTwice_RetriesAndSends() {
+        AtomicInteger attempts = new AtomicInteger();
+        StubTelegramMessageSender stubSender = new StubTelegramMessageSender();
+        notificationQueue = createQueue((chatId, message) -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new RuntimeException("Can't send message " + message);
+            }
+            stubSender.send(chatId, message);
+        }, 10, 3);
+        notificationQueue.start();
+
+        notificationQueue.enqueue(FIRST_CHAT_ID, "message");
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> stubSender.getSentMessages().size() == 1);
+
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.get("telegram.notifications")
+                .tag("result", "retried").counter().count());
+    }
+
+    @Test
+    @DisplayName("Verify that a message waiting for a retry doesn't hold up other messages")
+    void enqueue_SenderFailsForOneChat_SendsOtherChatsMeanwhile() {
+        AtomicInteger attempts = new AtomicInteger();
+        StubTelegramMessageSender stubSender = new StubTelegramMessageSender();
+        notificationQueue = createQueue((chatId, message) -> {
+            if (FIRST_CHAT_ID.equals(chatId)) {
+                attempts.incrementAndGet();
+                throw new RuntimeException("Can't send message " + message);
+            }
+            stubSender.send(chatId, message);
+        }, 10, 3, Duration.ofMinutes(1));
+        notificationQueue.start();
+
+        notificationQueue.enqueue(FIRST_CHAT_ID, "first");
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> attempts.get() == 1);
+        notificationQueue.enqueue(SECOND_CHAT_ID, "second");
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> stubSender.getSentMessages().size() == 1);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Verify that queued messages are sent before the queue stops")
+    void stop_QueuedMessages_SendsThemBeforeStopping() throws InterruptedException {
+        StubTelegramMessageSender sender = new StubTelegramMessageSender();
+        notificationQueue = createQueue(sender, 10, 1);
+        notificationQueue.enqueue(FIRST_CHAT_ID, "first");
+        notificationQueue.enqueue(SECOND_CHAT_ID, "second");
+        notificationQueue.start();
+
+        notificationQueue.stop();
+
+        assertEquals(2, sender.getSentMessages().size());
+    }
+
+    @Test
+    @DisplayName("Verify that a message is dropped when the queue is full")
+    void enqueue_FullQueue_DropsMessage() {
+        notificationQueue = createQueue(new StubTelegramMessageSender(), 1, 1);
+
+        // workers are not started, so nothing drains the queue of capacity 1
+        notificationQueue.enqueue(FIRST_CHAT_ID, "first");
+        notificationQueue.enqueue(FIRST_CHAT_ID, "second");
+        notificationQueue.start();
+
+        assertEquals(1.0, meterRegistry.get("telegram.notifications")
+                .tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Verify that accept() refuses a message instead of dropping it when full")
+    void accept_FullQueue_ThrowsException() {
+        notificationQueue = createQueue(new StubTelegramMessageSender(), 1, 1);
+
+        // workers are not started, so nothing drains the queue of capacity 1
+        notificationQueue.accept(FIRST_CHAT_ID, "first");
+        assertThrows(IllegalStateException.class,
+                () -> notificationQueue.accept(FIRST_CHAT_ID, "second"));
+        notificationQueue.start();
+
+        assertEquals(0.0, meterRegistry.get("telegram.notifications")
+                .tag("result", "dropped").counter().count());
+    }
+
+    private TelegramNotificationQueue createQueue(
+            TelegramMessageSender sender,
+            int capacity,
+            int maxAttempts) {
+        return createQueue(sender, capacity, maxAttempts, Duration.ofMillis(10));
+    }
+
+    private TelegramNotificationQueue createQueue(
+            TelegramMessageSender sender,
+            int capacity,
+            int maxAttempts,
+            Duration initialBackoff) {
+        return new TelegramNotificationQueue(
+                sender,
+                meterRegistry,
+                capacity,
+                1,
+                10,
+                maxAttempts,
+                initialBackoff,
+                Duration.ofMillis(10),
+                Duration.ofSeconds(1),
+                false);
+    }
+}
@@ -0,0 +1,58 @@
+package car.sharing.telegram.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import car.sharing.telegram.strategy.response.AdminResponseService;
+import car.sharing.telegram.strategy.response.AdminResponseStrategy;
+import car.sharing.telegram.strategy.response.impl.AdminGetCarResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminGetPaymentResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminHelpResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminStartResponseService;
+import car.sharing.telegram.strategy.response.impl.AdminUnknownResponseService;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AdminResponseStrategyTest {
+    private final AdminUnknownResponseService unknownResponseService =
+            new AdminUnknownResponseService();
+    private final AdminGetCarResponseService getCarResponseService =
+            new AdminGetCarResponseService(null);
+    private final AdminGetPaymentResponseService getPaymentResponseService =
+            new AdminGetPaymentResponseService(null);
+    private final AdminResponseStrategy adminResponseStrategy = new AdminResponseStrategy(
+            List.of(new AdminStartResponseService(),
+                    new AdminHelpResponseService(),
+                    getCarResponseService,
+                    getPaymentResponseService),
+            unknownResponseService);
+
+    @Test
+    @DisplayName("Verify that getResponseService() picks the command matching the text")
+    void getResponseService_ValidCommand_ReturnsCommandService() {
+        AdminResponseService actual =
+                adminResponseStrategy.getResponseService("get INFO about a car with id: 5");
+
+        assertEquals(getCarResponseService, actual);
+        assertEquals(getPaymentResponseService,
+                adminResponseStrategy.getResponseService("Get info about a payment with id:7"));
+    }
+
+    @Test
+    @DisplayName("Verify that getResponseService() falls back to unknown service for other text")
+    void getResponseService_UnknownText_ReturnsUnknownService() {
+        assertEquals(unknownResponseService,
+                adminResponseStrategy.getResponseService("Get info about a car with id: x"));
+        assertEquals(unknownResponseService,
+                adminResponseStrategy.getResponseService("/start now"));
+    }
+
+    @Test
+    @DisplayName("Verify that the strategy can't be created with two services for one command")
+    void constructor_DuplicateCommand_ThrowsException() {
+        assertThrows(IllegalStateException.class, () -> new AdminResponseStrategy(
+                List.of(new AdminHelpResponseService(), new AdminHelpResponseService()),
+                unknownResponseService));
+    }
+}
@@ -0,0 +1,109 @@
+package car.sharing.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class GeoGridTest {
+    private static final int CELLS_PER_DEGREE = 10;
+    private static final int POINTS = 5_000;
+    private final GeoGrid geoGrid = new GeoGrid(CELLS_PER_DEGREE);
+
+    @Test
+    @DisplayName("Verify that the nearest accepted points within the radius are found in order")
+    void findNearest_SeveralPoints_ReturnsNearestFirst() {
+        geoGrid.put(1, 50.4501, 30.5234);
+        geoGrid.put(2, 50.4547, 30.5238);
+        geoGrid.put(3, 50.4412, 30.5215);
+        geoGrid.put(4, 50.4600, 30.6000);
+        geoGrid.put(5, 49.8397, 24.0297);
+
+        assertEquals(List.of(1, 2, 3), ids(geoGrid.findNearest(
+                50.4501, 30.5234, 5, 10, id -> true)));
+        assertEquals(List.of(1, 3), ids(geoGrid.findNearest(
+                50.4501, 30.5234, 5, 10, id -> id != 2)));
+        assertEquals(List.of(1), ids(geoGrid.findNearest(50.4501, 30.5234, 5, 1, id -> true)));
+        assertEquals(0.512, geoGrid.findNearest(50.4501, 30.5234, 5, 2, id -> true)
+                .get(1).distanceKm(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Verify that moved and removed points are found where they are now")
+    void put_MovedAndRemovedPoints_FindsOnlyCurrentLocations() {
+        geoGrid.put(1, 50.4501, 30.5234);
+        geoGrid.put(2, 50.4547, 30.5238);
+
+        geoGrid.put(1, 49.8397, 24.0297);
+        geoGrid.remove(2);
+
+        assertEquals(List.of(), geoGrid.findNearest(50.4501, 30.5234, 50, 10, id -> true));
+        assertEquals(List.of(1), ids(geoGrid.findNearest(49.84, 24.03, 1, 10, id -> true)));
+        assertEquals(1, geoGrid.size());
+    }
+
+    @Test
+    @DisplayName("Verify that the grid finds what comparing every point finds, poles included")
+    void findNearest_RandomPoints_ReturnsSameAsFullScan() {
+        Random random = new Random(42);
+        double[][] points = new double[POINTS][];
+        for (int id = 0; id < POINTS; id++) {
+            // half of them in one city, a few across the antimeridian and near a pole
+            points[id] = id % 2 == 0
+                    ? new double[]{50.45 + random.nextGaussian() * 0.1,
+                            30.52 + random.nextGaussian() * 0.1}
+                    : new double[]{random.nextDouble() * 180 - 90,
+                            random.nextDouble() * 360 - 180};
+            if (id % 25 == 1) {
+                points[id][0] = 89.9 + random.nextDouble() * 0.1;
+            }
+            if (id % 27 == 1) {
+                points[id][1] = 179.9 + random.nextDouble() * 0.1;
+            }
+            geoGrid.put(id, points[id][0], points[id][1]);
+        }
+        double[][] places = {{50.45, 30.52}, {50.6, 30.3}, {89.95, 10}, {-12, 180},
+                {-12, -179.99}, {0, 0}};
+
+        for (double[] place : places) {
+            for (double radiusKm : new double[]{1, 10, 100, 2_000}) {
+                List<Double> expected = IntStream.range(0, POINTS)
+                        .filter(id -> id % 3 != 0)
+                        .mapToDouble(id -> GeoGrid.distanceKm(
+                                place[0], place[1], points[id][0], points[id][1]))
+                        .filter(distanceKm -> distanceKm <= radiusKm)
+                        .sorted()
+                        .limit(7)
+                        .boxed()
+                        .toList();
+
+                List<Double> actual = geoGrid.findNearest(
+                                place[0], place[1], radiusKm, 7, id -> id % 3 != 0)
+                        .stream()
+                        .map(GeoGrid.Neighbour::distanceKm)
+                        .toList();
+
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Verify that coordinates off the earth are rejected")
+    void put_InvalidCoordinates_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> geoGrid.put(1, 91, 0));
+        assertThrows(IllegalArgumentException.class, () -> geoGrid.put(1, 0, -180.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> geoGrid.findNearest(0, 0, 0, 10, id -> true));
+    }
+
+    private List<Integer> ids(List<GeoGrid.Neighbour> neighbours) {
+        return neighbours.stream()
+                .map(GeoGrid.Neighbour::id)
+                .toList();
+    }
+}
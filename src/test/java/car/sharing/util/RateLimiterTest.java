@@ -0,0 +1,47 @@
+package car.sharing.util;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+    private static final int PERMITS_PER_SECOND = 100;
+    private static final int CALLERS = 21;
+
+    @Test
+    @DisplayName("Verify that concurrent callers get permits not faster than the rate")
+    void acquire_ConcurrentCallers_AreSpacedByRate() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(PERMITS_PER_SECOND);
+        long startedAt = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    rateLimiter.acquire();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // the first permit is free, the other 20 come every 10 ms
+        assertTrue(elapsedMillis >= 195, "Permits were given in " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Verify that a rate limiter can't be created with non-positive rate")
+    void constructor_ZeroRate_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0));
+    }
+}
@@ -0,0 +1,75 @@
+package car.sharing.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+    private static final Duration TICK = Duration.ofMillis(10);
+    // one turn of the wheel takes 80 ms
+    private static final int WHEEL_SIZE = 8;
+    private final BlockingQueue<Expiration> expirations = new LinkedBlockingQueue<>();
+    private final TimerWheel<String> timerWheel = new TimerWheel<>(TICK, WHEEL_SIZE,
+            expired -> expirations.add(new Expiration(expired, System.currentTimeMillis())));
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        timerWheel.stop();
+    }
+
+    @Test
+    @DisplayName("Verify that a task expires not before its deadline and within a tick after it")
+    void schedule_DeadlineAfterSeveralTurns_ExpiresOnTime() throws InterruptedException {
+        timerWheel.start(Thread.ofVirtual().factory());
+        Instant deadline = Instant.now().plusMillis(250);
+
+        timerWheel.schedule("late", deadline);
+        timerWheel.schedule("early", Instant.now().plusMillis(30));
+
+        Expiration early = expirations.poll(1, TimeUnit.SECONDS);
+        assertNotNull(early);
+        assertEquals(List.of("early"), early.tasks());
+        Expiration late = expirations.poll(1, TimeUnit.SECONDS);
+        assertNotNull(late);
+        assertEquals(List.of("late"), late.tasks());
+        long delayMillis = late.expiredAt() - deadline.toEpochMilli();
+        assertTrue(delayMillis >= 0 && delayMillis < 100,
+                "Task expired " + delayMillis + " ms after its deadline");
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    @DisplayName("Verify that tasks scheduled before start() with past deadlines expire together")
+    void schedule_PastDeadlinesBeforeStart_ExpireOnFirstTick() throws InterruptedException {
+        timerWheel.schedule("first", Instant.now().minusSeconds(60));
+        timerWheel.schedule("second", Instant.now().minusSeconds(1));
+        assertEquals(2, timerWheel.size());
+
+        timerWheel.start(Thread.ofVirtual().factory());
+
+        Expiration expiration = expirations.poll(1, TimeUnit.SECONDS);
+        assertNotNull(expiration);
+        assertEquals(List.of("first", "second"), expiration.tasks());
+    }
+
+    @Test
+    @DisplayName("Verify that a timer wheel can't be created with a size not a power of two")
+    void constructor_WheelSizeNotPowerOfTwo_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TimerWheel<String>(TICK, 10, expired -> {}));
+    }
+
+    private record Expiration(List<String> tasks, long expiredAt) {
+    }
+}
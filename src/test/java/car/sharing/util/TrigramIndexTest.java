@@ -0,0 +1,67 @@
+package car.sharing.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+    private static final int MAX_POSTINGS = 3;
+    private static final int MAX_CANDIDATES = 10;
+    private final TrigramIndex trigramIndex = new TrigramIndex(MAX_POSTINGS);
+
+    @Test
+    @DisplayName("Verify that values containing the query are found whatever their case is")
+    void findCandidates_Substring_ReturnsValuesContainingIt() {
+        trigramIndex.add(1L, "Johnson");
+        trigramIndex.add(2L, "Johnny");
+        trigramIndex.add(3L, "Smith");
+
+        assertArrayEquals(new long[]{1L, 2L}, trigramIndex.findCandidates("JOHN", MAX_CANDIDATES));
+        assertArrayEquals(new long[]{1L}, trigramIndex.findCandidates("nson", MAX_CANDIDATES));
+        assertArrayEquals(new long[0], trigramIndex.findCandidates("smyth", MAX_CANDIDATES));
+    }
+
+    @Test
+    @DisplayName("Verify that removed and replaced values are not found anymore")
+    void remove_ReplacedValue_FindsOnlyNewValue() {
+        trigramIndex.add(1L, "Johnson");
+        trigramIndex.add(2L, "Johnny");
+
+        trigramIndex.remove(1L, "Johnson");
+        trigramIndex.add(1L, "Jackson");
+
+        assertArrayEquals(new long[]{2L}, trigramIndex.findCandidates("john", MAX_CANDIDATES));
+        assertArrayEquals(new long[]{1L}, trigramIndex.findCandidates("kso", MAX_CANDIDATES));
+        assertEquals(9, trigramIndex.size());
+    }
+
+    @Test
+    @DisplayName("Verify that the index doesn't narrow down what it can't")
+    void findCandidates_UnselectiveQueries_ReturnsNull() {
+        for (long id = 1; id <= MAX_POSTINGS + 1; id++) {
+            trigramIndex.add(id, "user" + id + "@example.com");
+        }
+
+        // too short, a LIKE wildcard in every trigram, too common or too many candidates
+        assertNull(trigramIndex.findCandidates("us", MAX_CANDIDATES));
+        assertNull(trigramIndex.findCandidates("u%e_r", MAX_CANDIDATES));
+        assertNull(trigramIndex.findCandidates("example", MAX_CANDIDATES));
+        assertArrayEquals(new long[]{2L}, trigramIndex.findCandidates("r2@", MAX_CANDIDATES));
+        assertNull(trigramIndex.findCandidates("r2@", 0));
+    }
+
+    @Test
+    @DisplayName("Verify that accents are ignored and values not folding to ASCII always match")
+    void findCandidates_AccentsAndOtherScripts_ReturnsSuperset() {
+        trigramIndex.add(1L, "José");
+        trigramIndex.add(2L, "Jörg");
+        trigramIndex.add(3L, "Дмитро");
+
+        assertArrayEquals(new long[]{1L, 3L}, trigramIndex.findCandidates("jose", MAX_CANDIDATES));
+        assertArrayEquals(new long[]{2L, 3L}, trigramIndex.findCandidates("JÖR", MAX_CANDIDATES));
+        assertNull(trigramIndex.findCandidates("Дми", MAX_CANDIDATES));
+    }
+}
@@ -0,0 +1,189 @@
+package car.sharing.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+import car.sharing.model.OutboxEvent;
+import car.sharing.model.Payment;
+import car.sharing.model.Rental;
+import car.sharing.model.StripeWebhookEvent;
+import car.sharing.outbox.OutboxEventSerializer;
+import car.sharing.outbox.OutboxPublisher;
+import car.sharing.repository.CarRepository;
+import car.sharing.repository.OutboxEventRepository;
+import car.sharing.repository.PaymentRepository;
+import car.sharing.repository.RentalRepository;
+import car.sharing.repository.StripeWebhookEventRepository;
+import car.sharing.service.availability.CarAvailabilityIndex;
+import car.sharing.service.car.CarCatalogueCache;
+import car.sharing.service.car.CarCatalogueIndex;
+import car.sharing.service.inventory.InventoryServiceImpl;
+import car.sharing.service.payment.PaymentSettlement;
+import car.sharing.service.payment.strategy.FinePaymentService;
+import car.sharing.service.payment.strategy.InTimePaymentService;
+import car.sharing.service.payment.strategy.PaymentStrategy;
+import car.sharing.service.rental.OverdueRentalIndex;
+import car.sharing.service.stats.CarTypeDailyStatsAggregator;
+import car.sharing.service.stats.DailyStatsRollup;
+import com.stripe.exception.SignatureVerificationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({StripeWebhookReceiver.class, StripeWebhookProcessor.class, PaymentSettlement.class,
+        OutboxPublisher.class, OutboxEventSerializer.class, InventoryServiceImpl.class,
+        CarAvailabilityIndex.class, CarCatalogueCache.class, CarCatalogueIndex.class,
+        OverdueRentalIndex.class, PaymentStrategy.class, InTimePaymentService.class,
+        FinePaymentService.class, DailyStatsRollup.class, CarTypeDailyStatsAggregator.class,
+        SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = {
+        "classpath:database/insert-cars-to-cars-table.sql",
+        "classpath:database/insert-pending-payments.sql"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = {
+        "classpath:database/remove-pending-payments.sql",
+        "classpath:database/remove-cars-from-cars-table.sql"
+}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+class StripeWebhookProcessorTest {
+    private static final Long PAID_PAYMENT_ID = 1L;
+    private static final Long EXPIRED_PAYMENT_ID = 2L;
+    private static final Long EXPIRED_RENTAL_ID = 2L;
+    private static final Long EXPIRED_CAR_ID = 2L;
+    private static final int CAR_INVENTORY = 10;
+    private static final String OVERDUE_EVENT_TYPE = "RentalOverdue";
+    @Value("${stripe.webhook.secret}")
+    private String secret;
+    @Autowired
+    private StripeWebhookReceiver stripeWebhookReceiver;
+    @Autowired
+    private StripeWebhookProcessor stripeWebhookProcessor;
+    @Autowired
+    private StripeWebhookEventRepository webhookEventRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private RentalRepository rentalRepository;
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @SpyBean
+    private PaymentSettlement paymentSettlement;
+
+    @Test
+    @DisplayName("Verify that a batch of events pays one rental and cancels the expired one")
+    void process_CompletedAndExpiredEvents_AppliesBothInOneBatch() throws Exception {
+        receive("evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1");
+        receive("evt_2", StripeWebhookEvent.CHECKOUT_SESSION_EXPIRED, "cs_test_2");
+
+        stripeWebhookProcessor.process();
+
+        Payment paid = paymentRepository.findById(PAID_PAYMENT_ID).orElseThrow();
+        assertEquals(Payment.Status.PAID, paid.getStatus());
+        assertEquals(Rental.Status.LASTING,
+                rentalRepository.findById(paid.getRentalId()).orElseThrow().getStatus());
+        assertEquals(List.of("RentalCreated", "PaymentSucceeded"), publishedEventTypes());
+
+        assertEquals(Payment.Status.EXPIRED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE id = ?", String.class, EXPIRED_PAYMENT_ID));
+        assertEquals(Rental.Status.CANCELED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM rentals WHERE id = ?", String.class, EXPIRED_RENTAL_ID));
+        assertEquals(CAR_INVENTORY + 1,
+                carRepository.findById(EXPIRED_CAR_ID).orElseThrow().getInventory());
+        webhookEventRepository.findAll()
+                .forEach(event -> assertTrue(event.getProcessedAt() != null));
+    }
+
+    @Test
+    @DisplayName("Verify that an event redelivered by Stripe is stored and applied once")
+    void receive_RedeliveredEvent_AppliesItOnce() throws Exception {
+        assertTrue(receive("evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1"));
+        assertFalse(receive("evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1"));
+
+        stripeWebhookProcessor.process();
+        assertFalse(receive("evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1"));
+        stripeWebhookProcessor.process();
+
+        assertEquals(1, webhookEventRepository.count());
+        assertEquals(2, publishedEventTypes().size());
+    }
+
+    @Test
+    @DisplayName("Verify that a failing event is retried later and doesn't hold up other events")
+    void process_FailingEvent_AppliesOtherEventsAndCountsAttempt() throws Exception {
+        doThrow(new IllegalStateException("Can't complete payment"))
+                .when(paymentSettlement)
+                .complete(argThat(payment -> PAID_PAYMENT_ID.equals(payment.getId())), any());
+        receive("evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1");
+        receive("evt_2", StripeWebhookEvent.CHECKOUT_SESSION_EXPIRED, "cs_test_2");
+
+        stripeWebhookProcessor.process();
+
+        assertEquals(Payment.Status.EXPIRED.name(), jdbcTemplate.queryForObject(
+                "SELECT status FROM payments WHERE id = ?", String.class, EXPIRED_PAYMENT_ID));
+        assertEquals(Payment.Status.PENDING,
+                paymentRepository.findById(PAID_PAYMENT_ID).orElseThrow().getStatus());
+        StripeWebhookEvent failed = webhookEventRepository.findAll()
+                .stream()
+                .filter(event -> event.getEventId().equals("evt_1"))
+                .findFirst()
+                .orElseThrow();
+        assertNull(failed.getProcessedAt());
+        assertEquals(1, failed.getAttempts());
+    }
+
+    @Test
+    @DisplayName("Verify that an event signed with another secret is rejected")
+    void receive_WrongSignature_ThrowsException() throws GeneralSecurityException {
+        String payload = StripeWebhookReplay.checkoutSessionEvent(
+                "evt_1", StripeWebhookEvent.CHECKOUT_SESSION_COMPLETED, "cs_test_1");
+        String signature = StripeWebhookReplay.sign(payload, "whsec_another_secret");
+
+        assertThrows(SignatureVerificationException.class,
+                () -> stripeWebhookReceiver.receive(payload, signature));
+        assertEquals(0, webhookEventRepository.count());
+    }
+
+    private boolean receive(String eventId, String type, String sessionId) throws Exception {
+        String payload = StripeWebhookReplay.checkoutSessionEvent(eventId, type, sessionId);
+        return stripeWebhookReceiver.receive(payload, StripeWebhookReplay.sign(payload, secret));
+    }
+
+    /**
+     * The paid rental of the fixture is overdue already, so OverdueRentalIndex announces it
+     * on its own worker whenever it gets to it
+     */
+    private List<String> publishedEventTypes() {
+        return outboxEventRepository.findAll()
+                .stream()
+                .map(OutboxEvent::getType)
+                .filter(type -> !OVERDUE_EVENT_TYPE.equals(type))
+                .toList();
+    }
+}
@@ -0,0 +1,93 @@
+package car.sharing.webhook;
+
+import com.stripe.Stripe;
+import com.stripe.net.Webhook;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.UUID;
+
+/**
+ * Sends signed Stripe webhook events to a running application, so the webhook flow
+ * can be tested without Stripe. Every event is either a file with an event JSON
+ * (for example one copied from Stripe dashboard) or TYPE:SESSION_ID to generate one,
+ * where TYPE is completed or expired. Listing an event twice replays a redelivery.
+ * <pre>
+ * mvn test-compile org.codehaus.mojo:exec-maven-plugin:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=car.sharing.webhook.StripeWebhookReplay \
+ *     -Dexec.args="http://localhost:8088/api/webhooks/stripe whsec_... completed:cs_test_a1"
+ * </pre>
+ */
+public class StripeWebhookReplay {
+    private static final String EVENT_TYPE_PREFIX = "checkout.session.";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StripeWebhookReplay <webhook url> <signing secret>"
+                    + " <event.json | completed:SESSION_ID | expired:SESSION_ID>...");
+            System.exit(1);
+        }
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create(args[0]);
+        for (int i = 2; i < args.length; i++) {
+            String payload = toPayload(args[i]);
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .header("Stripe-Signature", sign(payload, args[1]))
+                            .POST(HttpRequest.BodyPublishers.ofString(payload))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            System.out.printf("%s -> %d %s%n", args[i], response.statusCode(), response.body());
+        }
+    }
+
+    public static String checkoutSessionEvent(String eventId, String type, String sessionId) {
+        return """
+                {
+                  "id": "%s",
+                  "object": "event",
+                  "api_version": "%s",
+                  "created": %d,
+                  "type": "%s",
+                  "data": {
+                    "object": {
+                      "id": "%s",
+                      "object": "checkout.session"
+                    }
+                  }
+                }""".formatted(eventId, Stripe.API_VERSION, Webhook.Util.getTimeNow(),
+                type, sessionId);
+    }
+
+    /**
+     * Builds Stripe-Signature header the same way Stripe does:
+     * HMAC-SHA256 of "timestamp.payload" keyed with the endpoint secret
+     */
+    public static String sign(String payload, String secret)
+            throws GeneralSecurityException {
+        long timestamp = Webhook.Util.getTimeNow();
+        String signature = Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+        return "t=" + timestamp + ",v1=" + signature;
+    }
+
+    private static String toPayload(String event) throws IOException {
+        Path path = Path.of(event);
+        if (Files.isRegularFile(path)) {
+            return Files.readString(path);
+        }
+        int separator = event.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Unknown event " + event);
+        }
+        return checkoutSessionEvent(
+                "evt_replay_" + UUID.randomUUID().toString().replace("-", ""),
+                EVENT_TYPE_PREFIX + event.substring(0, separator),
+                event.substring(separator + 1));
+    }
+}
@@ -0,0 +1,12 @@
+INSERT INTO rentals (id, rental_date, required_return_date, actual_return_date, car_id, user_id, status, created_at, is_deleted)
+VALUES (1, '2024-04-01', '2024-04-06', NULL, 1, 1, 'PENDING', '2024-04-01 10:00:00', FALSE);
+INSERT INTO rentals (id, rental_date, required_return_date, actual_return_date, car_id, user_id, status, created_at, is_deleted)
+VALUES (2, '2024-04-01', '2024-04-06', NULL, 2, 2, 'PENDING', '2024-04-01 10:00:00', FALSE);
+INSERT INTO payments (id, user_id, rental_id, status, type, session_url, session_id, amount_to_pay, is_deleted)
+VALUES (1, 1, 1, 'PENDING', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_1', 'cs_test_1', 54.00, FALSE);
+INSERT INTO payments (id, user_id, rental_id, status, type, session_url, session_id, amount_to_pay, is_deleted)
+VALUES (2, 2, 2, 'PENDING', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_2', 'cs_test_2', 93.54, FALSE);
+INSERT INTO rentals (id, rental_date, required_return_date, actual_return_date, car_id, user_id, status, created_at, is_deleted)
+VALUES (3, '2024-04-01', '2024-04-06', NULL, 1, 3, 'PENDING', '2024-04-01 10:00:00', FALSE);
+INSERT INTO payments (id, user_id, rental_id, status, type, session_url, session_id, amount_to_pay, is_deleted)
+VALUES (3, 3, 3, 'PENDING', 'PAYMENT', 'https://checkout.stripe.com/c/pay/cs_test_3', 'cs_test_3', 54.00, FALSE);
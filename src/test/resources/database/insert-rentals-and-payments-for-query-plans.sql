@@ -0,0 +1,23 @@
+INSERT INTO rentals (rental_date, required_return_date, actual_return_date, car_id, user_id, status, created_at, is_deleted)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 1000)
+SELECT DATE_ADD('2024-01-01', INTERVAL n DAY),
+       DATE_ADD('2024-01-01', INTERVAL n + 5 DAY),
+       IF(n % 20 < 2, NULL, DATE_ADD('2024-01-01', INTERVAL n + 5 DAY)),
+       n % 50 + 1,
+       n % 200 + 1,
+       CASE n % 20 WHEN 0 THEN 'LASTING' WHEN 1 THEN 'PENDING' ELSE 'RETURNED' END,
+       DATE_ADD('2024-01-01', INTERVAL n DAY),
+       FALSE
+FROM seq;
+INSERT INTO payments (user_id, rental_id, status, type, session_url, session_id, amount_to_pay, is_deleted)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 1000)
+SELECT n % 200 + 1,
+       n,
+       IF(n % 20 = 1, 'PENDING', 'PAID'),
+       IF(n % 10 = 0, 'FINE', 'PAYMENT'),
+       'https://checkout.stripe.com',
+       CONCAT('cs_test_', n),
+       10.00,
+       FALSE
+FROM seq;
+ANALYZE TABLE rentals, payments;
@@ -0,0 +1,14 @@
+DELETE
+FROM payments;
+DELETE
+FROM rentals;
+DELETE
+FROM stripe_webhook_events;
+DELETE
+FROM outbox_events;
+DELETE
+FROM batch_job_checkpoints;
+DELETE
+FROM car_daily_stats;
+DELETE
+FROM car_type_daily_stats;
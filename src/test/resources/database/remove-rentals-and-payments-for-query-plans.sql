@@ -0,0 +1,4 @@
+DELETE
+FROM payments;
+DELETE
+FROM rentals;